@@ -2,8 +2,10 @@ package pe.edu.uni.ProyectoFerreteria;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ProyectoColegioApplication {
 
     public static void main(String[] args) {
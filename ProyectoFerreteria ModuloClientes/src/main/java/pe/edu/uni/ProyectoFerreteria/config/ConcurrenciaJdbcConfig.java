@@ -0,0 +1,39 @@
+package pe.edu.uni.ProyectoFerreteria.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import pe.edu.uni.ProyectoFerreteria.util.DataSourceConLimite;
+
+/**
+ * Modo de ejecución con hilos virtuales (spring.threads.virtual.enabled=true): Tomcat atiende cada
+ * petición en un hilo virtual y las que esperan a la base no ocupan hilos del sistema. Para que
+ * miles de peticiones en vuelo no se conviertan en miles de consultas contra PostgreSQL, el
+ * DataSource se envuelve en un DataSourceConLimite con jdbc.limite.permisos conexiones a la vez.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jdbc.limite.habilitado", havingValue = "true")
+public class ConcurrenciaJdbcConfig {
+
+    @Bean
+    public static BeanPostProcessor limiteConexionesJdbc(Environment env) {
+        int permisos = env.getProperty("jdbc.limite.permisos", Integer.class,
+                env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long esperaMs = env.getProperty("jdbc.limite.espera-ms", Long.class, 5000L);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource ds && !(bean instanceof DataSourceConLimite)) {
+                    return new DataSourceConLimite(ds, permisos, esperaMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
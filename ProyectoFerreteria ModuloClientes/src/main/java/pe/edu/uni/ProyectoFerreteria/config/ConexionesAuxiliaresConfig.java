@@ -0,0 +1,24 @@
+package pe.edu.uni.ProyectoFerreteria.config;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import pe.edu.uni.ProyectoFerreteria.util.ConexionesAuxiliares;
+
+/**
+ * Conexiones auxiliares con la misma URL y credenciales que spring.datasource, pero sin pool ni
+ * límite. No se declaran como DataSource: un segundo bean de ese tipo desactivaría el pool de Spring
+ * Boot y ConcurrenciaJdbcConfig también lo envolvería en el límite.
+ */
+@Configuration
+public class ConexionesAuxiliaresConfig {
+
+    @Bean
+    public ConexionesAuxiliares conexionesAuxiliares(DataSourceProperties propiedades) {
+        return new ConexionesAuxiliares(propiedades.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build());
+    }
+}
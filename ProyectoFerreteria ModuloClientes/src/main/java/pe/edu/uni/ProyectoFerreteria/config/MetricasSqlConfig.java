@@ -0,0 +1,29 @@
+package pe.edu.uni.ProyectoFerreteria.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import pe.edu.uni.ProyectoFerreteria.util.JdbcTemplateMedido;
+
+/**
+ * Reemplaza el JdbcTemplate de Spring Boot por un JdbcTemplateMedido que informa cada sentencia a
+ * cada RegistroConsultas del contexto: MetricasConsultasService (GET /api/metricas/...),
+ * PresupuestoSqlService (presupuesto de sentencias por petición) y ConsultasLentasService (planes
+ * de las ejecuciones lentas). Con metricas.sql.habilitado=false se usa el JdbcTemplate normal: las
+ * métricas quedan vacías y ni el presupuesto ni las consultas lentas se controlan.
+ */
+@Configuration
+@ConditionalOnProperty(name = "metricas.sql.habilitado", havingValue = "true", matchIfMissing = true)
+public class MetricasSqlConfig {
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, List<JdbcTemplateMedido.RegistroConsultas> registros) {
+        return new JdbcTemplateMedido(dataSource, registros);
+    }
+}
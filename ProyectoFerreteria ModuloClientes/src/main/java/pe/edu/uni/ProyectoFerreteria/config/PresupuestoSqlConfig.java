@@ -0,0 +1,58 @@
+package pe.edu.uni.ProyectoFerreteria.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.service.PresupuestoSqlService;
+import pe.edu.uni.ProyectoFerreteria.util.PresupuestoSql;
+
+/**
+ * Abre y cierra el contador de sentencias SQL de cada petición a un controlador. El presupuesto es
+ * el de @PresupuestoSql en el método del controlador, o el general de sql.presupuesto.*.
+ *
+ * Los endpoints que escriben en streaming (StreamingResponseBody) quedan fuera del presupuesto: al
+ * devolver el cuerpo la petición pasa a modo asíncrono, afterCompletion no se llama en ese hilo y el
+ * SQL del cuerpo corre en otro hilo, sin contador. Solo se cuenta lo ejecutado antes de devolverlo.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class PresupuestoSqlConfig implements WebMvcConfigurer {
+
+    private final PresupuestoSqlService presupuestoService;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod metodo) {
+                    Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    presupuestoService.iniciar(request.getMethod() + " " + (patron != null ? patron : request.getRequestURI()),
+                            metodo.getMethodAnnotation(PresupuestoSql.class));
+                }
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    Exception ex) {
+                presupuestoService.terminar();
+            }
+
+            // El hilo vuelve al contenedor sin pasar por afterCompletion: el contador no debe quedar
+            // en él para la próxima petición que atienda
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                    Object handler) {
+                presupuestoService.terminar();
+            }
+        });
+    }
+}
@@ -1,9 +1,15 @@
 package pe.edu.uni.ProyectoFerreteria.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import pe.edu.uni.ProyectoFerreteria.dto.DetalleOfertaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.GenerarOrdenCompraRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.GenerarSolicitudRequestDto;
@@ -11,7 +17,6 @@ import pe.edu.uni.ProyectoFerreteria.dto.ItemPendienteCotizacionDto;
 import pe.edu.uni.ProyectoFerreteria.dto.OrdenPendienteRecepcionDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PedidoAbastecimientoDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PedidoDetalleDto;
-import pe.edu.uni.ProyectoFerreteria.dto.ProductoCatalogoDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ProductoParaCotizarDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ProductoProgramableDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ProgramarRecepcionRequestDto;
@@ -20,6 +25,7 @@ import pe.edu.uni.ProyectoFerreteria.dto.ProveedorDto;
 import pe.edu.uni.ProyectoFerreteria.dto.RegistrarCotizacionRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.SolicitudCotizacionDto;
 import pe.edu.uni.ProyectoFerreteria.service.ConsultasAbastecimientoService;
+import pe.edu.uni.ProyectoFerreteria.util.RespuestaJsonStreaming;
 
 import java.util.List;
 
@@ -30,6 +36,9 @@ public class AbastecimientoController {
 
     @Autowired
     private ConsultasAbastecimientoService consultasService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     @GetMapping("/proveedores")
     public ResponseEntity<List<ProveedorDto>> listarTodosProveedores() {
@@ -48,20 +57,19 @@ public class AbastecimientoController {
         }
     }
     
+    // Catálogo completo, escrito fila por fila a medida que llega de la base
     @GetMapping("/productos")
-    public ResponseEntity<List<ProductoCatalogoDto>> listarProductos() {
+    public void listarProductos(HttpServletRequest request, HttpServletResponse response) {
+        RespuestaJsonStreaming salida = new RespuestaJsonStreaming(request, response, objectMapper,
+                MediaType.APPLICATION_JSON_VALUE);
         try {
             
-            List<ProductoCatalogoDto> lista = consultasService.listarCatalogoProductos();
-            
-            if (lista.isEmpty()) {
-                return ResponseEntity.noContent().build();
-            }
-            return ResponseEntity.ok(lista);
+            consultasService.escribirCatalogoProductos(salida);
+            salida.terminar();
             
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+            salida.abortar();
         }
     }
 
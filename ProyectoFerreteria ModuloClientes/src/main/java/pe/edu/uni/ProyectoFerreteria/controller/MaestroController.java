@@ -1,6 +1,7 @@
 package pe.edu.uni.ProyectoFerreteria.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -8,11 +9,14 @@ import org.springframework.web.bind.annotation.RestController;
 
 import org.springframework.web.bind.annotation.*;
 
-import pe.edu.uni.ProyectoFerreteria.dto.MaestroCompletoDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PerfilMaestroDto;
 import pe.edu.uni.ProyectoFerreteria.service.ClientesService; // <--- CAMBIO: Usar el servicio consolidado
+import pe.edu.uni.ProyectoFerreteria.util.RespuestaJsonStreaming;
 
-import java.util.List;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/maestros")
@@ -22,14 +26,20 @@ public class MaestroController {
 
     private final ClientesService clientesService; // <--- CAMBIO: Inyección del servicio consolidado
 
+    private final ObjectMapper objectMapper;
+
+    // Se escribe fila por fila a medida que llega de la base (204 si no hay maestros)
     @GetMapping("/resumen")
-    public ResponseEntity<List<MaestroCompletoDto>> obtenerResumenMaestros() {
-        // CAMBIO: Llamada al método consolidado en ClientesService
-        List<MaestroCompletoDto> lista = clientesService.listarMaestrosCompletos(); 
-        if (lista.isEmpty()) {
-            return ResponseEntity.noContent().build();
+    public void obtenerResumenMaestros(HttpServletRequest request, HttpServletResponse response) {
+        RespuestaJsonStreaming salida = new RespuestaJsonStreaming(request, response, objectMapper,
+                MediaType.APPLICATION_JSON_VALUE);
+        try {
+            clientesService.escribirMaestrosCompletos(salida);
+            salida.terminar();
+        } catch (Exception e) {
+            e.printStackTrace();
+            salida.abortar();
         }
-        return ResponseEntity.ok(lista);
     }
     
     // Endpoint: GET /api/maestros/{codPersona}/perfil
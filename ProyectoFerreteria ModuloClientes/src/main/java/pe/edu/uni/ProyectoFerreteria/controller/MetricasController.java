@@ -0,0 +1,173 @@
+package pe.edu.uni.ProyectoFerreteria.controller;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.dto.ConsultaLentaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticaConsultaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticaEndpointDto;
+import pe.edu.uni.ProyectoFerreteria.service.ConsultasLentasService;
+import pe.edu.uni.ProyectoFerreteria.service.MetricasConsultasService;
+
+// Métricas de operación: sin @CrossOrigin y, con metricas.sql.solo-local=true, solo desde la misma máquina
+@RestController
+@RequestMapping("/api/metricas")
+@RequiredArgsConstructor
+public class MetricasController {
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final MetricasConsultasService metricasService;
+
+    private final ConsultasLentasService lentasService;
+
+    @Value("${metricas.sql.solo-local:true}")
+    private boolean soloLocal;
+
+    // Endpoint: GET /api/metricas/consultas?orden=total&limite=50
+    // orden: total | p99 | llamadas | filas | errores (de mayor a menor)
+    @GetMapping("/consultas")
+    public ResponseEntity<List<EstadisticaConsultaDto>> consultas(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "total") String orden,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        try {
+            if (!permitido(request)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (limite < 1 || limite > LIMITE_MAXIMO) {
+                return ResponseEntity.badRequest().build();
+            }
+            List<EstadisticaConsultaDto> lista = metricasService.porConsulta(orden, limite);
+
+            if (lista.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(lista);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: GET /api/metricas/endpoints (peticiones, sentencias por petición y ms en SQL por petición)
+    @GetMapping("/endpoints")
+    public ResponseEntity<List<EstadisticaEndpointDto>> endpoints(HttpServletRequest request) {
+        try {
+            if (!permitido(request)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            List<EstadisticaEndpointDto> lista = metricasService.endpoints();
+
+            if (lista.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(lista);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: GET /api/metricas/endpoints/consultas?endpoint=GET /api/maestros/{id}/perfil&orden=total
+    // Sin "endpoint" devuelve todas las combinaciones endpoint + consulta
+    @GetMapping("/endpoints/consultas")
+    public ResponseEntity<List<EstadisticaConsultaDto>> consultasPorEndpoint(
+            HttpServletRequest request,
+            @RequestParam(required = false) String endpoint,
+            @RequestParam(defaultValue = "total") String orden,
+            @RequestParam(defaultValue = "50") Integer limite) {
+        try {
+            if (!permitido(request)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            if (limite < 1 || limite > LIMITE_MAXIMO) {
+                return ResponseEntity.badRequest().build();
+            }
+            List<EstadisticaConsultaDto> lista = metricasService.porEndpoint(endpoint, orden, limite);
+
+            if (lista.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(lista);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: POST /api/metricas/reiniciar (pone todos los contadores en cero)
+    @PostMapping("/reiniciar")
+    public ResponseEntity<Void> reiniciar(HttpServletRequest request) {
+        try {
+            if (!permitido(request)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            metricasService.reiniciar();
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: GET /api/metricas/lentas?nombre=abastecimiento.recepcion.productos
+    // Últimos planes (EXPLAIN ANALYZE) de ejecuciones lentas muestreadas, los más recientes primero
+    @GetMapping("/lentas")
+    public ResponseEntity<List<ConsultaLentaDto>> consultasLentas(
+            HttpServletRequest request,
+            @RequestParam(required = false) String nombre) {
+        try {
+            if (!permitido(request)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            List<ConsultaLentaDto> lista = lentasService.listar(nombre);
+
+            if (lista.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(lista);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: POST /api/metricas/lentas/limpiar (descarta los planes guardados)
+    @PostMapping("/lentas/limpiar")
+    public ResponseEntity<Void> limpiarConsultasLentas(HttpServletRequest request) {
+        try {
+            if (!permitido(request)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            lentasService.limpiar();
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    private boolean permitido(HttpServletRequest request) throws Exception {
+        return !soloLocal || InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+    }
+}
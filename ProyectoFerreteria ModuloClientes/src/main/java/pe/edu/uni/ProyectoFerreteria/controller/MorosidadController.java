@@ -0,0 +1,75 @@
+package pe.edu.uni.ProyectoFerreteria.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.dto.AntiguedadDeudaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.MorosidadClienteDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ResultadoMorosidadDto;
+import pe.edu.uni.ProyectoFerreteria.service.MorosidadService;
+
+@RestController
+@RequestMapping("/api/ventas/morosidad")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class MorosidadController {
+
+    private static final int LIMITE_MAXIMO_CLIENTES = 1000;
+
+    private final MorosidadService morosidadService;
+
+    // Endpoint: GET /api/ventas/morosidad/antiguedad (deuda vencida por tramos 0-30 / 31-60 / 61-90 / 90+ días)
+    @GetMapping("/antiguedad")
+    public ResponseEntity<List<AntiguedadDeudaDto>> reporteAntiguedad() {
+        try {
+            return ResponseEntity.ok(morosidadService.reporteAntiguedad());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: GET /api/ventas/morosidad/clientes?limite=100 (clientes con mayor deuda vencida primero)
+    @GetMapping("/clientes")
+    public ResponseEntity<List<MorosidadClienteDto>> clientesMorosos(@RequestParam(defaultValue = "100") Integer limite) {
+        try {
+            if (limite < 1 || limite > LIMITE_MAXIMO_CLIENTES) {
+                return ResponseEntity.badRequest().build();
+            }
+            List<MorosidadClienteDto> lista = morosidadService.clientesMorosos(limite);
+
+            if (lista.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(lista);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Endpoint: POST /api/ventas/morosidad/procesar (fuerza una pasada sin esperar al programador)
+    @PostMapping("/procesar")
+    public ResponseEntity<ResultadoMorosidadDto> procesar() {
+        try {
+            ResultadoMorosidadDto resultado = morosidadService.procesar();
+            if (resultado == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok(resultado);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
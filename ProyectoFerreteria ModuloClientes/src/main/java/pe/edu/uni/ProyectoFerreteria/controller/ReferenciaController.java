@@ -0,0 +1,40 @@
+package pe.edu.uni.ProyectoFerreteria.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.service.DatosReferenciaService;
+
+@RestController
+@RequestMapping("/api/referencia")
+@CrossOrigin(origins = "*")
+@RequiredArgsConstructor
+public class ReferenciaController {
+
+    private final DatosReferenciaService referenciaService;
+
+    // Endpoint: GET /api/referencia (contenido actual de la caché de catálogos)
+    @GetMapping
+    public ResponseEntity<Map<String, Map<Integer, String>>> verCatalogos() {
+        return ResponseEntity.ok(referenciaService.resumen());
+    }
+
+    // Endpoint: POST /api/referencia/recargar (tras modificar un catálogo directamente en la base)
+    @PostMapping("/recargar")
+    public ResponseEntity<String> recargar() {
+        try {
+            referenciaService.recargar();
+            return ResponseEntity.ok("Catálogos recargados.");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Error al recargar catálogos: " + e.getMessage());
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package pe.edu.uni.ProyectoFerreteria.controller;
 
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import pe.edu.uni.ProyectoFerreteria.dto.AnulacionDto;
 import pe.edu.uni.ProyectoFerreteria.dto.AnulacionRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.AnulacionResponseDto;
+import pe.edu.uni.ProyectoFerreteria.dto.AuditoriaBloqueComprobanteDto;
 import pe.edu.uni.ProyectoFerreteria.dto.CambioProdDto;
 import pe.edu.uni.ProyectoFerreteria.dto.CambioProductoRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.CambioProductoResponseDto;
@@ -23,14 +41,30 @@ import pe.edu.uni.ProyectoFerreteria.dto.DetalleVentaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DevolucionDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DevolucionRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DevolucionResponseDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticasCacheDto;
+import pe.edu.uni.ProyectoFerreteria.dto.FiltroReclamosDto;
+import pe.edu.uni.ProyectoFerreteria.dto.FiltroVentasDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ListadoVentasDto;
-import pe.edu.uni.ProyectoFerreteria.dto.PagoPendienteDto;
-import pe.edu.uni.ProyectoFerreteria.dto.PagoRealizadoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PaginaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PagoRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PagoResponseDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ReclamoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ResultadoReconstruccionDto;
+import pe.edu.uni.ProyectoFerreteria.dto.TotalVendedorDto;
+import pe.edu.uni.ProyectoFerreteria.dto.VentaLoteResponseDto;
 import pe.edu.uni.ProyectoFerreteria.dto.VentaRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.VentaResponseDto;
 import pe.edu.uni.ProyectoFerreteria.service.ConsultasVentasService;
+import pe.edu.uni.ProyectoFerreteria.service.ContadorVentasVendedorService;
+import pe.edu.uni.ProyectoFerreteria.service.IdempotenciaService;
+import pe.edu.uni.ProyectoFerreteria.service.NumeracionComprobanteService;
+import pe.edu.uni.ProyectoFerreteria.service.ResumenVentaService;
+import pe.edu.uni.ProyectoFerreteria.util.ClaveIdempotenciaReutilizadaException;
+import pe.edu.uni.ProyectoFerreteria.util.CuotasInsuficientesException;
+import pe.edu.uni.ProyectoFerreteria.util.FormatoExportacion;
+import pe.edu.uni.ProyectoFerreteria.util.PeticionEnProcesoException;
+import pe.edu.uni.ProyectoFerreteria.util.PresupuestoSql;
+import pe.edu.uni.ProyectoFerreteria.util.RespuestaJsonStreaming;
 
 @RestController
 @RequestMapping("/api/ventas")
@@ -38,19 +72,48 @@ import pe.edu.uni.ProyectoFerreteria.service.ConsultasVentasService;
 
 public class VentasController {
 
+	private static final int LIMITE_MAXIMO_PAGINA = 500;
+	private static final int MAXIMO_VENTAS_LOTE = 1000;
+	private static final int MAXIMO_VENTAS_CONSULTA = 200;
+
+	private static final String HEADER_IDEMPOTENCIA = "Idempotency-Key";
+	private static final int LARGO_MAXIMO_IDEMPOTENCIA = 100;
+
+	// Con "Accept: application/vnd.ferreteria.numerico+json" los listados devuelven el monto como número
+	// y la cuota como nro_cuota / nro_cuotas; sin ese header se mantiene el formato de texto de siempre.
+	public static final String MEDIA_TYPE_NUMERICO = "application/vnd.ferreteria.numerico+json";
+
 	@Autowired
     private ConsultasVentasService consultasService;
+
+	@Autowired
+	private IdempotenciaService idempotenciaService;
+
+	@Autowired
+	private ResumenVentaService resumenService;
+
+	@Autowired
+	private ContadorVentasVendedorService contadorVendedorService;
+
+	@Autowired
+	private NumeracionComprobanteService numeracionService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
 	
 	@GetMapping("/principal")
-    public ResponseEntity<List<ListadoVentasDto>> listarVentas() {
+    public ResponseEntity<List<?>> listarVentas(
+    		@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            
-            List<ListadoVentasDto> lista = consultasService.listadoVentas();
+            boolean numerico = pideNumerico(accept);
+            List<?> lista = numerico
+            		? consultasService.listadoVentasNumerico()
+            		: consultasService.listadoVentas();
             
             if (lista.isEmpty()) {
                 return ResponseEntity.noContent().build();
             }
-            return ResponseEntity.ok(lista);
+            return responderLista(lista, numerico);
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -58,6 +121,34 @@ public class VentasController {
         }
     }
 	
+	// Listado paginado por keyset. Ejemplo:
+	// GET /api/ventas/principal/pagina?desde=2025-01-01&hasta=2025-01-31&vendedor=3&limite=50
+	// Para la siguiente página se reenvía el "siguiente_cursor" recibido: ...&cursor=<token>
+	@GetMapping("/principal/pagina")
+	public ResponseEntity<PaginaDto<ListadoVentasDto>> listarVentasPaginado(
+			@ModelAttribute FiltroVentasDto filtro,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "50") Integer limite) {
+		try {
+			if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+				return ResponseEntity.badRequest().build();
+			}
+
+			PaginaDto<ListadoVentasDto> pagina = consultasService.listadoVentasPaginado(filtro, cursor, limite);
+
+			if (pagina.getItems().isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.ok(pagina);
+
+		} catch (IllegalArgumentException e) {
+			// Cursor mal formado o manipulado por el cliente
+			return ResponseEntity.badRequest().build();
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
 	
 	@GetMapping("/detalle/{id}")
 	public ResponseEntity<DetalleVentaDto> detalleVenta(@PathVariable Integer id) {
@@ -75,16 +166,115 @@ public class VentasController {
 	    }
 	}
 
+	// Detalles de varias ventas: POST /api/ventas/detalle/batch con cuerpo [101, 102, 103]
+	// La respuesta es un objeto { "101": {...}, "102": {...} } sin las ventas inexistentes.
+	@PostMapping("/detalle/batch")
+	public ResponseEntity<Map<Integer, DetalleVentaDto>> detalleVentasLote(@RequestBody List<Integer> ids) {
+		try {
+			Set<Integer> codVentas = idsLote(ids);
+			if (codVentas == null) {
+				return ResponseEntity.badRequest().build();
+			}
+			Map<Integer, DetalleVentaDto> detalles = consultasService.detalleVentasLote(codVentas);
+
+			if (detalles.isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.ok(detalles);
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+
+	// Métricas de la caché de detalles: GET /api/ventas/detalle/cache
+	@GetMapping("/detalle/cache")
+	public ResponseEntity<EstadisticasCacheDto> estadisticasCacheDetalle() {
+		return ResponseEntity.ok(consultasService.estadisticasCacheDetalle());
+	}
+
+	// Reconstruye el modelo de lectura RESUMEN_VENTA desde las tablas base (carga inicial o corrección):
+	// POST /api/ventas/resumen/reconstruir. Responde 409 si ya hay una reconstrucción en curso.
+	@PostMapping("/resumen/reconstruir")
+	public ResponseEntity<ResultadoReconstruccionDto> reconstruirResumen() {
+		try {
+			ResultadoReconstruccionDto resultado = resumenService.reconstruir();
+			if (resultado == null) {
+				return ResponseEntity.status(HttpStatus.CONFLICT).build();
+			}
+			return ResponseEntity.ok(resultado);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+
+	// Total de ventas por vendedor (valor volcado + ventas aún pendientes de volcar):
+	// GET /api/ventas/vendedores/totales y GET /api/ventas/vendedores/{id}/total
+	@GetMapping("/vendedores/totales")
+	public ResponseEntity<List<TotalVendedorDto>> totalesVendedores() {
+		try {
+			List<TotalVendedorDto> lista = contadorVendedorService.totales();
+
+			if (lista.isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.ok(lista);
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+
+	@GetMapping("/vendedores/{id}/total")
+	public ResponseEntity<TotalVendedorDto> totalVendedor(@PathVariable Integer id) {
+		try {
+			TotalVendedorDto total = contadorVendedorService.total(id);
+			if (total == null) {
+				return ResponseEntity.notFound().build();
+			}
+			return ResponseEntity.ok(total);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+
+	// Auditoría de la numeración de comprobantes por bloque (emitidos, huecos y números liberados):
+	// GET /api/ventas/comprobantes/auditoria?tipo=1&caja=2
+	@GetMapping("/comprobantes/auditoria")
+	public ResponseEntity<List<AuditoriaBloqueComprobanteDto>> auditoriaComprobantes(
+			@RequestParam(required = false) Integer tipo,
+			@RequestParam(required = false) Integer caja) {
+		try {
+			List<AuditoriaBloqueComprobanteDto> lista = numeracionService.auditoria(tipo, caja);
+
+			if (lista.isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.ok(lista);
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+
 	@GetMapping("/pagos/realizados")
-    public ResponseEntity<List<PagoRealizadoDto>> pagosRealizados() {
+    public ResponseEntity<List<?>> pagosRealizados(
+    		@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            
-            List<PagoRealizadoDto> lista = consultasService.verPagosRealizados();
+            boolean numerico = pideNumerico(accept);
+            List<?> lista = numerico
+            		? consultasService.verPagosRealizadosNumerico()
+            		: consultasService.verPagosRealizados();
             
             if (lista.isEmpty()) {
                 return ResponseEntity.noContent().build();
             }
-            return ResponseEntity.ok(lista);
+            return responderLista(lista, numerico);
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -92,20 +282,24 @@ public class VentasController {
         }
     }
 	
+	// Se escribe fila por fila a medida que llega de la base (ver RespuestaJsonStreaming)
 	@GetMapping("/pagos/pendientes")
-    public ResponseEntity<List<PagoPendienteDto>> pagosPendientes() {
+    public void pagosPendientes(
+    		@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+    		HttpServletRequest request, HttpServletResponse response) {
+        boolean numerico = pideNumerico(accept);
+        if (numerico) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        RespuestaJsonStreaming salida = new RespuestaJsonStreaming(request, response, objectMapper,
+        		numerico ? MEDIA_TYPE_NUMERICO : MediaType.APPLICATION_JSON_VALUE);
         try {
-            
-            List<PagoPendienteDto> lista = consultasService.verPagosPendientes();
-            
-            if (lista.isEmpty()) {
-                return ResponseEntity.noContent().build();
-            }
-            return ResponseEntity.ok(lista);
- 
+            consultasService.escribirPagosPendientes(salida, numerico);
+            salida.terminar();
+
            } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+            salida.abortar();
         }
     }
 	
@@ -143,6 +337,35 @@ public class VentasController {
         }
     }
 	
+	// Línea de tiempo de reclamos (devoluciones, cambios y anulaciones), del más reciente al más antiguo:
+	// GET /api/ventas/reclamos?desde=2025-01-01&hasta=2025-12-31&tipo=devolucion&cliente=4&venta=120&limite=50
+	// Para la siguiente página se reenvía el "siguiente_cursor" recibido: ...&cursor=<token>
+	@GetMapping("/reclamos")
+	public ResponseEntity<PaginaDto<ReclamoDto>> listarReclamos(
+			@ModelAttribute FiltroReclamosDto filtro,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "50") Integer limite) {
+		try {
+			if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+				return ResponseEntity.badRequest().build();
+			}
+
+			PaginaDto<ReclamoDto> pagina = consultasService.listadoReclamos(filtro, cursor, limite);
+
+			if (pagina.getItems().isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.ok(pagina);
+
+		} catch (IllegalArgumentException e) {
+			// Cursor mal formado o tipo de reclamo desconocido
+			return ResponseEntity.badRequest().build();
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
+	
 	@GetMapping("/reclamos/anulaciones")
     public ResponseEntity<List<AnulacionDto>> verAnulaciones() {
         try {
@@ -160,6 +383,71 @@ public class VentasController {
         }
     }
 	
+	// ==========================================
+	// EXPORTACIÓN EN STREAMING (NDJSON / CSV)
+	// ==========================================
+	// Ejemplo: GET /api/ventas/export/ventas?formato=csv
+	// Las filas se escriben a medida que llegan del cursor; la memoria usada no depende del tamaño.
+	@GetMapping("/export/ventas")
+	public ResponseEntity<StreamingResponseBody> exportarVentas(@RequestParam(required = false) String formato) {
+		return exportar("ventas", formato, consultasService::exportarVentas);
+	}
+
+	@GetMapping("/export/pagos-realizados")
+	public ResponseEntity<StreamingResponseBody> exportarPagosRealizados(@RequestParam(required = false) String formato) {
+		return exportar("pagos-realizados", formato, consultasService::exportarPagosRealizados);
+	}
+
+	@GetMapping("/export/pagos-pendientes")
+	public ResponseEntity<StreamingResponseBody> exportarPagosPendientes(@RequestParam(required = false) String formato) {
+		return exportar("pagos-pendientes", formato, consultasService::exportarPagosPendientes);
+	}
+
+	@GetMapping("/export/devoluciones")
+	public ResponseEntity<StreamingResponseBody> exportarDevoluciones(@RequestParam(required = false) String formato) {
+		return exportar("devoluciones", formato, consultasService::exportarDevoluciones);
+	}
+
+	// Quita repetidos y conserva el orden; null si la lista viene vacía, con nulos o supera el máximo
+	private static Set<Integer> idsLote(List<Integer> ids) {
+		if (ids == null || ids.isEmpty() || ids.size() > MAXIMO_VENTAS_CONSULTA || ids.contains(null)) {
+			return null;
+		}
+		return new LinkedHashSet<>(ids);
+	}
+
+	private static boolean pideNumerico(String accept) {
+		return accept != null && accept.contains(MEDIA_TYPE_NUMERICO);
+	}
+
+	private static ResponseEntity<List<?>> responderLista(List<?> lista, boolean numerico) {
+		if (!numerico) {
+			return ResponseEntity.ok(lista);
+		}
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(MEDIA_TYPE_NUMERICO))
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.body(lista);
+	}
+
+	private ResponseEntity<StreamingResponseBody> exportar(String nombre, String formato,
+			BiFunction<OutputStream, FormatoExportacion, Long> exportacion) {
+		FormatoExportacion f;
+		try {
+			f = FormatoExportacion.desde(formato);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		StreamingResponseBody cuerpo = salida -> exportacion.apply(salida, f);
+
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(f.getContentType() + ";charset=UTF-8"))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						"attachment; filename=\"" + nombre + "." + f.getExtension() + "\"")
+				.body(cuerpo);
+	}
+	
 	@GetMapping("/pagos/cronograma/{id}")
 	public ResponseEntity<CronogramaPagoDto> verCronograma(@PathVariable Integer id) {
 	    try {
@@ -175,12 +463,51 @@ public class VentasController {
 	        return ResponseEntity.internalServerError().build();
 	    }
 	}
+
+	// Cronogramas de varias ventas: POST /api/ventas/pagos/cronograma/batch con cuerpo [101, 102, 103]
+	@PostMapping("/pagos/cronograma/batch")
+	public ResponseEntity<Map<Integer, CronogramaPagoDto>> verCronogramasLote(@RequestBody List<Integer> ids) {
+		try {
+			Set<Integer> codVentas = idsLote(ids);
+			if (codVentas == null) {
+				return ResponseEntity.badRequest().build();
+			}
+			Map<Integer, CronogramaPagoDto> cronogramas = consultasService.cronogramasPago(codVentas);
+
+			if (cronogramas.isEmpty()) {
+				return ResponseEntity.noContent().build();
+			}
+			return ResponseEntity.ok(cronogramas);
+
+		} catch (Exception e) {
+			e.printStackTrace();
+			return ResponseEntity.internalServerError().build();
+		}
+	}
 	
+	// Con el header Idempotency-Key, un reintento de la caja devuelve la venta ya registrada
+	// en lugar de crear otra.
 	@PostMapping("/registrar")
-    public ResponseEntity<VentaResponseDto> registrarVenta(@RequestBody VentaRequestDto request) {
+    public ResponseEntity<VentaResponseDto> registrarVenta(
+            @RequestHeader(value = HEADER_IDEMPOTENCIA, required = false) String idempotencyKey,
+            @RequestBody VentaRequestDto request) {
         try {
-            VentaResponseDto respuesta = consultasService.registrarVenta(request);
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                return ResponseEntity.ok(consultasService.registrarVenta(request));
+            }
+            if (idempotencyKey.length() > LARGO_MAXIMO_IDEMPOTENCIA) {
+                return ResponseEntity.badRequest().build();
+            }
+            VentaResponseDto respuesta = idempotenciaService.ejecutar(
+                    IdempotenciaService.OPERACION_VENTA, idempotencyKey, request, VentaResponseDto.class,
+                    () -> consultasService.registrarVenta(request));
             return ResponseEntity.ok(respuesta);
+        } catch (ClaveIdempotenciaReutilizadaException e) {
+            // Clave reutilizada con otro cuerpo de petición
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (PeticionEnProcesoException e) {
+            // La petición original sigue en curso: la caja reintenta
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -189,11 +516,48 @@ public class VentasController {
 	
 
 
+    // Registro masivo para cajas que reenvían ventas acumuladas sin conexión.
+    // Devuelve el resultado de cada venta (por índice) aunque algunas fallen.
+    // Las sentencias crecen con el tamaño del lote (las mismas por venta): sin presupuesto fijo.
+    @PostMapping("/registrar/lote")
+    @PresupuestoSql(sentencias = PresupuestoSql.SIN_LIMITE, repeticiones = PresupuestoSql.SIN_LIMITE)
+    public ResponseEntity<VentaLoteResponseDto> registrarVentasLote(@RequestBody List<VentaRequestDto> ventas) {
+        try {
+            if (ventas == null || ventas.isEmpty() || ventas.size() > MAXIMO_VENTAS_LOTE) {
+                return ResponseEntity.badRequest().build();
+            }
+            VentaLoteResponseDto respuesta = consultasService.registrarVentasLote(ventas);
+            return ResponseEntity.ok(respuesta);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @PostMapping("/pagos/registrar")
-    public ResponseEntity<PagoResponseDto> registrarPago(@RequestBody PagoRequestDto request) {
+    public ResponseEntity<PagoResponseDto> registrarPago(
+            @RequestHeader(value = HEADER_IDEMPOTENCIA, required = false) String idempotencyKey,
+            @RequestBody PagoRequestDto request) {
         try {
-            PagoResponseDto r = consultasService.registrarPago(request);
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                return ResponseEntity.ok(consultasService.registrarPago(request));
+            }
+            if (idempotencyKey.length() > LARGO_MAXIMO_IDEMPOTENCIA) {
+                return ResponseEntity.badRequest().build();
+            }
+            PagoResponseDto r = idempotenciaService.ejecutar(
+                    IdempotenciaService.OPERACION_PAGO, idempotencyKey, request, PagoResponseDto.class,
+                    () -> consultasService.registrarPago(request));
             return ResponseEntity.ok(r);
+        } catch (IllegalArgumentException e) {
+            // cantidad_cuotas fuera de rango
+            return ResponseEntity.badRequest().build();
+        } catch (ClaveIdempotenciaReutilizadaException e) {
+            return ResponseEntity.unprocessableEntity().build();
+        } catch (PeticionEnProcesoException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (CuotasInsuficientesException e) {
+            return ResponseEntity.unprocessableEntity().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -0,0 +1,13 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+// Un tramo del reporte de antigüedad de deuda (0-30, 31-60, 61-90, 90+ días)
+@Data
+public class AntiguedadDeudaDto {
+	private String tramo;
+	private Integer clientes;
+	private BigDecimal monto;
+}
@@ -0,0 +1,18 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class AuditoriaBloqueComprobanteDto {
+	private Long cod_bloque;
+	private Integer cod_tipo_comprobante;
+	private Integer cod_caja;
+	private Long desde;
+	private Long hasta;
+	private String fecha_asignacion;
+	private Long emitidos;
+	private Long ultimo_emitido;
+	private Long huecos;            // tomados por debajo del último emitido sin comprobante
+	private Long liberado_desde;    // primer número sin usar al apagar la instancia
+	private Long liberados;
+}
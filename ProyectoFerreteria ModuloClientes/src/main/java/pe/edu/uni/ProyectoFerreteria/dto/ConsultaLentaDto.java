@@ -0,0 +1,18 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Data;
+
+@Data
+public class ConsultaLentaDto {
+	private String nombre;
+	private LocalDateTime fecha_hora;
+	private Double duracion_ms;     // lo que tardó la ejecución original
+	private Long filas;             // null si la consulta usó un ResultSetExtractor propio
+	private String sql;
+	private String parametros;      // valores enlazados, tal como se pasaron al JdbcTemplate
+	private Boolean analizado;      // true: EXPLAIN ANALYZE (tiempos reales); false: solo el plan estimado
+	private String plan;
+	private String observacion;     // por qué no hubo ANALYZE o por qué no hubo plan
+}
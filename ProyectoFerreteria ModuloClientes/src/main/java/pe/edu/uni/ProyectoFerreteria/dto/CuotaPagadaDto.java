@@ -0,0 +1,10 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class CuotaPagadaDto {
+    private Integer cod_pago;
+    private Integer nro_cuota;
+    private Float monto_pago;
+}
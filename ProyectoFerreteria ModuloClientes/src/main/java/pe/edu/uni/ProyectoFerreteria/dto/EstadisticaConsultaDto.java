@@ -0,0 +1,19 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class EstadisticaConsultaDto {
+	private String nombre;          // comentario inicial del SQL o "Clase.metodo" de quien la ejecutó
+	private String endpoint;        // "GET /api/ventas/principal"; null en el ranking global
+	private Long llamadas;
+	private Long errores;
+	private Long filas;             // filas devueltas (consultas) o afectadas (actualizaciones), sin las de extractores propios
+	private Double filas_promedio;
+	private Double total_ms;
+	private Double promedio_ms;
+	private Double p50_ms;
+	private Double p90_ms;
+	private Double p99_ms;
+	private Double max_ms;
+}
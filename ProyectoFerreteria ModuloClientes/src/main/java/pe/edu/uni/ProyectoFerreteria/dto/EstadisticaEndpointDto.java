@@ -0,0 +1,15 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class EstadisticaEndpointDto {
+	private String endpoint;                  // "GET /api/maestros/{id}/perfil" o "(segundo plano)"
+	private Long peticiones;                  // peticiones que ejecutaron al menos una sentencia
+	private Long sentencias;
+	private Long errores;
+	private Long filas;
+	private Double total_ms;
+	private Double sentencias_por_peticion;   // idas y vueltas a la base por petición; null sin peticiones
+	private Double ms_por_peticion;
+}
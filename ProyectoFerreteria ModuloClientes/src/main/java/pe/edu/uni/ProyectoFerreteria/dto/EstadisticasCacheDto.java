@@ -0,0 +1,13 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class EstadisticasCacheDto {
+	private Integer capacidad;
+	private Integer entradas;
+	private Long aciertos;
+	private Long fallos;
+	private Long invalidaciones;
+	private Double tasa_aciertos;   // aciertos / (aciertos + fallos), 0 si aún no hubo lecturas
+}
@@ -0,0 +1,12 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class FiltroReclamosDto {
+	private String desde;       // YYYY-MM-DD (inclusive)
+	private String hasta;       // YYYY-MM-DD (inclusive)
+	private String tipo;        // devolucion | cambio | anulacion (todos si no se envía)
+	private Integer cliente;    // cod_cliente
+	private Integer venta;      // cod_venta
+}
@@ -0,0 +1,15 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+@Data
+public class FiltroVentasDto {
+	private String desde;       // YYYY-MM-DD (inclusive)
+	private String hasta;       // YYYY-MM-DD (inclusive)
+	private Integer vendedor;   // cod_vendedor
+	private Integer estado;     // cod_estado_venta
+	private BigDecimal montoMin;
+	private BigDecimal montoMax;
+}
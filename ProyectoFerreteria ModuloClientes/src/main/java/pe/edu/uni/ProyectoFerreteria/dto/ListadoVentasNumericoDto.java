@@ -0,0 +1,16 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+// Variante numérica de ListadoVentasDto: el monto viaja como número y el cliente le da formato
+@Data
+public class ListadoVentasNumericoDto {
+	private String venta;
+    private String vendedor;
+    private String fecha;
+    private String hora;
+    private BigDecimal monto;
+    private String estado;
+}
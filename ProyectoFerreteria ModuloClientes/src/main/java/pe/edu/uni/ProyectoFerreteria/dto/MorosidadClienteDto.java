@@ -0,0 +1,19 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+@Data
+public class MorosidadClienteDto {
+	private Integer cod_cliente;
+	private String cliente;
+	private Integer cuotas_vencidas;
+	private BigDecimal monto_vencido;
+	private BigDecimal monto_0_30;
+	private BigDecimal monto_31_60;
+	private BigDecimal monto_61_90;
+	private BigDecimal monto_mas_90;
+	private String vencimiento_mas_antiguo;
+	private String fecha_actualizacion;
+}
@@ -0,0 +1,12 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class PaginaDto<T> {
+	private List<T> items;
+	private String siguiente_cursor; // null cuando ya no hay más filas
+	private boolean hay_mas;
+}
@@ -0,0 +1,17 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+// Variante numérica de PagoPendienteDto
+@Data
+public class PagoPendienteNumericoDto {
+	private String venta;
+	private String cliente;
+	private Integer nro_cuota;
+	private Integer nro_cuotas;
+	private String fecha_vencimiento;
+	private BigDecimal monto;
+	private String condicion;
+}
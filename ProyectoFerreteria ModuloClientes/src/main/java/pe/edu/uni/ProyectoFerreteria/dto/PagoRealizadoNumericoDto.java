@@ -0,0 +1,15 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+// Variante numérica de PagoRealizadoDto: "2 de 6" viaja como nro_cuota = 2, nro_cuotas = 6
+@Data
+public class PagoRealizadoNumericoDto {
+	private String venta;
+	private Integer nro_cuota;
+	private Integer nro_cuotas;
+	private String fecha;
+	private BigDecimal monto;
+}
@@ -10,4 +10,5 @@ public class PagoRequestDto {
     private Integer cod_comprobante;
     private String nombre_pagador;
     private String nro_telf_pagador;
+    private Integer cantidad_cuotas;   // opcional: cuotas a pagar en esta operación (1 si no se envía)
 }
@@ -1,12 +1,15 @@
 package pe.edu.uni.ProyectoFerreteria.dto;
 
+import java.util.List;
+
 import lombok.Data;
 
 @Data
 public class PagoResponseDto {
     private Integer cod_pago;
     private Integer nro_cuota;
-    private Float monto_pagado;
+    private Float monto_pagado;        // suma de las cuotas pagadas
     private String fecha_pago;
     private String mensaje;
+    private List<CuotaPagadaDto> cuotas_pagadas;
 }
@@ -0,0 +1,19 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+// Una fila de la línea de tiempo de reclamos (devolución, cambio de producto o anulación)
+@Data
+public class ReclamoDto {
+	private String tipo;
+	private String codigo;          // D-..., CP-..., A-... según el tipo
+	private Integer cod_reclamo;
+	private String venta;
+	private String cliente;
+	private String fecha_hora;
+	private BigDecimal monto;       // devuelto, diferencia del cambio o monto de la venta anulada
+	private String motivo;
+	private String detalle;
+}
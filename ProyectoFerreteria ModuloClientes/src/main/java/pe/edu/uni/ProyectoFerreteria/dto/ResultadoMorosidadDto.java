@@ -0,0 +1,11 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class ResultadoMorosidadDto {
+	private Integer cuotas_marcadas;
+	private Integer lotes;
+	private Integer clientes_morosos;
+	private Long duracion_ms;
+}
@@ -0,0 +1,11 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class ResultadoReconstruccionDto {
+	private Integer ventas;
+	private Integer lotes;
+	private Integer eliminadas;
+	private Long duracion_ms;
+}
@@ -0,0 +1,11 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class ResultadoVentaLoteDto {
+	private Integer indice;          // posición de la venta en el lote recibido
+	private boolean exito;
+	private VentaResponseDto venta;  // null si falló
+	private String error;            // null si se registró
+}
@@ -0,0 +1,11 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import lombok.Data;
+
+@Data
+public class TotalVendedorDto {
+	private Integer cod_vendedor;
+	private String vendedor;
+	private Integer total_ventas;       // volcado + pendiente
+	private Integer ventas_pendientes;  // aún en VENTA_VENDEDOR_PENDIENTE
+}
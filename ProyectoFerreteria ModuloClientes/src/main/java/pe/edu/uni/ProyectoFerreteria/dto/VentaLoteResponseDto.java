@@ -0,0 +1,13 @@
+package pe.edu.uni.ProyectoFerreteria.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class VentaLoteResponseDto {
+	private Integer total;
+	private Integer registradas;
+	private Integer fallidas;
+	private List<ResultadoVentaLoteDto> resultados;
+}
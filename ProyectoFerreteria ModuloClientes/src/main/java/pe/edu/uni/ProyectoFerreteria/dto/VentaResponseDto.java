@@ -9,6 +9,7 @@ public class VentaResponseDto {
     private Float igv;
     private Float descuento;
     private Integer puntos_venta;
+    private String nro_comprobante;
     private String mensaje;
 }
 
@@ -2,7 +2,6 @@ package pe.edu.uni.ProyectoFerreteria.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +13,8 @@ import pe.edu.uni.ProyectoFerreteria.dto.InfoPantallaCanjeDto;
 import pe.edu.uni.ProyectoFerreteria.dto.MaestroCompletoDto;
 import pe.edu.uni.ProyectoFerreteria.dto.NuevoCanjeRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PerfilMaestroDto;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+import pe.edu.uni.ProyectoFerreteria.util.RespuestaJsonStreaming;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -52,10 +53,12 @@ public class ClientesService {
     // =======================================================
 
     /**
-     * R-701: Lista el resumen de todos los maestros.
+     * R-701: Escribe el resumen de todos los maestros directamente en la respuesta, fila por fila.
      */
-    public List<MaestroCompletoDto> listarMaestrosCompletos() {
+    @Transactional(readOnly = true)
+    public long escribirMaestrosCompletos(RespuestaJsonStreaming salida) {
         String sql = """
+            /* clientes.maestros */
             SELECT 
                 COD_PERSONA AS codPersona,
                 cod_maestro AS codMaestro,
@@ -69,7 +72,7 @@ public class ClientesService {
             FROM "FERRETERIA".VISTA_MAESTROS_COMPLETA
             ORDER BY codPersona
         """;
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(MaestroCompletoDto.class));
+        return salida.escribir(jdbcTemplate, sql, MapeadorFilas.de(MaestroCompletoDto.class));
     }
     
     /**
@@ -79,6 +82,7 @@ public class ClientesService {
         
         // 1. Obtener Datos Básicos (Obligatorios para determinar si el maestro existe)
         String sqlDatos = """
+            /* clientes.perfil.datos */
             SELECT 
                 p.nombre_persona as nombre, 
                 CAST(m.fecha_registro_maestro AS VARCHAR) as fecha 
@@ -100,6 +104,7 @@ public class ClientesService {
         // 2. Obtener Datos de Contacto y Dirección (Usando safeQueryForObject para opcionales)
         // RUC
         String sqlRuc = """
+            /* clientes.perfil.ruc */
             SELECT dp.valor_documento 
             FROM "FERRETERIA".maestro m 
             JOIN "FERRETERIA".persona p ON m.cod_persona = p.cod_persona 
@@ -111,6 +116,7 @@ public class ClientesService {
 
         // Teléfono (TC.VALOR_TIPO_CONTACTO = 'TELEFONO CELULAR')
         String sqlTel = """
+            /* clientes.perfil.telefono */
             SELECT c.valor_contacto 
             FROM "FERRETERIA".maestro m 
             JOIN "FERRETERIA".persona p ON m.cod_persona = p.cod_persona 
@@ -124,6 +130,7 @@ public class ClientesService {
 
         // Correo (TC.VALOR_TIPO_CONTACTO = 'CORREO')
         String sqlMail = """
+            /* clientes.perfil.correo */
             SELECT c.valor_contacto 
             FROM "FERRETERIA".maestro m 
             JOIN "FERRETERIA".persona p ON m.cod_persona = p.cod_persona 
@@ -137,6 +144,7 @@ public class ClientesService {
 
         // Dirección (DP.PRINCIPAL_DIRECCION IS NOT NULL)
         String sqlDir = """
+            /* clientes.perfil.direccion */
             SELECT D.DISTRITO ||', '|| D.CIUDAD ||', '|| D.VIA ||' '|| D.NUMERO
             FROM "FERRETERIA".persona p 
             JOIN "FERRETERIA".maestro m ON p.cod_persona = m.cod_persona 
@@ -148,6 +156,7 @@ public class ClientesService {
 
         // Especialidad
         String sqlEsp = """
+            /* clientes.perfil.especialidad */
             SELECT e.valor_especialidad 
             FROM "FERRETERIA".maestro m 
             JOIN "FERRETERIA".especialidades e ON e.cod_especialidad = m.cod_especialidad 
@@ -159,6 +168,7 @@ public class ClientesService {
         // 3. Obtener Estadísticas
         // Referidos (USO DE COMILLAS PARA LA COLUMNA PROBLEMÁTICA)
         String sqlRef = """
+                /* clientes.perfil.referidos */
                 SELECT contar_referidos_por_maestro(m.cod_maestro)
                 FROM "FERRETERIA".maestro m
                 WHERE m.cod_persona = ?
@@ -167,6 +177,7 @@ public class ClientesService {
 
         // Total Canjes (USO DE COMILLAS PARA LA COLUMNA PROBLEMÁTICA)
         String sqlCanjes = """
+                /* clientes.perfil.canjes */
                 SELECT contar_canjes_por_maestro(m.cod_maestro)
                 FROM "FERRETERIA".maestro m
                 WHERE m.cod_persona = ?
@@ -175,6 +186,7 @@ public class ClientesService {
 
         // Puntos Actuales 
         String sqlPtos = """
+            /* clientes.perfil.puntos */
             SELECT M.puntos_maestro 
             FROM "FERRETERIA".MAESTRO M 
             JOIN "FERRETERIA".PERSONA P ON M.cod_persona = P.cod_persona 
@@ -185,6 +197,7 @@ public class ClientesService {
         
         // 4. Procesar Historial de Canjes (REGISTRO DE CANJES)
         String sqlHist = """
+            /* clientes.perfil.historial */
             SELECT 
             CAST(CA.FECHA_HORA_CANJE AS VARCHAR) AS fecha, 
             P.NOMBRE_PREMIO AS premio, 
@@ -201,7 +214,7 @@ public class ClientesService {
             ORDER BY CA.FECHA_HORA_CANJE DESC
         """;
         
-        List<HistorialCanjeDto> historial = jdbcTemplate.query(sqlHist, new BeanPropertyRowMapper<>(HistorialCanjeDto.class), codPersona);
+        List<HistorialCanjeDto> historial = jdbcTemplate.query(sqlHist, MapeadorFilas.de(HistorialCanjeDto.class), codPersona);
 
         Double puntosGastados = historial.stream()
             .mapToDouble(HistorialCanjeDto::getPuntosGastados)
@@ -209,6 +222,7 @@ public class ClientesService {
 
         // 5. Obtener Gráfico (DATOS DE CANJES POR MES)
         String sqlGraf = """
+            /* clientes.perfil.grafico */
             SELECT
                 EXTRACT(YEAR FROM CA.FECHA_HORA_CANJE) || '-' || EXTRACT(MONTH FROM CA.FECHA_HORA_CANJE) AS mes,
                 COUNT(*) AS cantidad 
@@ -221,7 +235,7 @@ public class ClientesService {
                 EXTRACT(MONTH FROM CA.FECHA_HORA_CANJE)
             ORDER BY mes
         """;
-        List<GraficoCanjeDto> grafico = jdbcTemplate.query(sqlGraf, new BeanPropertyRowMapper<>(GraficoCanjeDto.class), codPersona);
+        List<GraficoCanjeDto> grafico = jdbcTemplate.query(sqlGraf, MapeadorFilas.de(GraficoCanjeDto.class), codPersona);
 
         // 6. Construir y retornar el DTO
         return PerfilMaestroDto.builder()
@@ -252,6 +266,7 @@ public class ClientesService {
         
         // 1. Obtener Operador
         String sqlOp = """
+            /* clientes.canje.operador */
             SELECT 
             p.nombre_persona as nombre, 
             a.valor_area as area, 
@@ -270,6 +285,7 @@ public class ClientesService {
 
         // 2. Obtener Maestro
         String sqlMaes = """
+            /* clientes.canje.maestro */
             SELECT
             m.puntos_maestro as puntos, 
             p.nombre_persona as nombre 
@@ -314,6 +330,7 @@ public class ClientesService {
 
         // 1. Crear y Guardar el objeto CANJE
         String sqlInsertCanje = """
+            /* clientes.canje.insertar */
             INSERT INTO "FERRETERIA".canje (
                 cod_maestro, 
                 cod_usuario, 
@@ -333,6 +350,7 @@ public class ClientesService {
 
         // 2. Guardar los DETALLES
         String sqlInsertDetalle = """
+            /* clientes.canje.detalle */
             INSERT INTO "FERRETERIA".detalle_canje (
                 cod_canje, 
                 cod_premio, 
@@ -353,6 +371,7 @@ public class ClientesService {
         Double nuevosPuntos = puntosActuales - request.getMontoTotal();
         
         String sqlUpdateMaestro = """
+            /* clientes.canje.puntos */
             UPDATE "FERRETERIA".maestro
             SET puntos_maestro = ?, ultima_actividad_maestro = now()
             WHERE cod_maestro = ?
@@ -374,6 +393,7 @@ public class ClientesService {
     public List<CatalogoPremioDto> obtenerCatalogoPremios(String busqueda) {
         
         String sql = """
+            /* clientes.premios */
             SELECT 
                 cod_premio AS id,
                 nombre,
@@ -391,6 +411,6 @@ public class ClientesService {
         
         sql += " ORDER BY nombre ASC";
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(CatalogoPremioDto.class));
+        return jdbcTemplate.query(sql, MapeadorFilas.de(CatalogoPremioDto.class));
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package pe.edu.uni.ProyectoFerreteria.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
@@ -26,6 +25,8 @@ import pe.edu.uni.ProyectoFerreteria.dto.ProveedorBusquedaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ProveedorDto;
 import pe.edu.uni.ProyectoFerreteria.dto.RegistrarCotizacionRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.SolicitudCotizacionDto;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+import pe.edu.uni.ProyectoFerreteria.util.RespuestaJsonStreaming;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -41,6 +42,7 @@ public class ConsultasAbastecimientoService {
     
     public List<ProveedorDto> listarProveedores() {
         String sql = """
+        	/* abastecimiento.proveedores */
         	SELECT 
 			    cod_proveedor,
 			    nombre_comercial,
@@ -52,11 +54,15 @@ public class ConsultasAbastecimientoService {
 			    nombre_comercial;
         """;
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ProveedorDto.class));
+        return jdbcTemplate.query(sql, MapeadorFilas.de(ProveedorDto.class));
     }
     
-    public List<ProductoCatalogoDto> listarCatalogoProductos() {
+    // El catálogo completo se escribe fila por fila en la respuesta, sin armar la lista. La
+    // transacción (de Spring, para poder marcarla de solo lectura) mantiene el cursor abierto.
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public long escribirCatalogoProductos(RespuestaJsonStreaming salida) {
         String sql = """
+        	/* abastecimiento.productos */
         	SELECT
 			    P.cod_producto,
 			    P.nombre_producto,
@@ -74,7 +80,7 @@ public class ConsultasAbastecimientoService {
 			    P.nombre_producto;
         """;
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ProductoCatalogoDto.class));
+        return salida.escribir(jdbcTemplate, sql, MapeadorFilas.de(ProductoCatalogoDto.class));
     }
     
     /* 
@@ -88,6 +94,7 @@ public class ConsultasAbastecimientoService {
     // ==========================================
     public List<PedidoAbastecimientoDto> listarPedidosResumen() {
         String sql = """
+        	/* abastecimiento.pedidos */
         	SELECT
 			    cod_pedido,
 			    fecha_pedido,
@@ -99,7 +106,7 @@ public class ConsultasAbastecimientoService {
 			    fecha_pedido DESC, hora_pedido DESC;
         """;
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(PedidoAbastecimientoDto.class));
+        return jdbcTemplate.query(sql, MapeadorFilas.de(PedidoAbastecimientoDto.class));
     }
 
     // ==========================================
@@ -109,6 +116,7 @@ public class ConsultasAbastecimientoService {
     	PedidoDetalleDto cabecera = new PedidoDetalleDto();
 
         String sqlCabecera = """
+            /* abastecimiento.pedido.cabecera */
             SELECT
 			    PA.cod_pedido,
 			    PA.fecha_pedido,
@@ -127,12 +135,13 @@ public class ConsultasAbastecimientoService {
 
         try {
             cabecera = jdbcTemplate.queryForObject(sqlCabecera, 
-                    new BeanPropertyRowMapper<>(PedidoDetalleDto.class), idPedido);
+                    MapeadorFilas.de(PedidoDetalleDto.class), idPedido);
         } catch (Exception e) {
             return null;
         }
 
         String sqlItems = """
+            /* abastecimiento.pedido.items */
             SELECT 
                 pr.nombre_producto,
                 dp.cantidad_requerida,
@@ -146,7 +155,7 @@ public class ConsultasAbastecimientoService {
         """;
 
         List<PedidoDetalleItemDto> items = jdbcTemplate.query(sqlItems, 
-                new BeanPropertyRowMapper<>(PedidoDetalleItemDto.class), idPedido);
+                MapeadorFilas.de(PedidoDetalleItemDto.class), idPedido);
 
         if (cabecera != null) {
             cabecera.setProductos(items);
@@ -160,6 +169,7 @@ public class ConsultasAbastecimientoService {
     // ==========================================
     public void actualizarEstadoRevisadoPedido(Integer idPedido) {
         String sql = """
+            /* abastecimiento.pedido.revisado */
             UPDATE PEDIDO_ABASTECIMIENTO 
             SET estado_pedido = 'Revisado'
             WHERE cod_pedido = ?
@@ -168,6 +178,7 @@ public class ConsultasAbastecimientoService {
         jdbcTemplate.update(sql, idPedido);
         
         String sqlDetalle = """
+        			/* abastecimiento.pedido.detalle.revisado */
         			UPDATE detalle_pedido SET estado = 'Revisado' WHERE cod_pedido = ?
         		""";
         jdbcTemplate.update(sqlDetalle, idPedido);
@@ -185,6 +196,7 @@ public class ConsultasAbastecimientoService {
     // =================================================
     public List<SolicitudCotizacionDto> listarSolicitudesCotizacionResumen() {
         String sql = """
+        	/* abastecimiento.solicitudes */
         	SELECT
 			    SC.cod_solicitud,
 			    SC.fecha_emision,
@@ -202,7 +214,7 @@ public class ConsultasAbastecimientoService {
 			    SC.fecha_emision DESC, SC.cod_solicitud DESC;
         """;
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(SolicitudCotizacionDto.class));
+        return jdbcTemplate.query(sql, MapeadorFilas.de(SolicitudCotizacionDto.class));
     }
     
     // =================================================================================
@@ -212,6 +224,7 @@ public class ConsultasAbastecimientoService {
     //LISTADO DE ITEMS PENDIENTES DE COTIZACION
     public List<ItemPendienteCotizacionDto> listarItemsPendientes(String fechaInicio, String fechaFin) {
         String sql = """
+            /* abastecimiento.items.pendientes */
             SELECT
 			    DP.cod_pedido,
 			    DP.cod_producto,
@@ -239,13 +252,14 @@ public class ConsultasAbastecimientoService {
 
         sql += " ORDER BY dp.fecha_requerida ASC";
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ItemPendienteCotizacionDto.class));
+        return jdbcTemplate.query(sql, MapeadorFilas.de(ItemPendienteCotizacionDto.class));
     }
     
     //GENERAR SOLICITUD
     @Transactional
     public void generarSolicitudCotizacion(GenerarSolicitudRequestDto request) {
         String sqlInsertSolicitud = """
+            /* abastecimiento.solicitud.insertar */
             INSERT INTO solicitud_cotizacion (cod_usuario, estado, fecha_emision) 
             VALUES (?, 'Enviada', CURRENT_DATE) 
             RETURNING cod_solicitud
@@ -256,11 +270,13 @@ public class ConsultasAbastecimientoService {
         Integer idSolicitud = jdbcTemplate.queryForObject(sqlInsertSolicitud, Integer.class, idUsuario);
 
         String sqlInsertDetalle = """
+            /* abastecimiento.solicitud.detalle */
             INSERT INTO detalle_solicitud (cod_solicitud, cod_producto, cantidad_solicitada)
             VALUES (?, ?, ?)
         """;
 
         String sqlUpdateOriginal = """
+            /* abastecimiento.solicitud.pedido */
             UPDATE detalle_pedido 
             SET estado = 'En Cotización' 
             WHERE cod_pedido = ? AND cod_producto = ?
@@ -285,6 +301,7 @@ public class ConsultasAbastecimientoService {
     // 1. BUSCADOR DE PROVEEDORES
     public List<ProveedorBusquedaDto> buscarProveedores(String termino) {
         String sql = """
+            /* abastecimiento.proveedores.busqueda */
             SELECT
                 cod_proveedor,
                 nombre_comercial
@@ -299,12 +316,13 @@ public class ConsultasAbastecimientoService {
         
         String param = termino + "%";
         
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ProveedorBusquedaDto.class), param);
+        return jdbcTemplate.query(sql, MapeadorFilas.de(ProveedorBusquedaDto.class), param);
     }
     
     // 2. CARGAR TABLA INICIAL
     public List<ProductoParaCotizarDto> obtenerProductosDeSolicitud(Integer idSolicitud) {
         String sql = """
+            /* abastecimiento.solicitud.productos */
             SELECT 
                 p.cod_producto,
                 p.nombre_producto,
@@ -315,7 +333,7 @@ public class ConsultasAbastecimientoService {
             WHERE ds.cod_solicitud = ?
             ORDER BY p.nombre_producto ASC
         """;
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ProductoParaCotizarDto.class), idSolicitud);
+        return jdbcTemplate.query(sql, MapeadorFilas.de(ProductoParaCotizarDto.class), idSolicitud);
     }
 
     // 3. GUARDAR EL FORMULARIO
@@ -323,6 +341,7 @@ public class ConsultasAbastecimientoService {
     public void registrarCotizacion(RegistrarCotizacionRequestDto request) {
     	// A. Insertar Cabecera de Cotización
         String sqlCotizacion = """
+            /* abastecimiento.cotizacion.insertar */
             INSERT INTO cotizacion 
             (cod_solicitud, cod_proveedor, fecha_emision_cotizacion, fecha_garantia, monto_total, plazo_entrega)
             VALUES (?, ?, TO_DATE(?, 'YYYY-MM-DD'), TO_DATE(?, 'YYYY-MM-DD'), ?, ?)
@@ -340,6 +359,7 @@ public class ConsultasAbastecimientoService {
 
         // B. Insertar Detalles
         String sqlDetalle = """
+            /* abastecimiento.cotizacion.detalle */
             INSERT INTO detalle_cotizacion 
             (cod_cotizacion, cod_producto, costo_total, modalidad_pago)
             VALUES (?, ?, ?, ?)
@@ -356,6 +376,7 @@ public class ConsultasAbastecimientoService {
 
         // C. Actualizar estado de la Solicitud a "Cotizada"
         String sqlUpdateSolicitud = """
+            /* abastecimiento.cotizacion.solicitud */
             UPDATE solicitud_cotizacion
             SET estado = 'Cotizada'
             WHERE cod_solicitud = ?
@@ -364,6 +385,7 @@ public class ConsultasAbastecimientoService {
         
         // D. Actualizar estado de los ítems originales en cascada
         String sqlUpdateItemsOriginales = """
+            /* abastecimiento.cotizacion.pedido */
             UPDATE detalle_pedido
             SET estado = 'Cotizado' 
             WHERE cod_producto IN (
@@ -383,6 +405,7 @@ public class ConsultasAbastecimientoService {
     // 1. LISTAR PROVEEDORES QUE COTIZARON
     public List<ProveedorBusquedaDto> listarProveedoresConOferta(Integer idSolicitud) {
         String sql = """
+            /* abastecimiento.ofertas.proveedores */
             SELECT DISTINCT
                 p.cod_proveedor,
                 p.nombre_comercial
@@ -391,12 +414,13 @@ public class ConsultasAbastecimientoService {
             WHERE c.cod_solicitud = ?
         """;
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ProveedorBusquedaDto.class), idSolicitud);
+        return jdbcTemplate.query(sql, MapeadorFilas.de(ProveedorBusquedaDto.class), idSolicitud);
     }
 
     // 2. LISTAR ITEMS DE UNA OFERTA ESPECÍFICA
     public List<DetalleOfertaDto> listarDetalleOferta(Integer idSolicitud, Integer idProveedor) {
         String sql = """
+            /* abastecimiento.ofertas.detalle */
             SELECT 
                 p.cod_producto,
                 p.nombre_producto,
@@ -413,20 +437,33 @@ public class ConsultasAbastecimientoService {
               AND c.cod_proveedor = ?
         """;
         
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(DetalleOfertaDto.class), idSolicitud, idProveedor);
+        return jdbcTemplate.query(sql, MapeadorFilas.de(DetalleOfertaDto.class), idSolicitud, idProveedor);
     }
 
     // 3. GENERAR ÓRDENES DE COMPRA
+
+    // Una orden por "Proveedor-ModalidadPago" (clave "12-Contado"). Visible en el paquete para
+    // medirlo en OrdenesCompraBenchmark sin base de datos.
+    static Map<String, List<ItemAdjudicacionDto>> agruparOrdenesCompra(List<ItemAdjudicacionDto> items) {
+        return items.stream()
+            .collect(Collectors.groupingBy(item -> item.getCod_proveedor() + "-" + item.getModalidad_pago()));
+    }
+
+    // Monto de la cabecera de una orden: suma de los costos de sus ítems
+    static BigDecimal montoOrdenCompra(List<ItemAdjudicacionDto> itemsDeEstaOC) {
+        return itemsDeEstaOC.stream()
+                .map(ItemAdjudicacionDto::getCosto_total)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
     @Transactional
     public void generarOrdenesCompra(GenerarOrdenCompraRequestDto request) {
         
         // PASO A: Agrupar los items por "Proveedor + ModalidadPago"
-        // Si tienes error aquí, verifica que ItemAdjudicacionDto tenga los getters correctos.
-        // Lombok suele generar getCod_proveedor() para cod_proveedor.
-        Map<String, List<ItemAdjudicacionDto>> gruposOC = request.getItems_adjudicados().stream()
-            .collect(Collectors.groupingBy(item -> item.getCod_proveedor() + "-" + item.getModalidad_pago()));
+        Map<String, List<ItemAdjudicacionDto>> gruposOC = agruparOrdenesCompra(request.getItems_adjudicados());
 
         String sqlInsertOC = """
+            /* abastecimiento.oc.insertar */
             INSERT INTO orden_compra 
             (cod_cotizacion, fecha_emision, monto, modalidad_pago, estado)
             VALUES (?, CURRENT_DATE, ?, ?, 'Emitida')
@@ -434,6 +471,7 @@ public class ConsultasAbastecimientoService {
         """;
 
         String sqlInsertDetalleOC = """
+            /* abastecimiento.oc.detalle */
             INSERT INTO detalle_oc
             (cod_orden, cod_producto, cantidad_comprada, costo_total)
             VALUES (?, ?, ?, ?)
@@ -449,9 +487,7 @@ public class ConsultasAbastecimientoService {
             List<ItemAdjudicacionDto> itemsDeEstaOC = entrada.getValue();
 
             // Calcular monto total de esta OC específica
-            BigDecimal montoTotalOC = itemsDeEstaOC.stream()
-                    .map(ItemAdjudicacionDto::getCosto_total) // Verifica que este método exista en el DTO
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal montoTotalOC = montoOrdenCompra(itemsDeEstaOC);
 
             // Obtener el ID de la cotización origen
             Integer idCotizacion = jdbcTemplate.queryForObject(sqlGetIdCotizacion, Integer.class, 
@@ -482,6 +518,7 @@ public class ConsultasAbastecimientoService {
 
         // 2. Ítems Originales -> Adjudicado (Cascada)
         String sqlUpdateCascada = """
+            /* abastecimiento.oc.pedido */
             UPDATE detalle_pedido
             SET estado = 'Adjudicado' 
             WHERE cod_producto IN (
@@ -503,6 +540,7 @@ public class ConsultasAbastecimientoService {
     //============================================
     public List<OrdenPendienteRecepcionDto> listarOrdenesPendientesRecepcion() {
         String sql = """
+            /* abastecimiento.recepcion.pendientes */
             SELECT 
                 oc.cod_orden,
                 p.nombre_comercial,
@@ -515,7 +553,7 @@ public class ConsultasAbastecimientoService {
             ORDER BY oc.fecha_emision DESC, oc.cod_orden DESC
         """;
         
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(OrdenPendienteRecepcionDto.class));
+        return jdbcTemplate.query(sql, MapeadorFilas.de(OrdenPendienteRecepcionDto.class));
     }
     
     // 1. LISTAR PRODUCTOS FILTRADOS POR TIPO DE DESTINO
@@ -530,6 +568,7 @@ public class ConsultasAbastecimientoService {
         // 4. Calcula la 'cantidad_pendiente' restando lo que ya se programó en recepciones anteriores.
         
         String sql = """
+            /* abastecimiento.recepcion.productos */
             SELECT 
                 p.cod_producto,
                 p.nombre_producto,
@@ -558,7 +597,7 @@ public class ConsultasAbastecimientoService {
               -- AND dp.estado = 'Adjudicado'
         """;
 
-        return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ProductoProgramableDto.class), idOrden, tipoDestinoBuscado);
+        return jdbcTemplate.query(sql, MapeadorFilas.de(ProductoProgramableDto.class), idOrden, tipoDestinoBuscado);
     }
 
     // 2. GUARDAR PROGRAMACIÓN (CONFIRMAR)
@@ -573,6 +612,7 @@ public class ConsultasAbastecimientoService {
         // Por ahora, usaré el valor que envíe el front (si es Transporte, el front podría no enviar nada, ojo ahí).
         
         String sqlRecepcion = """
+            /* abastecimiento.recepcion.insertar */
             INSERT INTO recepcion 
             (cod_orden, cod_instalacion, fecha_programada, hora_programada, modalidad_logistica, estado_recepcion, hora_inicio_recepcion, hora_fin_recepcion)
             VALUES (?, ?, TO_DATE(?, 'YYYY-MM-DD'), TO_TIMESTAMP(?, 'HH24:MI'), ?, 'Programada', '00:00', '00:00')
@@ -598,6 +638,7 @@ public class ConsultasAbastecimientoService {
 
         // B. Insertar Detalles
         String sqlDetalle = """
+            /* abastecimiento.recepcion.detalle */
             INSERT INTO detalle_recepcion 
             (cod_recepcion, cod_producto, cantidad_programada, cantidad_recibida, cantidad_conforme, cantidad_defectuosa)
             VALUES (?, ?, ?, 0, 0, 0)
@@ -624,6 +665,7 @@ public class ConsultasAbastecimientoService {
 
         // 2. Calcular total programado en todas las recepciones de esta OC
         String sqlTotalProgramado = """
+            /* abastecimiento.recepcion.programado */
             SELECT COALESCE(SUM(dr.cantidad_programada), 0)
             FROM detalle_recepcion dr
             JOIN recepcion r ON dr.cod_recepcion = r.cod_recepcion
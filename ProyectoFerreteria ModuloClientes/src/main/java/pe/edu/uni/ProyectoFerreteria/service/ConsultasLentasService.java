@@ -0,0 +1,217 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import pe.edu.uni.ProyectoFerreteria.dto.ConsultaLentaDto;
+import pe.edu.uni.ProyectoFerreteria.util.ConexionesAuxiliares;
+import pe.edu.uni.ProyectoFerreteria.util.JdbcTemplateMedido;
+
+/**
+ * Registro de consultas lentas con su plan de ejecución. Cuando una sentencia con nombre tarda más
+ * que sql.lentas.umbral-ms, una muestra de esas ejecuciones se vuelve a explicar en segundo plano
+ * con EXPLAIN (ANALYZE, BUFFERS) y los mismos parámetros, en una conexión auxiliar (fuera del pool y
+ * del límite de conexiones). Se guardan los últimos sql.lentas.planes-por-consulta planes de cada
+ * consulta (GET /api/metricas/lentas).
+ *
+ * El EXPLAIN ANALYZE ejecuta la sentencia: se hace en una transacción de solo lectura que siempre se
+ * revierte, con statement_timeout y lock_timeout. Las sentencias que escriben (o bloquean filas)
+ * fallan en solo lectura; para ellas se guarda el plan estimado (EXPLAIN sin ANALYZE).
+ * Solo se explican las sentencias cuyos parámetros se conocen (pasados como argumentos del
+ * JdbcTemplate); las armadas en un PreparedStatementCreator propio se anotan sin plan.
+ */
+@Service
+public class ConsultasLentasService implements JdbcTemplateMedido.RegistroConsultas {
+
+    // SQLSTATE de PostgreSQL: "cannot execute ... in a read-only transaction"
+    private static final String SOLO_LECTURA = "25006";
+
+    private static final int LARGO_MAXIMO_PARAMETRO = 200;
+
+    private final ConexionesAuxiliares conexiones;
+
+    private final long umbralNanos;
+    private final double muestreo;
+    private final long intervaloMinimoMs;
+    private final int planesPorConsulta;
+    private final int timeoutMs;
+
+    private final Map<String, Deque<ConsultaLentaDto>> planes = new ConcurrentHashMap<>();
+
+    // Última captura por consulta: una consulta lenta en todas sus llamadas no debe generar un
+    // EXPLAIN por llamada
+    private final Map<String, Long> ultimaCaptura = new ConcurrentHashMap<>();
+
+    // Un solo hilo y una cola corta: si la base está saturada, las capturas de más se descartan
+    private final ThreadPoolExecutor explicador;
+
+    public ConsultasLentasService(ConexionesAuxiliares conexiones,
+            @Value("${sql.lentas.umbral-ms:200}") long umbralMs,
+            @Value("${sql.lentas.muestreo:0.1}") double muestreo,
+            @Value("${sql.lentas.intervalo-minimo-ms:60000}") long intervaloMinimoMs,
+            @Value("${sql.lentas.planes-por-consulta:5}") int planesPorConsulta,
+            @Value("${sql.lentas.timeout-ms:10000}") int timeoutMs) {
+        this.conexiones = conexiones;
+        this.umbralNanos = umbralMs * 1_000_000L;
+        this.muestreo = muestreo;
+        this.intervaloMinimoMs = intervaloMinimoMs;
+        this.planesPorConsulta = Math.max(1, planesPorConsulta);
+        this.timeoutMs = Math.max(100, timeoutMs);
+        this.explicador = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(20),
+                r -> {
+                    Thread t = new Thread(r, "explain-consultas-lentas");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void registrar(String nombre, String sql, Object[] parametros, long nanos, long filas, boolean error) {
+        if (umbralNanos <= 0 || nanos < umbralNanos || error || sql == null) {
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() >= muestreo || !tocaCapturar(nombre)) {
+            return;
+        }
+
+        ConsultaLentaDto lenta = new ConsultaLentaDto();
+        lenta.setNombre(nombre);
+        lenta.setFecha_hora(LocalDateTime.now());
+        lenta.setDuracion_ms(nanos / 1e6);
+        lenta.setFilas(filas != JdbcTemplateMedido.FILAS_DESCONOCIDAS ? filas : null);
+        lenta.setSql(sql.strip());
+        lenta.setParametros(parametros != null ? describir(parametros) : null);
+        lenta.setAnalizado(false);
+
+        if (parametros == null && sql.indexOf('?') >= 0) {
+            lenta.setObservacion("Parámetros desconocidos (PreparedStatementCreator propio): sin plan.");
+            guardar(lenta);
+            return;
+        }
+        Object[] copia = parametros != null ? parametros.clone() : new Object[0];
+        explicador.execute(() -> {
+            explicar(lenta, sql, copia);
+            guardar(lenta);
+        });
+    }
+
+    private boolean tocaCapturar(String nombre) {
+        long ahora = System.currentTimeMillis();
+        boolean[] toca = new boolean[1];
+        ultimaCaptura.compute(nombre, (k, ultima) -> {
+            if (ultima == null || ahora - ultima >= intervaloMinimoMs) {
+                toca[0] = true;
+                return ahora;
+            }
+            return ultima;
+        });
+        return toca[0];
+    }
+
+    // 1. EXPLAIN ANALYZE en solo lectura; 2. si la sentencia escribe o no se pudo, el plan estimado
+    private void explicar(ConsultaLentaDto lenta, String sql, Object[] parametros) {
+        try (Connection con = conexiones.abrir()) {
+            con.setAutoCommit(false);
+            try {
+                try (Statement st = con.createStatement()) {
+                    st.execute("SET TRANSACTION READ ONLY");
+                    st.execute("SET LOCAL statement_timeout = " + timeoutMs);
+                    st.execute("SET LOCAL lock_timeout = " + timeoutMs);
+                }
+                lenta.setPlan(plan(con, "EXPLAIN (ANALYZE, BUFFERS) " + sql, parametros));
+                lenta.setAnalizado(true);
+            } catch (SQLException e) {
+                con.rollback();
+                lenta.setObservacion(SOLO_LECTURA.equals(e.getSQLState())
+                        ? "La sentencia escribe o bloquea filas: plan estimado, sin ANALYZE."
+                        : "EXPLAIN ANALYZE falló (" + e.getMessage() + "): plan estimado.");
+                lenta.setPlan(plan(con, "EXPLAIN " + sql, parametros));
+            } finally {
+                con.rollback();
+            }
+        } catch (Exception e) {
+            lenta.setObservacion("No se pudo obtener el plan: " + e.getMessage());
+        }
+    }
+
+    private static String plan(Connection con, String sql, Object[] parametros) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            new ArgumentPreparedStatementSetter(parametros).setValues(ps);
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private void guardar(ConsultaLentaDto lenta) {
+        Deque<ConsultaLentaDto> cola = planes.computeIfAbsent(lenta.getNombre(), k -> new ArrayDeque<>());
+        synchronized (cola) {
+            if (cola.size() == planesPorConsulta) {
+                cola.pollFirst();
+            }
+            cola.addLast(lenta);
+        }
+    }
+
+    private static String describir(Object[] parametros) {
+        List<String> valores = new ArrayList<>(parametros.length);
+        for (Object p : parametros) {
+            String v = p instanceof Object[] arreglo ? Arrays.toString(arreglo) : String.valueOf(p);
+            valores.add(v.length() > LARGO_MAXIMO_PARAMETRO ? v.substring(0, LARGO_MAXIMO_PARAMETRO) + "..." : v);
+        }
+        return valores.toString();
+    }
+
+    // ==========================================
+    // CONSULTA DE PLANES
+    // ==========================================
+
+    /** Planes guardados (los más recientes primero), de una consulta o de todas si nombre es null. */
+    public List<ConsultaLentaDto> listar(String nombre) {
+        List<ConsultaLentaDto> lista = new ArrayList<>();
+        planes.forEach((k, cola) -> {
+            if (nombre == null || nombre.equals(k)) {
+                synchronized (cola) {
+                    lista.addAll(cola);
+                }
+            }
+        });
+        lista.sort((a, b) -> b.getFecha_hora().compareTo(a.getFecha_hora()));
+        return lista;
+    }
+
+    public void limpiar() {
+        planes.clear();
+        ultimaCaptura.clear();
+    }
+
+    @PreDestroy
+    public void detener() {
+        explicador.shutdownNow();
+    }
+}
@@ -1,14 +1,26 @@
 package pe.edu.uni.ProyectoFerreteria.service;
 
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.Data;
 import pe.edu.uni.ProyectoFerreteria.dto.AnulacionDto;
@@ -20,59 +32,278 @@ import pe.edu.uni.ProyectoFerreteria.dto.CambioProductoResponseDto;
 import pe.edu.uni.ProyectoFerreteria.dto.CronogramaCabeceraDto;
 import pe.edu.uni.ProyectoFerreteria.dto.CronogramaDetalleDto;
 import pe.edu.uni.ProyectoFerreteria.dto.CronogramaPagoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.CuotaPagadaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DetalleVentaCabeceraDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DetalleVentaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DetalleVentaProdDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DevolucionDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DevolucionRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.DevolucionResponseDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticasCacheDto;
+import pe.edu.uni.ProyectoFerreteria.dto.FiltroReclamosDto;
+import pe.edu.uni.ProyectoFerreteria.dto.FiltroVentasDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ItemVentaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.ListadoVentasDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ListadoVentasNumericoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PaginaDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PagoPendienteDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PagoPendienteNumericoDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PagoRealizadoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PagoRealizadoNumericoDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PagoRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.PagoResponseDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ReclamoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ResultadoVentaLoteDto;
+import pe.edu.uni.ProyectoFerreteria.dto.VentaLoteResponseDto;
 import pe.edu.uni.ProyectoFerreteria.dto.VentaRequestDto;
 import pe.edu.uni.ProyectoFerreteria.dto.VentaResponseDto;
+import pe.edu.uni.ProyectoFerreteria.util.CursorPaginacion;
+import pe.edu.uni.ProyectoFerreteria.util.CuotasInsuficientesException;
+import pe.edu.uni.ProyectoFerreteria.util.ExportadorFilas;
+import pe.edu.uni.ProyectoFerreteria.util.FormatoExportacion;
+import pe.edu.uni.ProyectoFerreteria.util.FormatoMoneda;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+import pe.edu.uni.ProyectoFerreteria.util.RespuestaJsonStreaming;
 
 @Service
 public class ConsultasVentasService {
 	
 	@Autowired
     private JdbcTemplate jdbcTemplate;
+
+	// Catálogos en memoria: las descripciones se resuelven en Java en vez de JOIN por consulta
+	@Autowired
+	private DatosReferenciaService referencia;
+
+	@Autowired
+	private DetalleVentaCache cacheDetalle;
+
+	// Modelo de lectura: los listados leen RESUMEN_VENTA y los registros lo mantienen en su transacción
+	@Autowired
+	private ResumenVentaService resumen;
+
+	@Autowired
+	private NumeracionComprobanteService numeracion;
+
+	// Ventas por transacción en el registro en lote
+	@Value("${ventas.lote.tamano-bloque:50}")
+	private int tamanoBloqueLote;
+
+	// Filas que el driver trae por viaje al recorrer un cursor de exportación
+	private static final int FETCH_SIZE_EXPORTACION = 1000;
+
+	// Tope de cuotas que se pueden pagar en una sola operación
+	private static final int MAXIMO_CUOTAS_POR_PAGO = 120;
+
+	private static final String SQL_LISTADO_VENTAS = """
+	        /* ventas.listado */
+	        SELECT rv.cod_venta_fmt venta,
+	               rv.vendedor,
+	               date(rv.fecha_hora_venta) fecha,
+	               to_char(rv.fecha_hora_venta, 'HH24:MI:SS') hora,
+	               rv.monto_venta monto,
+	               rv.cod_estado_venta
+	        FROM resumen_venta rv
+	        WHERE rv.vendedor IS NOT NULL
+	        """;
+
+	private static final String SQL_PAGOS_REALIZADOS = """
+	        /* ventas.pagos.realizados */
+	        SELECT rv.cod_venta_fmt venta, p.nro_cuota, rv.nro_cuotas,
+			date(p.fecha_pago) fecha, p.monto_pago monto FROM pago p
+			LEFT JOIN resumen_venta rv
+			ON rv.cod_venta = p.cod_venta
+			WHERE p.cod_estado_pago = 2
+			ORDER BY p.cod_pago
+		        """;
+
+	private static final String SQL_PAGOS_PENDIENTES = """
+	        /* ventas.pagos.pendientes */
+	        SELECT rv.cod_venta_fmt venta, rv.cliente, p.nro_cuota, rv.nro_cuotas,
+			p.fecha_vencimiento_pago fecha_vencimiento, p.monto_pago monto, p.cod_estado_pago FROM pago p
+			LEFT JOIN resumen_venta rv
+			ON rv.cod_venta = p.cod_venta
+			WHERE p.cod_estado_pago = 1 OR p.cod_estado_pago = 3
+			ORDER BY p.cod_pago
+		        """;
+
+	private static final String SQL_DEVOLUCIONES = """
+	        /* ventas.devoluciones */
+	        SELECT d.cod_devolucion_fmt devolucion, v.cod_venta_fmt venta, 
+			p.nombre_producto, d.monto_devolucion monto_devuelto, 
+			d.cod_motivo_devolucion FROM devolucion d
+			LEFT JOIN reclamo r
+			ON r.cod_reclamo = d.cod_reclamo
+			LEFT JOIN venta v
+			ON v.cod_venta = r.cod_venta
+			LEFT JOIN producto p 
+			ON p.cod_producto = d.producto_devuelto
+		        """;
 	
     // ==========================================
     // PANEL PRINCIPAL: LISTADO DE VENTAS
     // ==========================================
+	// La base devuelve montos y cuotas como números; el texto "S/ 1,234.50" / "2 de 6" se arma aquí
+	// solo para la respuesta clásica. La variante numérica los entrega tal cual.
 	public List<ListadoVentasDto> listadoVentas() {
-	    String sql = """	
-	        SELECT v.cod_venta_fmt venta,
-	               p.nombre_persona vendedor,
+		List<ListadoVentasNumericoDto> filas = listadoVentasNumerico();
+		List<ListadoVentasDto> lista = new ArrayList<>(filas.size());
+		for (ListadoVentasNumericoDto fila : filas) {
+			ListadoVentasDto dto = new ListadoVentasDto();
+			dto.setVenta(fila.getVenta());
+			dto.setVendedor(fila.getVendedor());
+			dto.setFecha(fila.getFecha());
+			dto.setHora(fila.getHora());
+			dto.setMonto(FormatoMoneda.soles(fila.getMonto()));
+			dto.setEstado(fila.getEstado());
+			lista.add(dto);
+		}
+		return lista;
+	}
+
+	public List<ListadoVentasNumericoDto> listadoVentasNumerico() {
+		MapeadorFilas<ListadoVentasNumericoDto> mapeador = MapeadorFilas.de(ListadoVentasNumericoDto.class);
+	    return jdbcTemplate.query(SQL_LISTADO_VENTAS, (rs, rowNum) -> {
+	    	ListadoVentasNumericoDto dto = mapeador.mapRow(rs, rowNum);
+	    	dto.setEstado(referencia.estadoVenta(rs.getInt("cod_estado_venta")));
+	    	return dto;
+	    });
+	}
+
+	// ==========================================
+    // PANEL PRINCIPAL: LISTADO PAGINADO (KEYSET)
+    // ==========================================
+	public PaginaDto<ListadoVentasDto> listadoVentasPaginado(FiltroVentasDto filtro, String cursor, int limite) {
+		StringBuilder sql = new StringBuilder("""
+	        /* ventas.listado.pagina */
+	        SELECT v.cod_venta, v.fecha_hora_venta,
+	               v.cod_venta_fmt venta,
+	               v.vendedor,
 	               date(v.fecha_hora_venta) fecha,
 	               to_char(v.fecha_hora_venta, 'HH24:MI:SS') hora,
-	               'S/ ' || TO_CHAR(v.monto_venta, 'FM999,999,999,999.00') monto,
-	               ev.descp_estado_venta estado
-	        FROM venta v
-	        INNER JOIN vendedor ve ON v.cod_vendedor = ve.cod_vendedor
-	        JOIN usuario u ON u.cod_usuario = ve.cod_usuario
-	        JOIN persona p ON p.cod_persona = u.cod_persona
-	        INNER JOIN estado_venta ev ON ev.cod_estado_venta = v.cod_estado_venta;
-	        """;
+	               v.monto_venta monto,
+	               v.cod_estado_venta
+	        FROM resumen_venta v
+	        WHERE v.vendedor IS NOT NULL
+	        """);
+		List<Object> params = new ArrayList<>();
+
+		if (filtro.getDesde() != null && !filtro.getDesde().isEmpty()) {
+			sql.append(" AND v.fecha_hora_venta >= ?::date");
+			params.add(filtro.getDesde());
+		}
+		if (filtro.getHasta() != null && !filtro.getHasta().isEmpty()) {
+			sql.append(" AND v.fecha_hora_venta < ?::date + 1");
+			params.add(filtro.getHasta());
+		}
+		if (filtro.getVendedor() != null) {
+			sql.append(" AND v.cod_vendedor = ?");
+			params.add(filtro.getVendedor());
+		}
+		if (filtro.getEstado() != null) {
+			sql.append(" AND v.cod_estado_venta = ?");
+			params.add(filtro.getEstado());
+		}
+		if (filtro.getMontoMin() != null) {
+			sql.append(" AND v.monto_venta >= ?");
+			params.add(filtro.getMontoMin());
+		}
+		if (filtro.getMontoMax() != null) {
+			sql.append(" AND v.monto_venta <= ?");
+			params.add(filtro.getMontoMax());
+		}
+		// Continuación: solo filas estrictamente "después" de la última entregada
+		if (cursor != null && !cursor.isEmpty()) {
+			CursorPaginacion desdeCursor = CursorPaginacion.decodificar(cursor);
+			sql.append(" AND (v.fecha_hora_venta, v.cod_venta) < (?, ?)");
+			params.add(desdeCursor.fechaHora());
+			params.add(desdeCursor.codigo());
+		}
+
+		// Se pide una fila extra solo para saber si existe otra página
+		sql.append(" ORDER BY v.fecha_hora_venta DESC, v.cod_venta DESC LIMIT ?");
+		params.add(limite + 1);
+
+		List<FilaVentaDto> filas = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+			ListadoVentasDto dto = new ListadoVentasDto();
+			dto.setVenta(rs.getString("venta"));
+			dto.setVendedor(rs.getString("vendedor"));
+			dto.setFecha(rs.getString("fecha"));
+			dto.setHora(rs.getString("hora"));
+			dto.setMonto(FormatoMoneda.soles(rs.getBigDecimal("monto")));
+			dto.setEstado(referencia.estadoVenta(rs.getInt("cod_estado_venta")));
+
+			FilaVentaDto fila = new FilaVentaDto();
+			fila.setCod_venta(rs.getInt("cod_venta"));
+			fila.setFecha_hora_venta(rs.getObject("fecha_hora_venta", LocalDateTime.class));
+			fila.setListado(dto);
+			return fila;
+		}, params.toArray());
+
+		boolean hayMas = filas.size() > limite;
+		if (hayMas) {
+			filas = filas.subList(0, limite);
+		}
+
+		List<ListadoVentasDto> items = new ArrayList<>(filas.size());
+		for (FilaVentaDto fila : filas) {
+			items.add(fila.getListado());
+		}
+
+		PaginaDto<ListadoVentasDto> pagina = new PaginaDto<>();
+		pagina.setItems(items);
+		pagina.setHay_mas(hayMas);
+		if (hayMas) {
+			FilaVentaDto ultima = filas.get(filas.size() - 1);
+			pagina.setSiguiente_cursor(
+					new CursorPaginacion(ultima.getFecha_hora_venta(), ultima.getCod_venta()).codificar());
+		}
+		return pagina;
+	}
 
-	    return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(ListadoVentasDto.class));
+	@Data
+	private static class FilaVentaDto {
+		private Integer cod_venta;
+		private LocalDateTime fecha_hora_venta;
+		private ListadoVentasDto listado;
 	}
-	
+
 	// ==========================================
     // DETALLES DE VENTAS
     // ==========================================
+	// El detalle se sirve desde DetalleVentaCache; devoluciones, cambios y anulaciones lo invalidan.
 	public DetalleVentaDto detalleVentas(Integer idVenta) {
+		return cacheDetalle.obtener(idVenta, () -> cargarDetalleVenta(idVenta));
+	}
+
+	// Varias ventas a la vez (pantallas de back-office): las que no están en caché se cargan en una sola consulta
+	public Map<Integer, DetalleVentaDto> detalleVentasLote(Collection<Integer> idsVenta) {
+		return cacheDetalle.obtenerVarios(idsVenta, this::cargarDetallesVenta);
+	}
+
+	private DetalleVentaDto cargarDetalleVenta(Integer idVenta) {
+		return cargarDetallesVenta(List.of(idVenta)).get(idVenta);
+	}
+
+	// Cabecera y productos en una sola consulta: la cabecera se repite en cada fila y se toma de la primera
+	// fila de cada venta. Una venta inexistente o sin productos no aparece en el mapa.
+	private Map<Integer, DetalleVentaDto> cargarDetallesVenta(Collection<Integer> idsVenta) {
 	
-		String sqlCabecera = """	
-	        SELECT pc.nombre_persona cliente, v.fecha_hora_venta fecha_hora,
-			pv.nombre_persona vendedor, cp.descp_cond_pago condicion_pago
+		String sql = """	
+	        /* ventas.detalle */
+	        SELECT v.cod_venta, pc.nombre_persona cliente, v.fecha_hora_venta fecha_hora,
+			pv.nombre_persona vendedor, v.cod_cond_pago,
+			p.cod_producto_fmt producto, p.nombre_producto descripcion, 
+			prv.cantidad_producto cantidad, p.precio_venta precio, prv.descuento_unitario descuento, 
+			p.puntos_producto*prv.cantidad_producto puntos, prv.monto_unitario monto,
+			epv.descp_estado_prodv estado, prv.direccion_entrega, prv.fecha_entrega
 			FROM venta v
-			LEFT JOIN condicion_pago cp
-			ON cp.cod_cond_pago = v.cod_cond_pago
+			JOIN producto_venta prv
+			ON prv.cod_venta = v.cod_venta
+			LEFT JOIN producto p
+			ON p.cod_producto = prv.cod_producto
+			LEFT JOIN estado_producto_venta epv 
+			ON epv.cod_estado_prodv = prv.cod_estado_prodv
 			LEFT JOIN vendedor ven 
 			ON ven.cod_vendedor = v.cod_vendedor
 			LEFT JOIN usuario u
@@ -83,153 +314,325 @@ public class ConsultasVentasService {
 			ON c.cod_cliente = v.cod_cliente
 			LEFT JOIN persona pc
 			ON pc.cod_persona = c.cod_persona
-			WHERE v.cod_venta = ?;
+			WHERE v.cod_venta = ANY(?)
 		        """;
-		
-		String sqlDetalles = """	
-	        SELECT p.cod_producto_fmt producto, p.nombre_producto descripcion, 
-	        pv.cantidad_producto cantidad, p.precio_venta precio, pv.descuento_unitario descuento, 
-	        p.puntos_producto*pv.cantidad_producto puntos, pv.monto_unitario monto,
-	        epv.descp_estado_prodv estado, pv.direccion_entrega, pv.fecha_entrega
-	    		FROM producto_venta pv LEFT JOIN producto p
-	    		ON p.cod_producto = pv.cod_producto LEFT JOIN estado_producto_venta epv 
-	    		ON epv.cod_estado_prodv = pv.cod_estado_prodv
-	    		WHERE pv.cod_venta = ?;
-	        """;
 
 		try {
-	        DetalleVentaCabeceraDto cabecera = jdbcTemplate.queryForObject(
-	            sqlCabecera,
-	            new BeanPropertyRowMapper<>(DetalleVentaCabeceraDto.class),
-	            idVenta
-	        );
-
-	        List<DetalleVentaProdDto> detalles = jdbcTemplate.query(
-	            sqlDetalles,
-	            new BeanPropertyRowMapper<>(DetalleVentaProdDto.class),
-	            idVenta
-	        );
-
-	        if (cabecera == null || detalles == null || detalles.isEmpty()) {
-	            return null; // o lanza una excepción si prefieres
-	        }
-
-	        DetalleVentaDto resp = new DetalleVentaDto();
-	        resp.setCabecera(cabecera);
-	        resp.setDetalles(detalles);
-	        return resp;
+	        MapeadorFilas<DetalleVentaCabeceraDto> mapeadorCabecera = MapeadorFilas.de(DetalleVentaCabeceraDto.class);
+	        MapeadorFilas<DetalleVentaProdDto> mapeadorDetalle = MapeadorFilas.de(DetalleVentaProdDto.class);
+
+	        Map<Integer, DetalleVentaDto> porVenta = new HashMap<>();
+	        jdbcTemplate.query(porVentas(sql, idsVenta), rs -> {
+	        	int fila = rs.getRow() - 1;
+	        	DetalleVentaDto resp = porVenta.get(rs.getInt("cod_venta"));
+	        	if (resp == null) {
+	        		DetalleVentaCabeceraDto cabecera = mapeadorCabecera.mapRow(rs, fila);
+	        		cabecera.setCondicion_pago(referencia.condicionPago(rs.getInt("cod_cond_pago")));
+
+	        		resp = new DetalleVentaDto();
+	        		resp.setCabecera(cabecera);
+	        		resp.setDetalles(new ArrayList<>());
+	        		porVenta.put(rs.getInt("cod_venta"), resp);
+	        	}
+	        	resp.getDetalles().add(mapeadorDetalle.mapRow(rs, fila));
+	        });
+	        return porVenta;
 
-	    } catch (EmptyResultDataAccessException e) {
-	        return null;
 	    } catch (Exception e) {
 	        e.printStackTrace();
 	        throw e; // para que el controller devuelva 500
 	    }
 	}
+
+	// Sentencia con un único parámetro int4[] para "cod_venta = ANY(?)"
+	private static PreparedStatementCreator porVentas(String sql, Collection<Integer> idsVenta) {
+		Integer[] ids = idsVenta.toArray(new Integer[0]);
+		return con -> {
+			PreparedStatement ps = con.prepareStatement(sql);
+			ps.setArray(1, con.createArrayOf("int4", ids));
+			return ps;
+		};
+	}
+	
+	public EstadisticasCacheDto estadisticasCacheDetalle() {
+		return cacheDetalle.estadisticas();
+	}
 	
 	public List<PagoRealizadoDto> verPagosRealizados() {
-		String sql = """	
-	        SELECT v.cod_venta_fmt venta, p.nro_cuota || ' de ' || v.nro_cuotas cuota,
-			date(p.fecha_pago) fecha, 'S/. ' || p.monto_pago monto FROM pago p
-			LEFT JOIN venta v 
-			ON v.cod_venta = p.cod_venta
-			WHERE p.cod_estado_pago = 2
-			ORDER BY p.cod_pago;
-		        """;
+		List<PagoRealizadoNumericoDto> filas = verPagosRealizadosNumerico();
+		List<PagoRealizadoDto> lista = new ArrayList<>(filas.size());
+		for (PagoRealizadoNumericoDto fila : filas) {
+			PagoRealizadoDto dto = new PagoRealizadoDto();
+			dto.setVenta(fila.getVenta());
+			dto.setCuota(FormatoMoneda.cuota(fila.getNro_cuota(), fila.getNro_cuotas()));
+			dto.setFecha(fila.getFecha());
+			dto.setMonto(FormatoMoneda.solesSimple(fila.getMonto()));
+			lista.add(dto);
+		}
+		return lista;
+	}
 
-		    return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(PagoRealizadoDto.class));
+	public List<PagoRealizadoNumericoDto> verPagosRealizadosNumerico() {
+		    return jdbcTemplate.query(SQL_PAGOS_REALIZADOS, MapeadorFilas.de(PagoRealizadoNumericoDto.class));
 	}
 	
-	public List<PagoPendienteDto> verPagosPendientes() {
-		String sql = """	
-	        SELECT v.cod_venta_fmt venta, p2.nombre_persona cliente, p.nro_cuota || ' de ' || v.nro_cuotas cuota,
-			p.fecha_vencimiento_pago fecha_vencimiento, 'S/. ' || p.monto_pago monto, ep.nombre_estado_pago condicion FROM pago p
-			LEFT JOIN venta v 
-			ON v.cod_venta = p.cod_venta
-			LEFT JOIN estado_pago ep 
-			ON ep.cod_estado_pago = p.cod_estado_pago
-			LEFT JOIN cliente c 
-			ON c.cod_cliente = v.cod_cliente
-			LEFT JOIN persona p2 
-			ON p2.cod_persona = c.cod_persona 
-			WHERE p.cod_estado_pago = 1 OR p.cod_estado_pago = 3
-			ORDER BY p.cod_pago;
-		        """;
+	// Pagos pendientes escritos fila por fila en la respuesta: la tabla de pagos crece con cada venta
+	// a cuotas y el listado no se pagina, así que no se arma la lista en memoria
+	@Transactional(readOnly = true)
+	public long escribirPagosPendientes(RespuestaJsonStreaming salida, boolean numerico) {
+		RowMapper<PagoPendienteNumericoDto> mapeador = mapeadorPagoPendiente();
+		return numerico
+				? salida.escribir(jdbcTemplate, SQL_PAGOS_PENDIENTES, mapeador)
+				: salida.escribir(jdbcTemplate, SQL_PAGOS_PENDIENTES,
+						(rs, rowNum) -> pagoPendienteTexto(mapeador.mapRow(rs, rowNum)));
+	}
 
-		    return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(PagoPendienteDto.class));
+	private RowMapper<PagoPendienteNumericoDto> mapeadorPagoPendiente() {
+		MapeadorFilas<PagoPendienteNumericoDto> mapeador = MapeadorFilas.de(PagoPendienteNumericoDto.class);
+		return (rs, rowNum) -> {
+			PagoPendienteNumericoDto dto = mapeador.mapRow(rs, rowNum);
+			dto.setCondicion(referencia.estadoPago(rs.getInt("cod_estado_pago")));
+			return dto;
+		};
+	}
+
+	private static PagoPendienteDto pagoPendienteTexto(PagoPendienteNumericoDto fila) {
+		PagoPendienteDto dto = new PagoPendienteDto();
+		dto.setVenta(fila.getVenta());
+		dto.setCliente(fila.getCliente());
+		dto.setCuota(FormatoMoneda.cuota(fila.getNro_cuota(), fila.getNro_cuotas()));
+		dto.setFecha_vencimiento(fila.getFecha_vencimiento());
+		dto.setMonto(FormatoMoneda.solesSimple(fila.getMonto()));
+		dto.setCondicion(fila.getCondicion());
+		return dto;
 	}
 	
 	public List<DevolucionDto> verDevoluciones() {
-		String sql = """	
-	        SELECT d.cod_devolucion_fmt devolucion, v.cod_venta_fmt venta, 
-			p.nombre_producto, d.monto_devolucion monto_devuelto, 
-			md.descp_motivo_devolucion motivo_devolucion FROM devolucion d
-			LEFT JOIN reclamo r
-			ON r.cod_reclamo = d.cod_reclamo
-			LEFT JOIN venta v
-			ON v.cod_venta = r.cod_venta
-			LEFT JOIN motivo_devolucion md 
-			ON md.cod_motivo_devolucion = d.cod_motivo_devolucion
-			LEFT JOIN producto p 
-			ON p.cod_producto = d.producto_devuelto;
-		        """;
-
-		    return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(DevolucionDto.class));
+		MapeadorFilas<DevolucionDto> mapeador = MapeadorFilas.de(DevolucionDto.class);
+		    return jdbcTemplate.query(SQL_DEVOLUCIONES, (rs, rowNum) -> {
+		    	DevolucionDto dto = mapeador.mapRow(rs, rowNum);
+		    	dto.setMotivo_devolucion(referencia.motivoDevolucion(rs.getInt("cod_motivo_devolucion")));
+		    	return dto;
+		    });
 	}
 	
 	public List<CambioProdDto> verCambiosProd() {
 		String sql = """	
-	        SELECT cp.cod_cp_fmt cambio_prod, v.cod_venta_fmt venta, p3.nombre_persona cliente, 
+	        /* ventas.cambios */
+	        SELECT cp.cod_cp_fmt cambio_prod, rv.cod_venta_fmt venta, rv.cliente, 
 			p1.nombre_producto producto_devuelto, p2.nombre_producto producto_nuevo, 
 			cp.diferencia_cambio diferencia, date(cp.fecha_hora_cp) fecha
 			FROM cambio_producto cp
 			LEFT JOIN reclamo r 
 			ON r.cod_reclamo = cp.cod_reclamo
-			LEFT JOIN venta v
-			ON v.cod_venta = r.cod_venta
+			LEFT JOIN resumen_venta rv
+			ON rv.cod_venta = r.cod_venta
 			LEFT JOIN producto p1
 			ON p1.cod_producto = cp.producto_retorna 
 			LEFT JOIN producto p2
-			ON p2.cod_producto = cp.producto_entrega
-			LEFT JOIN cliente c 
-			ON c.cod_cliente = v.cod_cliente
-			LEFT JOIN persona p3 
-			ON p3.cod_persona = c.cod_persona;
+			ON p2.cod_producto = cp.producto_entrega;
 		        """;
 
-		    return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(CambioProdDto.class));
+		    return jdbcTemplate.query(sql, MapeadorFilas.de(CambioProdDto.class));
 	}
 	
 	public List<AnulacionDto> verAnulaciones() {
 		String sql = """	
-	        SELECT a.cod_anulacion_fmt anulacion, pc.nombre_persona cliente, pv.nombre_persona vendedor, 
-			date(a.fecha_hora_anulacion) fecha, v.monto_venta monto, 
-			ma.descp_motivo_anulacion motivo FROM anulacion a
+	        /* ventas.anulaciones */
+	        SELECT a.cod_anulacion_fmt anulacion, rv.cliente, rv.vendedor, 
+			date(a.fecha_hora_anulacion) fecha, rv.monto_venta monto, 
+			a.cod_motivo_anulacion FROM anulacion a
 			LEFT JOIN reclamo r
 			ON r.cod_reclamo = a.cod_reclamo
-			LEFT JOIN venta v
-			ON v.cod_venta = r.cod_venta
-			LEFT JOIN vendedor ven 
-			ON ven.cod_vendedor = v.cod_vendedor
-			LEFT JOIN usuario u
-			ON u.cod_usuario = ven.cod_usuario
-			LEFT JOIN persona pv
-			ON pv.cod_persona = u.cod_persona
-			LEFT JOIN cliente c
-			ON c.cod_cliente = v.cod_cliente
-			LEFT JOIN persona pc
-			ON pc.cod_persona = c.cod_persona
-			LEFT JOIN motivo_anulacion ma 
-			ON ma.cod_motivo_anulacion = a.cod_motivo_anulacion;
+			LEFT JOIN resumen_venta rv
+			ON rv.cod_venta = r.cod_venta;
 		        """;
 
-		    return jdbcTemplate.query(sql, new BeanPropertyRowMapper<>(AnulacionDto.class));
+		MapeadorFilas<AnulacionDto> mapeador = MapeadorFilas.de(AnulacionDto.class);
+		    return jdbcTemplate.query(sql, (rs, rowNum) -> {
+		    	AnulacionDto dto = mapeador.mapRow(rs, rowNum);
+		    	dto.setMotivo(referencia.motivoAnulacion(rs.getInt("cod_motivo_anulacion")));
+		    	return dto;
+		    });
+	}
+	
+	// ==========================================
+    // LÍNEA DE TIEMPO DE RECLAMOS (KEYSET)
+    // ==========================================
+	// Cada tipo de reclamo es una rama del UNION ALL; el orden y el cursor usan (fecha, cod_reclamo),
+	// que es único porque cada reclamo genera exactamente una devolución, cambio o anulación.
+	private record RamaReclamo(String tipo, String tabla, String alias, String columnaFecha, String columnas) {
+	}
+
+	private static final List<RamaReclamo> RAMAS_RECLAMO = List.of(
+			new RamaReclamo("devolucion", "devolucion", "d", "d.fecha_hora_devolucion",
+					"d.cod_devolucion_fmt codigo, d.monto_devolucion::numeric monto, d.cod_motivo_devolucion cod_motivo, d.descp_devolucion detalle"),
+			new RamaReclamo("cambio", "cambio_producto", "cp", "cp.fecha_hora_cp",
+					"cp.cod_cp_fmt codigo, cp.diferencia_cambio::numeric monto, NULL::int cod_motivo, cp.descp_cambio detalle"),
+			new RamaReclamo("anulacion", "anulacion", "a", "a.fecha_hora_anulacion",
+					"a.cod_anulacion_fmt codigo, NULL::numeric monto, a.cod_motivo_anulacion cod_motivo, a.descp_anulacion detalle"));
+
+	public PaginaDto<ReclamoDto> listadoReclamos(FiltroReclamosDto filtro, String cursor, int limite) {
+		String tipo = filtro.getTipo() != null && !filtro.getTipo().isBlank()
+				? filtro.getTipo().trim().toLowerCase() : null;
+		CursorPaginacion desdeCursor = cursor != null && !cursor.isEmpty() ? CursorPaginacion.decodificar(cursor) : null;
+
+		// 1. Una rama por tipo pedido, cada una ya filtrada, ordenada y limitada por su índice de fecha
+		StringBuilder ramas = new StringBuilder();
+		List<Object> params = new ArrayList<>();
+		for (RamaReclamo rama : RAMAS_RECLAMO) {
+			if (tipo != null && !tipo.equals(rama.tipo())) {
+				continue;
+			}
+			if (ramas.length() > 0) {
+				ramas.append(" UNION ALL ");
+			}
+			ramas.append("(SELECT '").append(rama.tipo()).append("' tipo, r.cod_reclamo, r.cod_venta, r.cod_cliente, ")
+					.append(rama.columnaFecha()).append(" fecha_hora, ").append(rama.columnas())
+					.append(" FROM ").append(rama.tabla()).append(' ').append(rama.alias())
+					.append(" JOIN reclamo r ON r.cod_reclamo = ").append(rama.alias()).append(".cod_reclamo")
+					.append(" WHERE 1 = 1");
+
+			if (filtro.getDesde() != null && !filtro.getDesde().isEmpty()) {
+				ramas.append(" AND ").append(rama.columnaFecha()).append(" >= ?::date");
+				params.add(filtro.getDesde());
+			}
+			if (filtro.getHasta() != null && !filtro.getHasta().isEmpty()) {
+				ramas.append(" AND ").append(rama.columnaFecha()).append(" < ?::date + 1");
+				params.add(filtro.getHasta());
+			}
+			if (filtro.getCliente() != null) {
+				ramas.append(" AND r.cod_cliente = ?");
+				params.add(filtro.getCliente());
+			}
+			if (filtro.getVenta() != null) {
+				ramas.append(" AND r.cod_venta = ?");
+				params.add(filtro.getVenta());
+			}
+			if (desdeCursor != null) {
+				ramas.append(" AND (").append(rama.columnaFecha()).append(", ").append(rama.alias())
+						.append(".cod_reclamo) < (?, ?)");
+				params.add(desdeCursor.fechaHora());
+				params.add(desdeCursor.codigo());
+			}
+			ramas.append(" ORDER BY ").append(rama.columnaFecha()).append(" DESC, ")
+					.append(rama.alias()).append(".cod_reclamo DESC LIMIT ?)");
+			params.add(limite + 1);
+		}
+		if (ramas.length() == 0) {
+			throw new IllegalArgumentException("Tipo de reclamo no válido: " + filtro.getTipo());
+		}
+
+		// 2. Mezcla de las ramas; venta y cliente salen de RESUMEN_VENTA solo para las filas de la página
+		String sql = """
+	        /* ventas.reclamos.pagina */
+	        SELECT t.tipo, t.codigo, t.cod_reclamo, t.fecha_hora, t.cod_motivo, t.detalle,
+	               CASE WHEN t.tipo = 'anulacion' THEN rv.monto_venta ELSE t.monto END monto,
+	               rv.cod_venta_fmt venta, rv.cliente
+	        FROM (
+	            SELECT * FROM (%s) u
+	            ORDER BY u.fecha_hora DESC, u.cod_reclamo DESC
+	            LIMIT ?
+	        ) t
+	        LEFT JOIN resumen_venta rv ON rv.cod_venta = t.cod_venta
+	        ORDER BY t.fecha_hora DESC, t.cod_reclamo DESC
+	        """.formatted(ramas);
+		params.add(limite + 1);
+
+		MapeadorFilas<ReclamoDto> mapeador = MapeadorFilas.de(ReclamoDto.class);
+		List<FilaReclamoDto> filas = jdbcTemplate.query(sql, (rs, rowNum) -> {
+			ReclamoDto dto = mapeador.mapRow(rs, rowNum);
+			int codMotivo = rs.getInt("cod_motivo");
+			if (!rs.wasNull()) {
+				dto.setMotivo("anulacion".equals(dto.getTipo())
+						? referencia.motivoAnulacion(codMotivo)
+						: referencia.motivoDevolucion(codMotivo));
+			}
+
+			FilaReclamoDto fila = new FilaReclamoDto();
+			fila.setCod_reclamo(rs.getInt("cod_reclamo"));
+			fila.setFecha_hora(rs.getObject("fecha_hora", LocalDateTime.class));
+			fila.setReclamo(dto);
+			return fila;
+		}, params.toArray());
+
+		// 3. Página y cursor, igual que en el listado de ventas
+		boolean hayMas = filas.size() > limite;
+		if (hayMas) {
+			filas = filas.subList(0, limite);
+		}
+
+		List<ReclamoDto> items = new ArrayList<>(filas.size());
+		for (FilaReclamoDto fila : filas) {
+			items.add(fila.getReclamo());
+		}
+
+		PaginaDto<ReclamoDto> pagina = new PaginaDto<>();
+		pagina.setItems(items);
+		pagina.setHay_mas(hayMas);
+		if (hayMas) {
+			FilaReclamoDto ultima = filas.get(filas.size() - 1);
+			pagina.setSiguiente_cursor(
+					new CursorPaginacion(ultima.getFecha_hora(), ultima.getCod_reclamo()).codificar());
+		}
+		return pagina;
+	}
+
+	@Data
+	private static class FilaReclamoDto {
+		private Integer cod_reclamo;
+		private LocalDateTime fecha_hora;
+		private ReclamoDto reclamo;
+	}
+	
+	// ==========================================
+    // EXPORTACIÓN (contabilidad)
+    // ==========================================
+	// Se recorre un cursor del servidor: sin transacción el driver de PostgreSQL ignora el fetch size
+	// y trae todas las filas de golpe.
+	@Transactional(readOnly = true)
+	public long exportarVentas(OutputStream salida, FormatoExportacion formato) {
+		return exportar(SQL_LISTADO_VENTAS, new ExportadorFilas(salida, formato)
+				.resolviendo("cod_estado_venta", "estado", referencia::estadoVenta));
+	}
+
+	@Transactional(readOnly = true)
+	public long exportarPagosRealizados(OutputStream salida, FormatoExportacion formato) {
+		return exportar(SQL_PAGOS_REALIZADOS, new ExportadorFilas(salida, formato));
+	}
+
+	@Transactional(readOnly = true)
+	public long exportarPagosPendientes(OutputStream salida, FormatoExportacion formato) {
+		return exportar(SQL_PAGOS_PENDIENTES, new ExportadorFilas(salida, formato)
+				.resolviendo("cod_estado_pago", "condicion", referencia::estadoPago));
+	}
+
+	@Transactional(readOnly = true)
+	public long exportarDevoluciones(OutputStream salida, FormatoExportacion formato) {
+		return exportar(SQL_DEVOLUCIONES, new ExportadorFilas(salida, formato)
+				.resolviendo("cod_motivo_devolucion", "motivo_devolucion", referencia::motivoDevolucion));
+	}
+
+	private long exportar(String sql, ExportadorFilas exportador) {
+		Long filas = jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(FETCH_SIZE_EXPORTACION);
+			return ps;
+		}, exportador);
+		return filas != null ? filas : 0;
 	}
 	
 	public CronogramaPagoDto verCronogramaPago(Integer idVenta) {
+		return cronogramasPago(List.of(idVenta)).get(idVenta);
+	}
+
+	// Cabeceras y pagos de varias ventas en dos consultas; se agrupan por cod_venta en memoria.
+	// Una venta inexistente o sin pagos no aparece en el mapa, que respeta el orden pedido.
+	public Map<Integer, CronogramaPagoDto> cronogramasPago(Collection<Integer> idsVenta) {
 		
 		String sqlCabecera = """	
-	        SELECT v.cod_venta_fmt venta, pc.nombre_persona cliente, v.fecha_hora_venta fecha_hora,
+	        /* ventas.cronograma.cabecera */
+	        SELECT v.cod_venta, v.cod_venta_fmt venta, pc.nombre_persona cliente, v.fecha_hora_venta fecha_hora,
 			pv.nombre_persona vendedor
 			FROM venta v
 			LEFT JOIN vendedor ven 
@@ -242,46 +645,50 @@ public class ConsultasVentasService {
 			ON c.cod_cliente = v.cod_cliente
 			LEFT JOIN persona pc
 			ON pc.cod_persona = c.cod_persona
-			WHERE v.cod_venta = ?;
+			WHERE v.cod_venta = ANY(?)
 		        """;
 		
 		String sqlPagos = """	
-	        SELECT p.fecha_vencimiento_pago fecha_vencimiento, p.monto_pago monto_pago, date(p.fecha_pago) fecha_pago,
-			mp.descp_metodo_pago metodo_pago, c.nro_comprobante num_comprobante, 
-			tc.descp_tipo_comprobante tipo_comprobante  FROM pago p
-			LEFT JOIN metodo_pago mp 
-			ON mp.cod_metodo_pago = p.cod_metodo_pago 
+	        /* ventas.cronograma.cuotas */
+	        SELECT p.cod_venta, p.fecha_vencimiento_pago fecha_vencimiento, p.monto_pago monto_pago, date(p.fecha_pago) fecha_pago,
+			p.cod_metodo_pago, c.nro_comprobante num_comprobante, 
+			c.cod_tipo_comprobante FROM pago p
 			LEFT JOIN comprobante c
 			ON c.cod_comprobante = p.cod_comprobante
-			LEFT JOIN tipo_comprobante tc 
-			ON tc.cod_tipo_comprobante = c.cod_tipo_comprobante
-			WHERE p.cod_venta = ?;
+			WHERE p.cod_venta = ANY(?)
+			ORDER BY p.cod_venta, p.nro_cuota
 	        """;
 
 		try {
-	        CronogramaCabeceraDto cabecera = jdbcTemplate.queryForObject(
-	            sqlCabecera,
-	            new BeanPropertyRowMapper<>(CronogramaCabeceraDto.class),
-	            idVenta
-	        );
-
-	        List<CronogramaDetalleDto> pagos = jdbcTemplate.query(
-	            sqlPagos,
-	            new BeanPropertyRowMapper<>(CronogramaDetalleDto.class),
-	            idVenta
-	        );
-
-	        if (cabecera == null || pagos == null || pagos.isEmpty()) {
-	            return null; // o lanza una excepción si prefieres
+	        MapeadorFilas<CronogramaCabeceraDto> mapeadorCabecera = MapeadorFilas.de(CronogramaCabeceraDto.class);
+	        Map<Integer, CronogramaCabeceraDto> cabeceras = new HashMap<>();
+	        jdbcTemplate.query(porVentas(sqlCabecera, idsVenta), rs -> {
+	        	cabeceras.put(rs.getInt("cod_venta"), mapeadorCabecera.mapRow(rs, rs.getRow() - 1));
+	        });
+
+	        MapeadorFilas<CronogramaDetalleDto> mapeadorPago = MapeadorFilas.de(CronogramaDetalleDto.class);
+	        Map<Integer, List<CronogramaDetalleDto>> pagos = new HashMap<>();
+	        jdbcTemplate.query(porVentas(sqlPagos, idsVenta), rs -> {
+	        	CronogramaDetalleDto dto = mapeadorPago.mapRow(rs, rs.getRow() - 1);
+	        	dto.setMetodo_pago(referencia.metodoPago(rs.getInt("cod_metodo_pago")));
+	        	dto.setTipo_comprobante(referencia.tipoComprobante(rs.getInt("cod_tipo_comprobante")));
+	        	pagos.computeIfAbsent(rs.getInt("cod_venta"), k -> new ArrayList<>()).add(dto);
+	        });
+
+	        Map<Integer, CronogramaPagoDto> resultado = new LinkedHashMap<>();
+	        for (Integer idVenta : idsVenta) {
+	        	CronogramaCabeceraDto cabecera = cabeceras.get(idVenta);
+	        	List<CronogramaDetalleDto> pagosVenta = pagos.get(idVenta);
+	        	if (cabecera == null || pagosVenta == null) {
+	        		continue;
+	        	}
+	        	CronogramaPagoDto resp = new CronogramaPagoDto();
+	        	resp.setCabecera(cabecera);
+	        	resp.setPagos(pagosVenta);
+	        	resultado.put(idVenta, resp);
 	        }
+	        return resultado;
 
-	        CronogramaPagoDto resp = new CronogramaPagoDto();
-	        resp.setCabecera(cabecera);
-	        resp.setPagos(pagos);
-	        return resp;
-
-	    } catch (EmptyResultDataAccessException e) {
-	        return null;
 	    } catch (Exception e) {
 	        e.printStackTrace();
 	        throw e; // para que el controller devuelva 500
@@ -291,14 +698,25 @@ public class ConsultasVentasService {
 	@Transactional
 	public VentaResponseDto registrarVenta(VentaRequestDto request) {
 
-	    // 1. Crear venta base (montos en 0)
+	    // 1. Crear venta base (montos en 0) y anotar la venta en el registro de contadores del vendedor.
+	    //    No se actualiza VENDEDOR aquí: ventas simultáneas del mismo vendedor se encolarían en esa fila
+	    //    hasta el commit. ContadorVentasVendedorService vuelca el registro a total_ventas_vendedor.
 	    String sqlInsertVenta = """
-	        INSERT INTO venta (
-	            monto_venta, igv, descuento, puntos_venta,
-	            cod_estado_venta, cod_cond_pago, nro_cuotas, cod_cliente, cod_vendedor
+	        /* ventas.registrar.venta */
+	        WITH nueva AS (
+	            INSERT INTO venta (
+	                monto_venta, igv, descuento, puntos_venta,
+	                cod_estado_venta, cod_cond_pago, nro_cuotas, cod_cliente, cod_vendedor
+	            )
+	            VALUES (0, 0, 0, 0, 2, ?, ?, ?, ?)
+	            RETURNING cod_venta, cod_vendedor
+	        ),
+	        contador AS (
+	            INSERT INTO venta_vendedor_pendiente (cod_vendedor, cantidad)
+	            SELECT cod_vendedor, 1 FROM nueva
+	            WHERE cod_vendedor IS NOT NULL
 	        )
-	        VALUES (0, 0, 0, 0, 2, ?, ?, ?, ?)
-	        RETURNING cod_venta
+	        SELECT cod_venta FROM nueva
 	        """;
 
 	    Integer codVenta = jdbcTemplate.queryForObject(
@@ -310,89 +728,49 @@ public class ConsultasVentasService {
 	            request.getCod_vendedor()
 	    );
 
-	    // 2. Insertar ítems de venta
-	    String sqlInsertItem = """
-	        INSERT INTO producto_venta (
-	            cod_venta, cod_producto, cantidad_producto,
-	            precio_unitario, descuento_unitario, monto_unitario, puntos_unitario,
-	            cod_estado_prodv, direccion_entrega, fecha_entrega
-	        )
-	        VALUES (
-	            ?, ?, ?, 
-	            precio_unitario(?), 
-	            ?, 
-	            precio_unitario(?) * ?, 
-	            puntos_producto(?) * ?, 
-	            ?, 
-	            ?, 
-	            ?::date
-	        )
-	        """;
-
+	    // 2. Insertar todos los ítems de venta en una sola sentencia (arrays + unnest)
 	    List<ItemVentaDto> items = request.getItems();
-	    for (ItemVentaDto item : items) {
-
-	        jdbcTemplate.update(
-	                sqlInsertItem,
-	                codVenta,
-	                item.getCod_producto(),
-	                item.getCantidad(),
-	                item.getCod_producto(),
-	                item.getDescuento_unitario() != null ? item.getDescuento_unitario() : 0f,
-	                item.getCod_producto(),
-	                item.getCantidad(),
-	                item.getCod_producto(),
-	                item.getCantidad(),
-	                item.getCod_estado_prodv() != null ? item.getCod_estado_prodv() : 1,
-	                item.getDireccion_entrega(),
-	                item.getFecha_entrega()
-	        );
+	    if (items != null && !items.isEmpty()) {
+	        insertarItemsVenta(codVenta, items);
 	    }
 
-	    // 3. Actualizar totales
+	    // 3. Actualizar totales y devolver el resumen en el mismo viaje
 	    String sqlUpdateTotales = """
+	        /* ventas.registrar.totales */
 	        UPDATE venta
-	        SET monto_venta = calcular_monto_venta(?),
-	            igv = calcular_igv_venta(?),
-	            descuento = calcular_dscto_venta(?),
-	            puntos_venta = calcular_puntos_venta(?)
+	        SET monto_venta = calcular_monto_venta(cod_venta),
+	            igv = calcular_igv_venta(cod_venta),
+	            descuento = calcular_dscto_venta(cod_venta),
+	            puntos_venta = calcular_puntos_venta(cod_venta)
 	        WHERE cod_venta = ?
+	        RETURNING cod_venta, monto_venta, igv, descuento, puntos_venta
 	        """;
 
-	    jdbcTemplate.update(
+	    VentaResponseDto response = jdbcTemplate.queryForObject(
 	            sqlUpdateTotales,
-	            codVenta, codVenta, codVenta, codVenta, codVenta
+	            MapeadorFilas.de(VentaResponseDto.class),
+	            codVenta
 	    );
 
-	    // 4. Actualizar contador de ventas del vendedor
-	    String sqlUpdateVendedor = """
-	        UPDATE vendedor
-	        SET total_ventas_vendedor = total_ventas_vendedor + 1
-	        WHERE cod_vendedor = ?
-	        """;
-
-	    jdbcTemplate.update(sqlUpdateVendedor, request.getCod_vendedor());
+	    // 4. Insertar comprobante y primer pago en la misma sentencia. Sin nro_comprobante en la petición
+	    //    el número sale de la serie en memoria de la caja (no consulta la base).
+	    String nroComprobante = request.getNro_comprobante();
+	    if ((nroComprobante == null || nroComprobante.isBlank())
+	            && request.getCod_tipo_comprobante() != null && request.getCod_caja() != null) {
+	        nroComprobante = numeracion.emitir(request.getCod_tipo_comprobante(), request.getCod_caja());
+	    }
 
-	    // 5. Insertar comprobante y obtener el ID correcto
-	    String sqlInsertComprobante = """
-	        INSERT INTO comprobante (
-	            cod_tipo_comprobante,
-	            nro_comprobante,
-	            fecha_emision
+	    String sqlComprobanteYPrimerPago = """
+	        /* ventas.registrar.comprobante */
+	        WITH comp AS (
+	            INSERT INTO comprobante (
+	                cod_tipo_comprobante,
+	                nro_comprobante,
+	                fecha_emision
+	            )
+	            VALUES (?, ?, now())
+	            RETURNING cod_comprobante
 	        )
-	        VALUES (?, ?, now())
-	        RETURNING cod_comprobante
-	        """;
-
-	    Integer codComprobante = jdbcTemplate.queryForObject(
-	            sqlInsertComprobante,
-	            Integer.class,
-	            request.getCod_tipo_comprobante(),
-	            request.getNro_comprobante()
-	    );
-
-	    // 6. Insertar primer pago
-	    String sqlInsertPrimerPago = """
 	        INSERT INTO pago (
 	            cod_venta, nro_cuota, monto_pago,
 	            fecha_vencimiento_pago, fecha_pago,
@@ -400,25 +778,26 @@ public class ConsultasVentasService {
 	            cod_caja, cod_comprobante,
 	            cod_estado_pago, cod_metodo_pago
 	        )
-	        VALUES (
+	        SELECT
 	            ?, 1, primer_pago(?),
 	            current_date, current_date,
-	            ?, ?, ?, ?, 2, ?
-	        )
+	            ?, ?, ?, comp.cod_comprobante, 2, ?
+	        FROM comp
 	        """;
 
 	    jdbcTemplate.update(
-	            sqlInsertPrimerPago,
+	            sqlComprobanteYPrimerPago,
+	            request.getCod_tipo_comprobante(),
+	            nroComprobante,
 	            codVenta,
 	            codVenta,
 	            request.getNombre_pagador(),
 	            request.getNro_telf_pagador(),
 	            request.getCod_caja(),
-	            codComprobante,
 	            request.getCod_metodo_pago()
 	    );
 
-	    // 7. Generar pagos restantes (corregido: no usar Void.class)
+	    // 5. Generar pagos restantes (corregido: no usar Void.class)
 	    String sqlGenerarPagos = "SELECT generar_pagos_restantes(?)";
 
 	    jdbcTemplate.query(
@@ -427,57 +806,136 @@ public class ConsultasVentasService {
 	            codVenta
 	    );
 
-	    // 8. Resumen de venta para respuesta
-	    String sqlResumen = """
-	        SELECT cod_venta, monto_venta, igv, descuento, puntos_venta
-	        FROM venta
-	        WHERE cod_venta = ?
-	        """;
-
-	    VentaResponseDto response = jdbcTemplate.queryForObject(
-	            sqlResumen,
-	            new BeanPropertyRowMapper<>(VentaResponseDto.class),
-	            codVenta
-	    );
+	    // 6. Fila del modelo de lectura (ya con las cuotas generadas)
+	    resumen.actualizar(codVenta);
 
+	    response.setNro_comprobante(nroComprobante);
 	    response.setMensaje("Venta registrada correctamente.");
 	    return response;
 	}
 
+	// ==========================================
+    // REGISTRO EN LOTE (cajas que trabajaron sin conexión)
+    // ==========================================
+	// Las ventas se procesan en bloques; cada bloque es una transacción y cada venta usa un savepoint,
+	// así una venta inválida no descarta a las demás del bloque.
+	// Se usa un DataSourceTransactionManager propio porque el de JPA no permite savepoints por defecto.
+	public VentaLoteResponseDto registrarVentasLote(List<VentaRequestDto> ventas) {
+		TransactionTemplate tx = new TransactionTemplate(
+				new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+		List<ResultadoVentaLoteDto> resultados = new ArrayList<>(ventas.size());
+		int bloque = Math.max(1, tamanoBloqueLote);
+
+		for (int inicio = 0; inicio < ventas.size(); inicio += bloque) {
+			int fin = Math.min(inicio + bloque, ventas.size());
+			int desde = inicio;
+
+			List<ResultadoVentaLoteDto> parcialesBloque = tx.execute(status -> {
+				List<ResultadoVentaLoteDto> parciales = new ArrayList<>(fin - desde);
+				for (int i = desde; i < fin; i++) {
+					ResultadoVentaLoteDto r = new ResultadoVentaLoteDto();
+					r.setIndice(i);
+
+					Object savepoint = status.createSavepoint();
+					int marcaNumeracion = numeracion.marca();
+					try {
+						r.setVenta(registrarVenta(ventas.get(i)));
+						r.setExito(true);
+						status.releaseSavepoint(savepoint);
+					} catch (RuntimeException e) {
+						status.rollbackToSavepoint(savepoint);
+						// El bloque confirma igual: el número de comprobante de esta venta vuelve a la serie
+						numeracion.devolverDesde(marcaNumeracion);
+						r.setExito(false);
+						r.setError(e.getMessage());
+					}
+					parciales.add(r);
+				}
+				return parciales;
+			});
+			resultados.addAll(parcialesBloque);
+		}
+
+		int registradas = 0;
+		for (ResultadoVentaLoteDto r : resultados) {
+			if (r.isExito()) {
+				registradas++;
+			}
+		}
+
+		VentaLoteResponseDto resp = new VentaLoteResponseDto();
+		resp.setTotal(ventas.size());
+		resp.setRegistradas(registradas);
+		resp.setFallidas(ventas.size() - registradas);
+		resp.setResultados(resultados);
+		return resp;
+	}
+
+	// Inserta todas las líneas con un único INSERT ... SELECT sobre unnest(arrays).
+	// precio_unitario() y puntos_producto() se evalúan una sola vez por línea.
+	private void insertarItemsVenta(Integer codVenta, List<ItemVentaDto> items) {
+	    String sqlInsertItems = """
+	        /* ventas.registrar.items */
+	        INSERT INTO producto_venta (
+	            cod_venta, cod_producto, cantidad_producto,
+	            precio_unitario, descuento_unitario, monto_unitario, puntos_unitario,
+	            cod_estado_prodv, direccion_entrega, fecha_entrega
+	        )
+	        SELECT ?, i.cod_producto, i.cantidad,
+	               pr.precio, i.descuento, pr.precio * i.cantidad, pr.puntos * i.cantidad,
+	               i.estado, i.direccion, i.fecha::date
+	        FROM unnest(?::int[], ?::int[], ?::real[], ?::int[], ?::text[], ?::text[])
+	             WITH ORDINALITY AS i(cod_producto, cantidad, descuento, estado, direccion, fecha, orden)
+	        CROSS JOIN LATERAL (
+	            SELECT precio_unitario(i.cod_producto) AS precio,
+	                   puntos_producto(i.cod_producto) AS puntos
+	        ) pr
+	        ORDER BY i.orden
+	        """;
+
+	    int n = items.size();
+	    Integer[] productos = new Integer[n];
+	    Integer[] cantidades = new Integer[n];
+	    Float[] descuentos = new Float[n];
+	    Integer[] estados = new Integer[n];
+	    String[] direcciones = new String[n];
+	    String[] fechas = new String[n];
+
+	    for (int k = 0; k < n; k++) {
+	        ItemVentaDto item = items.get(k);
+	        productos[k] = item.getCod_producto();
+	        cantidades[k] = item.getCantidad();
+	        descuentos[k] = item.getDescuento_unitario() != null ? item.getDescuento_unitario() : 0f;
+	        estados[k] = item.getCod_estado_prodv() != null ? item.getCod_estado_prodv() : 1;
+	        direcciones[k] = item.getDireccion_entrega();
+	        fechas[k] = item.getFecha_entrega();
+	    }
+
+	    jdbcTemplate.update(con -> {
+	        PreparedStatement ps = con.prepareStatement(sqlInsertItems);
+	        ps.setInt(1, codVenta);
+	        ps.setArray(2, con.createArrayOf("int4", productos));
+	        ps.setArray(3, con.createArrayOf("int4", cantidades));
+	        ps.setArray(4, con.createArrayOf("float4", descuentos));
+	        ps.setArray(5, con.createArrayOf("int4", estados));
+	        ps.setArray(6, con.createArrayOf("text", direcciones));
+	        ps.setArray(7, con.createArrayOf("text", fechas));
+	        return ps;
+	    });
+	}
+
 	
 
     @Transactional
     public PagoResponseDto registrarPago(PagoRequestDto request) {
 
-        // 1. Obtener la próxima cuota pendiente
-        String sqlCuotaPendiente = """
-            SELECT cod_pago, nro_cuota, monto_pago
-            FROM pago
-            WHERE cod_venta = ?
-              AND cod_estado_pago IN (1,3)
-            ORDER BY nro_cuota ASC
-            LIMIT 1
-            """;
-
-        List<PendienteDto> pendientes = jdbcTemplate.query(
-            sqlCuotaPendiente,
-            (rs, rowNum) -> {
-                PendienteDto p = new PendienteDto();
-                p.setCod_pago(rs.getInt("cod_pago"));
-                p.setNro_cuota(rs.getInt("nro_cuota"));
-                p.setMonto_pago(rs.getFloat("monto_pago"));
-                return p;
-            },
-            request.getCod_venta()
-        );
-
-        if (pendientes.isEmpty()) {
-            throw new RuntimeException("No existe ninguna cuota pendiente para esta venta.");
+        int cantidad = request.getCantidad_cuotas() != null ? request.getCantidad_cuotas() : 1;
+        if (cantidad < 1 || cantidad > MAXIMO_CUOTAS_POR_PAGO) {
+            throw new IllegalArgumentException("La cantidad de cuotas debe estar entre 1 y " + MAXIMO_CUOTAS_POR_PAGO + ".");
         }
 
-        PendienteDto cuota = pendientes.get(0);
-
-        // 2. Determinar nombre y teléfono del pagador
+        // 1. Determinar nombre y teléfono del pagador
         String nombrePagador = request.getNombre_pagador();
         String telfPagador   = request.getNro_telf_pagador();
 
@@ -487,6 +945,7 @@ public class ConsultasVentasService {
         if (faltaNombre || faltaTelf) {
             // Datos del titular de la venta (cliente)
             String sqlTitular = """
+                /* ventas.pago.titular */
                 SELECT 
                     p.nombre_persona,
                     c.valor_contacto AS telefono
@@ -521,9 +980,22 @@ public class ConsultasVentasService {
             }
         }
 
-        // 3. Actualizar cuota como pagada
+        // 2. Tomar y pagar las próximas cuotas pendientes en una sola sentencia.
+        //    FOR UPDATE (sin SKIP LOCKED): si otra caja, el motor de morosidad o una anulación tiene
+        //    bloqueada la cuota más antigua, se espera a que termine y se vuelve a evaluar; así nunca
+        //    se paga una cuota posterior dejando impaga la más antigua, ni se paga dos veces la misma.
         String sqlPagar = """
-            UPDATE pago
+            /* ventas.pago.cuotas */
+            WITH elegidas AS (
+                SELECT cod_pago
+                FROM pago
+                WHERE cod_venta = ?
+                  AND cod_estado_pago IN (1,3)
+                ORDER BY nro_cuota ASC
+                LIMIT ?
+                FOR UPDATE
+            )
+            UPDATE pago p
             SET fecha_pago = now(),
                 cod_metodo_pago = ?,
                 cod_caja = ?,
@@ -531,356 +1003,281 @@ public class ConsultasVentasService {
                 nombre_pagador = ?,
                 nro_telf_pagador = ?,
                 cod_estado_pago = 2   -- pagado
-            WHERE cod_pago = ?
+            FROM elegidas
+            WHERE p.cod_pago = elegidas.cod_pago
+            RETURNING p.cod_pago, p.nro_cuota, p.monto_pago
             """;
 
-        jdbcTemplate.update(
+        List<CuotaPagadaDto> pagadas = jdbcTemplate.query(
             sqlPagar,
+            MapeadorFilas.de(CuotaPagadaDto.class),
+            request.getCod_venta(),
+            cantidad,
             request.getCod_metodo_pago(),
             request.getCod_caja(),
             request.getCod_comprobante(),
             nombrePagador,
-            telfPagador,
-            cuota.getCod_pago()
+            telfPagador
         );
 
-        // 4. Respuesta
+        // 3. Si no alcanzan las cuotas pendientes no se paga nada (la excepción revierte la transacción)
+        if (pagadas.isEmpty()) {
+            throw new CuotasInsuficientesException("No existe ninguna cuota pendiente para esta venta.");
+        }
+        if (pagadas.size() < cantidad) {
+            throw new CuotasInsuficientesException("Solo hay " + pagadas.size() + " cuota(s) pendiente(s) disponible(s) para esta venta.");
+        }
+        pagadas.sort(Comparator.comparing(CuotaPagadaDto::getNro_cuota));
+
+        // Conteo de cuotas del modelo de lectura
+        resumen.actualizar(request.getCod_venta());
+
+        float total = 0f;
+        for (CuotaPagadaDto c : pagadas) {
+            total += c.getMonto_pago();
+        }
+
+        // 4. Respuesta (cod_pago / nro_cuota corresponden a la primera cuota pagada)
+        CuotaPagadaDto primera = pagadas.get(0);
         PagoResponseDto response = new PagoResponseDto();
-        response.setCod_pago(cuota.getCod_pago());
-        response.setNro_cuota(cuota.getNro_cuota());
-        response.setMonto_pagado(cuota.getMonto_pago());
+        response.setCod_pago(primera.getCod_pago());
+        response.setNro_cuota(primera.getNro_cuota());
+        response.setMonto_pagado(total);
         response.setFecha_pago(LocalDateTime.now().toString());
-        response.setMensaje("Pago registrado correctamente.");
+        response.setMensaje(pagadas.size() == 1
+                ? "Pago registrado correctamente."
+                : pagadas.size() + " cuotas pagadas correctamente.");
+        response.setCuotas_pagadas(pagadas);
 
         return response;
     }
 
-    @Data
-    private static class PendienteDto {
-        private Integer cod_pago;
-        private Integer nro_cuota;
-        private Float monto_pago;
-    }
-
     @Data
     private static class TitularDto {
         private String nombre;
         private String telefono;
     }
 	
+    // Los tres registros de reclamo van en una sola sentencia con CTEs que modifican datos: la venta se
+    // valida, se crea el RECLAMO, se inserta el reclamo tipado y se actualiza lo que corresponda en el
+    // mismo viaje. Si la venta no existe la sentencia no devuelve filas y no escribe nada.
     @Transactional
     public DevolucionResponseDto registrarDevolucion(DevolucionRequestDto request) {
 
-    	String sqlExisteVenta = "SELECT COUNT(*) FROM venta WHERE cod_venta = ?";
-    	Integer existe = jdbcTemplate.queryForObject(sqlExisteVenta, Integer.class, request.getCod_venta());
-    	if (existe == 0) {
-    	    throw new RuntimeException("La venta " + request.getCod_venta() + " no existe.");
-    	}
-
-        // 1. Insertar reclamo y obtener cod_reclamo
-	    	String sqlInsertReclamo = """
-	    		    INSERT INTO reclamo (cod_venta, cod_cliente)
-	    		    SELECT v.cod_venta, v.cod_cliente
-	    		    FROM venta v
-	    		    WHERE v.cod_venta = ?
-	    		    RETURNING cod_reclamo
-	    		    """;
-
-    		Integer codReclamo = jdbcTemplate.queryForObject(
-    		        sqlInsertReclamo,
-    		        Integer.class,
-    		        request.getCod_venta()
-    		);
-
-    		String sqlCliente = "SELECT cod_cliente FROM venta WHERE cod_venta = ?";
-    		Integer codCliente = jdbcTemplate.queryForObject(
-    		        sqlCliente,
-    		        Integer.class,
-    		        request.getCod_venta()
-    		);
-
-    		
-        // 2. Determinar monto de devolución
-        Float montoDevolucion = request.getMonto_devolucion();
-
-        if (montoDevolucion == null) {
-            String sqlMonto = "SELECT monto_devol(?, ?)";
-            // Ajusta la firma si tu función recibe otros parámetros
-            montoDevolucion = jdbcTemplate.queryForObject(
-                    sqlMonto,
-                    Float.class,
-                    request.getCod_venta(),
-                    request.getCod_producto_devuelto()
-            );
-        }
-
-        // 3. Insertar en DEVOLUCION y obtener cod_devolucion
-        String sqlInsertDevolucion = """
-            INSERT INTO devolucion (
-                cod_reclamo,
-                fecha_hora_devolucion,
-                monto_devolucion,
-                cod_motivo_devolucion,
-                cod_caja,
-                producto_devuelto,
-                descp_devolucion
+        String sql = """
+            /* ventas.reclamo.devolucion */
+            WITH rec AS (
+                INSERT INTO reclamo (cod_venta, cod_cliente)
+                SELECT v.cod_venta, v.cod_cliente
+                FROM venta v
+                WHERE v.cod_venta = ?
+                RETURNING cod_reclamo, cod_venta, cod_cliente
+            ),
+            dev AS (
+                INSERT INTO devolucion (
+                    cod_reclamo,
+                    fecha_hora_devolucion,
+                    monto_devolucion,
+                    cod_motivo_devolucion,
+                    cod_caja,
+                    producto_devuelto,
+                    descp_devolucion
+                )
+                SELECT rec.cod_reclamo, now(),
+                       coalesce(?, monto_devol(rec.cod_venta, ?)),   -- monto enviado o calculado
+                       ?, ?, ?, ?
+                FROM rec
+                RETURNING cod_devolucion, cod_reclamo, monto_devolucion
+            ),
+            prod AS (
+                UPDATE producto_venta pv
+                SET cod_estado_prodv = 3   -- devuelto
+                FROM rec
+                WHERE pv.cod_venta = rec.cod_venta
+                  AND pv.cod_producto = ?
             )
-            VALUES (?, now(), ?, ?, ?, ?, ?)
-            RETURNING cod_devolucion
+            SELECT rec.cod_reclamo, dev.cod_devolucion, rec.cod_venta, rec.cod_cliente, dev.monto_devolucion
+            FROM rec
+            JOIN dev ON dev.cod_reclamo = rec.cod_reclamo
             """;
 
-        Integer codDevolucion = jdbcTemplate.queryForObject(
-                sqlInsertDevolucion,
-                Integer.class,
-                codReclamo,
-                montoDevolucion,
+        List<DevolucionResponseDto> filas = jdbcTemplate.query(
+                sql,
+                MapeadorFilas.de(DevolucionResponseDto.class),
+                request.getCod_venta(),
+                request.getMonto_devolucion(),
+                request.getCod_producto_devuelto(),
                 request.getCod_motivo_devolucion(),
                 request.getCod_caja(),
                 request.getCod_producto_devuelto(),
-                request.getDescp_devolucion()
-        );
-
-        // 4. Actualizar estado del producto en producto_venta
-        //    (asumo que cod_estado_prodv = 3 significa "devuelto")
-        String sqlUpdateProductoVenta = """
-            UPDATE producto_venta
-            SET cod_estado_prodv = 3
-            WHERE cod_venta = ?
-              AND cod_producto = ?
-            """;
-
-        jdbcTemplate.update(
-                sqlUpdateProductoVenta,
-                request.getCod_venta(),
+                request.getDescp_devolucion(),
                 request.getCod_producto_devuelto()
         );
 
-        // 5. Armar respuesta
-        DevolucionResponseDto resp = new DevolucionResponseDto();
-        resp.setCod_reclamo(codReclamo);
-        resp.setCod_devolucion(codDevolucion);
-        resp.setCod_venta(request.getCod_venta());
-        resp.setCod_cliente(codCliente);
-        resp.setMonto_devolucion(montoDevolucion);
+        if (filas.isEmpty()) {
+            throw new RuntimeException("La venta " + request.getCod_venta() + " no existe.");
+        }
+
+        DevolucionResponseDto resp = filas.get(0);
         resp.setMensaje("Reclamo por devolución registrado correctamente.");
 
+        // El detalle en caché ya no refleja la venta; el resumen cuenta el reclamo nuevo
+        cacheDetalle.invalidar(request.getCod_venta());
+        resumen.actualizar(request.getCod_venta());
+
         return resp;
     }
     
     @Transactional
     public CambioProductoResponseDto registrarCambioProducto(CambioProductoRequestDto request) {
 
-        // 1. Insertar reclamo (cod_cliente se obtiene desde la venta)
-        String sqlInsertReclamo = """
-            INSERT INTO reclamo (cod_venta, cod_cliente)
-            SELECT v.cod_venta, v.cod_cliente
-            FROM venta v
-            WHERE v.cod_venta = ?
-            RETURNING cod_reclamo;
-            """;
-
-        Integer codReclamo = jdbcTemplate.queryForObject(
-                sqlInsertReclamo,
-                Integer.class,
-                request.getCod_venta()
-        );
-
-        // 2. Obtener cod_cliente para responder
-        String sqlCliente = "SELECT cod_cliente FROM venta WHERE cod_venta = ?";
-        Integer codCliente = jdbcTemplate.queryForObject(
-                sqlCliente,
-                Integer.class,
-                request.getCod_venta()
-        );
-
-        // 3. Validar que el producto que retorna pertenece a esa venta
-        String sqlExisteProducto = """
-            SELECT COUNT(*) 
-            FROM producto_venta 
-            WHERE cod_venta = ? 
-              AND cod_producto = ?
+        // El reclamo solo se crea si el producto que retorna pertenece a la venta
+        String sql = """
+            /* ventas.reclamo.cambio */
+            WITH rec AS (
+                INSERT INTO reclamo (cod_venta, cod_cliente)
+                SELECT v.cod_venta, v.cod_cliente
+                FROM venta v
+                WHERE v.cod_venta = ?
+                  AND EXISTS (
+                      SELECT 1 FROM producto_venta pv
+                      WHERE pv.cod_venta = v.cod_venta
+                        AND pv.cod_producto = ?
+                  )
+                RETURNING cod_reclamo, cod_venta, cod_cliente
+            ),
+            cam AS (
+                INSERT INTO cambio_producto (
+                    cod_reclamo,
+                    fecha_hora_cp,
+                    producto_retorna,
+                    producto_entrega,
+                    diferencia_cambio,
+                    cod_motivo_cambio_prod,
+                    cod_caja,
+                    descp_cambio
+                )
+                SELECT rec.cod_reclamo, now(), ?, ?,
+                       coalesce(?, dif_cambio(?, ?)),   -- diferencia enviada o calculada
+                       ?, ?, ?
+                FROM rec
+                RETURNING cod_cambio_prod, cod_reclamo, producto_retorna, producto_entrega, diferencia_cambio
+            ),
+            prod AS (
+                UPDATE producto_venta pv
+                SET cod_estado_prodv = 4   -- 4 = cambiado/retornado (según tu catálogo)
+                FROM rec
+                WHERE pv.cod_venta = rec.cod_venta
+                  AND pv.cod_producto = ?
+            )
+            SELECT rec.cod_reclamo, cam.cod_cambio_prod, rec.cod_venta, rec.cod_cliente,
+                   cam.producto_retorna, cam.producto_entrega, cam.diferencia_cambio
+            FROM rec
+            JOIN cam ON cam.cod_reclamo = rec.cod_reclamo
             """;
 
-        Integer existe = jdbcTemplate.queryForObject(
-                sqlExisteProducto,
-                Integer.class,
+        List<CambioProductoResponseDto> filas = jdbcTemplate.query(
+                sql,
+                MapeadorFilas.de(CambioProductoResponseDto.class),
                 request.getCod_venta(),
+                request.getCod_producto_retorna(),
+                request.getCod_producto_retorna(),
+                request.getCod_producto_entrega(),
+                request.getDiferencia_cambio(),
+                request.getCod_producto_retorna(),
+                request.getCod_producto_entrega(),
+                request.getCod_motivo_cambio_prod(),
+                request.getCod_caja(),
+                request.getDescp_cambio(),
                 request.getCod_producto_retorna()
         );
 
-        if (existe == null || existe == 0) {
+        if (filas.isEmpty()) {
+            // Solo en el camino de error: distinguir venta inexistente de producto ajeno a la venta
+            Boolean existeVenta = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM venta WHERE cod_venta = ?)", Boolean.class, request.getCod_venta());
+            if (!Boolean.TRUE.equals(existeVenta)) {
+                throw new RuntimeException("La venta " + request.getCod_venta() + " no existe.");
+            }
             throw new RuntimeException(
                 "El producto " + request.getCod_producto_retorna() +
                 " no pertenece a la venta " + request.getCod_venta()
             );
         }
 
-        // 4. Determinar diferencia_cambio
-        Float diferencia = request.getDiferencia_cambio();
-        if (diferencia == null) {
-            // Asumo firma: dif_cambio(prod_retorna, prod_entrega)
-            String sqlDif = "SELECT dif_cambio(?, ?)";
-            diferencia = jdbcTemplate.queryForObject(
-                    sqlDif,
-                    Float.class,
-                    request.getCod_producto_retorna(),
-                    request.getCod_producto_entrega()
-            );
-        }
-
-        // 5. Insertar en cambio_producto
-        String sqlInsertCambio = """
-            INSERT INTO cambio_producto (
-                cod_reclamo,
-                fecha_hora_cp,
-                producto_retorna,
-                producto_entrega,
-                diferencia_cambio,
-                cod_motivo_cambio_prod,
-                cod_caja,
-                descp_cambio
-            )
-            VALUES (?, now(), ?, ?, ?, ?, ?, ?)
-            RETURNING cod_cambio_prod
-            """;
-
-        Integer codCambioProd = jdbcTemplate.queryForObject(
-                sqlInsertCambio,
-                Integer.class,
-                codReclamo,
-                request.getCod_producto_retorna(),
-                request.getCod_producto_entrega(),
-                diferencia,
-                request.getCod_motivo_cambio_prod(),
-                request.getCod_caja(),
-                request.getDescp_cambio()
-        );
-
-        // 6. Actualizar estado del producto retornado en producto_venta
-        String sqlUpdateProductoVenta = """
-            UPDATE producto_venta
-            SET cod_estado_prodv = 4   -- 4 = cambiado/retornado (según tu catálogo)
-            WHERE cod_venta = ?
-              AND cod_producto = ?
-            """;
-
-        jdbcTemplate.update(
-                sqlUpdateProductoVenta,
-                request.getCod_venta(),
-                request.getCod_producto_retorna()
-        );
-
-        // 7. Armar respuesta
-        CambioProductoResponseDto resp = new CambioProductoResponseDto();
-        resp.setCod_reclamo(codReclamo);
-        resp.setCod_cambio_prod(codCambioProd);
-        resp.setCod_venta(request.getCod_venta());
-        resp.setCod_cliente(codCliente);
-        resp.setProducto_retorna(request.getCod_producto_retorna());
-        resp.setProducto_entrega(request.getCod_producto_entrega());
-        resp.setDiferencia_cambio(diferencia);
+        CambioProductoResponseDto resp = filas.get(0);
         resp.setMensaje("Reclamo por cambio de producto registrado correctamente.");
 
+        // El detalle en caché ya no refleja la venta; el resumen cuenta el reclamo nuevo
+        cacheDetalle.invalidar(request.getCod_venta());
+        resumen.actualizar(request.getCod_venta());
+
         return resp;
     }
     
     @Transactional
     public AnulacionResponseDto registrarAnulacion(AnulacionRequestDto request) {
 
-        // 0. Obtener cod_cliente a partir de la venta
-        String sqlCliente = """
-            SELECT cod_cliente
-            FROM venta
-            WHERE cod_venta = ?
-            """;
-
-        Integer codCliente = jdbcTemplate.queryForObject(
-                sqlCliente,
-                Integer.class,
-                request.getCod_venta()
-        );
-
-        if (codCliente == null) {
-            throw new RuntimeException("La venta " + request.getCod_venta() + " no existe.");
-        }
-
-        // 1. Insertar reclamo
-        String sqlInsertReclamo = """
-            INSERT INTO reclamo (cod_venta, cod_cliente)
-            VALUES (?, ?)
-            RETURNING cod_reclamo
-            """;
-
-        Integer codReclamo = jdbcTemplate.queryForObject(
-                sqlInsertReclamo,
-                Integer.class,
-                request.getCod_venta(),
-                codCliente
-        );
-
-        // 2. Insertar anulación
-        String sqlInsertAnulacion = """
-            INSERT INTO anulacion (
-                cod_reclamo,
-                fecha_hora_anulacion,
-                cod_motivo_anulacion,
-                descp_anulacion
+        // Reclamo, anulación, estado de la venta y anulación de sus pagos en una sola sentencia
+        // (el cod_estado_pago para 'anulado' sale del catálogo en memoria)
+        String sql = """
+            /* ventas.reclamo.anulacion */
+            WITH rec AS (
+                INSERT INTO reclamo (cod_venta, cod_cliente)
+                SELECT v.cod_venta, v.cod_cliente
+                FROM venta v
+                WHERE v.cod_venta = ?
+                  AND v.cod_cliente IS NOT NULL
+                RETURNING cod_reclamo, cod_venta, cod_cliente
+            ),
+            anu AS (
+                INSERT INTO anulacion (
+                    cod_reclamo,
+                    fecha_hora_anulacion,
+                    cod_motivo_anulacion,
+                    descp_anulacion
+                )
+                SELECT rec.cod_reclamo, now(), ?, ?
+                FROM rec
+                RETURNING cod_anulacion, cod_reclamo
+            ),
+            ven AS (
+                UPDATE venta v
+                SET cod_estado_venta = 3   -- anulada
+                FROM rec
+                WHERE v.cod_venta = rec.cod_venta
+            ),
+            pag AS (
+                UPDATE pago p
+                SET cod_estado_pago = ?
+                FROM rec
+                WHERE p.cod_venta = rec.cod_venta
             )
-            VALUES (?, now(), ?, ?)
-            RETURNING cod_anulacion
+            SELECT rec.cod_reclamo, anu.cod_anulacion, rec.cod_venta, rec.cod_cliente
+            FROM rec
+            JOIN anu ON anu.cod_reclamo = rec.cod_reclamo
             """;
 
-        Integer codAnulacion = jdbcTemplate.queryForObject(
-                sqlInsertAnulacion,
-                Integer.class,
-                codReclamo,
+        List<AnulacionResponseDto> filas = jdbcTemplate.query(
+                sql,
+                MapeadorFilas.de(AnulacionResponseDto.class),
+                request.getCod_venta(),
                 request.getCod_motivo_anulacion(),
-                request.getDescp_anulacion()
-        );
-
-        // 3. Marcar la venta como anulada (3, igual que en tu SQL de ejemplo)
-        String sqlUpdateVenta = """
-            UPDATE venta
-            SET cod_estado_venta = 3
-            WHERE cod_venta = ?
-            """;
-
-        jdbcTemplate.update(sqlUpdateVenta, request.getCod_venta());
-
-        // 4. Anular todos los pagos de esa venta
-        //    (buscamos el cod_estado_pago para 'anulado')
-        String sqlEstadoAnulado = """
-            SELECT cod_estado_pago
-            FROM estado_pago
-            WHERE lower(nombre_estado_pago) = 'anulado'
-            LIMIT 1
-            """;
-
-        Integer codEstadoAnulado = jdbcTemplate.queryForObject(
-                sqlEstadoAnulado,
-                Integer.class
+                request.getDescp_anulacion(),
+                referencia.codigoEstadoPago("anulado")
         );
 
-        String sqlAnularPagos = """
-            UPDATE pago
-            SET cod_estado_pago = ?
-            WHERE cod_venta = ?
-            """;
-
-        jdbcTemplate.update(
-                sqlAnularPagos,
-                codEstadoAnulado,
-                request.getCod_venta()
-        );
+        if (filas.isEmpty()) {
+            throw new RuntimeException("La venta " + request.getCod_venta() + " no existe.");
+        }
 
-        // 5. Armar respuesta
-        AnulacionResponseDto resp = new AnulacionResponseDto();
-        resp.setCod_reclamo(codReclamo);
-        resp.setCod_anulacion(codAnulacion);
-        resp.setCod_venta(request.getCod_venta());
-        resp.setCod_cliente(codCliente);
+        AnulacionResponseDto resp = filas.get(0);
         resp.setMensaje("Venta anulada y pagos asociados marcados como anulados.");
 
+        // El detalle en caché ya no refleja la venta; el resumen cuenta el reclamo nuevo
+        cacheDetalle.invalidar(request.getCod_venta());
+        resumen.actualizar(request.getCod_venta());
+
         return resp;
     }
 }
@@ -0,0 +1,123 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.dto.TotalVendedorDto;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+
+/**
+ * Contador de ventas por vendedor sin fila caliente: registrarVenta solo inserta una fila en
+ * VENTA_VENDEDOR_PENDIENTE (dentro de su transacción, así una venta revertida no cuenta) y este
+ * servicio la vuelca periódicamente a vendedor.total_ventas_vendedor. Las lecturas suman el valor
+ * volcado y lo que aún está pendiente, por lo que el total es exacto en todo momento.
+ */
+@Service
+@RequiredArgsConstructor
+public class ContadorVentasVendedorService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Filas del registro por sentencia de volcado
+    @Value("${vendedor.contador.tamano-lote:10000}")
+    private int tamanoLote;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    @Scheduled(initialDelayString = "${vendedor.contador.intervalo-ms:5000}", fixedDelayString = "${vendedor.contador.intervalo-ms:5000}")
+    public void volcarProgramado() {
+        volcar();
+    }
+
+    /**
+     * Vuelca todo lo pendiente. Devuelve la cantidad de filas del registro aplicadas, o -1 si ya hay
+     * otro volcado en curso en esta instancia.
+     */
+    public int volcar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            int total = 0;
+            int enLote;
+            do {
+                enLote = volcarLote();
+                total += enLote;
+            } while (enLote == tamanoLote);
+            return total;
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    // Una sentencia: toma un lote del registro, lo borra y suma por vendedor. La fila de cada vendedor
+    // se bloquea solo durante este UPDATE, una vez por volcado y no una vez por venta.
+    // SKIP LOCKED permite que otra instancia vuelque a la vez sin contar dos veces la misma fila.
+    private int volcarLote() {
+        String sql = """
+            /* vendedor.contador.volcar */
+            WITH lote AS (
+                SELECT cod_pendiente
+                FROM venta_vendedor_pendiente
+                ORDER BY cod_pendiente
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ),
+            movidos AS (
+                DELETE FROM venta_vendedor_pendiente p
+                USING lote
+                WHERE p.cod_pendiente = lote.cod_pendiente
+                RETURNING p.cod_vendedor, p.cantidad
+            ),
+            suma AS (
+                SELECT cod_vendedor, sum(cantidad) cantidad, count(*) filas
+                FROM movidos
+                GROUP BY cod_vendedor
+            ),
+            aplicados AS (
+                UPDATE vendedor v
+                SET total_ventas_vendedor = coalesce(v.total_ventas_vendedor, 0) + s.cantidad
+                FROM suma s
+                WHERE v.cod_vendedor = s.cod_vendedor
+            )
+            SELECT coalesce(sum(filas), 0) FROM suma
+            """;
+        Integer filas = jdbcTemplate.queryForObject(sql, Integer.class, Math.max(1, tamanoLote));
+        return filas != null ? filas : 0;
+    }
+
+    // ==========================================
+    // LECTURAS (volcado + pendiente)
+    // ==========================================
+    private static final String SQL_TOTALES = """
+        /* vendedor.contador.totales */
+        SELECT v.cod_vendedor, p.nombre_persona vendedor,
+               coalesce(v.total_ventas_vendedor, 0) + pe.cantidad total_ventas,
+               pe.cantidad ventas_pendientes
+        FROM vendedor v
+        LEFT JOIN usuario u ON u.cod_usuario = v.cod_usuario
+        LEFT JOIN persona p ON p.cod_persona = u.cod_persona
+        CROSS JOIN LATERAL (
+            SELECT coalesce(sum(d.cantidad), 0)::int cantidad
+            FROM venta_vendedor_pendiente d
+            WHERE d.cod_vendedor = v.cod_vendedor
+        ) pe
+        """;
+
+    public List<TotalVendedorDto> totales() {
+        return jdbcTemplate.query(SQL_TOTALES + "ORDER BY total_ventas DESC, v.cod_vendedor",
+                MapeadorFilas.de(TotalVendedorDto.class));
+    }
+
+    public TotalVendedorDto total(Integer codVendedor) {
+        List<TotalVendedorDto> filas = jdbcTemplate.query(SQL_TOTALES + "WHERE v.cod_vendedor = ?",
+                MapeadorFilas.de(TotalVendedorDto.class), codVendedor);
+        return filas.isEmpty() ? null : filas.get(0);
+    }
+}
@@ -0,0 +1,127 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.util.TablaReferencia;
+
+/**
+ * Caché en memoria de las tablas de códigos de ventas (estados, condiciones, métodos, motivos).
+ * Se carga al arrancar y se recarga periódicamente; los servicios resuelven las descripciones
+ * en Java en lugar de hacer JOIN contra estas tablas en cada consulta.
+ */
+@Service
+@RequiredArgsConstructor
+public class DatosReferenciaService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Tablas tablas;
+
+    private record Tablas(
+            TablaReferencia estadoVenta,
+            TablaReferencia estadoPago,
+            TablaReferencia condicionPago,
+            TablaReferencia metodoPago,
+            TablaReferencia tipoComprobante,
+            TablaReferencia motivoDevolucion,
+            TablaReferencia motivoAnulacion) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    // Los catálogos cambian muy rara vez; una recarga periódica basta para recoger altas nuevas
+    @Scheduled(initialDelayString = "${referencia.recarga-ms:600000}", fixedDelayString = "${referencia.recarga-ms:600000}")
+    public void recargar() {
+        tablas = new Tablas(
+                cargar("SELECT cod_estado_venta, descp_estado_venta FROM estado_venta"),
+                cargar("SELECT cod_estado_pago, nombre_estado_pago FROM estado_pago"),
+                cargar("SELECT cod_cond_pago, descp_cond_pago FROM condicion_pago"),
+                cargar("SELECT cod_metodo_pago, descp_metodo_pago FROM metodo_pago"),
+                cargar("SELECT cod_tipo_comprobante, descp_tipo_comprobante FROM tipo_comprobante"),
+                cargar("SELECT cod_motivo_devolucion, descp_motivo_devolucion FROM motivo_devolucion"),
+                cargar("SELECT cod_motivo_anulacion, descp_motivo_anulacion FROM motivo_anulacion"));
+    }
+
+    public String estadoVenta(int codigo) {
+        return tablas().estadoVenta().descripcion(codigo);
+    }
+
+    public String estadoPago(int codigo) {
+        return tablas().estadoPago().descripcion(codigo);
+    }
+
+    public String condicionPago(int codigo) {
+        return tablas().condicionPago().descripcion(codigo);
+    }
+
+    public String metodoPago(int codigo) {
+        return tablas().metodoPago().descripcion(codigo);
+    }
+
+    public String tipoComprobante(int codigo) {
+        return tablas().tipoComprobante().descripcion(codigo);
+    }
+
+    public String motivoDevolucion(int codigo) {
+        return tablas().motivoDevolucion().descripcion(codigo);
+    }
+
+    public String motivoAnulacion(int codigo) {
+        return tablas().motivoAnulacion().descripcion(codigo);
+    }
+
+    /** cod_estado_pago cuyo nombre coincide (sin importar mayúsculas), p. ej. "anulado". */
+    public int codigoEstadoPago(String nombre) {
+        int codigo = tablas().estadoPago().codigo(nombre);
+        if (codigo < 0) {
+            throw new IllegalStateException("No existe el estado de pago '" + nombre + "'.");
+        }
+        return codigo;
+    }
+
+    public Map<String, Map<Integer, String>> resumen() {
+        Tablas t = tablas();
+        Map<String, Map<Integer, String>> resumen = new LinkedHashMap<>();
+        resumen.put("estado_venta", t.estadoVenta().comoMapa());
+        resumen.put("estado_pago", t.estadoPago().comoMapa());
+        resumen.put("condicion_pago", t.condicionPago().comoMapa());
+        resumen.put("metodo_pago", t.metodoPago().comoMapa());
+        resumen.put("tipo_comprobante", t.tipoComprobante().comoMapa());
+        resumen.put("motivo_devolucion", t.motivoDevolucion().comoMapa());
+        resumen.put("motivo_anulacion", t.motivoAnulacion().comoMapa());
+        return resumen;
+    }
+
+    // Si la carga inicial falló (p. ej. la base no estaba lista) se intenta en el primer uso
+    private Tablas tablas() {
+        Tablas t = tablas;
+        if (t == null) {
+            synchronized (this) {
+                if (tablas == null) {
+                    recargar();
+                }
+                t = tablas;
+            }
+        }
+        return t;
+    }
+
+    private TablaReferencia cargar(String sql) {
+        TablaReferencia.Constructor tabla = new TablaReferencia.Constructor();
+        jdbcTemplate.query(sql, rs -> {
+            tabla.agregar(rs.getInt(1), rs.getString(2));
+        });
+        return tabla.construir();
+    }
+}
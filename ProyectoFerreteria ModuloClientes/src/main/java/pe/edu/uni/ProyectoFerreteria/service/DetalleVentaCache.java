@@ -0,0 +1,125 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import pe.edu.uni.ProyectoFerreteria.dto.DetalleVentaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticasCacheDto;
+import pe.edu.uni.ProyectoFerreteria.util.CacheLru;
+
+/**
+ * Caché de lectura del detalle de venta por cod_venta. El detalle solo cambia con una devolución,
+ * un cambio de producto o una anulación; esas operaciones llaman a invalidar().
+ */
+@Component
+public class DetalleVentaCache {
+
+    private final CacheLru<Integer, DetalleVentaDto> cache;
+
+    // Se incrementa en cada invalidación: una lectura que empezó antes no puede guardar su resultado
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public DetalleVentaCache(@Value("${ventas.detalle.cache-capacidad:5000}") int capacidad) {
+        this.cache = new CacheLru<>(capacidad);
+    }
+
+    /**
+     * Devuelve el detalle en caché o lo carga con el proveedor. Los resultados null (venta inexistente
+     * o sin productos) no se guardan.
+     */
+    public DetalleVentaDto obtener(Integer codVenta, Supplier<DetalleVentaDto> cargar) {
+        DetalleVentaDto enCache = cache.get(codVenta);
+        if (enCache != null) {
+            return enCache;
+        }
+        long version = invalidaciones.get();
+        DetalleVentaDto cargado = cargar.get();
+        if (cargado != null && invalidaciones.get() == version) {
+            cache.put(codVenta, cargado);
+        }
+        return cargado;
+    }
+
+    /**
+     * Variante para varias ventas: las que no están en caché se cargan juntas con una sola llamada al
+     * proveedor. Devuelve un mapa en el orden pedido, sin las ventas que no existen.
+     */
+    public Map<Integer, DetalleVentaDto> obtenerVarios(Collection<Integer> codVentas,
+            Function<List<Integer>, Map<Integer, DetalleVentaDto>> cargar) {
+        Map<Integer, DetalleVentaDto> resultado = new LinkedHashMap<>();
+        List<Integer> faltantes = new ArrayList<>();
+        for (Integer codVenta : codVentas) {
+            DetalleVentaDto enCache = cache.get(codVenta);
+            resultado.put(codVenta, enCache);   // null reserva la posición hasta cargarla
+            if (enCache == null) {
+                faltantes.add(codVenta);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+
+        long version = invalidaciones.get();
+        Map<Integer, DetalleVentaDto> cargados = cargar.apply(faltantes);
+        boolean vigente = invalidaciones.get() == version;
+        for (Integer codVenta : faltantes) {
+            DetalleVentaDto cargado = cargados.get(codVenta);
+            if (cargado == null) {
+                resultado.remove(codVenta);
+                continue;
+            }
+            resultado.put(codVenta, cargado);
+            if (vigente) {
+                cache.put(codVenta, cargado);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Descarta la entrada ya y, si hay una transacción en curso, otra vez al terminarla: así una lectura
+     * concurrente que vio los datos anteriores al commit no deja en caché una versión vieja.
+     */
+    public void invalidar(Integer codVenta) {
+        descartar(codVenta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    descartar(codVenta);
+                }
+            });
+        }
+    }
+
+    public EstadisticasCacheDto estadisticas() {
+        long aciertos = cache.getAciertos();
+        long fallos = cache.getFallos();
+        long lecturas = aciertos + fallos;
+
+        EstadisticasCacheDto dto = new EstadisticasCacheDto();
+        dto.setCapacidad(cache.getCapacidad());
+        dto.setEntradas(cache.size());
+        dto.setAciertos(aciertos);
+        dto.setFallos(fallos);
+        dto.setInvalidaciones(invalidaciones.get());
+        dto.setTasa_aciertos(lecturas == 0 ? 0.0 : (double) aciertos / lecturas);
+        return dto;
+    }
+
+    private void descartar(Integer codVenta) {
+        invalidaciones.incrementAndGet();
+        cache.remove(codVenta);
+    }
+}
@@ -0,0 +1,147 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.util.CacheLru;
+import pe.edu.uni.ProyectoFerreteria.util.ClaveIdempotenciaReutilizadaException;
+import pe.edu.uni.ProyectoFerreteria.util.PeticionEnProcesoException;
+
+/**
+ * Hace seguros los reintentos de las cajas: la primera petición con un Idempotency-Key ejecuta la
+ * operación y guarda su respuesta; los reintentos con la misma clave reciben esa respuesta sin volver
+ * a escribir. Las respuestas recientes se sirven desde memoria; la tabla IDEMPOTENCIA las conserva
+ * entre reinicios y entre instancias.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotenciaService {
+
+    public static final String OPERACION_VENTA = "venta";
+    public static final String OPERACION_PAGO = "pago";
+
+    private static final int CAPACIDAD_CACHE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final CacheLru<String, RespuestaGuardada> cache = new CacheLru<>(CAPACIDAD_CACHE);
+
+    @Value("${idempotencia.retencion-horas:48}")
+    private int retencionHoras;
+
+    /**
+     * Ejecuta la operación una sola vez por (operacion, clave).
+     * La fila de idempotencia se inserta en la misma transacción que la escritura: si la operación falla,
+     * la clave queda libre para reintentar; si dos reintentos llegan a la vez, el segundo espera en el
+     * índice único hasta que el primero confirme y luego lee su respuesta.
+     *
+     * Lanza ClaveIdempotenciaReutilizadaException si la clave ya se usó con un cuerpo de petición
+     * distinto y PeticionEnProcesoException si la petición original aún no tiene respuesta guardada.
+     */
+    @Transactional
+    public <T> T ejecutar(String operacion, String clave, Object peticion, Class<T> tipoRespuesta, Supplier<T> operacionReal) {
+        String huella = huella(peticion);
+        String claveCache = operacion + ":" + clave;
+
+        RespuestaGuardada enMemoria = cache.get(claveCache);
+        if (enMemoria != null) {
+            return leerRespuesta(enMemoria, huella, tipoRespuesta);
+        }
+
+        String sqlReservar = """
+            /* idempotencia.reservar */
+            INSERT INTO idempotencia (operacion, clave, huella)
+            VALUES (?, ?, ?)
+            ON CONFLICT (operacion, clave) DO NOTHING
+            """;
+
+        int reservada = jdbcTemplate.update(sqlReservar, operacion, clave, huella);
+
+        if (reservada == 0) {
+            // La clave ya existe: devolvemos lo que respondió la petición original
+            String sqlGuardada = "SELECT huella, respuesta::text FROM idempotencia WHERE operacion = ? AND clave = ?";
+            List<RespuestaGuardada> guardadas = jdbcTemplate.query(sqlGuardada,
+                    (rs, rowNum) -> new RespuestaGuardada(rs.getString(1), rs.getString(2)),
+                    operacion, clave);
+
+            if (guardadas.isEmpty() || guardadas.get(0).json() == null) {
+                throw new PeticionEnProcesoException("La petición con Idempotency-Key " + clave + " aún está en proceso.");
+            }
+            cache.put(claveCache, guardadas.get(0));
+            return leerRespuesta(guardadas.get(0), huella, tipoRespuesta);
+        }
+
+        T respuesta = operacionReal.get();
+
+        String json = escribirJson(respuesta);
+        jdbcTemplate.update("UPDATE idempotencia SET respuesta = ?::jsonb WHERE operacion = ? AND clave = ?",
+                json, operacion, clave);
+
+        // Se publica en memoria recién al confirmar: hasta entonces un reintento concurrente debe
+        // esperar en el índice único, no recibir una venta que todavía puede revertirse.
+        RespuestaGuardada guardada = new RespuestaGuardada(huella, json);
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        cache.put(claveCache, guardada);
+                    }
+                });
+        return respuesta;
+    }
+
+    // Las claves solo necesitan sobrevivir a la ventana de reintentos de las cajas
+    @Scheduled(fixedDelayString = "${idempotencia.purga-ms:3600000}")
+    public void purgarVencidas() {
+        jdbcTemplate.update("DELETE FROM idempotencia WHERE fecha_creacion < now() - make_interval(hours => ?)",
+                retencionHoras);
+    }
+
+    private <T> T leerRespuesta(RespuestaGuardada guardada, String huella, Class<T> tipoRespuesta) {
+        if (!guardada.huella().equals(huella)) {
+            throw new ClaveIdempotenciaReutilizadaException("El Idempotency-Key ya se usó con una petición distinta.");
+        }
+        try {
+            return objectMapper.readValue(guardada.json(), tipoRespuesta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta guardada ilegible para la clave de idempotencia.", e);
+        }
+    }
+
+    private String escribirJson(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta.", e);
+        }
+    }
+
+    private String huella(Object peticion) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(escribirJson(peticion).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record RespuestaGuardada(String huella, String json) {
+    }
+}
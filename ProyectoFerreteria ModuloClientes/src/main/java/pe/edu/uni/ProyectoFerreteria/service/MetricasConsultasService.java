@@ -0,0 +1,191 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticaConsultaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticaEndpointDto;
+import pe.edu.uni.ProyectoFerreteria.util.JdbcTemplateMedido;
+
+/**
+ * Métricas en memoria de las sentencias SQL que ejecuta el JdbcTemplateMedido: por nombre de
+ * consulta y por endpoint + nombre, un histograma HdrHistogram de latencias (en microsegundos, dos
+ * dígitos significativos) más llamadas, errores y filas. Por endpoint cuenta además las peticiones
+ * que ejecutaron SQL, para ver cuántas idas y vueltas a la base hace cada una.
+ *
+ * Los contadores se acumulan desde el arranque o desde el último reiniciar(); no hay colector externo.
+ */
+@Service
+public class MetricasConsultasService implements JdbcTemplateMedido.RegistroConsultas {
+
+    public static final String SIN_PETICION = "(segundo plano)";
+
+    // Marca en la petición HTTP para contarla una sola vez por endpoint
+    private static final String ATRIBUTO_CONTADA = MetricasConsultasService.class.getName() + ".contada";
+
+    private static final class Medicion {
+        final Histogram latenciasUs = new ConcurrentHistogram(2);
+        final LongAdder llamadas = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        final LongAdder filas = new LongAdder();
+        // Llamadas con filas conocidas (un ResultSetExtractor propio no las informa)
+        final LongAdder llamadasConFilas = new LongAdder();
+        final LongAdder totalUs = new LongAdder();
+
+        void registrar(long micros, long filasSentencia, boolean error) {
+            latenciasUs.recordValue(micros);
+            llamadas.increment();
+            totalUs.add(micros);
+            if (filasSentencia != JdbcTemplateMedido.FILAS_DESCONOCIDAS) {
+                filas.add(filasSentencia);
+                llamadasConFilas.increment();
+            }
+            if (error) {
+                errores.increment();
+            }
+        }
+    }
+
+    private record ClaveEndpoint(String endpoint, String nombre) {
+    }
+
+    private final Map<String, Medicion> porNombre = new ConcurrentHashMap<>();
+    private final Map<ClaveEndpoint, Medicion> porEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> peticionesPorEndpoint = new ConcurrentHashMap<>();
+
+    @Override
+    public void registrar(String nombre, String sql, Object[] parametros, long nanos, long filas, boolean error) {
+        long micros = Math.max(0, nanos / 1000);
+        String endpoint = endpointActual();
+
+        porNombre.computeIfAbsent(nombre, k -> new Medicion()).registrar(micros, filas, error);
+        porEndpoint.computeIfAbsent(new ClaveEndpoint(endpoint, nombre), k -> new Medicion())
+                .registrar(micros, filas, error);
+    }
+
+    // "GET /api/ventas/{cod}/detalle" (el patrón del mapeo, no la URL con valores), o SIN_PETICION
+    // para tareas programadas y hilos propios
+    private String endpointActual() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (!(atributos instanceof ServletRequestAttributes servlet)) {
+            return SIN_PETICION;
+        }
+        Object patron = servlet.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = servlet.getRequest().getMethod() + " "
+                + (patron != null ? patron : servlet.getRequest().getRequestURI());
+
+        if (servlet.getAttribute(ATRIBUTO_CONTADA, RequestAttributes.SCOPE_REQUEST) == null) {
+            servlet.setAttribute(ATRIBUTO_CONTADA, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            peticionesPorEndpoint.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+        }
+        return endpoint;
+    }
+
+    // ==========================================
+    // CONSULTA DE MÉTRICAS
+    // ==========================================
+
+    /** Ranking global por nombre. orden: total | p99 | llamadas | filas | errores. */
+    public List<EstadisticaConsultaDto> porConsulta(String orden, int limite) {
+        return porNombre.entrySet().stream()
+                .map(e -> aDto(e.getKey(), null, e.getValue()))
+                .sorted(comparador(orden))
+                .limit(limite)
+                .toList();
+    }
+
+    /** Consultas de un endpoint ("GET /api/maestros/{id}/perfil"), o de todos si es null. */
+    public List<EstadisticaConsultaDto> porEndpoint(String endpoint, String orden, int limite) {
+        return porEndpoint.entrySet().stream()
+                .filter(e -> endpoint == null || endpoint.equals(e.getKey().endpoint()))
+                .map(e -> aDto(e.getKey().nombre(), e.getKey().endpoint(), e.getValue()))
+                .sorted(comparador(orden))
+                .limit(limite)
+                .toList();
+    }
+
+    /** Resumen por endpoint: peticiones, sentencias por petición y tiempo en SQL por petición. */
+    public List<EstadisticaEndpointDto> endpoints() {
+        Map<String, long[]> totales = new ConcurrentHashMap<>();
+        porEndpoint.forEach((clave, m) -> {
+            long[] t = totales.computeIfAbsent(clave.endpoint(), k -> new long[4]);
+            t[0] += m.llamadas.sum();
+            t[1] += m.errores.sum();
+            t[2] += m.filas.sum();
+            t[3] += m.totalUs.sum();
+        });
+
+        return totales.entrySet().stream()
+                .map(e -> {
+                    long[] t = e.getValue();
+                    LongAdder peticiones = peticionesPorEndpoint.get(e.getKey());
+                    long nPeticiones = peticiones != null ? peticiones.sum() : 0;
+
+                    EstadisticaEndpointDto dto = new EstadisticaEndpointDto();
+                    dto.setEndpoint(e.getKey());
+                    dto.setPeticiones(nPeticiones);
+                    dto.setSentencias(t[0]);
+                    dto.setErrores(t[1]);
+                    dto.setFilas(t[2]);
+                    dto.setTotal_ms(t[3] / 1000.0);
+                    dto.setSentencias_por_peticion(nPeticiones == 0 ? null : (double) t[0] / nPeticiones);
+                    dto.setMs_por_peticion(nPeticiones == 0 ? null : t[3] / 1000.0 / nPeticiones);
+                    return dto;
+                })
+                .sorted(Comparator.comparing(EstadisticaEndpointDto::getTotal_ms).reversed())
+                .toList();
+    }
+
+    public void reiniciar() {
+        porNombre.clear();
+        porEndpoint.clear();
+        peticionesPorEndpoint.clear();
+    }
+
+    private static EstadisticaConsultaDto aDto(String nombre, String endpoint, Medicion m) {
+        // Copia para que los percentiles salgan del mismo instante aunque sigan llegando registros
+        Histogram h = m.latenciasUs.copy();
+        long llamadas = m.llamadas.sum();
+        long filas = m.filas.sum();
+        long llamadasConFilas = m.llamadasConFilas.sum();
+        long totalUs = m.totalUs.sum();
+
+        EstadisticaConsultaDto dto = new EstadisticaConsultaDto();
+        dto.setNombre(nombre);
+        dto.setEndpoint(endpoint);
+        dto.setLlamadas(llamadas);
+        dto.setErrores(m.errores.sum());
+        dto.setFilas(filas);
+        dto.setFilas_promedio(llamadasConFilas == 0 ? 0 : (double) filas / llamadasConFilas);
+        dto.setTotal_ms(totalUs / 1000.0);
+        dto.setPromedio_ms(llamadas == 0 ? 0 : totalUs / 1000.0 / llamadas);
+        dto.setP50_ms(h.getValueAtPercentile(50) / 1000.0);
+        dto.setP90_ms(h.getValueAtPercentile(90) / 1000.0);
+        dto.setP99_ms(h.getValueAtPercentile(99) / 1000.0);
+        dto.setMax_ms(h.getMaxValue() / 1000.0);
+        return dto;
+    }
+
+    private static Comparator<EstadisticaConsultaDto> comparador(String orden) {
+        Comparator<EstadisticaConsultaDto> c = switch (orden == null ? "total" : orden) {
+            case "total" -> Comparator.comparing(EstadisticaConsultaDto::getTotal_ms);
+            case "p99" -> Comparator.comparing(EstadisticaConsultaDto::getP99_ms);
+            case "llamadas" -> Comparator.comparing(EstadisticaConsultaDto::getLlamadas);
+            case "filas" -> Comparator.comparing(EstadisticaConsultaDto::getFilas);
+            case "errores" -> Comparator.comparing(EstadisticaConsultaDto::getErrores);
+            default -> throw new IllegalArgumentException("Orden no válido: " + orden);
+        };
+        return c.reversed();
+    }
+}
@@ -0,0 +1,201 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.dto.AntiguedadDeudaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.MorosidadClienteDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ResultadoMorosidadDto;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+
+/**
+ * Motor de morosidad: en segundo plano pasa a "vencido" las cuotas pendientes cuya fecha de
+ * vencimiento ya pasó y recalcula la deuda vencida por cliente (tabla MOROSIDAD_CLIENTE, con sus
+ * tramos de antigüedad). Las pantallas de cobranza leen ese estado ya calculado en lugar de
+ * recorrer todas las cuotas en cada petición.
+ */
+@Service
+@RequiredArgsConstructor
+public class MorosidadService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${morosidad.estado-pendiente:1}")
+    private int estadoPendiente;
+
+    @Value("${morosidad.estado-vencido:3}")
+    private int estadoVencido;
+
+    // Cuotas por UPDATE: cada lote es una transacción corta que bloquea pocas filas
+    @Value("${morosidad.tamano-lote:1000}")
+    private int tamanoLote;
+
+    // Tope de lotes por pasada; lo que quede se marca en la siguiente
+    @Value("${morosidad.max-lotes:200}")
+    private int maxLotes;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    @Scheduled(initialDelayString = "${morosidad.intervalo-ms:900000}", fixedDelayString = "${morosidad.intervalo-ms:900000}")
+    public void procesarProgramado() {
+        procesar();
+    }
+
+    /**
+     * Ejecuta una pasada completa. Devuelve null si ya hay otra pasada en curso en esta instancia.
+     */
+    public ResultadoMorosidadDto procesar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+
+            // 1. Marcar cuotas vencidas por lotes (sin transacción envolvente: cada UPDATE confirma solo)
+            int marcadas = 0;
+            int lotes = 0;
+            int enLote;
+            do {
+                enLote = marcarLote();
+                marcadas += enLote;
+                lotes++;
+            } while (enLote == tamanoLote && lotes < maxLotes);
+
+            // 2. Recalcular totales y tramos por cliente
+            int clientes = recalcularTotales();
+
+            ResultadoMorosidadDto resultado = new ResultadoMorosidadDto();
+            resultado.setCuotas_marcadas(marcadas);
+            resultado.setLotes(lotes);
+            resultado.setClientes_morosos(clientes);
+            resultado.setDuracion_ms(System.currentTimeMillis() - inicio);
+            return resultado;
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    // SKIP LOCKED: una cuota que se está pagando en ese momento no frena al motor; se revisa en la próxima pasada
+    private int marcarLote() {
+        String sql = """
+            /* morosidad.marcar */
+            WITH lote AS (
+                SELECT cod_pago
+                FROM pago
+                WHERE cod_estado_pago = ?
+                  AND fecha_vencimiento_pago < current_date
+                ORDER BY fecha_vencimiento_pago
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE pago p
+            SET cod_estado_pago = ?
+            FROM lote
+            WHERE p.cod_pago = lote.cod_pago
+            """;
+        return jdbcTemplate.update(sql, estadoPendiente, Math.max(1, tamanoLote), estadoVencido);
+    }
+
+    // Una sola sentencia: quien lea MOROSIDAD_CLIENTE ve la foto anterior o la nueva, nunca una mezcla
+    private int recalcularTotales() {
+        String sql = """
+            /* morosidad.totales */
+            WITH totales AS (
+                SELECT v.cod_cliente,
+                       count(*) cuotas_vencidas,
+                       sum(p.monto_pago) monto_vencido,
+                       coalesce(sum(p.monto_pago) FILTER (WHERE current_date - p.fecha_vencimiento_pago::date <= 30), 0) monto_0_30,
+                       coalesce(sum(p.monto_pago) FILTER (WHERE current_date - p.fecha_vencimiento_pago::date BETWEEN 31 AND 60), 0) monto_31_60,
+                       coalesce(sum(p.monto_pago) FILTER (WHERE current_date - p.fecha_vencimiento_pago::date BETWEEN 61 AND 90), 0) monto_61_90,
+                       coalesce(sum(p.monto_pago) FILTER (WHERE current_date - p.fecha_vencimiento_pago::date > 90), 0) monto_mas_90,
+                       min(p.fecha_vencimiento_pago::date) vencimiento_mas_antiguo
+                FROM pago p
+                JOIN venta v ON v.cod_venta = p.cod_venta
+                WHERE p.cod_estado_pago = ?
+                  AND v.cod_cliente IS NOT NULL
+                GROUP BY v.cod_cliente
+            ),
+            retirados AS (
+                DELETE FROM morosidad_cliente m
+                WHERE NOT EXISTS (SELECT 1 FROM totales t WHERE t.cod_cliente = m.cod_cliente)
+            )
+            INSERT INTO morosidad_cliente (
+                cod_cliente, cuotas_vencidas, monto_vencido,
+                monto_0_30, monto_31_60, monto_61_90, monto_mas_90,
+                vencimiento_mas_antiguo, fecha_actualizacion
+            )
+            SELECT cod_cliente, cuotas_vencidas, monto_vencido,
+                   monto_0_30, monto_31_60, monto_61_90, monto_mas_90,
+                   vencimiento_mas_antiguo, now()
+            FROM totales
+            ON CONFLICT (cod_cliente) DO UPDATE SET
+                cuotas_vencidas = EXCLUDED.cuotas_vencidas,
+                monto_vencido = EXCLUDED.monto_vencido,
+                monto_0_30 = EXCLUDED.monto_0_30,
+                monto_31_60 = EXCLUDED.monto_31_60,
+                monto_61_90 = EXCLUDED.monto_61_90,
+                monto_mas_90 = EXCLUDED.monto_mas_90,
+                vencimiento_mas_antiguo = EXCLUDED.vencimiento_mas_antiguo,
+                fecha_actualizacion = EXCLUDED.fecha_actualizacion
+            """;
+        return jdbcTemplate.update(sql, estadoVencido);
+    }
+
+    // ==========================================
+    // LECTURAS (estado ya calculado)
+    // ==========================================
+    public List<AntiguedadDeudaDto> reporteAntiguedad() {
+        String sql = """
+            /* morosidad.antiguedad */
+            SELECT count(*) FILTER (WHERE monto_0_30 > 0) clientes_0_30,
+                   coalesce(sum(monto_0_30), 0) monto_0_30,
+                   count(*) FILTER (WHERE monto_31_60 > 0) clientes_31_60,
+                   coalesce(sum(monto_31_60), 0) monto_31_60,
+                   count(*) FILTER (WHERE monto_61_90 > 0) clientes_61_90,
+                   coalesce(sum(monto_61_90), 0) monto_61_90,
+                   count(*) FILTER (WHERE monto_mas_90 > 0) clientes_mas_90,
+                   coalesce(sum(monto_mas_90), 0) monto_mas_90
+            FROM morosidad_cliente
+            """;
+        Map<String, Object> fila = jdbcTemplate.queryForMap(sql);
+
+        List<AntiguedadDeudaDto> reporte = new ArrayList<>(4);
+        reporte.add(tramo("0-30", fila.get("clientes_0_30"), fila.get("monto_0_30")));
+        reporte.add(tramo("31-60", fila.get("clientes_31_60"), fila.get("monto_31_60")));
+        reporte.add(tramo("61-90", fila.get("clientes_61_90"), fila.get("monto_61_90")));
+        reporte.add(tramo("90+", fila.get("clientes_mas_90"), fila.get("monto_mas_90")));
+        return reporte;
+    }
+
+    public List<MorosidadClienteDto> clientesMorosos(int limite) {
+        String sql = """
+            /* morosidad.clientes */
+            SELECT m.cod_cliente, p.nombre_persona cliente, m.cuotas_vencidas, m.monto_vencido,
+                   m.monto_0_30, m.monto_31_60, m.monto_61_90, m.monto_mas_90,
+                   m.vencimiento_mas_antiguo, m.fecha_actualizacion
+            FROM morosidad_cliente m
+            LEFT JOIN cliente c ON c.cod_cliente = m.cod_cliente
+            LEFT JOIN persona p ON p.cod_persona = c.cod_persona
+            ORDER BY m.monto_vencido DESC
+            LIMIT ?
+            """;
+        return jdbcTemplate.query(sql, MapeadorFilas.de(MorosidadClienteDto.class), limite);
+    }
+
+    private static AntiguedadDeudaDto tramo(String nombre, Object clientes, Object monto) {
+        AntiguedadDeudaDto dto = new AntiguedadDeudaDto();
+        dto.setTramo(nombre);
+        dto.setClientes(((Number) clientes).intValue());
+        dto.setMonto(monto instanceof BigDecimal bd ? bd : new BigDecimal(monto.toString()));
+        return dto;
+    }
+}
@@ -0,0 +1,310 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import pe.edu.uni.ProyectoFerreteria.dto.AuditoriaBloqueComprobanteDto;
+import pe.edu.uni.ProyectoFerreteria.util.ConexionesAuxiliares;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+import pe.edu.uni.ProyectoFerreteria.util.SerieComprobante;
+
+/**
+ * Numeración de comprobantes por caja y tipo de comprobante. Cada serie reserva en la base bloques
+ * de números consecutivos (tabla SERIE_COMPROBANTE, con cada bloque anotado en BLOQUE_COMPROBANTE)
+ * y los emite desde memoria: registrar una venta no consulta la base para obtener su número.
+ * Cuando a una serie le quedan pocos números se reserva el siguiente bloque en segundo plano, y al
+ * arrancar se reserva el primero de cada serie ya usada: solo la primera venta de una serie nueva (o
+ * una ráfaga que agote la serie antes de la recarga) espera una reserva.
+ *
+ * El formato es "CCC-NNNNNNNN" (caja con 3 dígitos, correlativo con 8). Un número tomado por una
+ * venta que se revierte se vuelve a emitir: al revertirse la transacción, o con devolverDesde() si
+ * solo se revierte el savepoint de la venta (registro en lote). Los que se pierden (caída de la
+ * instancia) aparecen como huecos en auditoria().
+ */
+@Service
+public class NumeracionComprobanteService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConexionesAuxiliares conexiones;
+
+    private final int tamanoBloque;
+
+    private final int umbralRecarga;
+
+    private final Map<String, SerieComprobante> series = new ConcurrentHashMap<>();
+
+    private final ExecutorService recargas = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "recarga-comprobantes");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public NumeracionComprobanteService(JdbcTemplate jdbcTemplate, ConexionesAuxiliares conexiones,
+            @Value("${comprobante.numeracion.tamano-bloque:100}") int tamanoBloque,
+            @Value("${comprobante.numeracion.umbral-recarga:20}") int umbralRecarga) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.conexiones = conexiones;
+        this.tamanoBloque = Math.max(1, tamanoBloque);
+        this.umbralRecarga = Math.max(0, umbralRecarga);
+    }
+
+    /**
+     * Emite el próximo número de la serie. Si se llama dentro de una transacción y esta se revierte,
+     * el número vuelve a la serie.
+     */
+    public String emitir(int codTipoComprobante, int codCaja) {
+        SerieComprobante serie = serie(codTipoComprobante, codCaja);
+
+        Long numero = serie.tomar();
+        if (numero == null) {
+            // Serie vacía (serie nueva o la recarga no llegó a tiempo): se reserva aquí mismo, en una
+            // conexión auxiliar que no sale del pool de las ventas
+            ReentrantLock reserva = serie.getReserva();
+            reserva.lock();
+            try {
+                numero = serie.tomar();
+                if (numero == null) {
+                    reservarBloque(serie, codTipoComprobante, codCaja);
+                    numero = serie.tomar();
+                }
+            } finally {
+                reserva.unlock();
+            }
+        }
+
+        if (serie.disponibles() <= umbralRecarga && serie.iniciarRecarga()) {
+            recargas.execute(() -> {
+                try {
+                    reservarBloque(serie, codTipoComprobante, codCaja);
+                } catch (Exception e) {
+                    e.printStackTrace();   // se reintenta en la próxima emisión
+                } finally {
+                    serie.terminarRecarga();
+                }
+            });
+        }
+
+        NumerosTransaccion enCurso = numerosTransaccion();
+        if (enCurso != null) {
+            enCurso.emitidos.add(new Emitido(serie, numero));
+        }
+        return formatear(codCaja, numero);
+    }
+
+    private SerieComprobante serie(int codTipoComprobante, int codCaja) {
+        return series.computeIfAbsent(clave(codTipoComprobante, codCaja), k -> new SerieComprobante());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargarAlIniciar() {
+        recargas.execute(() -> {
+            try {
+                precargar();
+            } catch (Exception e) {
+                e.printStackTrace();   // las series se reservarán en su primera emisión
+            }
+        });
+    }
+
+    // Primer bloque de cada serie que ya tiene contador en la base
+    void precargar() {
+        String sql = """
+            /* comprobante.series */
+            SELECT cod_tipo_comprobante, cod_caja
+            FROM serie_comprobante
+            """;
+        List<int[]> conocidas = jdbcTemplate.query(sql, (rs, i) -> new int[] { rs.getInt(1), rs.getInt(2) });
+        for (int[] s : conocidas) {
+            SerieComprobante serie = serie(s[0], s[1]);
+            if (serie.disponibles() == 0 && serie.iniciarRecarga()) {
+                try {
+                    reservarBloque(serie, s[0], s[1]);
+                } catch (Exception e) {
+                    e.printStackTrace();   // se reservará en su primera emisión
+                } finally {
+                    serie.terminarRecarga();
+                }
+            }
+        }
+    }
+
+    /** Cantidad de números emitidos hasta ahora en la transacción en curso (0 si no hay transacción). */
+    public int marca() {
+        NumerosTransaccion enCurso = numerosTransaccion();
+        return enCurso != null ? enCurso.emitidos.size() : 0;
+    }
+
+    /**
+     * Devuelve a su serie los números emitidos en la transacción en curso después de la marca. Se llama
+     * tras revertir un savepoint: la transacción externa confirma y su afterCompletion no lo haría.
+     */
+    public void devolverDesde(int marca) {
+        NumerosTransaccion enCurso = numerosTransaccion();
+        if (enCurso == null) {
+            return;
+        }
+        List<Emitido> revertidos = enCurso.emitidos.subList(Math.min(marca, enCurso.emitidos.size()),
+                enCurso.emitidos.size());
+        for (Emitido e : revertidos) {
+            e.serie().devolver(e.numero());
+        }
+        revertidos.clear();
+    }
+
+    private record Emitido(SerieComprobante serie, long numero) {
+    }
+
+    // Números emitidos en una transacción; se registra una sola vez por transacción
+    private static final class NumerosTransaccion implements TransactionSynchronization {
+
+        private final List<Emitido> emitidos = new ArrayList<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            // Con estado desconocido no se devuelve: un hueco es preferible a un número repetido
+            if (status == STATUS_ROLLED_BACK) {
+                for (Emitido e : emitidos) {
+                    e.serie().devolver(e.numero());
+                }
+            }
+            emitidos.clear();
+        }
+    }
+
+    // La sincronización de la transacción en curso del hilo, o null si no hay transacción
+    private NumerosTransaccion numerosTransaccion() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            if (s instanceof NumerosTransaccion n) {
+                return n;
+            }
+        }
+        NumerosTransaccion n = new NumerosTransaccion();
+        TransactionSynchronizationManager.registerSynchronization(n);
+        return n;
+    }
+
+    public static String formatear(int codCaja, long numero) {
+        return String.format("%03d-%08d", codCaja, numero);
+    }
+
+    // Una sentencia: avanza el contador durable de la serie y anota el bloque reservado.
+    // Va en una conexión auxiliar con autocommit, nunca en la de la venta en curso: así confirma aunque
+    // la venta se revierta (sus números no se repiten) y no confirma a medias la venta. Un
+    // TransactionTemplate con REQUIRES_NEW no basta: dentro de una transacción de JPA reutilizaría la
+    // conexión de la venta y la confirmaría. Al ser auxiliar no sale del pool ni del límite de
+    // conexiones, donde esperaría detrás de las ventas que la necesitan.
+    private void reservarBloque(SerieComprobante serie, int codTipoComprobante, int codCaja) {
+        String sql = """
+            /* comprobante.bloque.reservar */
+            WITH serie AS (
+                INSERT INTO serie_comprobante (cod_tipo_comprobante, cod_caja, ultimo_asignado)
+                VALUES (?, ?, ?)
+                ON CONFLICT (cod_tipo_comprobante, cod_caja) DO UPDATE
+                SET ultimo_asignado = serie_comprobante.ultimo_asignado + EXCLUDED.ultimo_asignado
+                RETURNING cod_tipo_comprobante, cod_caja, ultimo_asignado
+            )
+            INSERT INTO bloque_comprobante (cod_tipo_comprobante, cod_caja, desde, hasta)
+            SELECT cod_tipo_comprobante, cod_caja, ultimo_asignado - ? + 1, ultimo_asignado
+            FROM serie
+            RETURNING cod_bloque, desde, hasta
+            """;
+        try (Connection con = conexiones.abrir()) {
+            con.setAutoCommit(true);
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setInt(1, codTipoComprobante);
+                ps.setInt(2, codCaja);
+                ps.setInt(3, tamanoBloque);
+                ps.setInt(4, tamanoBloque);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("La reserva del bloque no devolvió filas");
+                    }
+                    serie.agregarBloque(rs.getLong("cod_bloque"), rs.getLong("desde"), rs.getLong("hasta"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException(
+                    "No se pudo reservar un bloque de la serie " + clave(codTipoComprobante, codCaja), e);
+        }
+    }
+
+    // Al apagar se anota desde qué número quedó sin usar cada bloque, para que la auditoría no los
+    // cuente como huecos de ventas perdidas
+    @PreDestroy
+    public void liberar() {
+        recargas.shutdown();
+        for (SerieComprobante serie : series.values()) {
+            for (long[] liberado : serie.liberar()) {
+                try {
+                    jdbcTemplate.update("UPDATE bloque_comprobante SET liberado_desde = ? WHERE cod_bloque = ?",
+                            liberado[1], liberado[0]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static String clave(int codTipoComprobante, int codCaja) {
+        return codTipoComprobante + ":" + codCaja;
+    }
+
+    // ==========================================
+    // AUDITORÍA DE HUECOS
+    // ==========================================
+    // Por bloque: números emitidos (comprobantes con ese número), último emitido, huecos por debajo del
+    // último emitido (números tomados que nunca llegaron a un comprobante) y números liberados al apagar.
+    // El rango "CCC-desde".."CCC-hasta" se recorre por el índice (cod_tipo_comprobante, nro_comprobante).
+    public List<AuditoriaBloqueComprobanteDto> auditoria(Integer codTipoComprobante, Integer codCaja) {
+        String sql = """
+            /* comprobante.auditoria */
+            SELECT b.cod_bloque, b.cod_tipo_comprobante, b.cod_caja, b.desde, b.hasta,
+                   b.fecha_asignacion, b.liberado_desde,
+                   e.emitidos, e.ultimo_emitido,
+                   CASE WHEN e.ultimo_emitido IS NULL THEN 0
+                        ELSE e.ultimo_emitido - b.desde + 1 - e.emitidos END huecos,
+                   CASE WHEN b.liberado_desde IS NULL THEN 0
+                        ELSE b.hasta - b.liberado_desde + 1 END liberados
+            FROM bloque_comprobante b
+            CROSS JOIN LATERAL (
+                SELECT count(DISTINCT x.n) emitidos, max(x.n) ultimo_emitido
+                FROM (
+                    SELECT split_part(c.nro_comprobante, '-', 2)::bigint n
+                    FROM comprobante c
+                    WHERE c.cod_tipo_comprobante = b.cod_tipo_comprobante
+                      AND c.nro_comprobante BETWEEN lpad(b.cod_caja::text, 3, '0') || '-' || lpad(b.desde::text, 8, '0')
+                                                AND lpad(b.cod_caja::text, 3, '0') || '-' || lpad(b.hasta::text, 8, '0')
+                      AND length(c.nro_comprobante) = 12
+                ) x
+            ) e
+            WHERE (?::int IS NULL OR b.cod_tipo_comprobante = ?)
+              AND (?::int IS NULL OR b.cod_caja = ?)
+            ORDER BY b.cod_tipo_comprobante, b.cod_caja, b.desde
+            """;
+        return jdbcTemplate.query(sql, MapeadorFilas.de(AuditoriaBloqueComprobanteDto.class),
+                codTipoComprobante, codTipoComprobante, codCaja, codCaja);
+    }
+}
@@ -0,0 +1,89 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import pe.edu.uni.ProyectoFerreteria.util.ContadorSqlPeticion;
+import pe.edu.uni.ProyectoFerreteria.util.JdbcTemplateMedido;
+import pe.edu.uni.ProyectoFerreteria.util.PresupuestoSql;
+import pe.edu.uni.ProyectoFerreteria.util.PresupuestoSqlExcedidoException;
+
+/**
+ * Presupuesto de sentencias SQL por petición HTTP. PresupuestoSqlConfig abre un ContadorSqlPeticion
+ * al empezar cada petición y lo cierra al terminar; mientras tanto el JdbcTemplateMedido le informa
+ * cada sentencia del hilo de la petición.
+ *
+ * Con sql.presupuesto.accion=advertir (producción) se registra un aviso al terminar la petición si
+ * excedió el máximo de sentencias o repitió un mismo SQL más de lo permitido (patrón N+1).
+ * Con sql.presupuesto.accion=fallar (pruebas) la sentencia que lo excede lanza
+ * PresupuestoSqlExcedidoException, con lo que la petición responde 500 y la prueba falla.
+ */
+@Service
+public class PresupuestoSqlService implements JdbcTemplateMedido.RegistroConsultas {
+
+    private static final Logger log = LoggerFactory.getLogger(PresupuestoSqlService.class);
+
+    private final ThreadLocal<ContadorSqlPeticion> actual = new ThreadLocal<>();
+
+    @Value("${sql.presupuesto.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${sql.presupuesto.sentencias:12}")
+    private int maximoSentencias;
+
+    @Value("${sql.presupuesto.repeticiones:3}")
+    private int maximoRepeticiones;
+
+    @Value("${sql.presupuesto.accion:advertir}")
+    private String accion;
+
+    /** Empieza a contar las sentencias del hilo actual. anotacion puede ser null. */
+    public void iniciar(String endpoint, PresupuestoSql anotacion) {
+        if (!habilitado) {
+            return;
+        }
+        int sentencias = maximoSentencias;
+        int repeticiones = maximoRepeticiones;
+        if (anotacion != null) {
+            if (anotacion.sentencias() != PresupuestoSql.POR_DEFECTO) {
+                sentencias = anotacion.sentencias();
+            }
+            if (anotacion.repeticiones() != PresupuestoSql.POR_DEFECTO) {
+                repeticiones = anotacion.repeticiones();
+            }
+        }
+        actual.set(new ContadorSqlPeticion(endpoint, sentencias, repeticiones));
+    }
+
+    /** Deja de contar y avisa si la petición no cumplió su presupuesto. Devuelve el contador cerrado. */
+    public ContadorSqlPeticion terminar() {
+        ContadorSqlPeticion contador = actual.get();
+        if (contador == null) {
+            return null;
+        }
+        actual.remove();
+
+        List<String> infracciones = contador.infracciones();
+        if (!infracciones.isEmpty()) {
+            log.warn("{}: {} sentencias SQL en {} ms; {}", contador.getEndpoint(), contador.getSentencias(),
+                    String.format("%.1f", contador.getMilisegundos()), String.join("; ", infracciones));
+        }
+        return contador;
+    }
+
+    @Override
+    public void registrar(String nombre, String sql, Object[] parametros, long nanos, long filas, boolean error) {
+        ContadorSqlPeticion contador = actual.get();
+        if (contador == null) {
+            return;
+        }
+        String infraccion = contador.registrar(nombre, sql, nanos);
+        if (infraccion != null && "fallar".equals(accion)) {
+            throw new PresupuestoSqlExcedidoException(infraccion);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import pe.edu.uni.ProyectoFerreteria.dto.ResultadoReconstruccionDto;
+
+/**
+ * Modelo de lectura de ventas (tabla RESUMEN_VENTA): una fila por venta con los nombres de cliente
+ * y vendedor, totales, estado y conteo de cuotas ya resueltos. ConsultasVentasService la actualiza
+ * dentro de la misma transacción que registra la venta, sus pagos y sus reclamos; los listados la
+ * leen sin JOIN. reconstruir() la vuelve a calcular completa desde las tablas base.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResumenVentaService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Ventas por transacción al reconstruir
+    @Value("${ventas.resumen.tamano-lote:5000}")
+    private int tamanoLote;
+
+    // true: reconstruir en cada arranque; false: solo si la tabla está vacía y ya hay ventas
+    @Value("${ventas.resumen.reconstruir-al-iniciar:false}")
+    private boolean reconstruirAlIniciar;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    // Una sola sentencia calcula la fila desde las tablas base y la inserta o reemplaza.
+    // %s es el filtro de ventas a recalcular.
+    private static final String SQL_RECALCULAR = """
+        /* resumen.recalcular */
+        INSERT INTO resumen_venta (
+            cod_venta, cod_venta_fmt, fecha_hora_venta,
+            cod_vendedor, vendedor, cod_cliente, cliente,
+            monto_venta, igv, descuento, puntos_venta,
+            cod_estado_venta, cod_cond_pago, nro_cuotas,
+            cuotas_pagadas, cuotas_pendientes, monto_pagado, monto_pendiente,
+            reclamos, fecha_actualizacion
+        )
+        SELECT v.cod_venta, v.cod_venta_fmt, v.fecha_hora_venta,
+               v.cod_vendedor, pv.nombre_persona, v.cod_cliente, pc.nombre_persona,
+               coalesce(v.monto_venta, 0), coalesce(v.igv, 0), coalesce(v.descuento, 0), coalesce(v.puntos_venta, 0),
+               v.cod_estado_venta, v.cod_cond_pago, v.nro_cuotas,
+               pg.pagadas, pg.pendientes, pg.monto_pagado, pg.monto_pendiente,
+               rc.reclamos, now()
+        FROM venta v
+        LEFT JOIN vendedor ven ON ven.cod_vendedor = v.cod_vendedor
+        LEFT JOIN usuario u ON u.cod_usuario = ven.cod_usuario
+        LEFT JOIN persona pv ON pv.cod_persona = u.cod_persona
+        LEFT JOIN cliente c ON c.cod_cliente = v.cod_cliente
+        LEFT JOIN persona pc ON pc.cod_persona = c.cod_persona
+        CROSS JOIN LATERAL (
+            SELECT count(*) FILTER (WHERE p.cod_estado_pago = 2) pagadas,
+                   count(*) FILTER (WHERE p.cod_estado_pago IN (1,3)) pendientes,
+                   coalesce(sum(p.monto_pago) FILTER (WHERE p.cod_estado_pago = 2), 0) monto_pagado,
+                   coalesce(sum(p.monto_pago) FILTER (WHERE p.cod_estado_pago IN (1,3)), 0) monto_pendiente
+            FROM pago p
+            WHERE p.cod_venta = v.cod_venta
+        ) pg
+        CROSS JOIN LATERAL (
+            SELECT count(*) reclamos FROM reclamo r WHERE r.cod_venta = v.cod_venta
+        ) rc
+        WHERE %s
+        ON CONFLICT (cod_venta) DO UPDATE SET
+            cod_venta_fmt = EXCLUDED.cod_venta_fmt,
+            fecha_hora_venta = EXCLUDED.fecha_hora_venta,
+            cod_vendedor = EXCLUDED.cod_vendedor,
+            vendedor = EXCLUDED.vendedor,
+            cod_cliente = EXCLUDED.cod_cliente,
+            cliente = EXCLUDED.cliente,
+            monto_venta = EXCLUDED.monto_venta,
+            igv = EXCLUDED.igv,
+            descuento = EXCLUDED.descuento,
+            puntos_venta = EXCLUDED.puntos_venta,
+            cod_estado_venta = EXCLUDED.cod_estado_venta,
+            cod_cond_pago = EXCLUDED.cod_cond_pago,
+            nro_cuotas = EXCLUDED.nro_cuotas,
+            cuotas_pagadas = EXCLUDED.cuotas_pagadas,
+            cuotas_pendientes = EXCLUDED.cuotas_pendientes,
+            monto_pagado = EXCLUDED.monto_pagado,
+            monto_pendiente = EXCLUDED.monto_pendiente,
+            reclamos = EXCLUDED.reclamos,
+            fecha_actualizacion = EXCLUDED.fecha_actualizacion
+        """;
+
+    private static final String SQL_RECALCULAR_VENTAS = SQL_RECALCULAR.formatted("v.cod_venta = ANY(?)");
+
+    private static final String SQL_RECALCULAR_RANGO = SQL_RECALCULAR.formatted("v.cod_venta BETWEEN ? AND ?");
+
+    private static final String SQL_BLOQUEAR_RANGO = """
+        /* resumen.bloquear.rango */
+        SELECT cod_venta FROM resumen_venta WHERE cod_venta BETWEEN ? AND ? ORDER BY cod_venta FOR UPDATE
+        """;
+
+    /**
+     * Recalcula la fila de la venta. Debe llamarse dentro de la transacción que modificó la venta,
+     * después de la última escritura.
+     */
+    public void actualizar(Integer codVenta) {
+        actualizar(List.of(codVenta));
+    }
+
+    // Primero se bloquean las filas del resumen y recién después se recalculan: en READ COMMITTED la
+    // segunda sentencia toma una foto nueva, que ya incluye lo confirmado por quien tenía el bloqueo
+    // (dos cajas pagando cuotas de la misma venta no se pisan los conteos).
+    public void actualizar(Collection<Integer> codsVenta) {
+        if (codsVenta.isEmpty()) {
+            return;
+        }
+        Integer[] ids = codsVenta.toArray(new Integer[0]);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT cod_venta FROM resumen_venta WHERE cod_venta = ANY(?) ORDER BY cod_venta FOR UPDATE");
+            ps.setArray(1, con.createArrayOf("int4", ids));
+            return ps;
+        }, rs -> {});
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_RECALCULAR_VENTAS);
+            ps.setArray(1, con.createArrayOf("int4", ids));
+            return ps;
+        });
+    }
+
+    // Los listados leen solo RESUMEN_VENTA: recién desplegada (tabla vacía con ventas existentes)
+    // no mostrarían ninguna venta anterior hasta reconstruirla. Si la tabla no existe, la consulta
+    // falla y la aplicación no termina de arrancar. La reconstrucción corre en segundo plano: con
+    // muchas ventas tarda, y mientras tanto los listados muestran lo ya reconstruido.
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruirAlIniciar() {
+        Boolean vacia = jdbcTemplate.queryForObject("""
+            /* resumen.vacio */
+            SELECT NOT EXISTS (SELECT 1 FROM resumen_venta) AND EXISTS (SELECT 1 FROM venta)
+            """, Boolean.class);
+        if (reconstruirAlIniciar || Boolean.TRUE.equals(vacia)) {
+            Thread t = new Thread(() -> {
+                try {
+                    reconstruir();
+                } catch (Exception e) {
+                    e.printStackTrace();   // queda POST /api/ventas/resumen/reconstruir
+                }
+            }, "reconstruir-resumen");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /**
+     * Vuelve a calcular todo el resumen por rangos de cod_venta (una transacción corta por rango) y
+     * elimina las filas de ventas que ya no existen. Sirve para poblar la tabla la primera vez y para
+     * corregirla si se modificaron las tablas base por fuera de la aplicación.
+     * Devuelve null si ya hay una reconstrucción en curso en esta instancia.
+     */
+    public ResultadoReconstruccionDto reconstruir() {
+        if (!enCurso.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long inicio = System.currentTimeMillis();
+            TransactionTemplate tx = new TransactionTemplate(
+                    new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+            // 1. Rango de ventas existente
+            Map<String, Object> rango = jdbcTemplate.queryForMap(
+                    "SELECT min(cod_venta) minimo, max(cod_venta) maximo FROM venta");
+
+            int ventas = 0;
+            int lotes = 0;
+            if (rango.get("minimo") != null) {
+                int minimo = ((Number) rango.get("minimo")).intValue();
+                int maximo = ((Number) rango.get("maximo")).intValue();
+                int paso = Math.max(1, tamanoLote);
+
+                // 2. Recalcular por rangos; las filas nuevas del rango que se registren mientras tanto
+                //    ya las mantiene el propio registro. Como en actualizar(), primero se bloquean las
+                //    filas del rango: un pago confirmado durante la reconstrucción no queda pisado por
+                //    la foto que tomó el recálculo antes de que confirmara
+                for (long desde = minimo; desde <= maximo; desde += paso) {
+                    int a = (int) desde;
+                    int b = (int) Math.min(desde + paso - 1, maximo);
+                    Integer n = tx.execute(status -> {
+                        jdbcTemplate.query(SQL_BLOQUEAR_RANGO, rs -> {}, a, b);
+                        return jdbcTemplate.update(SQL_RECALCULAR_RANGO, a, b);
+                    });
+                    ventas += n != null ? n : 0;
+                    lotes++;
+                }
+            }
+
+            // 3. Quitar ventas eliminadas de las tablas base
+            int eliminadas = jdbcTemplate.update("""
+                /* resumen.depurar */
+                DELETE FROM resumen_venta r
+                WHERE NOT EXISTS (SELECT 1 FROM venta v WHERE v.cod_venta = r.cod_venta)
+                """);
+
+            ResultadoReconstruccionDto resultado = new ResultadoReconstruccionDto();
+            resultado.setVentas(ventas);
+            resultado.setLotes(lotes);
+            resultado.setEliminadas(eliminadas);
+            resultado.setDuracion_ms(System.currentTimeMillis() - inicio);
+            return resultado;
+        } finally {
+            enCurso.set(false);
+        }
+    }
+}
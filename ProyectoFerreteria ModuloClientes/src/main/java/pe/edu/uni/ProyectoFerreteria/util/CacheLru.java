@@ -0,0 +1,64 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché en memoria acotada: al superar la capacidad se descarta la entrada usada hace más tiempo.
+ * Es thread-safe (sincronizada); las operaciones son O(1). Cuenta aciertos y fallos de get().
+ */
+public class CacheLru<K, V> {
+
+    private final int capacidad;
+    private final LinkedHashMap<K, V> entradas;
+    private long aciertos;
+    private long fallos;
+
+    public CacheLru(int capacidad) {
+        this.capacidad = capacidad;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacidad;
+            }
+        };
+    }
+
+    public synchronized V get(K clave) {
+        V valor = entradas.get(clave);
+        if (valor != null) {
+            aciertos++;
+        } else {
+            fallos++;
+        }
+        return valor;
+    }
+
+    public synchronized void put(K clave, V valor) {
+        entradas.put(clave, valor);
+    }
+
+    public synchronized void remove(K clave) {
+        entradas.remove(clave);
+    }
+
+    public synchronized void clear() {
+        entradas.clear();
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+}
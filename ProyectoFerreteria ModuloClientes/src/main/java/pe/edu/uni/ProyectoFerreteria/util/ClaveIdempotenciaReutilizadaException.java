@@ -0,0 +1,12 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+/**
+ * El Idempotency-Key ya se usó con un cuerpo de petición distinto. No es un reintento: la caja
+ * reutilizó la clave por error (se responde 422).
+ */
+public class ClaveIdempotenciaReutilizadaException extends RuntimeException {
+
+    public ClaveIdempotenciaReutilizadaException(String mensaje) {
+        super(mensaje);
+    }
+}
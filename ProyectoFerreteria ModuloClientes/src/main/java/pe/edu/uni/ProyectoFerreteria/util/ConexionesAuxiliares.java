@@ -0,0 +1,29 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Conexiones para el trabajo lateral que no debe competir con las peticiones por el pool: la reserva
+ * de bloques de comprobantes (que puede correr mientras la venta tiene su propia conexión) y el
+ * EXPLAIN de las consultas lentas. Se abren directo con el driver, fuera de Hikari y del
+ * DataSourceConLimite: si salieran de ahí, con todos los permisos prestados una venta esperaría una
+ * segunda conexión que nadie devuelve hasta que venciera jdbc.limite.espera-ms.
+ *
+ * Son operaciones poco frecuentes; abrir una conexión física cada vez es un costo aceptable.
+ */
+public class ConexionesAuxiliares {
+
+    private final DataSource dataSource;
+
+    public ConexionesAuxiliares(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /** Conexión nueva; quien la abre la cierra. */
+    public Connection abrir() throws SQLException {
+        return dataSource.getConnection();
+    }
+}
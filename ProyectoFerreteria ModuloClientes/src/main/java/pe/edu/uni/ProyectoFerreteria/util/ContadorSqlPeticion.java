@@ -0,0 +1,86 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sentencias SQL ejecutadas durante una petición HTTP: cuántas, cuánto tardaron en total y cuántas
+ * veces se repitió cada SQL. Lo usa un solo hilo (el de la petición), sin sincronización.
+ *
+ * registrar() devuelve el mensaje de la infracción en la sentencia que la provoca (la primera que
+ * pasa el máximo, o la primera repetición de más de un mismo SQL), para poder fallar en ese punto.
+ */
+public class ContadorSqlPeticion {
+
+    private static final class Repeticion {
+        final String nombre;
+        int veces;
+
+        Repeticion(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    private final String endpoint;
+    private final int maximoSentencias;
+    private final int maximoRepeticiones;
+
+    private int sentencias;
+    private long nanos;
+
+    // Clave: el texto SQL (dos consultas distintas de un mismo método no cuentan como repetición)
+    private final Map<String, Repeticion> repeticiones = new LinkedHashMap<>();
+
+    public ContadorSqlPeticion(String endpoint, int maximoSentencias, int maximoRepeticiones) {
+        this.endpoint = endpoint;
+        this.maximoSentencias = maximoSentencias;
+        this.maximoRepeticiones = maximoRepeticiones;
+    }
+
+    /** Anota una sentencia; devuelve la infracción que provoca, o null. */
+    public String registrar(String nombre, String sql, long nanosSentencia) {
+        sentencias++;
+        nanos += nanosSentencia;
+
+        Repeticion r = repeticiones.computeIfAbsent(sql != null ? sql : nombre, k -> new Repeticion(nombre));
+        r.veces++;
+
+        if (sentencias == maximoSentencias + 1L) {
+            return endpoint + " excedió el presupuesto de " + maximoSentencias + " sentencias SQL (última: "
+                    + nombre + ")";
+        }
+        if (r.veces == maximoRepeticiones + 1L) {
+            return endpoint + " ejecutó " + r.veces + " veces la misma sentencia " + nombre
+                    + " (posible N+1, máximo " + maximoRepeticiones + ")";
+        }
+        return null;
+    }
+
+    /** Infracciones de la petición completa, para el aviso final. Vacía si cumplió el presupuesto. */
+    public List<String> infracciones() {
+        List<String> lista = new ArrayList<>();
+        if (sentencias > maximoSentencias) {
+            lista.add(sentencias + " sentencias SQL (presupuesto " + maximoSentencias + ")");
+        }
+        for (Repeticion r : repeticiones.values()) {
+            if (r.veces > maximoRepeticiones) {
+                lista.add(r.nombre + " x" + r.veces + " (posible N+1, máximo " + maximoRepeticiones + ")");
+            }
+        }
+        return lista;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getSentencias() {
+        return sentencias;
+    }
+
+    public double getMilisegundos() {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,12 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+/**
+ * El pago pide más cuotas de las que la venta tiene pendientes (o no le queda ninguna). No se paga
+ * nada: la transacción se revierte y se responde 422.
+ */
+public class CuotasInsuficientesException extends RuntimeException {
+
+    public CuotasInsuficientesException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,38 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Token de continuación para paginación por keyset sobre (fecha_hora, codigo).
+ * El cliente lo recibe como texto opaco y lo devuelve tal cual para pedir la siguiente página.
+ */
+public record CursorPaginacion(LocalDateTime fechaHora, int codigo) {
+
+    private static final char SEPARADOR = '|';
+
+    public String codificar() {
+        String plano = fechaHora.toString() + SEPARADOR + codigo;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token recibido del cliente. Lanza IllegalArgumentException si el token no es válido.
+     */
+    public static CursorPaginacion decodificar(String token) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int pos = plano.lastIndexOf(SEPARADOR);
+            if (pos < 0) {
+                throw new IllegalArgumentException("Cursor inválido: " + token);
+            }
+            return new CursorPaginacion(
+                    LocalDateTime.parse(plano.substring(0, pos)),
+                    Integer.parseInt(plano.substring(pos + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + token, e);
+        }
+    }
+}
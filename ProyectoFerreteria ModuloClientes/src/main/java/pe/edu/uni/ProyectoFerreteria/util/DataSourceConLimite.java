@@ -0,0 +1,119 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Compartimento (bulkhead) delante del pool de conexiones: como mucho "permisos" conexiones
+ * prestadas a la vez. Con hilos virtuales pueden llegar miles de peticiones simultáneas; las que
+ * exceden el límite esperan en el semáforo (un hilo virtual bloqueado ahí no ocupa un hilo del
+ * sistema) en orden de llegada, y si no obtienen permiso en "esperaMs" fallan rápido en lugar de
+ * encolarse sin fin en el pool o en PostgreSQL.
+ *
+ * El permiso se devuelve al cerrar la conexión, una sola vez aunque close() se llame varias veces.
+ * Cada conexión toma su propio permiso, también la segunda que pida un hilo que ya tiene una: con
+ * todos los permisos prestados esa segunda solo llega tras la espera, como error. El trabajo lateral
+ * que corre mientras una petición tiene su conexión usa ConexionesAuxiliares, fuera de este límite.
+ */
+public class DataSourceConLimite extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final int totalPermisos;
+    private final long esperaMs;
+
+    public DataSourceConLimite(DataSource destino, int permisos, long esperaMs) {
+        super(destino);
+        this.totalPermisos = Math.max(1, permisos);
+        this.permisos = new Semaphore(this.totalPermisos, true);
+        this.esperaMs = Math.max(0, esperaMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return envolver(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return envolver(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Sin conexión disponible tras " + esperaMs + " ms (" + totalPermisos + " en uso).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión.", e);
+        }
+    }
+
+    private Connection envolver(Connection conexion) {
+        AtomicBoolean cerrada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, metodo, args) -> {
+                    // Identidad del proxy: Spring compara la conexión del ConnectionHolder con la recibida
+                    switch (metodo.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if ("close".equals(metodo.getName()) && metodo.getParameterCount() == 0) {
+                        try {
+                            conexion.close();
+                        } finally {
+                            if (cerrada.compareAndSet(false, true)) {
+                                permisos.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    public int getPermisos() {
+        return totalPermisos;
+    }
+
+    public int getDisponibles() {
+        return permisos.availablePermits();
+    }
+
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+}
@@ -0,0 +1,187 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Escribe cada fila del ResultSet directamente en el stream de salida (NDJSON o CSV),
+ * sin materializar la lista completa en memoria. Los nombres de campo son los alias de columna del SQL.
+ * Devuelve la cantidad de filas escritas.
+ */
+public class ExportadorFilas implements ResultSetExtractor<Long> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    // Cada cuántas filas se fuerza el envío al cliente
+    private static final int FILAS_POR_FLUSH = 1000;
+
+    private final OutputStream salida;
+    private final FormatoExportacion formato;
+    private final Map<String, ColumnaResuelta> resueltas = new HashMap<>();
+
+    private record ColumnaResuelta(String nombreSalida, IntFunction<String> resolver) {
+    }
+
+    public ExportadorFilas(OutputStream salida, FormatoExportacion formato) {
+        this.salida = salida;
+        this.formato = formato;
+    }
+
+    /**
+     * Reemplaza una columna de código (p. ej. cod_estado_venta) por su descripción, resuelta en Java,
+     * con el nombre indicado. Evita hacer JOIN contra tablas de catálogo solo para exportar.
+     */
+    public ExportadorFilas resolviendo(String columna, String nombreSalida, IntFunction<String> resolver) {
+        resueltas.put(columna, new ColumnaResuelta(nombreSalida, resolver));
+        return this;
+    }
+
+    @Override
+    public Long extractData(ResultSet rs) throws SQLException {
+        try {
+            return formato == FormatoExportacion.CSV ? escribirCsv(rs) : escribirNdjson(rs);
+        } catch (IOException e) {
+            // Normalmente el cliente cerró la conexión a mitad de la descarga
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long escribirNdjson(ResultSet rs) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnas = meta.getColumnCount();
+        String[] nombres = nombresColumnas(meta);
+        IntFunction<String>[] resolvers = resolversPorColumna(meta);
+        long filas = 0;
+
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(salida)) {
+            while (rs.next()) {
+                gen.writeStartObject();
+                for (int i = 1; i <= columnas; i++) {
+                    gen.writeFieldName(nombres[i - 1]);
+                    if (resolvers[i - 1] != null) {
+                        String valor = resolver(rs, i, resolvers[i - 1]);
+                        if (valor == null) gen.writeNull(); else gen.writeString(valor);
+                    } else {
+                        escribirValorJson(gen, rs, i, meta.getColumnType(i));
+                    }
+                }
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+
+                if (++filas == 1 || filas % FILAS_POR_FLUSH == 0) {
+                    gen.flush();
+                }
+            }
+            gen.flush();
+        }
+        return filas;
+    }
+
+    private void escribirValorJson(JsonGenerator gen, ResultSet rs, int i, int tipo) throws SQLException, IOException {
+        switch (tipo) {
+            case Types.SMALLINT, Types.INTEGER, Types.BIGINT -> {
+                long valor = rs.getLong(i);
+                if (rs.wasNull()) gen.writeNull(); else gen.writeNumber(valor);
+            }
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                double valor = rs.getDouble(i);
+                if (rs.wasNull()) gen.writeNull(); else gen.writeNumber(valor);
+            }
+            case Types.NUMERIC, Types.DECIMAL -> {
+                BigDecimal valor = rs.getBigDecimal(i);
+                if (valor == null) gen.writeNull(); else gen.writeNumber(valor);
+            }
+            default -> {
+                String valor = rs.getString(i);
+                if (valor == null) gen.writeNull(); else gen.writeString(valor);
+            }
+        }
+    }
+
+    private long escribirCsv(ResultSet rs) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnas = meta.getColumnCount();
+        IntFunction<String>[] resolvers = resolversPorColumna(meta);
+        long filas = 0;
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        escribirLineaCsv(out, nombresColumnas(meta));
+
+        String[] valores = new String[columnas];
+        while (rs.next()) {
+            for (int i = 1; i <= columnas; i++) {
+                valores[i - 1] = resolvers[i - 1] != null ? resolver(rs, i, resolvers[i - 1]) : rs.getString(i);
+            }
+            escribirLineaCsv(out, valores);
+
+            if (++filas == 1 || filas % FILAS_POR_FLUSH == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        return filas;
+    }
+
+    private static void escribirLineaCsv(Writer out, String[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String v = valores[i];
+            if (v == null) {
+                continue;
+            }
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(v.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(v);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private String[] nombresColumnas(ResultSetMetaData meta) throws SQLException {
+        String[] nombres = new String[meta.getColumnCount()];
+        for (int i = 1; i <= nombres.length; i++) {
+            ColumnaResuelta r = resueltas.get(meta.getColumnLabel(i));
+            nombres[i - 1] = r != null ? r.nombreSalida() : meta.getColumnLabel(i);
+        }
+        return nombres;
+    }
+
+    @SuppressWarnings("unchecked")
+    private IntFunction<String>[] resolversPorColumna(ResultSetMetaData meta) throws SQLException {
+        IntFunction<String>[] resolvers = new IntFunction[meta.getColumnCount()];
+        for (int i = 1; i <= resolvers.length; i++) {
+            ColumnaResuelta r = resueltas.get(meta.getColumnLabel(i));
+            resolvers[i - 1] = r != null ? r.resolver() : null;
+        }
+        return resolvers;
+    }
+
+    private static String resolver(ResultSet rs, int i, IntFunction<String> resolver) throws SQLException {
+        int codigo = rs.getInt(i);
+        return rs.wasNull() ? null : resolver.apply(codigo);
+    }
+}
@@ -0,0 +1,38 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+public enum FormatoExportacion {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Acepta "ndjson" o "csv" (sin importar mayúsculas). Lanza IllegalArgumentException en otro caso.
+     */
+    public static FormatoExportacion desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return NDJSON;
+        }
+        for (FormatoExportacion f : values()) {
+            if (f.extension.equalsIgnoreCase(valor.trim())) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación no soportado: " + valor);
+    }
+}
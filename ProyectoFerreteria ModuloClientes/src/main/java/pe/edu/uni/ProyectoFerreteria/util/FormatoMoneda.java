@@ -0,0 +1,54 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Formato de presentación de montos y cuotas para las respuestas de texto (las de siempre).
+ * Reproduce lo que antes armaba PostgreSQL con TO_CHAR y concatenaciones, pero en Java,
+ * de modo que la base solo devuelve números.
+ */
+public final class FormatoMoneda {
+
+    private FormatoMoneda() {
+    }
+
+    /**
+     * Equivalente a 'S/ ' || TO_CHAR(monto, 'FM999,999,999,999.00'): "S/ 1,234.50". Como en
+     * PostgreSQL, los montos menores que 1 salen sin el cero entero ("S/ .50", "S/ -.50").
+     */
+    public static String soles(BigDecimal monto) {
+        if (monto == null) {
+            return null;
+        }
+        BigDecimal redondeado = monto.setScale(2, RoundingMode.HALF_UP);
+        String texto = redondeado.abs().toPlainString();
+        int punto = texto.indexOf('.');
+
+        StringBuilder sb = new StringBuilder(texto.length() + 8);
+        sb.append("S/ ");
+        if (redondeado.signum() < 0) {
+            sb.append('-');
+        }
+        // El '9' del patrón no imprime un cero a la izquierda: "0.50" queda ".50"
+        int desde = texto.startsWith("0.") ? 1 : 0;
+        for (int i = desde; i < punto; i++) {
+            if (i > desde && (punto - i) % 3 == 0) {
+                sb.append(',');
+            }
+            sb.append(texto.charAt(i));
+        }
+        sb.append(texto, punto, texto.length());
+        return sb.toString();
+    }
+
+    /** Equivalente a 'S/. ' || monto: el valor tal cual lo imprime la base, sin separadores. */
+    public static String solesSimple(BigDecimal monto) {
+        return monto == null ? null : "S/. " + monto.toPlainString();
+    }
+
+    /** Equivalente a nro_cuota || ' de ' || nro_cuotas: "2 de 6". */
+    public static String cuota(Integer nroCuota, Integer nroCuotas) {
+        return nroCuota == null || nroCuotas == null ? null : nroCuota + " de " + nroCuotas;
+    }
+}
@@ -0,0 +1,279 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.support.KeyHolder;
+
+/**
+ * JdbcTemplate que mide cada sentencia: duración, filas devueltas (o afectadas) y si falló, y se lo
+ * pasa a un RegistroConsultas con el nombre estable de la consulta. Las filas de una consulta se
+ * cuentan solo donde salen gratis: el tamaño de la lista de un RowMapper y las filas recorridas por un
+ * RowCallbackHandler. Un ResultSetExtractor propio recibe el ResultSet del driver sin envolver y sus
+ * filas se informan como FILAS_DESCONOCIDAS.
+ *
+ * El nombre sale del comentario inicial del SQL ("/* ventas.listado *&#47;"), que PostgreSQL ignora
+ * y que además aparece en pg_stat_activity y en los logs del servidor. Si el SQL no lo tiene (o se
+ * arma en un PreparedStatementCreator propio), se usa "Clase.metodo" de quien llamó al JdbcTemplate.
+ *
+ * Todos los query/update/queryForObject/queryForList/queryForMap de JdbcTemplate pasan por los
+ * métodos sobrescritos aquí, así que los servicios no cambian.
+ */
+public class JdbcTemplateMedido extends JdbcTemplate {
+
+    /**
+     * Recibe una medición por sentencia ejecutada. sql es null si la sentencia se armó en un
+     * PreparedStatementCreator propio; parametros es null si no se pasaron como argumentos del
+     * JdbcTemplate (query(sql, mapper, args...), update(sql, args...)); filas es FILAS_DESCONOCIDAS si
+     * la consulta usó un ResultSetExtractor propio. Una excepción lanzada aquí tras una sentencia
+     * exitosa llega a quien llamó al JdbcTemplate (así falla una prueba que excede el presupuesto de SQL).
+     */
+    public interface RegistroConsultas {
+        void registrar(String nombre, String sql, Object[] parametros, long nanos, long filas, boolean error);
+    }
+
+    public static final long FILAS_DESCONOCIDAS = -1;
+
+    // Igual que el de JdbcTemplate, pero deja leer los argumentos para informarlos
+    private static final class ArgumentosSql extends ArgumentPreparedStatementSetter {
+        final Object[] parametros;
+
+        ArgumentosSql(Object[] parametros) {
+            super(parametros);
+            this.parametros = parametros;
+        }
+    }
+
+    // Igual que el RowCallbackHandlerResultSetExtractor de JdbcTemplate, pero devuelve las filas recorridas
+    private static final class FilasRecorridas implements ResultSetExtractor<Long> {
+        private final RowCallbackHandler rch;
+
+        FilasRecorridas(RowCallbackHandler rch) {
+            this.rch = rch;
+        }
+
+        @Override
+        public Long extractData(ResultSet rs) throws SQLException {
+            long filas = 0;
+            while (rs.next()) {
+                rch.processRow(rs);
+                filas++;
+            }
+            return filas;
+        }
+    }
+
+    private static final Pattern COMENTARIO_NOMBRE = Pattern.compile("^\\s*/\\*\\s*([\\w.\\-]+)\\s*\\*/");
+
+    // Los SQL son constantes de los servicios: el mapa no crece más allá de unos cientos de entradas.
+    // El tope es por si algún SQL se arma concatenando valores.
+    private static final int MAXIMO_NOMBRES_CACHEADOS = 2000;
+
+    private static final String PAQUETE_APLICACION = "pe.edu.uni.ProyectoFerreteria.";
+
+    private final List<RegistroConsultas> registros;
+
+    private final Map<String, Optional<String>> nombresPorSql = new ConcurrentHashMap<>();
+
+    private static final StackWalker PILA = StackWalker.getInstance();
+
+    public JdbcTemplateMedido(DataSource dataSource, List<RegistroConsultas> registros) {
+        super(dataSource);
+        this.registros = List.copyOf(registros);
+    }
+
+    // ==========================================
+    // CONSULTAS
+    // ==========================================
+
+    // Consultas con parámetros (y los PreparedStatementCreator propios)
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse)
+            throws DataAccessException {
+        return medirConsulta(psc instanceof SqlProvider p ? p.getSql() : null, parametros(pss), rse,
+                extractor -> super.query(psc, pss, extractor));
+    }
+
+    // Consultas sin parámetros (Statement simple)
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) throws DataAccessException {
+        return medirConsulta(sql, null, rse, extractor -> super.query(sql, extractor));
+    }
+
+    // Los RowCallbackHandler pasan por FilasRecorridas para saber cuántas filas recorrieron
+    @Override
+    public void query(String sql, RowCallbackHandler rch) throws DataAccessException {
+        query(sql, new FilasRecorridas(rch));
+    }
+
+    @Override
+    public void query(PreparedStatementCreator psc, RowCallbackHandler rch) throws DataAccessException {
+        query(psc, new FilasRecorridas(rch));
+    }
+
+    @Override
+    public void query(String sql, PreparedStatementSetter pss, RowCallbackHandler rch) throws DataAccessException {
+        query(sql, pss, new FilasRecorridas(rch));
+    }
+
+    @Override
+    public void query(String sql, Object[] args, int[] argTypes, RowCallbackHandler rch) throws DataAccessException {
+        query(sql, args, argTypes, new FilasRecorridas(rch));
+    }
+
+    @Override
+    public void query(String sql, RowCallbackHandler rch, Object... args) throws DataAccessException {
+        query(sql, new FilasRecorridas(rch), args);
+    }
+
+    private <T> T medirConsulta(String sql, Object[] parametros, ResultSetExtractor<T> rse,
+            Function<ResultSetExtractor<T>, T> ejecutar) {
+        String nombre = nombre(sql);
+        long inicio = System.nanoTime();
+        T resultado;
+        try {
+            resultado = ejecutar.apply(rse);
+        } catch (RuntimeException e) {
+            notificarError(nombre, sql, parametros, System.nanoTime() - inicio, 0, e);
+            throw e;
+        }
+        notificar(nombre, sql, parametros, System.nanoTime() - inicio, filas(rse, resultado));
+        return resultado;
+    }
+
+    private static long filas(ResultSetExtractor<?> rse, Object resultado) {
+        if (rse instanceof RowMapperResultSetExtractor<?> && resultado instanceof List<?> lista) {
+            return lista.size();
+        }
+        if (rse instanceof FilasRecorridas && resultado instanceof Long recorridas) {
+            return recorridas;
+        }
+        return FILAS_DESCONOCIDAS;
+    }
+
+    // ==========================================
+    // ACTUALIZACIONES (filas = filas afectadas)
+    // ==========================================
+
+    @Override
+    protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss) throws DataAccessException {
+        return medirActualizacion(psc instanceof SqlProvider p ? p.getSql() : null, parametros(pss),
+                () -> super.update(psc, pss));
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) throws DataAccessException {
+        return medirActualizacion(psc instanceof SqlProvider p ? p.getSql() : null, null,
+                () -> super.update(psc, generatedKeyHolder));
+    }
+
+    @Override
+    public int update(String sql) throws DataAccessException {
+        return medirActualizacion(sql, null, () -> super.update(sql));
+    }
+
+    private int medirActualizacion(String sql, Object[] parametros, IntSupplier ejecutar) {
+        String nombre = nombre(sql);
+        long inicio = System.nanoTime();
+        int filas;
+        try {
+            filas = ejecutar.getAsInt();
+        } catch (RuntimeException e) {
+            notificarError(nombre, sql, parametros, System.nanoTime() - inicio, 0, e);
+            throw e;
+        }
+        notificar(nombre, sql, parametros, System.nanoTime() - inicio, filas);
+        return filas;
+    }
+
+    @Override
+    protected PreparedStatementSetter newArgPreparedStatementSetter(Object[] args) {
+        return new ArgumentosSql(args);
+    }
+
+    private static Object[] parametros(PreparedStatementSetter pss) {
+        return pss instanceof ArgumentosSql a ? a.parametros : null;
+    }
+
+    private void notificar(String nombre, String sql, Object[] parametros, long nanos, long filas) {
+        for (RegistroConsultas r : registros) {
+            r.registrar(nombre, sql, parametros, nanos, filas, false);
+        }
+    }
+
+    // Si la sentencia falló, lo que lance un registro no debe tapar la excepción original
+    private void notificarError(String nombre, String sql, Object[] parametros, long nanos, long filas,
+            RuntimeException error) {
+        for (RegistroConsultas r : registros) {
+            try {
+                r.registrar(nombre, sql, parametros, nanos, filas, true);
+            } catch (RuntimeException e) {
+                error.addSuppressed(e);
+            }
+        }
+    }
+
+    // ==========================================
+    // NOMBRE DE LA CONSULTA
+    // ==========================================
+
+    private String nombre(String sql) {
+        if (sql != null) {
+            Optional<String> cacheado = nombresPorSql.get(sql);
+            if (cacheado == null) {
+                cacheado = Optional.ofNullable(nombreDeSql(sql));
+                if (nombresPorSql.size() < MAXIMO_NOMBRES_CACHEADOS) {
+                    nombresPorSql.put(sql, cacheado);
+                }
+            }
+            if (cacheado.isPresent()) {
+                return cacheado.get();
+            }
+        }
+        return llamador();
+    }
+
+    /** Nombre del comentario inicial "/* nombre *&#47;" del SQL, o null si no lo tiene. */
+    public static String nombreDeSql(String sql) {
+        Matcher m = COMENTARIO_NOMBRE.matcher(sql);
+        return m.find() ? m.group(1) : null;
+    }
+
+    // Primer marco de la aplicación fuera de esta clase: "ResumenVentaService.actualizar"
+    private static String llamador() {
+        return PILA.walk(marcos -> marcos
+                .filter(f -> f.getClassName().startsWith(PAQUETE_APLICACION) && !esPropio(f.getClassName()))
+                .findFirst()
+                .map(f -> {
+                    String clase = f.getClassName();
+                    clase = clase.substring(clase.lastIndexOf('.') + 1);
+                    int lambda = clase.indexOf('$');
+                    return (lambda > 0 ? clase.substring(0, lambda) : clase) + "." + f.getMethodName();
+                })
+                .orElse("(sin nombre)"));
+    }
+
+    private static boolean esPropio(String clase) {
+        String propia = JdbcTemplateMedido.class.getName();
+        return clase.equals(propia) || clase.startsWith(propia + "$");
+    }
+}
@@ -0,0 +1,215 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Reemplazo directo de BeanPropertyRowMapper para los DTO.
+ *
+ * La introspección (setters, tipos, nombres de columna equivalentes) se hace una sola vez por clase y
+ * se guarda; los setters se invocan mediante lambdas generadas con LambdaMetafactory, sin reflexión.
+ * El orden de columnas se resuelve en la primera fila de cada consulta y luego se lee por índice.
+ *
+ * Igual que BeanPropertyRowMapper, una columna "cod_venta" o "codventa" se asigna a la propiedad
+ * cod_venta / codVenta, y las columnas sin propiedad se ignoran.
+ * Se usa una instancia por consulta: MapeadorFilas.de(Dto.class).
+ */
+public final class MapeadorFilas<T> implements RowMapper<T> {
+
+    private static final Map<Class<?>, Metadatos<?>> METADATOS = new ConcurrentHashMap<>();
+
+    private final Metadatos<T> meta;
+    private Columna[] plan;
+
+    private MapeadorFilas(Metadatos<T> meta) {
+        this.meta = meta;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> MapeadorFilas<T> de(Class<T> tipo) {
+        return new MapeadorFilas<>((Metadatos<T>) METADATOS.computeIfAbsent(tipo, Metadatos::new));
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rowNum == 0 || plan == null) {
+            plan = meta.planPara(rs.getMetaData());
+        }
+        T dto = meta.constructor.get();
+        for (Columna c : plan) {
+            c.setter.accept(dto, c.lector.leer(rs, c.indice));
+        }
+        return dto;
+    }
+
+    @FunctionalInterface
+    private interface Lector {
+        Object leer(ResultSet rs, int indice) throws SQLException;
+    }
+
+    private record Propiedad(BiConsumer<Object, Object> setter, Lector lector) {
+    }
+
+    private record Columna(int indice, BiConsumer<Object, Object> setter, Lector lector) {
+    }
+
+    private static final class Metadatos<T> {
+
+        private final Supplier<T> constructor;
+        private final Map<String, Propiedad> propiedades = new HashMap<>();
+        private final Map<String, Columna[]> planes = new ConcurrentHashMap<>();
+
+        Metadatos(Class<T> tipo) {
+            this.constructor = crearConstructor(tipo);
+            for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(tipo)) {
+                Method set = pd.getWriteMethod();
+                if (set == null) {
+                    continue;
+                }
+                Propiedad p = new Propiedad(crearSetter(tipo, set), lectorPara(pd.getPropertyType()));
+                propiedades.put(pd.getName().toLowerCase(Locale.ROOT), p);
+                propiedades.put(guionBajo(pd.getName()), p);
+            }
+        }
+
+        // El plan se guarda por la lista de etiquetas: la misma consulta no vuelve a resolverlo
+        Columna[] planPara(ResultSetMetaData rsmd) throws SQLException {
+            int n = rsmd.getColumnCount();
+            StringBuilder firma = new StringBuilder();
+            for (int i = 1; i <= n; i++) {
+                firma.append(JdbcUtils.lookupColumnName(rsmd, i)).append(',');
+            }
+            return planes.computeIfAbsent(firma.toString(), k -> {
+                try {
+                    return resolver(rsmd, n);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        private Columna[] resolver(ResultSetMetaData rsmd, int n) throws SQLException {
+            List<Columna> columnas = new ArrayList<>(n);
+            for (int i = 1; i <= n; i++) {
+                String nombre = JdbcUtils.lookupColumnName(rsmd, i).replace(" ", "").toLowerCase(Locale.ROOT);
+                Propiedad p = propiedades.get(nombre);
+                if (p != null) {
+                    columnas.add(new Columna(i, p.setter(), p.lector()));
+                }
+            }
+            return columnas.toArray(new Columna[0]);
+        }
+    }
+
+    private static Lector lectorPara(Class<?> tipo) {
+        if (tipo == String.class) {
+            return ResultSet::getString;
+        }
+        if (tipo == Integer.class || tipo == int.class) {
+            return (rs, i) -> { int v = rs.getInt(i); return rs.wasNull() ? null : v; };
+        }
+        if (tipo == Long.class || tipo == long.class) {
+            return (rs, i) -> { long v = rs.getLong(i); return rs.wasNull() ? null : v; };
+        }
+        if (tipo == Float.class || tipo == float.class) {
+            return (rs, i) -> { float v = rs.getFloat(i); return rs.wasNull() ? null : v; };
+        }
+        if (tipo == Double.class || tipo == double.class) {
+            return (rs, i) -> { double v = rs.getDouble(i); return rs.wasNull() ? null : v; };
+        }
+        if (tipo == Boolean.class || tipo == boolean.class) {
+            return (rs, i) -> { boolean v = rs.getBoolean(i); return rs.wasNull() ? null : v; };
+        }
+        if (tipo == BigDecimal.class) {
+            return ResultSet::getBigDecimal;
+        }
+        if (tipo == LocalDate.class) {
+            return (rs, i) -> rs.getObject(i, LocalDate.class);
+        }
+        if (tipo == LocalDateTime.class) {
+            return (rs, i) -> rs.getObject(i, LocalDateTime.class);
+        }
+        return (rs, i) -> JdbcUtils.getResultSetValue(rs, i, tipo);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> crearConstructor(Class<T> tipo) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle ctor = lookup.findConstructor(tipo, MethodType.methodType(void.class));
+            CallSite sitio = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), ctor, MethodType.methodType(tipo));
+            return (Supplier<T>) sitio.getTarget().invoke();
+        } catch (Throwable e) {
+            // Clases no públicas: se recurre al constructor por reflexión
+            return () -> BeanUtils.instantiateClass(tipo);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> crearSetter(Class<?> tipo, Method set) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(set);
+            Class<?> parametro = MethodType.methodType(set.getParameterTypes()[0]).wrap().returnType();
+            CallSite sitio = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, tipo, parametro));
+            BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) sitio.getTarget().invoke();
+            if (!set.getParameterTypes()[0].isPrimitive()) {
+                return setter;
+            }
+            // Un NULL de la base no puede asignarse a un primitivo: se deja el valor por defecto
+            return (dto, valor) -> {
+                if (valor != null) {
+                    setter.accept(dto, valor);
+                }
+            };
+        } catch (Throwable e) {
+            return (dto, valor) -> {
+                try {
+                    set.invoke(dto, valor);
+                } catch (ReflectiveOperationException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+    }
+
+    private static String guionBajo(String nombre) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : nombre.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                sb.append('_').append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
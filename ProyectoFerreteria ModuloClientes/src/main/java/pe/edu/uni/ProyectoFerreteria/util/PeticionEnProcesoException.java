@@ -0,0 +1,12 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+/**
+ * Llegó un reintento con un Idempotency-Key cuya petición original todavía no tiene respuesta
+ * guardada. La caja debe reintentar más tarde (se responde 409).
+ */
+public class PeticionEnProcesoException extends RuntimeException {
+
+    public PeticionEnProcesoException(String mensaje) {
+        super(mensaje);
+    }
+}
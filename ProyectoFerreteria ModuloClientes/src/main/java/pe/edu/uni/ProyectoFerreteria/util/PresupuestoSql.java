@@ -0,0 +1,24 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Presupuesto de sentencias SQL de un endpoint, cuando difiere del general (sql.presupuesto.*).
+ * sentencias: máximo de idas y vueltas a la base por petición.
+ * repeticiones: veces que puede ejecutarse el mismo SQL en una petición antes de considerarse N+1.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PresupuestoSql {
+
+    int POR_DEFECTO = -1;
+
+    int SIN_LIMITE = Integer.MAX_VALUE;
+
+    int sentencias() default POR_DEFECTO;
+
+    int repeticiones() default POR_DEFECTO;
+}
@@ -0,0 +1,12 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+/**
+ * Una petición excedió su presupuesto de sentencias SQL o repitió la misma sentencia más de lo
+ * permitido. Solo se lanza con sql.presupuesto.accion=fallar (pruebas e integración continua).
+ */
+public class PresupuestoSqlExcedidoException extends RuntimeException {
+
+    public PresupuestoSqlExcedidoException(String mensaje) {
+        super(mensaje);
+    }
+}
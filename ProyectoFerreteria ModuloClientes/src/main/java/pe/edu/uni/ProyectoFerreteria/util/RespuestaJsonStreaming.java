@@ -0,0 +1,150 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Respuesta JSON (un arreglo de objetos) que se escribe fila por fila desde el ResultSet con un
+ * JsonGenerator, en lugar de armar la lista completa y serializarla al final. La memoria por petición
+ * no crece con la cantidad de filas y el cliente recibe la primera fila apenas sale de la base.
+ * El JSON es el mismo que el de la lista: cada fila pasa por el RowMapper y el ObjectMapper de Spring.
+ *
+ * El estado y los headers se fijan con la primera fila, así una consulta vacía sigue respondiendo 204.
+ * Si el cliente acepta gzip, el cuerpo va comprimido con flush sincronizado (cada envío se puede
+ * descomprimir al llegar). Un error a mitad de la respuesta ya no puede cambiar el estado: el JSON
+ * queda incompleto, igual que en las exportaciones.
+ */
+public class RespuestaJsonStreaming {
+
+    // Filas que el driver trae por viaje al recorrer el cursor
+    private static final int FETCH_SIZE = 1000;
+
+    // Cada cuántas filas se fuerza el envío al cliente (además de la primera)
+    private static final int FILAS_POR_FLUSH = 1000;
+
+    private static final int BUFFER_GZIP = 8 * 1024;
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final String contentType;
+
+    // El flush lo decide esta clase: con FLUSH_AFTER_WRITE_VALUE habría un envío (y un bloque gzip) por fila
+    private final ObjectWriter escritor;
+
+    private JsonGenerator generador;
+    private long filas;
+
+    public RespuestaJsonStreaming(HttpServletRequest request, HttpServletResponse response, ObjectMapper mapper,
+            String contentType) {
+        this.request = request;
+        this.response = response;
+        this.contentType = contentType;
+        this.escritor = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Recorre la consulta con un cursor del servidor y escribe cada fila mapeada. Debe llamarse dentro
+     * de una transacción (sin ella PostgreSQL ignora el fetch size y trae todo el resultado).
+     */
+    public <T> long escribir(JdbcTemplate jdbcTemplate, String sql, RowMapper<T> mapeador) {
+        Long n = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, filas(mapeador));
+        return n != null ? n : 0;
+    }
+
+    /** Extractor que escribe cada fila del ResultSet en la respuesta; devuelve las filas escritas. */
+    public <T> ResultSetExtractor<Long> filas(RowMapper<T> mapeador) {
+        return rs -> {
+            try {
+                int fila = 0;
+                while (rs.next()) {
+                    T dto = mapeador.mapRow(rs, fila++);
+                    if (generador == null) {
+                        abrir();
+                    }
+                    escritor.writeValue(generador, dto);
+                    filas++;
+                    if (filas == 1 || filas % FILAS_POR_FLUSH == 0) {
+                        generador.flush();
+                    }
+                }
+                return (long) fila;
+            } catch (IOException e) {
+                // Normalmente el cliente cerró la conexión a mitad de la respuesta
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private void abrir() throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(contentType);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream salida = response.getOutputStream();
+        if (aceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            salida = new GZIPOutputStream(salida, BUFFER_GZIP, true);
+        }
+        generador = escritor.getFactory().createGenerator(salida, JsonEncoding.UTF8);
+        generador.writeStartArray();
+    }
+
+    /** Cierra el arreglo (y el gzip); si no se escribió ninguna fila, la respuesta queda en 204. */
+    public void terminar() throws IOException {
+        if (generador == null) {
+            response.setStatus(HttpStatus.NO_CONTENT.value());
+            return;
+        }
+        generador.writeEndArray();
+        generador.close();
+    }
+
+    /** Tras un error: 500 si todavía no se envió nada; si ya se envió, la respuesta queda cortada. */
+    public void abortar() {
+        if (!response.isCommitted()) {
+            response.reset();
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    // "gzip" en Accept-Encoding, salvo que venga con q=0
+    static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String parte : acceptEncoding.split(",")) {
+            String[] valores = parte.split(";");
+            if (valores[0].trim().equalsIgnoreCase("gzip")) {
+                return valores.length < 2 || !valores[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Números de comprobante en memoria de una serie (tipo de comprobante + caja). Guarda los bloques
+ * ya reservados en la base, en orden, y los números devueltos por ventas revertidas, que se vuelven
+ * a emitir antes que los nuevos. Todas las operaciones son en memoria y cortas.
+ */
+public class SerieComprobante {
+
+    private record Bloque(long codBloque, long desde, long hasta) {
+    }
+
+    private final Deque<Bloque> bloques = new ArrayDeque<>();
+    private final PriorityQueue<Long> devueltos = new PriorityQueue<>();
+
+    // Próximo número del primer bloque de la cola
+    private long siguiente;
+
+    private boolean recargaEnCurso;
+
+    // Reserva síncrona de la serie vacía. ReentrantLock y no synchronized: quien espera no fija su
+    // hilo virtual al hilo portador mientras otro consulta la base
+    private final ReentrantLock reserva = new ReentrantLock();
+
+    /** Agrega un bloque reservado [desde, hasta] al final de la cola. */
+    public synchronized void agregarBloque(long codBloque, long desde, long hasta) {
+        if (hasta < desde) {
+            throw new IllegalArgumentException("Bloque vacío: " + desde + "-" + hasta);
+        }
+        if (bloques.isEmpty()) {
+            siguiente = desde;
+        }
+        bloques.addLast(new Bloque(codBloque, desde, hasta));
+    }
+
+    /** Toma el próximo número, o null si no queda ninguno en memoria. */
+    public synchronized Long tomar() {
+        Long devuelto = devueltos.poll();
+        if (devuelto != null) {
+            return devuelto;
+        }
+        Bloque actual = bloques.peekFirst();
+        if (actual == null) {
+            return null;
+        }
+        long numero = siguiente;
+        if (numero == actual.hasta()) {
+            bloques.pollFirst();
+            Bloque proximo = bloques.peekFirst();
+            if (proximo != null) {
+                siguiente = proximo.desde();
+            }
+        } else {
+            siguiente++;
+        }
+        return numero;
+    }
+
+    /** Devuelve un número tomado cuya venta no llegó a confirmarse. */
+    public synchronized void devolver(long numero) {
+        devueltos.add(numero);
+    }
+
+    public synchronized long disponibles() {
+        long total = devueltos.size();
+        boolean primero = true;
+        for (Bloque b : bloques) {
+            total += b.hasta() - (primero ? siguiente : b.desde()) + 1;
+            primero = false;
+        }
+        return total;
+    }
+
+    /** Marca que hay una recarga en curso; devuelve false si ya había una. */
+    public synchronized boolean iniciarRecarga() {
+        if (recargaEnCurso) {
+            return false;
+        }
+        recargaEnCurso = true;
+        return true;
+    }
+
+    public synchronized void terminarRecarga() {
+        recargaEnCurso = false;
+    }
+
+    public ReentrantLock getReserva() {
+        return reserva;
+    }
+
+    /**
+     * Vacía la serie y devuelve, por bloque, el primer número que no se llegó a emitir
+     * (pares {cod_bloque, liberado_desde}). Los números devueltos pendientes quedan como huecos.
+     */
+    public synchronized List<long[]> liberar() {
+        List<long[]> liberados = new ArrayList<>();
+        boolean primero = true;
+        for (Bloque b : bloques) {
+            liberados.add(new long[] { b.codBloque(), primero ? siguiente : b.desde() });
+            primero = false;
+        }
+        bloques.clear();
+        devueltos.clear();
+        return liberados;
+    }
+}
@@ -0,0 +1,68 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tabla de códigos pequeña e inmutable (estado, motivo, método...): descripción por código con acceso
+ * directo a un arreglo indexado por el código, y búsqueda inversa por nombre.
+ */
+public final class TablaReferencia {
+
+    private final String[] descripciones;
+    private final Map<String, Integer> codigosPorNombre;
+
+    private TablaReferencia(String[] descripciones, Map<String, Integer> codigosPorNombre) {
+        this.descripciones = descripciones;
+        this.codigosPorNombre = codigosPorNombre;
+    }
+
+    /** Descripción del código, o null si no existe (mismo resultado que un LEFT JOIN sin coincidencia). */
+    public String descripcion(int codigo) {
+        return codigo >= 0 && codigo < descripciones.length ? descripciones[codigo] : null;
+    }
+
+    /** Código cuya descripción coincide sin importar mayúsculas, o -1 si no existe. */
+    public int codigo(String nombre) {
+        Integer cod = codigosPorNombre.get(nombre.toLowerCase(Locale.ROOT));
+        return cod != null ? cod : -1;
+    }
+
+    public Map<Integer, String> comoMapa() {
+        Map<Integer, String> mapa = new HashMap<>();
+        for (int i = 0; i < descripciones.length; i++) {
+            if (descripciones[i] != null) {
+                mapa.put(i, descripciones[i]);
+            }
+        }
+        return mapa;
+    }
+
+    public static class Constructor {
+
+        private final Map<Integer, String> filas = new HashMap<>();
+        private int maximo = -1;
+
+        public Constructor agregar(int codigo, String descripcion) {
+            if (codigo < 0) {
+                throw new IllegalArgumentException("Código de referencia negativo: " + codigo);
+            }
+            filas.put(codigo, descripcion);
+            maximo = Math.max(maximo, codigo);
+            return this;
+        }
+
+        public TablaReferencia construir() {
+            String[] descripciones = new String[maximo + 1];
+            Map<String, Integer> porNombre = new HashMap<>();
+            filas.forEach((cod, desc) -> {
+                descripciones[cod] = desc;
+                if (desc != null) {
+                    porNombre.putIfAbsent(desc.toLowerCase(Locale.ROOT), cod);
+                }
+            });
+            return new TablaReferencia(descripciones, porNombre);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- ==============================================================
+-- Contadores de ventas por vendedor (ContadorVentasVendedorService)
+-- Ejecutar una vez sobre el esquema FERRETERIA.
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+-- Registro de solo inserción: cada venta agrega una fila en su propia transacción (sin bloquear
+-- la fila del vendedor) y el volcado periódico suma las filas a vendedor.total_ventas_vendedor
+-- y las elimina en la misma sentencia.
+CREATE TABLE IF NOT EXISTS venta_vendedor_pendiente (
+    cod_pendiente  BIGSERIAL  PRIMARY KEY,
+    cod_vendedor   INT        NOT NULL,
+    cantidad       INT        NOT NULL,
+    fecha_registro TIMESTAMP  NOT NULL DEFAULT now()
+);
+
+-- Lectura del total vigente de un vendedor (volcado + pendiente)
+CREATE INDEX IF NOT EXISTS idx_venta_vendedor_pendiente_vendedor
+    ON venta_vendedor_pendiente (cod_vendedor) INCLUDE (cantidad);
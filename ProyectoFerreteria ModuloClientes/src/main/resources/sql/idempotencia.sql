@@ -0,0 +1,17 @@
+-- ==============================================================
+-- Respuestas guardadas por Idempotency-Key (/api/ventas/registrar, /api/ventas/pagos/registrar)
+-- Ejecutar una vez sobre el esquema FERRETERIA.
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+CREATE TABLE IF NOT EXISTS idempotencia (
+    operacion       VARCHAR(30)  NOT NULL,           -- 'venta', 'pago'
+    clave           VARCHAR(100) NOT NULL,           -- valor del header Idempotency-Key
+    huella          CHAR(64)     NOT NULL,           -- SHA-256 del cuerpo de la petición
+    respuesta       JSONB,                           -- null mientras la petición original está en curso
+    fecha_creacion  TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (operacion, clave)
+);
+
+-- Para la purga periódica de claves vencidas
+CREATE INDEX IF NOT EXISTS idx_idempotencia_fecha ON idempotencia (fecha_creacion);
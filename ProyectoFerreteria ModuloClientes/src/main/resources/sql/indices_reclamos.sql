@@ -0,0 +1,22 @@
+-- ==============================================================
+-- Índices para la línea de tiempo de reclamos (/api/ventas/reclamos)
+-- Ejecutar una vez sobre el esquema FERRETERIA.
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+-- Recorrido por keyset (fecha, cod_reclamo) descendente en cada tipo de reclamo
+CREATE INDEX IF NOT EXISTS idx_devolucion_fecha_reclamo
+    ON devolucion (fecha_hora_devolucion DESC, cod_reclamo DESC);
+
+CREATE INDEX IF NOT EXISTS idx_cambio_producto_fecha_reclamo
+    ON cambio_producto (fecha_hora_cp DESC, cod_reclamo DESC);
+
+CREATE INDEX IF NOT EXISTS idx_anulacion_fecha_reclamo
+    ON anulacion (fecha_hora_anulacion DESC, cod_reclamo DESC);
+
+-- Filtros por cliente y por venta: se ubican los reclamos y se entra a cada tabla por cod_reclamo
+CREATE INDEX IF NOT EXISTS idx_reclamo_cliente ON reclamo (cod_cliente);
+CREATE INDEX IF NOT EXISTS idx_reclamo_venta ON reclamo (cod_venta);
+CREATE INDEX IF NOT EXISTS idx_devolucion_reclamo ON devolucion (cod_reclamo);
+CREATE INDEX IF NOT EXISTS idx_cambio_producto_reclamo ON cambio_producto (cod_reclamo);
+CREATE INDEX IF NOT EXISTS idx_anulacion_reclamo ON anulacion (cod_reclamo);
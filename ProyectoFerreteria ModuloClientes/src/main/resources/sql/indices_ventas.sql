@@ -0,0 +1,16 @@
+-- ==============================================================
+-- Índices para el listado paginado de ventas (/api/ventas/principal/pagina)
+-- Ejecutar una vez sobre el esquema FERRETERIA.
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+-- Recorrido por keyset (fecha_hora_venta, cod_venta) en orden descendente
+CREATE INDEX IF NOT EXISTS idx_venta_fecha_cod
+    ON venta (fecha_hora_venta DESC, cod_venta DESC);
+
+-- Filtros más usados combinados con el mismo orden de recorrido
+CREATE INDEX IF NOT EXISTS idx_venta_vendedor_fecha_cod
+    ON venta (cod_vendedor, fecha_hora_venta DESC, cod_venta DESC);
+
+CREATE INDEX IF NOT EXISTS idx_venta_estado_fecha_cod
+    ON venta (cod_estado_venta, fecha_hora_venta DESC, cod_venta DESC);
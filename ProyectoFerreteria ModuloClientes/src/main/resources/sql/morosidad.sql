@@ -0,0 +1,34 @@
+-- ==============================================================
+-- Motor de morosidad (MorosidadService, /api/ventas/morosidad)
+-- Ejecutar una vez sobre el esquema FERRETERIA.
+-- Los predicados de los índices parciales usan los códigos por defecto de
+-- morosidad.estado-pendiente (1) y morosidad.estado-vencido (3).
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+-- Totales de deuda vencida por cliente, recalculados en cada pasada del motor
+CREATE TABLE IF NOT EXISTS morosidad_cliente (
+    cod_cliente              INT            PRIMARY KEY,
+    cuotas_vencidas          INT            NOT NULL,
+    monto_vencido            NUMERIC(12,2)  NOT NULL,
+    monto_0_30               NUMERIC(12,2)  NOT NULL,   -- 1 a 30 días de atraso
+    monto_31_60              NUMERIC(12,2)  NOT NULL,
+    monto_61_90              NUMERIC(12,2)  NOT NULL,
+    monto_mas_90             NUMERIC(12,2)  NOT NULL,
+    vencimiento_mas_antiguo  DATE           NOT NULL,
+    fecha_actualizacion      TIMESTAMP      NOT NULL DEFAULT now()
+);
+
+-- Cuotas pendientes por fecha de vencimiento: cada lote del motor es un recorrido corto de este índice
+CREATE INDEX IF NOT EXISTS idx_pago_pendiente_vencimiento
+    ON pago (fecha_vencimiento_pago)
+    WHERE cod_estado_pago = 1;
+
+-- Cuotas vencidas: el recálculo de totales solo lee estas filas
+CREATE INDEX IF NOT EXISTS idx_pago_vencido_venta
+    ON pago (cod_venta) INCLUDE (fecha_vencimiento_pago, monto_pago)
+    WHERE cod_estado_pago = 3;
+
+-- Listado de clientes morosos ordenado por deuda
+CREATE INDEX IF NOT EXISTS idx_morosidad_cliente_monto
+    ON morosidad_cliente (monto_vencido DESC);
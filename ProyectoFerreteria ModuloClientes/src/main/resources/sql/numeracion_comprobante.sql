@@ -0,0 +1,31 @@
+-- ==============================================================
+-- Numeración de comprobantes por bloques (NumeracionComprobanteService)
+-- Ejecutar una vez sobre el esquema FERRETERIA.
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+-- Contador durable por serie (tipo de comprobante + caja): último número ya reservado
+CREATE TABLE IF NOT EXISTS serie_comprobante (
+    cod_tipo_comprobante  INT     NOT NULL,
+    cod_caja              INT     NOT NULL,
+    ultimo_asignado       BIGINT  NOT NULL,
+    PRIMARY KEY (cod_tipo_comprobante, cod_caja)
+);
+
+-- Cada bloque reservado por una instancia; base de la auditoría de huecos
+CREATE TABLE IF NOT EXISTS bloque_comprobante (
+    cod_bloque            BIGSERIAL  PRIMARY KEY,
+    cod_tipo_comprobante  INT        NOT NULL,
+    cod_caja              INT        NOT NULL,
+    desde                 BIGINT     NOT NULL,
+    hasta                 BIGINT     NOT NULL,
+    liberado_desde        BIGINT,                 -- primer número sin usar al apagar la instancia
+    fecha_asignacion      TIMESTAMP  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_bloque_comprobante_serie
+    ON bloque_comprobante (cod_tipo_comprobante, cod_caja, desde);
+
+-- La auditoría recorre por rango los números "CCC-NNNNNNNN" de cada bloque
+CREATE INDEX IF NOT EXISTS idx_comprobante_tipo_nro
+    ON comprobante (cod_tipo_comprobante, nro_comprobante);
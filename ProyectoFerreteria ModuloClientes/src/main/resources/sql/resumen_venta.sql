@@ -0,0 +1,45 @@
+-- ==============================================================
+-- Modelo de lectura de ventas (ResumenVentaService)
+-- Ejecutar una vez sobre el esquema FERRETERIA y luego poblarlo con
+-- POST /api/ventas/resumen/reconstruir.
+-- ==============================================================
+SET search_path TO "FERRETERIA";
+
+-- Una fila por venta, lista para mostrar: se actualiza en la misma transacción que registra la
+-- venta, sus pagos y sus reclamos, así los listados no repiten los JOIN a vendedor/usuario/persona
+-- y cliente/persona en cada petición.
+CREATE TABLE IF NOT EXISTS resumen_venta (
+    cod_venta            INT            PRIMARY KEY,
+    cod_venta_fmt        TEXT,
+    fecha_hora_venta     TIMESTAMP      NOT NULL,
+    cod_vendedor         INT,
+    vendedor             TEXT,
+    cod_cliente          INT,
+    cliente              TEXT,
+    monto_venta          NUMERIC(12,2)  NOT NULL,
+    igv                  NUMERIC(12,2)  NOT NULL,
+    descuento            NUMERIC(12,2)  NOT NULL,
+    puntos_venta         NUMERIC(12,2)  NOT NULL,
+    cod_estado_venta     INT,
+    cod_cond_pago        INT,
+    nro_cuotas           INT,
+    cuotas_pagadas       INT            NOT NULL,
+    cuotas_pendientes    INT            NOT NULL,   -- pendientes y vencidas
+    monto_pagado         NUMERIC(12,2)  NOT NULL,
+    monto_pendiente      NUMERIC(12,2)  NOT NULL,
+    reclamos             INT            NOT NULL,
+    fecha_actualizacion  TIMESTAMP      NOT NULL DEFAULT now()
+);
+
+-- Recorrido por keyset (fecha_hora_venta, cod_venta) y filtros del listado paginado
+CREATE INDEX IF NOT EXISTS idx_resumen_venta_fecha_cod
+    ON resumen_venta (fecha_hora_venta DESC, cod_venta DESC);
+
+CREATE INDEX IF NOT EXISTS idx_resumen_venta_vendedor_fecha_cod
+    ON resumen_venta (cod_vendedor, fecha_hora_venta DESC, cod_venta DESC);
+
+CREATE INDEX IF NOT EXISTS idx_resumen_venta_estado_fecha_cod
+    ON resumen_venta (cod_estado_venta, fecha_hora_venta DESC, cod_venta DESC);
+
+-- Cuotas por venta: el recálculo de una fila cuenta solo las cuotas de esa venta
+CREATE INDEX IF NOT EXISTS idx_pago_venta ON pago (cod_venta);
@@ -0,0 +1,657 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Prueba de carga con recorridos de usuario completos contra la aplicación levantada en local, para
+ * dimensionar el servidor para temporada alta. Los tres escenarios corren a la vez, cada uno con su
+ * número de usuarios virtuales (bench.escenarios):
+ * - cajero:        registra ventas (contado o crédito), ve el detalle y el cronograma y paga una cuota
+ * - comprador:     revisa un pedido, genera la solicitud, registra cotizaciones, genera la orden de
+ *                  compra y programa la recepción
+ * - fidelizacion:  abre el perfil de un maestro, el catálogo de premios y la pantalla de canje, y
+ *                  registra un canje
+ *
+ * Cada usuario repite su recorrido en bucle cerrado con una pausa entre pasos (bench.pausa-ms, al
+ * azar entre 0 y el doble). Si un paso falla, el resto del recorrido se abandona y empieza otro.
+ * Se informa por escenario y endpoint (el patrón de la ruta, no la URL con valores): peticiones,
+ * peticiones/segundo, latencias p50 / p90 / p99 / máxima, respuestas 4xx y errores (5xx o sin
+ * respuesta), en consola y en JSON (bench.salida) para comparar corridas.
+ *
+ * Requiere datos maestros y volumen (ver GeneradorDatos). Los clientes de las ventas salen de
+ * bench.clientes ("desde-hasta"; vacío = ventas sin cliente); el resto se lee de la propia API.
+ *
+ *   mvn spring-boot:run
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=pe.edu.uni.ProyectoFerreteria.benchmark.EscenariosCargaBenchmark \
+ *       -Dbench.escenarios=cajero=40,comprador=5,fidelizacion=10 -Dbench.segundos=120 -Dbench.clientes=1-300000
+ */
+public class EscenariosCargaBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String[] LETRAS = {"a", "e", "o", "ma", "co", "fe"};
+
+    // Un paso falló: se abandona el recorrido
+    private static final class RecorridoInterrumpido extends RuntimeException {
+        RecorridoInterrumpido(String mensaje) {
+            super(mensaje, null, false, false);
+        }
+    }
+
+    private static final class Medicion {
+        final Histogram latenciasUs = new ConcurrentHistogram(3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder cliente = new LongAdder();
+        final LongAdder errores = new LongAdder();
+    }
+
+    private record Clave(String escenario, String endpoint) {
+    }
+
+    private record Maestro(int codMaestro, int codPersona) {
+    }
+
+    private record Premio(int codPremio, double costo) {
+    }
+
+    // Códigos que usan los recorridos, leídos de la API al empezar
+    private record Datos(List<Integer> productos, List<Integer> vendedores, List<Integer> condicionesPago,
+            List<Integer> metodosPago, List<Integer> tiposComprobante, List<Maestro> maestros, List<Premio> premios) {
+    }
+
+    private final HttpClient http;
+    private final String base;
+    private final Datos datos;
+    private final long pausaMs = Long.getLong("bench.pausa-ms", 200);
+    private final int[] cajas = enteros(System.getProperty("bench.cajas", "1"));
+    private final int usuarioSistema = Integer.getInteger("bench.usuario", 1);
+    private final String instalacion = System.getProperty("bench.instalacion", "ALM-MAIN");
+    private final int[] rangoClientes = rango(System.getProperty("bench.clientes", ""));
+
+    private final Map<Clave, Medicion> mediciones = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder[]> recorridos = new ConcurrentHashMap<>();
+    private volatile boolean midiendo;
+
+    EscenariosCargaBenchmark(HttpClient http, String base) {
+        this.http = http;
+        this.base = base;
+        this.datos = cargarDatos();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String base = System.getProperty("bench.base", "http://localhost:8080");
+        int segundos = Integer.getInteger("bench.segundos", 60);
+        int calentamiento = Integer.getInteger("bench.calentamiento", 15);
+        String salida = System.getProperty("bench.salida", "target/carga-escenarios.json");
+        Map<String, Integer> escenarios = new LinkedHashMap<>();
+        for (String par : System.getProperty("bench.escenarios", "cajero=20,comprador=3,fidelizacion=5").split(",")) {
+            String[] kv = par.split("=");
+            escenarios.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        EscenariosCargaBenchmark carga = new EscenariosCargaBenchmark(http, base);
+
+        // Calentamiento: JIT del servidor, cachés y pool de conexiones; no se mide
+        carga.correr(escenarios, calentamiento, false);
+        double duracion = carga.correr(escenarios, segundos, true);
+
+        carga.imprimir(duracion);
+        carga.guardar(new File(salida), escenarios, duracion);
+        System.out.println("Resultados en " + salida);
+    }
+
+    // ==========================================
+    // EJECUCIÓN
+    // ==========================================
+
+    private double correr(Map<String, Integer> escenarios, int segundos, boolean medir) {
+        mediciones.clear();
+        recorridos.clear();
+        midiendo = medir;
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        long inicio = System.nanoTime();
+
+        try (ExecutorService usuarios = Executors.newVirtualThreadPerTaskExecutor()) {
+            escenarios.forEach((escenario, cantidad) -> {
+                Runnable recorrido = switch (escenario) {
+                    case "cajero" -> this::cajero;
+                    case "comprador" -> this::comprador;
+                    case "fidelizacion" -> this::fidelizacion;
+                    default -> throw new IllegalArgumentException("Escenario no válido: " + escenario);
+                };
+                LongAdder[] contadores = recorridos.computeIfAbsent(escenario,
+                        k -> new LongAdder[] {new LongAdder(), new LongAdder()});
+                for (int u = 0; u < cantidad; u++) {
+                    usuarios.execute(() -> {
+                        while (System.nanoTime() < fin) {
+                            try {
+                                recorrido.run();
+                                contadores[0].increment();
+                            } catch (RuntimeException e) {
+                                // RecorridoInterrumpido, o una respuesta con otra forma de la esperada
+                                contadores[1].increment();
+                            }
+                        }
+                    });
+                }
+            });
+        }
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+
+    // ==========================================
+    // RECORRIDOS
+    // ==========================================
+
+    // Cajero: venta con 1 a 5 líneas; si es a crédito, revisa el cronograma y paga la primera cuota pendiente
+    private void cajero() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        boolean credito = datos.condicionesPago().size() > 1 && r.nextDouble() < 0.3;
+        int caja = cajas[r.nextInt(cajas.length)];
+        int metodo = elegir(datos.metodosPago());
+
+        ObjectNode venta = JSON.createObjectNode();
+        venta.put("cod_cond_pago", datos.condicionesPago().get(credito ? 1 : 0));
+        venta.put("nro_cuotas", credito ? 3 : 1);
+        if (rangoClientes != null) {
+            venta.put("cod_cliente", r.nextInt(rangoClientes[0], rangoClientes[1] + 1));
+        }
+        venta.put("cod_vendedor", elegir(datos.vendedores()));
+        venta.put("cod_tipo_comprobante", elegir(datos.tiposComprobante()));
+        venta.put("cod_metodo_pago", metodo);
+        venta.put("cod_caja", caja);
+        venta.put("nombre_pagador", "Cliente prueba de carga");
+        venta.put("nro_telf_pagador", "999000111");
+        ArrayNode items = venta.putArray("items");
+        int lineas = 1 + r.nextInt(5);
+        List<Integer> usados = new ArrayList<>(lineas);
+        while (usados.size() < Math.min(lineas, datos.productos().size())) {
+            // Sesgo hacia los primeros productos del catálogo (los más vendidos)
+            double x = r.nextDouble();
+            int producto = datos.productos().get((int) (x * x * datos.productos().size()));
+            if (!usados.contains(producto)) {
+                usados.add(producto);
+                items.addObject()
+                        .put("cod_producto", producto)
+                        .put("cantidad", 1 + r.nextInt(4))
+                        .put("descuento_unitario", 0);
+            }
+        }
+
+        JsonNode registrada = enviar("cajero", "POST /api/ventas/registrar", "POST", "/api/ventas/registrar",
+                venta, true);
+        int codVenta = registrada.path("cod_venta").asInt();
+        pausa();
+        enviar("cajero", "GET /api/ventas/detalle/{id}", "GET", "/api/ventas/detalle/" + codVenta, null, false);
+
+        if (credito) {
+            pausa();
+            enviar("cajero", "GET /api/ventas/pagos/cronograma/{id}", "GET", "/api/ventas/pagos/cronograma/" + codVenta,
+                    null, false);
+            pausa();
+            ObjectNode pago = JSON.createObjectNode()
+                    .put("cod_venta", codVenta)
+                    .put("cod_metodo_pago", metodo)
+                    .put("cod_caja", caja)
+                    .put("nombre_pagador", "Cliente prueba de carga")
+                    .put("nro_telf_pagador", "999000111")
+                    .put("cantidad_cuotas", 1);
+            enviar("cajero", "POST /api/ventas/pagos/registrar", "POST", "/api/ventas/pagos/registrar", pago, true);
+        }
+        if (r.nextDouble() < 0.2) {
+            pausa();
+            enviar("cajero", "GET /api/ventas/principal/pagina", "GET", "/api/ventas/principal/pagina?limite=50",
+                    null, false);
+        }
+    }
+
+    // Comprador: pedido -> revisión -> solicitud -> cotizaciones -> orden de compra -> recepción
+    private void comprador() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        final String e = "comprador";
+
+        // 1. Elegir un pedido (de preferencia sin revisar) y revisarlo
+        JsonNode pedidos = enviar(e, "GET /api/abastecimiento/pedidos", "GET", "/api/abastecimiento/pedidos", null, false);
+        List<Integer> candidatos = new ArrayList<>();
+        for (JsonNode p : pedidos) {
+            if (!"Revisado".equals(p.path("estado_pedido").asText())) {
+                candidatos.add(p.path("cod_pedido").asInt());
+            }
+        }
+        if (candidatos.isEmpty()) {
+            pedidos.forEach(p -> candidatos.add(p.path("cod_pedido").asInt()));
+        }
+        if (candidatos.isEmpty()) {
+            throw new RecorridoInterrumpido("sin pedidos");
+        }
+        int pedido = candidatos.get(r.nextInt(candidatos.size()));
+        pausa();
+        enviar(e, "GET /api/abastecimiento/pedidos/{id}/detalle", "GET", "/api/abastecimiento/pedidos/" + pedido + "/detalle",
+                null, false);
+        pausa();
+        enviar(e, "PUT /api/abastecimiento/pedidos/{id}/revisar", "PUT", "/api/abastecimiento/pedidos/" + pedido + "/revisar",
+                null, false);
+
+        // 2. Solicitud de cotización con los ítems pendientes del pedido (o los primeros pendientes si
+        //    el pedido ya no tiene)
+        pausa();
+        JsonNode pendientes = enviar(e, "GET /api/abastecimiento/solicitudes/items-pendientes", "GET",
+                "/api/abastecimiento/solicitudes/items-pendientes", null, false);
+        ObjectNode solicitud = JSON.createObjectNode().put("cod_usuario", usuarioSistema);
+        ArrayNode seleccionados = solicitud.putArray("itemsSeleccionados");
+        for (JsonNode item : pendientes) {
+            if (item.path("cod_pedido").asInt() == pedido) {
+                seleccionados.addObject()
+                        .put("cod_pedido", item.path("cod_pedido").asInt())
+                        .put("cod_producto", item.path("cod_producto").asInt())
+                        .put("cantidad", item.path("cantidad_requerida").asInt());
+            }
+        }
+        if (seleccionados.isEmpty()) {
+            for (Iterator<JsonNode> it = pendientes.elements(); it.hasNext() && seleccionados.size() < 3;) {
+                JsonNode item = it.next();
+                seleccionados.addObject()
+                        .put("cod_pedido", item.path("cod_pedido").asInt())
+                        .put("cod_producto", item.path("cod_producto").asInt())
+                        .put("cantidad", item.path("cantidad_requerida").asInt());
+            }
+        }
+        if (seleccionados.isEmpty()) {
+            throw new RecorridoInterrumpido("sin ítems pendientes de cotizar");
+        }
+        pausa();
+        enviar(e, "POST /api/abastecimiento/solicitudes/generar", "POST", "/api/abastecimiento/solicitudes/generar",
+                solicitud, false);
+
+        // La API no devuelve el código: la solicitud "Enviada" más reciente
+        pausa();
+        JsonNode solicitudes = enviar(e, "GET /api/abastecimiento/solicitudes", "GET", "/api/abastecimiento/solicitudes",
+                null, false);
+        int codSolicitud = 0;
+        for (JsonNode s : solicitudes) {
+            if ("Enviada".equals(s.path("estado").asText())) {
+                codSolicitud = Math.max(codSolicitud, s.path("cod_solicitud").asInt());
+            }
+        }
+        if (codSolicitud == 0) {
+            throw new RecorridoInterrumpido("solicitud no encontrada");
+        }
+
+        // 3. Cotizaciones de uno o dos proveedores
+        pausa();
+        JsonNode productos = enviar(e, "GET /api/abastecimiento/solicitudes/{id}/productos-para-cotizar", "GET",
+                "/api/abastecimiento/solicitudes/" + codSolicitud + "/productos-para-cotizar", null, false);
+        pausa();
+        JsonNode proveedores = enviar(e, "GET /api/abastecimiento/proveedores/buscar", "GET",
+                "/api/abastecimiento/proveedores/buscar?termino=" + LETRAS[r.nextInt(LETRAS.length)], null, false);
+        if (proveedores.isEmpty() || productos.isEmpty()) {
+            throw new RecorridoInterrumpido("sin proveedores o productos para cotizar");
+        }
+        int ofertas = Math.min(proveedores.size(), 1 + r.nextInt(2));
+        for (int i = 0; i < ofertas; i++) {
+            ObjectNode cotizacion = JSON.createObjectNode()
+                    .put("cod_solicitud", codSolicitud)
+                    .put("cod_proveedor", proveedores.get(i).path("cod_proveedor").asInt())
+                    .put("fecha_emision_cotizacion", LocalDate.now().toString())
+                    .put("fecha_garantia", LocalDate.now().plusYears(1).toString())
+                    .put("plazo_entrega", 5 + r.nextInt(20));
+            ArrayNode cotizados = cotizacion.putArray("productosCotizados");
+            double monto = 0;
+            for (JsonNode p : productos) {
+                double costo = Math.round(p.path("cantidad_solicitada").asInt() * (5 + r.nextDouble() * 50) * 100) / 100.0;
+                monto += costo;
+                cotizados.addObject()
+                        .put("cod_producto", p.path("cod_producto").asInt())
+                        .put("costo_total", costo)
+                        .put("modalidad_pago", "Contado");
+            }
+            cotizacion.put("monto_total", Math.round(monto * 100) / 100.0);
+            pausa();
+            enviar(e, "POST /api/abastecimiento/cotizaciones", "POST", "/api/abastecimiento/cotizaciones", cotizacion,
+                    false);
+        }
+
+        // 4. Comparar ofertas y adjudicar todo al primer proveedor
+        pausa();
+        JsonNode cotizantes = enviar(e, "GET /api/abastecimiento/solicitudes/{id}/proveedores-cotizantes", "GET",
+                "/api/abastecimiento/solicitudes/" + codSolicitud + "/proveedores-cotizantes", null, false);
+        if (cotizantes.isEmpty()) {
+            throw new RecorridoInterrumpido("sin proveedores cotizantes");
+        }
+        int proveedor = cotizantes.get(0).path("cod_proveedor").asInt();
+        pausa();
+        JsonNode oferta = enviar(e, "GET /api/abastecimiento/solicitudes/{id}/ofertas/{idProveedor}", "GET",
+                "/api/abastecimiento/solicitudes/" + codSolicitud + "/ofertas/" + proveedor, null, false);
+        ObjectNode orden = JSON.createObjectNode().put("cod_solicitud", codSolicitud);
+        ArrayNode adjudicados = orden.putArray("items_adjudicados");
+        for (JsonNode item : oferta) {
+            adjudicados.addObject()
+                    .put("cod_proveedor", proveedor)
+                    .put("cod_producto", item.path("cod_producto").asInt())
+                    .put("cantidad_comprada", item.path("cantidad_solicitada").asInt())
+                    .put("costo_total", item.path("costo_total").asDouble())
+                    .put("modalidad_pago", item.path("modalidad_pago").asText("Contado"));
+        }
+        if (adjudicados.isEmpty()) {
+            throw new RecorridoInterrumpido("oferta vacía");
+        }
+        pausa();
+        enviar(e, "POST /api/abastecimiento/ordenes-compra/generar", "POST", "/api/abastecimiento/ordenes-compra/generar",
+                orden, false);
+
+        // 5. Programar la recepción de la orden más reciente
+        pausa();
+        JsonNode ordenes = enviar(e, "GET /api/abastecimiento/ordenes-compra/pendientes-recepcion", "GET",
+                "/api/abastecimiento/ordenes-compra/pendientes-recepcion", null, false);
+        int codOrden = 0;
+        for (JsonNode o : ordenes) {
+            codOrden = Math.max(codOrden, o.path("cod_orden").asInt());
+        }
+        if (codOrden == 0) {
+            throw new RecorridoInterrumpido("sin órdenes pendientes de recepción");
+        }
+        String modalidad = "Entrega en Almacén";
+        pausa();
+        JsonNode programables = enviar(e, "GET /api/abastecimiento/ordenes-compra/{id}/productos-programables", "GET",
+                "/api/abastecimiento/ordenes-compra/" + codOrden + "/productos-programables?modalidad="
+                        + URLEncoder.encode(modalidad, StandardCharsets.UTF_8), null, false);
+        ObjectNode recepcion = JSON.createObjectNode()
+                .put("cod_orden", codOrden)
+                .put("modalidad_logistica", modalidad)
+                .put("fecha_programada", LocalDate.now().plusDays(3).toString())
+                .put("hora_programada", "10:00")
+                .put("cod_instalacion", instalacion);
+        ArrayNode aProgramar = recepcion.putArray("items");
+        for (JsonNode p : programables) {
+            aProgramar.addObject()
+                    .put("cod_producto", p.path("cod_producto").asInt())
+                    .put("cantidad_a_programar", p.path("cantidad_pendiente").asInt());
+        }
+        if (aProgramar.isEmpty()) {
+            throw new RecorridoInterrumpido("sin productos programables");
+        }
+        pausa();
+        enviar(e, "POST /api/abastecimiento/recepciones/programar", "POST", "/api/abastecimiento/recepciones/programar",
+                recepcion, false);
+    }
+
+    // Fidelización: perfil del maestro, catálogo de premios, pantalla de canje y canje de un premio
+    private void fidelizacion() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        final String e = "fidelizacion";
+        if (datos.maestros().isEmpty() || datos.premios().isEmpty()) {
+            throw new RecorridoInterrumpido("sin maestros o sin premios");
+        }
+        // Sesgo hacia los maestros más activos (los primeros del listado)
+        double x = r.nextDouble();
+        Maestro maestro = datos.maestros().get((int) (x * x * datos.maestros().size()));
+
+        enviar(e, "GET /api/maestros/{codPersona}/perfil", "GET", "/api/maestros/" + maestro.codPersona() + "/perfil",
+                null, false);
+        pausa();
+        enviar(e, "GET /api/premios/catalogo", "GET", "/api/premios/catalogo", null, false);
+        pausa();
+        JsonNode info = enviar(e, "GET /api/canjes/info", "GET",
+                "/api/canjes/info?codUsuario=" + usuarioSistema + "&codMaestro=" + maestro.codPersona(), null, false);
+
+        // Solo se canjea si alcanzan los puntos (si no, el operador no registra nada)
+        Premio premio = datos.premios().get(r.nextInt(datos.premios().size()));
+        if (info.path("puntosDisponibles").asDouble() < premio.costo()) {
+            return;
+        }
+        ObjectNode canje = JSON.createObjectNode()
+                .put("codMaestro", maestro.codMaestro())
+                .put("codUsuario", usuarioSistema)
+                .put("montoTotal", premio.costo());
+        canje.putArray("items").addObject()
+                .put("codPremio", premio.codPremio())
+                .put("cantidad", 1);
+        pausa();
+        enviar(e, "POST /api/canjes/registrar", "POST", "/api/canjes/registrar", canje, false);
+    }
+
+    // ==========================================
+    // HTTP Y MEDICIÓN
+    // ==========================================
+
+    // Envía la petición y mide su latencia bajo (escenario, endpoint). Una respuesta que no es 2xx
+    // interrumpe el recorrido. Devuelve el cuerpo JSON (un arreglo vacío si no hay contenido).
+    private JsonNode enviar(String escenario, String endpoint, String metodo, String ruta, JsonNode cuerpo,
+            boolean idempotente) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(base + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (cuerpo != null) {
+            req.header("Content-Type", "application/json");
+        }
+        if (idempotente) {
+            req.header("Idempotency-Key", UUID.randomUUID().toString());
+        }
+        req.method(metodo, cuerpo != null
+                ? HttpRequest.BodyPublishers.ofString(cuerpo.toString())
+                : HttpRequest.BodyPublishers.noBody());
+
+        Medicion m = midiendo ? mediciones.computeIfAbsent(new Clave(escenario, endpoint), k -> new Medicion()) : null;
+        long t0 = System.nanoTime();
+        HttpResponse<byte[]> resp;
+        try {
+            resp = http.send(req.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RecorridoInterrumpido(endpoint + ": interrumpido");
+        } catch (Exception ex) {
+            if (m != null) {
+                m.errores.increment();
+            }
+            throw new RecorridoInterrumpido(endpoint + ": " + ex.getMessage());
+        }
+        long micros = (System.nanoTime() - t0) / 1000;
+
+        int estado = resp.statusCode();
+        if (m != null) {
+            m.latenciasUs.recordValue(micros);
+            if (estado >= 500) {
+                m.errores.increment();
+            } else if (estado >= 400) {
+                m.cliente.increment();
+            } else {
+                m.ok.increment();
+            }
+        }
+        if (estado >= 300) {
+            throw new RecorridoInterrumpido(endpoint + ": HTTP " + estado);
+        }
+        return leer(resp.body());
+    }
+
+    private static JsonNode leer(byte[] cuerpo) {
+        if (cuerpo.length == 0) {
+            return JSON.createArrayNode();
+        }
+        try {
+            return JSON.readTree(cuerpo);
+        } catch (Exception ex) {
+            // Respuestas de texto ("Solicitud generada..."): no interesan al recorrido
+            return JSON.createArrayNode();
+        }
+    }
+
+    private void pausa() {
+        if (pausaMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(pausaMs * 2 + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RecorridoInterrumpido("interrumpido");
+        }
+    }
+
+    // ==========================================
+    // DATOS DE PARTIDA
+    // ==========================================
+
+    private Datos cargarDatos() {
+        JsonNode referencia = enviar("-", "-", "GET", "/api/referencia", null, false);
+
+        List<Integer> productos = new ArrayList<>();
+        enviar("-", "-", "GET", "/api/abastecimiento/productos", null, false)
+                .forEach(p -> productos.add(p.path("cod_producto").asInt()));
+        List<Integer> vendedores = new ArrayList<>();
+        enviar("-", "-", "GET", "/api/ventas/vendedores/totales", null, false)
+                .forEach(v -> vendedores.add(v.path("cod_vendedor").asInt()));
+        List<Maestro> maestros = new ArrayList<>();
+        enviar("-", "-", "GET", "/api/maestros/resumen", null, false)
+                .forEach(m -> maestros.add(new Maestro(m.path("codMaestro").asInt(), m.path("codPersona").asInt())));
+        List<Premio> premios = new ArrayList<>();
+        enviar("-", "-", "GET", "/api/premios/catalogo", null, false)
+                .forEach(p -> premios.add(new Premio(p.path("id").asInt(), p.path("costo").asDouble())));
+
+        Datos d = new Datos(productos, vendedores, codigos(referencia, "condicion_pago"),
+                codigos(referencia, "metodo_pago"), codigos(referencia, "tipo_comprobante"), maestros, premios);
+        if (d.productos().isEmpty() || d.vendedores().isEmpty() || d.condicionesPago().isEmpty()
+                || d.metodosPago().isEmpty() || d.tiposComprobante().isEmpty()) {
+            throw new IllegalStateException("Faltan datos maestros (productos, vendedores o catálogos de pago)");
+        }
+        System.out.printf("%d productos, %d vendedores, %d maestros, %d premios%n",
+                productos.size(), vendedores.size(), maestros.size(), premios.size());
+        return d;
+    }
+
+    private static List<Integer> codigos(JsonNode referencia, String catalogo) {
+        List<Integer> codigos = new ArrayList<>();
+        referencia.path(catalogo).fieldNames().forEachRemaining(c -> codigos.add(Integer.parseInt(c)));
+        codigos.sort(null);
+        return codigos;
+    }
+
+    // ==========================================
+    // RESULTADOS
+    // ==========================================
+
+    private List<Map.Entry<Clave, Medicion>> ordenadas() {
+        List<Map.Entry<Clave, Medicion>> lista = new ArrayList<>(mediciones.entrySet());
+        lista.sort(Comparator.comparing((Map.Entry<Clave, Medicion> en) -> en.getKey().escenario())
+                .thenComparing(en -> en.getKey().endpoint()));
+        return lista;
+    }
+
+    private void imprimir(double duracion) {
+        System.out.printf("%-13s %-66s %8s %9s %9s %9s %9s %9s %6s %6s %7s%n", "escenario", "endpoint",
+                "pet", "pet/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "4xx", "5xx", "error %");
+        for (Map.Entry<Clave, Medicion> en : ordenadas()) {
+            Medicion m = en.getValue();
+            Histogram h = m.latenciasUs.copy();
+            long total = m.ok.sum() + m.cliente.sum() + m.errores.sum();
+            System.out.printf("%-13s %-66s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %6d %6d %7.2f%n",
+                    en.getKey().escenario(), en.getKey().endpoint(), total, total / duracion,
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getMaxValue() / 1000.0,
+                    m.cliente.sum(), m.errores.sum(), total == 0 ? 0 : 100.0 * m.errores.sum() / total);
+        }
+        System.out.println();
+        System.out.printf("%-13s %12s %12s %12s%n", "escenario", "recorridos", "rec/s", "interrump.");
+        recorridos.forEach((escenario, c) -> System.out.printf("%-13s %12d %12.2f %12d%n",
+                escenario, c[0].sum(), c[0].sum() / duracion, c[1].sum()));
+    }
+
+    // Mismo contenido que la consola, en JSON, con la configuración de la corrida
+    private void guardar(File archivo, Map<String, Integer> escenarios, double duracion) throws Exception {
+        ObjectNode raiz = JSON.createObjectNode();
+        raiz.put("fecha", LocalDateTime.now().toString());
+        raiz.put("base", base);
+        raiz.put("segundos", Math.round(duracion * 10) / 10.0);
+        raiz.put("pausa_ms", pausaMs);
+        ObjectNode usuarios = raiz.putObject("usuarios");
+        escenarios.forEach(usuarios::put);
+
+        ArrayNode endpoints = raiz.putArray("endpoints");
+        for (Map.Entry<Clave, Medicion> en : ordenadas()) {
+            Medicion m = en.getValue();
+            Histogram h = m.latenciasUs.copy();
+            long total = m.ok.sum() + m.cliente.sum() + m.errores.sum();
+            endpoints.addObject()
+                    .put("escenario", en.getKey().escenario())
+                    .put("endpoint", en.getKey().endpoint())
+                    .put("peticiones", total)
+                    .put("por_segundo", total / duracion)
+                    .put("p50_ms", h.getValueAtPercentile(50) / 1000.0)
+                    .put("p90_ms", h.getValueAtPercentile(90) / 1000.0)
+                    .put("p99_ms", h.getValueAtPercentile(99) / 1000.0)
+                    .put("max_ms", h.getMaxValue() / 1000.0)
+                    .put("respuestas_4xx", m.cliente.sum())
+                    .put("errores", m.errores.sum())
+                    .put("porcentaje_error", total == 0 ? 0 : 100.0 * m.errores.sum() / total);
+        }
+        ArrayNode porEscenario = raiz.putArray("recorridos");
+        recorridos.forEach((escenario, c) -> porEscenario.addObject()
+                .put("escenario", escenario)
+                .put("completados", c[0].sum())
+                .put("por_segundo", c[0].sum() / duracion)
+                .put("interrumpidos", c[1].sum()));
+
+        if (archivo.getParentFile() != null) {
+            archivo.getParentFile().mkdirs();
+        }
+        JSON.writerWithDefaultPrettyPrinter().writeValue(archivo, raiz);
+    }
+
+    // ==========================================
+    // UTILIDADES
+    // ==========================================
+
+    private static int elegir(List<Integer> valores) {
+        return valores.get(ThreadLocalRandom.current().nextInt(valores.size()));
+    }
+
+    private static int[] enteros(String lista) {
+        return Arrays.stream(lista.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt).toArray();
+    }
+
+    // "desde-hasta" -> {desde, hasta}; vacío -> null
+    private static int[] rango(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String[] partes = texto.split("-");
+        int desde = Integer.parseInt(partes[0].trim());
+        return new int[] {desde, partes.length > 1 ? Integer.parseInt(partes[1].trim()) : desde};
+    }
+}
@@ -0,0 +1,144 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Carga filas en una tabla con COPY ... FROM STDIN (formato texto de PostgreSQL), en bloques de
+ * 256 KB sobre la misma operación COPY. Se usa una tabla a la vez por conexión.
+ *
+ * Las columnas pedidas que no existen en la tabla se omiten (con aviso): el esquema base no está en
+ * el repositorio y algunas columnas solo se conocen por las consultas de los servicios.
+ */
+final class EscritorCopy implements AutoCloseable {
+
+    private static final int TAMANO_BLOQUE = 256 * 1024;
+
+    private final String tabla;
+    private final boolean[] incluida;
+    private final CopyIn copia;
+    private final ByteArrayOutputStream bloque = new ByteArrayOutputStream(TAMANO_BLOQUE + 4096);
+    private final StringBuilder linea = new StringBuilder(256);
+    private long filas;
+
+    EscritorCopy(Connection con, String tabla, String... columnas) throws SQLException {
+        this.tabla = tabla;
+        Set<String> existentes = columnasDe(con, tabla);
+        if (existentes.isEmpty()) {
+            throw new SQLException("La tabla " + tabla + " no existe en el esquema actual");
+        }
+
+        this.incluida = new boolean[columnas.length];
+        List<String> usadas = new ArrayList<>(columnas.length);
+        for (int i = 0; i < columnas.length; i++) {
+            incluida[i] = existentes.contains(columnas[i]);
+            if (incluida[i]) {
+                usadas.add(columnas[i]);
+            } else {
+                System.out.printf("  aviso: %s.%s no existe, se omite%n", tabla, columnas[i]);
+            }
+        }
+        this.copia = con.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + tabla + " (" + String.join(", ", usadas) + ") FROM STDIN");
+    }
+
+    private static Set<String> columnasDe(Connection con, String tabla) throws SQLException {
+        String sql = """
+            SELECT column_name
+            FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = ?
+            """;
+        Set<String> columnas = new HashSet<>();
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            ps.setString(1, tabla);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    columnas.add(rs.getString(1));
+                }
+            }
+        }
+        return columnas;
+    }
+
+    /** Una fila con un valor por columna pedida, en el mismo orden; null se escribe como NULL. */
+    void fila(Object... valores) throws SQLException {
+        linea.setLength(0);
+        boolean primera = true;
+        for (int i = 0; i < valores.length; i++) {
+            if (!incluida[i]) {
+                continue;
+            }
+            if (!primera) {
+                linea.append('\t');
+            }
+            primera = false;
+            escribirValor(valores[i]);
+        }
+        linea.append('\n');
+
+        byte[] bytes = linea.toString().getBytes(StandardCharsets.UTF_8);
+        bloque.write(bytes, 0, bytes.length);
+        filas++;
+        if (bloque.size() >= TAMANO_BLOQUE) {
+            enviar();
+        }
+    }
+
+    private void escribirValor(Object valor) {
+        if (valor == null) {
+            linea.append("\\N");
+            return;
+        }
+        String texto = valor.toString();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '\\' -> linea.append("\\\\");
+                case '\t' -> linea.append("\\t");
+                case '\n' -> linea.append("\\n");
+                case '\r' -> linea.append("\\r");
+                default -> linea.append(c);
+            }
+        }
+    }
+
+    private void enviar() throws SQLException {
+        if (bloque.size() > 0) {
+            copia.writeToCopy(bloque.toByteArray(), 0, bloque.size());
+            bloque.reset();
+        }
+    }
+
+    long getFilas() {
+        return filas;
+    }
+
+    String getTabla() {
+        return tabla;
+    }
+
+    /** Envía lo pendiente y cierra el COPY; si falla, lo cancela para liberar la conexión. */
+    @Override
+    public void close() throws SQLException {
+        try {
+            enviar();
+            copia.endCopy();
+        } catch (SQLException e) {
+            if (copia.isActive()) {
+                copia.cancelCopy();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+
+/**
+ * ResultSet en memoria (CachedRowSet del JDK) para medir mapeo de filas sin base de datos.
+ */
+public final class FilasEnMemoria {
+
+    private FilasEnMemoria() {
+    }
+
+    /** Columnas de texto: nombres[i] con valores generados "nombre-fila". */
+    public static CachedRowSet deTexto(int filas, String... nombres) throws SQLException {
+        int[] tipos = new int[nombres.length];
+        Arrays.fill(tipos, Types.VARCHAR);
+        return crear(filas, nombres, tipos);
+    }
+
+    public static CachedRowSet crear(int filas, String[] nombres, int[] tipos) throws SQLException {
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(nombres.length);
+        for (int i = 0; i < nombres.length; i++) {
+            meta.setColumnName(i + 1, nombres[i]);
+            meta.setColumnLabel(i + 1, nombres[i]);
+            meta.setColumnType(i + 1, tipos[i]);
+        }
+
+        CachedRowSet rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(meta);
+        for (int f = 0; f < filas; f++) {
+            rs.moveToInsertRow();
+            for (int i = 0; i < nombres.length; i++) {
+                switch (tipos[i]) {
+                    case Types.INTEGER -> rs.updateInt(i + 1, f);
+                    case Types.DOUBLE -> rs.updateDouble(i + 1, f * 1.5);
+                    default -> rs.updateString(i + 1, nombres[i] + "-" + f);
+                }
+            }
+            rs.insertRow();
+            rs.moveToCurrentRow();
+        }
+        rs.beforeFirst();
+        return rs;
+    }
+}
@@ -0,0 +1,1086 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import pe.edu.uni.ProyectoFerreteria.dto.ResultadoReconstruccionDto;
+import pe.edu.uni.ProyectoFerreteria.service.ResumenVentaService;
+
+/**
+ * Llena una base FERRETERIA local con un volumen de datos realista para pruebas de rendimiento:
+ * personas (clientes, maestros, usuarios y vendedores), ventas con sus líneas, cuotas y comprobantes,
+ * reclamos (devoluciones, cambios y anulaciones), canjes de puntos y el flujo de abastecimiento
+ * (pedido, solicitud, cotizaciones y orden de compra).
+ *
+ * Requiere los catálogos ya cargados (producto, proveedor, estados, motivos, premios, etc.): se leen
+ * de la base y no se generan. Los datos se agregan después de los existentes (códigos desde max + 1)
+ * y se cargan con COPY en una sola transacción: si algo falla, no queda nada a medias.
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=pe.edu.uni.ProyectoFerreteria.benchmark.GeneradorDatos \
+ *       -Dgen.ventas=2000000 -Dgen.clientes=300000 -Dgen.semilla=42
+ *
+ * Reproducible: con la misma semilla, los mismos volúmenes, la misma fecha gen.hasta y la misma base
+ * de partida se generan exactamente las mismas filas. Cada venta, canje y pedido tiene su propio
+ * generador aleatorio derivado de la semilla y de su posición, así cada tabla se escribe en una
+ * pasada independiente (una operación COPY a la vez por conexión) sin guardar nada en memoria.
+ *
+ * Distribuciones sesgadas (Zipf, exponente gen.sesgo): pocos clientes concentran muchas compras
+ * (los maestros son los clientes más frecuentes), pocos productos concentran las ventas y algunos
+ * vendedores venden más que otros.
+ *
+ * gen.sin-restricciones=true desactiva llaves foráneas y triggers durante la carga
+ * (session_replication_role = replica, requiere superusuario): es más rápido, pero tampoco corren
+ * los triggers que completen columnas derivadas.
+ */
+public class GeneradorDatos {
+
+    // Estados fijos que usan los servicios (ConsultasVentasService, MorosidadService)
+    private static final int VENTA_REGISTRADA = 2;
+    private static final int VENTA_ANULADA = 3;
+    private static final int PAGO_PENDIENTE = 1;
+    private static final int PAGO_PAGADO = 2;
+    private static final int PAGO_VENCIDO = 3;
+    private static final int PRODV_REGISTRADO = 1;
+    private static final int PRODV_DEVUELTO = 3;
+    private static final int PRODV_CAMBIADO = 4;
+
+    private static final int[] CUOTAS_CREDITO = {2, 3, 6, 12};
+
+    private static final String[] ESTADOS_DETALLE_PEDIDO = {
+            "Pendiente", "Revisado", "En Cotización", "Cotizado", "Adjudicado"};
+    private static final String[] MODALIDADES = {"Contado", "Crédito 30 días"};
+
+    private static final String[] NOMBRES = {
+            "Juan", "María", "Carlos", "Rosa", "Luis", "Ana", "Jorge", "Carmen", "José", "Lucía",
+            "Miguel", "Elena", "Pedro", "Sofía", "Víctor", "Patricia", "César", "Julia", "Raúl", "Gladys"};
+    private static final String[] APELLIDOS = {
+            "Quispe", "Flores", "Sánchez", "Rodríguez", "García", "Rojas", "Huamán", "Mamani", "Chávez",
+            "Torres", "Ramírez", "Vargas", "Castillo", "Mendoza", "Díaz", "Espinoza", "Vásquez", "Ccori"};
+    private static final String[] DISTRITOS = {
+            "Rímac", "San Martín de Porres", "Comas", "Los Olivos", "Independencia", "Ate", "San Juan de Lurigancho",
+            "Breña", "Lima", "Surquillo", "Villa El Salvador", "Chorrillos"};
+    private static final String[] VIAS = {"Av. Túpac Amaru", "Jr. Huánuco", "Av. Perú", "Calle Los Pinos",
+            "Av. Universitaria", "Jr. Ancash", "Av. Próceres"};
+
+    private enum Reclamo {
+        NINGUNO, DEVOLUCION, CAMBIO, ANULACION
+    }
+
+    /** Muestreo con distribución de Zipf sobre 0..n-1 (el 0 es el más frecuente). */
+    private static final class Zipf {
+        private final double[] acumulada;
+
+        Zipf(int n, double s) {
+            acumulada = new double[Math.max(1, n)];
+            double suma = 0;
+            for (int i = 0; i < acumulada.length; i++) {
+                suma += 1.0 / Math.pow(i + 1, s);
+                acumulada[i] = suma;
+            }
+            for (int i = 0; i < acumulada.length; i++) {
+                acumulada[i] /= suma;
+            }
+        }
+
+        int muestra(SplittableRandom rng) {
+            int i = Arrays.binarySearch(acumulada, rng.nextDouble());
+            return Math.min(i >= 0 ? i : -i - 1, acumulada.length - 1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Pasada {
+        void escribir(EscritorCopy copia) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface PasadaReclamo {
+        void escribir(PlanVenta venta, int codReclamo) throws SQLException;
+    }
+
+    // Volúmenes y parámetros
+    private final long semilla = Long.getLong("gen.semilla", 42);
+    private final int clientes = Integer.getInteger("gen.clientes", 300_000);
+    private final int maestros = Math.min(clientes, Integer.getInteger("gen.maestros", 100_000));
+    private final int usuarios = Integer.getInteger("gen.usuarios", 300);
+    private final int vendedores = Math.min(usuarios, Integer.getInteger("gen.vendedores", 200));
+    private final int ventas = Integer.getInteger("gen.ventas", 2_000_000);
+    private final int canjes = Integer.getInteger("gen.canjes", 300_000);
+    private final int pedidos = Integer.getInteger("gen.pedidos", 20_000);
+    private final int dias = Integer.getInteger("gen.dias", 730);
+    private final LocalDate hasta = LocalDate.parse(System.getProperty("gen.hasta", LocalDate.now().toString()));
+    private final double sesgo = Double.parseDouble(System.getProperty("gen.sesgo", "1.0"));
+    private final double proporcionCredito = Double.parseDouble(System.getProperty("gen.credito", "0.3"));
+    private final double proporcionReclamos = Double.parseDouble(System.getProperty("gen.reclamos", "0.02"));
+    private final double proporcionSinCliente = Double.parseDouble(System.getProperty("gen.sin-cliente", "0.1"));
+
+    private final LocalDate desde = hasta.minusDays(dias);
+    private final Connection con;
+    private long totalFilas;
+
+    // Catálogos leídos de la base
+    private int[] condicionesPago;
+    private int[] metodosPago;
+    private int[] tiposComprobante;
+    private int[] cajas;
+    private int[] motivosDevolucion;
+    private int[] motivosAnulacion;
+    private int[] motivosCambio;
+    private int[] especialidades;
+    private int[] estadosCanje;
+    private int[] areas;
+    private int[] roles;
+    private int[] tiposDocumento;
+    private int[] tiposContacto;
+    private int[] proveedores;
+    private int[] premios;
+    private double[] puntosPremio;
+    private int[] productos;
+    private double[] precios;
+    private double[] puntosProducto;
+
+    // Primer código generado de cada tabla
+    private int basePersona;
+    private int baseContacto;
+    private int baseDireccion;
+    private int baseCliente;
+    private int baseMaestro;
+    private int baseUsuario;
+    private int baseVendedor;
+    private int baseVenta;
+    private int baseComprobante;
+    private int baseReclamo;
+    private int baseCanje;
+    private int basePedido;
+    private int baseSolicitud;
+    private int baseCotizacion;
+    private int baseOrden;
+
+    private Zipf zipfClientes;
+    private Zipf zipfMaestros;
+    private Zipf zipfVendedores;
+    private Zipf zipfProductos;
+    private Zipf zipfPremios;
+
+    public GeneradorDatos(Connection con) {
+        this.con = con;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("gen.url",
+                "jdbc:postgresql://localhost:5434/postgres?currentSchema=\"FERRETERIA\"");
+        String usuario = System.getProperty("gen.usuario", "postgres");
+        String clave = System.getProperty("gen.clave", "sql");
+        boolean sinRestricciones = Boolean.parseBoolean(System.getProperty("gen.sin-restricciones", "false"));
+
+        try (Connection con = DriverManager.getConnection(url, usuario, clave)) {
+            GeneradorDatos generador = new GeneradorDatos(con);
+            generador.leerCatalogos();
+            generador.asignarCodigos();
+            generador.generar(sinRestricciones);
+            generador.posterior();
+        }
+    }
+
+    // ==========================================
+    // PREPARACIÓN
+    // ==========================================
+
+    private void leerCatalogos() throws SQLException {
+        condicionesPago = requerir(claves("SELECT cod_cond_pago FROM condicion_pago ORDER BY 1"), "condicion_pago");
+        metodosPago = requerir(claves("SELECT cod_metodo_pago FROM metodo_pago ORDER BY 1"), "metodo_pago");
+        tiposComprobante = requerir(claves("SELECT cod_tipo_comprobante FROM tipo_comprobante ORDER BY 1"),
+                "tipo_comprobante");
+        cajas = claves("SELECT cod_caja FROM caja ORDER BY 1", "gen.cajas", "1");
+        motivosDevolucion = claves("SELECT cod_motivo_devolucion FROM motivo_devolucion ORDER BY 1", "gen.motivos-devolucion", "1");
+        motivosAnulacion = claves("SELECT cod_motivo_anulacion FROM motivo_anulacion ORDER BY 1", "gen.motivos-anulacion", "1");
+        motivosCambio = claves("SELECT cod_motivo_cambio_prod FROM motivo_cambio_producto ORDER BY 1", "gen.motivos-cambio", "1");
+        especialidades = requerir(claves("SELECT cod_especialidad FROM especialidades ORDER BY 1"), "especialidades");
+        estadosCanje = claves("SELECT cod_estado_canje FROM estado_canje ORDER BY 1", "gen.estados-canje", "1");
+        areas = requerir(claves("SELECT cod_area FROM area ORDER BY 1"), "area");
+        roles = requerir(claves("SELECT cod_rol FROM rol ORDER BY 1"), "rol");
+        tiposDocumento = claves("SELECT cod_tipo_documento FROM tipo_documento ORDER BY 1", "gen.tipos-documento", "1");
+        tiposContacto = claves("SELECT cod_tipo_contacto FROM tipo_contacto ORDER BY 1", "gen.tipos-contacto", "1");
+        proveedores = claves("SELECT cod_proveedor FROM proveedor ORDER BY 1", "gen.proveedores", "");
+
+        List<double[]> filas = filas("SELECT cod_premio, puntos_premio FROM premios ORDER BY 1");
+        premios = new int[filas.size()];
+        puntosPremio = new double[filas.size()];
+        for (int i = 0; i < filas.size(); i++) {
+            premios[i] = (int) filas.get(i)[0];
+            puntosPremio[i] = filas.get(i)[1];
+        }
+
+        // Precios y puntos con las mismas funciones que usa el registro de ventas
+        filas = filas("SELECT cod_producto, precio_unitario(cod_producto), puntos_producto(cod_producto) "
+                + "FROM producto ORDER BY 1");
+        if (filas.isEmpty()) {
+            throw new IllegalStateException("Catálogo vacío: producto. Cargue primero los datos maestros.");
+        }
+        // Orden de popularidad al azar (con la semilla): los más vendidos no son los de código más bajo
+        SplittableRandom rng = rng(0, 0);
+        for (int i = filas.size() - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            double[] t = filas.get(i);
+            filas.set(i, filas.get(j));
+            filas.set(j, t);
+        }
+        productos = new int[filas.size()];
+        precios = new double[filas.size()];
+        puntosProducto = new double[filas.size()];
+        for (int i = 0; i < filas.size(); i++) {
+            productos[i] = (int) filas.get(i)[0];
+            precios[i] = filas.get(i)[1];
+            puntosProducto[i] = filas.get(i)[2];
+        }
+
+        zipfClientes = new Zipf(clientes, sesgo);
+        zipfMaestros = new Zipf(maestros, sesgo);
+        zipfVendedores = new Zipf(vendedores, sesgo / 2);
+        zipfProductos = new Zipf(productos.length, sesgo);
+        zipfPremios = new Zipf(premios.length, sesgo / 2);
+    }
+
+    private void asignarCodigos() throws SQLException {
+        basePersona = siguiente("persona", "cod_persona");
+        baseContacto = siguiente("contacto", "cod_contacto");
+        baseDireccion = siguiente("direccion", "cod_direccion");
+        baseCliente = siguiente("cliente", "cod_cliente");
+        baseMaestro = siguiente("maestro", "cod_maestro");
+        baseUsuario = siguiente("usuario", "cod_usuario");
+        baseVendedor = siguiente("vendedor", "cod_vendedor");
+        baseVenta = siguiente("venta", "cod_venta");
+        baseComprobante = siguiente("comprobante", "cod_comprobante");
+        baseReclamo = siguiente("reclamo", "cod_reclamo");
+        baseCanje = siguiente("canje", "cod_canje");
+        basePedido = siguiente("pedido_abastecimiento", "cod_pedido");
+        baseSolicitud = siguiente("solicitud_cotizacion", "cod_solicitud");
+        baseCotizacion = siguiente("cotizacion", "cod_cotizacion");
+        baseOrden = siguiente("orden_compra", "cod_orden");
+
+        System.out.printf("semilla %d, %s a %s; %d clientes (%d maestros), %d usuarios (%d vendedores), "
+                + "%d ventas, %d canjes, %d pedidos; primera venta %d%n",
+                semilla, desde, hasta, clientes, maestros, usuarios, vendedores, ventas, canjes, pedidos, baseVenta);
+    }
+
+    private void generar(boolean sinRestricciones) throws SQLException {
+        long inicio = System.nanoTime();
+        con.setAutoCommit(false);
+        try {
+            try (Statement st = con.createStatement()) {
+                st.execute("SET LOCAL synchronous_commit = off");
+                if (sinRestricciones) {
+                    st.execute("SET LOCAL session_replication_role = replica");
+                }
+            }
+            cargarPersonas();
+            cargarVentas();
+            cargarReclamos();
+            cargarCanjes();
+            cargarAbastecimiento();
+
+            // Total de ventas de los vendedores generados (solo tienen ventas generadas)
+            try (PreparedStatement ps = con.prepareStatement("""
+                    UPDATE vendedor ve
+                    SET total_ventas_vendedor = t.ventas
+                    FROM (SELECT cod_vendedor, count(*) ventas FROM venta WHERE cod_venta >= ? GROUP BY cod_vendedor) t
+                    WHERE ve.cod_vendedor = t.cod_vendedor AND ve.cod_vendedor >= ?
+                    """)) {
+                ps.setInt(1, baseVenta);
+                ps.setInt(2, baseVendedor);
+                ps.executeUpdate();
+            }
+            con.commit();
+        } catch (SQLException | RuntimeException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("%-22s %12d filas %8.1f s %12.0f filas/s%n", "TOTAL", totalFilas, segundos,
+                totalFilas / segundos);
+    }
+
+    // 1. Secuencias al día con los códigos explícitos; 2. estadísticas; 3. resumen_venta
+    private void posterior() throws SQLException {
+        String[][] secuencias = {
+                {"persona", "cod_persona"}, {"contacto", "cod_contacto"}, {"direccion", "cod_direccion"},
+                {"cliente", "cod_cliente"}, {"maestro", "cod_maestro"}, {"usuario", "cod_usuario"},
+                {"vendedor", "cod_vendedor"}, {"venta", "cod_venta"}, {"comprobante", "cod_comprobante"},
+                {"reclamo", "cod_reclamo"}, {"canje", "cod_canje"}, {"pedido_abastecimiento", "cod_pedido"},
+                {"solicitud_cotizacion", "cod_solicitud"}, {"cotizacion", "cod_cotizacion"},
+                {"orden_compra", "cod_orden"}};
+        try (Statement st = con.createStatement()) {
+            for (String[] s : secuencias) {
+                if (existe(s[0])) {
+                    st.execute("SELECT setval(pg_get_serial_sequence('" + s[0] + "', '" + s[1] + "'), "
+                            + "(SELECT max(" + s[1] + ") FROM " + s[0] + "))");
+                }
+            }
+            st.execute("ANALYZE");
+        }
+
+        if (existe("resumen_venta")) {
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            ResumenVentaService resumen = new ResumenVentaService(jdbc);
+            ReflectionTestUtils.setField(resumen, "tamanoLote", 20_000);
+            ResultadoReconstruccionDto r = resumen.reconstruir();
+            System.out.printf("resumen_venta reconstruido: %d ventas en %d ms%n", r.getVentas(), r.getDuracion_ms());
+        }
+    }
+
+    // ==========================================
+    // PERSONAS
+    // ==========================================
+    // Personas 0..clientes-1 son clientes (las primeras "maestros" también son maestros y, por el
+    // sesgo, los clientes que más compran); las siguientes "usuarios" son usuarios del sistema.
+
+    private void cargarPersonas() throws SQLException {
+        int personas = clientes + usuarios;
+
+        cargar("persona", c -> {
+            for (int i = 0; i < personas; i++) {
+                c.fila(basePersona + i, nombrePersona(i));
+            }
+        }, "cod_persona", "nombre_persona");
+
+        cargarSiExiste("documento_persona", c -> {
+            for (int i = 0; i < personas; i++) {
+                c.fila(basePersona + i, tiposDocumento[0], String.format("%08d", (40_000_000L + basePersona + i) % 100_000_000L));
+            }
+        }, "cod_persona", "cod_tipo_documento", "valor_documento");
+
+        cargarSiExiste("contacto", c -> {
+            for (int i = 0; i < personas; i++) {
+                c.fila(baseContacto + i, tiposContacto[0], telefono(i));
+            }
+        }, "cod_contacto", "cod_tipo_contacto", "valor_contacto");
+
+        cargarSiExiste("contacto_persona", c -> {
+            for (int i = 0; i < personas; i++) {
+                c.fila(basePersona + i, baseContacto + i);
+            }
+        }, "cod_persona", "cod_contacto");
+
+        cargarSiExiste("direccion", c -> {
+            for (int i = 0; i < clientes; i++) {
+                SplittableRandom rng = rng(1, i);
+                c.fila(baseDireccion + i, elegir(DISTRITOS, rng), "Lima", elegir(VIAS, rng), 100 + rng.nextInt(2900));
+            }
+        }, "cod_direccion", "distrito", "ciudad", "via", "numero");
+
+        cargarSiExiste("direccion_persona", c -> {
+            for (int i = 0; i < clientes; i++) {
+                c.fila(basePersona + i, baseDireccion + i, true);
+            }
+        }, "cod_persona", "cod_direccion", "principal_direccion");
+
+        cargar("cliente", c -> {
+            for (int i = 0; i < clientes; i++) {
+                c.fila(baseCliente + i, basePersona + i);
+            }
+        }, "cod_cliente", "cod_persona");
+
+        cargar("maestro", c -> {
+            for (int i = 0; i < maestros; i++) {
+                SplittableRandom rng = rng(2, i);
+                LocalDate registro = desde.plusDays(rng.nextInt(Math.max(1, dias)));
+                int puntos = (int) (20_000 / Math.sqrt(i + 1) * rng.nextDouble()) + rng.nextInt(200);
+                c.fila(baseMaestro + i, basePersona + i, elegir(especialidades, rng), puntos, registro,
+                        hasta.minusDays(rng.nextInt(90)).atTime(9 + rng.nextInt(10), rng.nextInt(60)));
+            }
+        }, "cod_maestro", "cod_persona", "cod_especialidad", "puntos_maestro", "fecha_registro_maestro",
+                "ultima_actividad_maestro");
+
+        cargar("usuario", c -> {
+            for (int j = 0; j < usuarios; j++) {
+                SplittableRandom rng = rng(3, j);
+                c.fila(baseUsuario + j, basePersona + clientes + j, elegir(areas, rng), elegir(roles, rng));
+            }
+        }, "cod_usuario", "cod_persona", "cod_area", "cod_rol");
+
+        cargar("vendedor", c -> {
+            for (int j = 0; j < vendedores; j++) {
+                c.fila(baseVendedor + j, baseUsuario + j, 0);
+            }
+        }, "cod_vendedor", "cod_usuario", "total_ventas_vendedor");
+    }
+
+    // ==========================================
+    // VENTAS
+    // ==========================================
+
+    private static final class PlanVenta {
+        int codVenta;
+        LocalDateTime fecha;
+        int indiceCliente = -1;
+        Integer cliente;
+        int vendedor;
+        int estado;
+        int condPago;
+        int caja;
+        int metodoPago;
+        int tipoComprobante;
+
+        int[] productos;
+        int[] cantidades;
+        double[] precios;
+        double[] descuentos;
+        long[] puntos;
+        int[] estados;
+        String[] direcciones;
+        LocalDate[] fechasEntrega;
+        double monto;
+        double descuento;
+        long puntosVenta;
+
+        double[] montosCuota;
+        LocalDate[] vencimientos;
+        LocalDate[] fechasPago;
+        int[] estadosPago;
+
+        Reclamo reclamo = Reclamo.NINGUNO;
+        LocalDateTime fechaReclamo;
+        int productoEntrega;
+        double diferenciaCambio;
+        int motivo;
+    }
+
+    // Todo lo de una venta sale de su propio generador: cada pasada la vuelve a armar igual
+    private PlanVenta planVenta(int k) {
+        SplittableRandom rng = rng(10, k);
+        PlanVenta v = new PlanVenta();
+        v.codVenta = baseVenta + k;
+
+        // Ventas en orden cronológico, en horario de tienda
+        long dia = (long) k * dias / Math.max(1, ventas);
+        v.fecha = desde.plusDays(dia).atTime(8 + rng.nextInt(12), rng.nextInt(60), rng.nextInt(60));
+
+        if (rng.nextDouble() >= proporcionSinCliente) {
+            v.indiceCliente = zipfClientes.muestra(rng);
+            v.cliente = baseCliente + v.indiceCliente;
+        }
+        v.vendedor = baseVendedor + zipfVendedores.muestra(rng);
+        v.estado = VENTA_REGISTRADA;
+        v.caja = elegir(cajas, rng);
+        v.metodoPago = elegir(metodosPago, rng);
+        v.tipoComprobante = elegir(tiposComprobante, rng);
+
+        // 1. Líneas: productos distintos, en promedio 2.5 por venta
+        int n = 1;
+        while (n < 20 && n < productos.length && rng.nextDouble() < 0.6) {
+            n++;
+        }
+        v.productos = new int[n];
+        v.cantidades = new int[n];
+        v.precios = new double[n];
+        v.descuentos = new double[n];
+        v.puntos = new long[n];
+        v.estados = new int[n];
+        v.direcciones = new String[n];
+        v.fechasEntrega = new LocalDate[n];
+        int[] elegidos = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p;
+            do {
+                p = zipfProductos.muestra(rng);
+            } while (contiene(elegidos, i, p));
+            elegidos[i] = p;
+
+            int cantidad = rng.nextDouble() < 0.7 ? 1 + rng.nextInt(3) : 1 + rng.nextInt(50);
+            v.productos[i] = productos[p];
+            v.cantidades[i] = cantidad;
+            v.precios[i] = precios[p];
+            v.descuentos[i] = rng.nextDouble() < 0.1 ? redondear(precios[p] * 0.05) : 0;
+            v.puntos[i] = Math.round(puntosProducto[p] * cantidad);
+            v.estados[i] = PRODV_REGISTRADO;
+            if (rng.nextDouble() < 0.2) {
+                v.direcciones[i] = elegir(VIAS, rng) + " " + (100 + rng.nextInt(2900)) + ", " + elegir(DISTRITOS, rng);
+                v.fechasEntrega[i] = v.fecha.toLocalDate().plusDays(1 + rng.nextInt(7));
+            }
+            v.monto += redondear(precios[p] * cantidad);
+            v.descuento += redondear(v.descuentos[i] * cantidad);
+            v.puntosVenta += v.puntos[i];
+        }
+        v.monto = redondear(v.monto - v.descuento);
+
+        // 2. Cuotas: la primera se paga al registrar; las vencidas casi siempre se pagaron
+        boolean credito = condicionesPago.length > 1 && rng.nextDouble() < proporcionCredito;
+        v.condPago = credito ? condicionesPago[1] : condicionesPago[0];
+        int cuotas = credito ? CUOTAS_CREDITO[rng.nextInt(CUOTAS_CREDITO.length)] : 1;
+        v.montosCuota = new double[cuotas];
+        v.vencimientos = new LocalDate[cuotas];
+        v.fechasPago = new LocalDate[cuotas];
+        v.estadosPago = new int[cuotas];
+        double cuota = redondear(v.monto / cuotas);
+        for (int i = 0; i < cuotas; i++) {
+            v.montosCuota[i] = i < cuotas - 1 ? cuota : redondear(v.monto - cuota * (cuotas - 1));
+            v.vencimientos[i] = v.fecha.toLocalDate().plusMonths(i);
+            if (i == 0 || (!v.vencimientos[i].isAfter(hasta) && rng.nextDouble() < 0.9)) {
+                v.estadosPago[i] = PAGO_PAGADO;
+                LocalDate pago = v.vencimientos[i].minusDays(i == 0 ? 0 : rng.nextInt(5));
+                v.fechasPago[i] = pago.isBefore(v.fecha.toLocalDate()) ? v.fecha.toLocalDate() : pago;
+            } else {
+                v.estadosPago[i] = v.vencimientos[i].isBefore(hasta) ? PAGO_VENCIDO : PAGO_PENDIENTE;
+            }
+        }
+
+        // 3. Reclamo (solo ventas con cliente)
+        if (v.cliente != null && rng.nextDouble() < proporcionReclamos) {
+            double r = rng.nextDouble();
+            v.reclamo = r < 0.5 ? Reclamo.DEVOLUCION : r < 0.8 ? Reclamo.CAMBIO : Reclamo.ANULACION;
+            LocalDateTime fecha = v.fecha.plusDays(1 + rng.nextInt(15));
+            v.fechaReclamo = fecha.toLocalDate().isAfter(hasta) ? v.fecha : fecha;
+            switch (v.reclamo) {
+                case DEVOLUCION -> {
+                    v.estados[0] = PRODV_DEVUELTO;
+                    v.motivo = elegir(motivosDevolucion, rng);
+                }
+                case CAMBIO -> {
+                    int p = zipfProductos.muestra(rng);
+                    v.estados[0] = PRODV_CAMBIADO;
+                    v.productoEntrega = productos[p];
+                    v.diferenciaCambio = redondear((precios[p] - v.precios[0]) * v.cantidades[0]);
+                    v.motivo = elegir(motivosCambio, rng);
+                }
+                case ANULACION -> {
+                    v.estado = VENTA_ANULADA;
+                    v.motivo = elegir(motivosAnulacion, rng);
+                }
+                default -> {
+                }
+            }
+        }
+        return v;
+    }
+
+    private void cargarVentas() throws SQLException {
+        cargar("venta", c -> {
+            for (int k = 0; k < ventas; k++) {
+                PlanVenta v = planVenta(k);
+                c.fila(v.codVenta, v.fecha, dinero(v.monto), dinero(v.monto - v.monto / 1.18), dinero(v.descuento),
+                        v.puntosVenta, v.estado, v.condPago, v.montosCuota.length, v.cliente, v.vendedor);
+            }
+        }, "cod_venta", "fecha_hora_venta", "monto_venta", "igv", "descuento", "puntos_venta",
+                "cod_estado_venta", "cod_cond_pago", "nro_cuotas", "cod_cliente", "cod_vendedor");
+
+        cargar("producto_venta", c -> {
+            for (int k = 0; k < ventas; k++) {
+                PlanVenta v = planVenta(k);
+                for (int i = 0; i < v.productos.length; i++) {
+                    c.fila(v.codVenta, v.productos[i], v.cantidades[i], dinero(v.precios[i]), dinero(v.descuentos[i]),
+                            dinero(v.precios[i] * v.cantidades[i]), v.puntos[i], v.estados[i], v.direcciones[i],
+                            v.fechasEntrega[i]);
+                }
+            }
+        }, "cod_venta", "cod_producto", "cantidad_producto", "precio_unitario", "descuento_unitario",
+                "monto_unitario", "puntos_unitario", "cod_estado_prodv", "direccion_entrega", "fecha_entrega");
+
+        // Un comprobante por cuota pagada; la pasada de pagos recorre las cuotas en el mismo orden
+        cargar("comprobante", c -> {
+            int cod = baseComprobante;
+            for (int k = 0; k < ventas; k++) {
+                PlanVenta v = planVenta(k);
+                for (int i = 0; i < v.estadosPago.length; i++) {
+                    if (v.estadosPago[i] == PAGO_PAGADO) {
+                        c.fila(cod, v.tipoComprobante, String.format("G%03d-%08d", v.caja % 1000, cod), v.fechasPago[i]);
+                        cod++;
+                    }
+                }
+            }
+        }, "cod_comprobante", "cod_tipo_comprobante", "nro_comprobante", "fecha_emision");
+
+        cargar("pago", c -> {
+            int cod = baseComprobante;
+            for (int k = 0; k < ventas; k++) {
+                PlanVenta v = planVenta(k);
+                String pagador = v.cliente != null ? nombrePersona(v.indiceCliente) : "Cliente varios";
+                String telefono = v.cliente != null ? telefono(v.indiceCliente) : null;
+                for (int i = 0; i < v.estadosPago.length; i++) {
+                    boolean pagado = v.estadosPago[i] == PAGO_PAGADO;
+                    c.fila(v.codVenta, i + 1, dinero(v.montosCuota[i]), v.vencimientos[i], v.fechasPago[i],
+                            pagado ? pagador : null, pagado ? telefono : null,
+                            pagado ? v.caja : null, pagado ? cod++ : null,
+                            v.estadosPago[i], pagado ? v.metodoPago : null);
+                }
+            }
+        }, "cod_venta", "nro_cuota", "monto_pago", "fecha_vencimiento_pago", "fecha_pago", "nombre_pagador",
+                "nro_telf_pagador", "cod_caja", "cod_comprobante", "cod_estado_pago", "cod_metodo_pago");
+    }
+
+    // ==========================================
+    // RECLAMOS
+    // ==========================================
+
+    private void recorrerReclamos(Reclamo tipo, PasadaReclamo pasada) throws SQLException {
+        int cod = baseReclamo;
+        for (int k = 0; k < ventas; k++) {
+            PlanVenta v = planVenta(k);
+            if (v.reclamo != Reclamo.NINGUNO) {
+                if (tipo == null || tipo == v.reclamo) {
+                    pasada.escribir(v, cod);
+                }
+                cod++;
+            }
+        }
+    }
+
+    private void cargarReclamos() throws SQLException {
+        cargar("reclamo", c -> recorrerReclamos(null,
+                (v, cod) -> c.fila(cod, v.codVenta, v.cliente)),
+                "cod_reclamo", "cod_venta", "cod_cliente");
+
+        cargar("devolucion", c -> recorrerReclamos(Reclamo.DEVOLUCION,
+                (v, cod) -> c.fila(cod, v.fechaReclamo, dinero(v.precios[0] * v.cantidades[0]), v.motivo, v.caja,
+                        v.productos[0], "Devolución de producto")),
+                "cod_reclamo", "fecha_hora_devolucion", "monto_devolucion", "cod_motivo_devolucion", "cod_caja",
+                "producto_devuelto", "descp_devolucion");
+
+        cargar("cambio_producto", c -> recorrerReclamos(Reclamo.CAMBIO,
+                (v, cod) -> c.fila(cod, v.fechaReclamo, v.productos[0], v.productoEntrega, dinero(v.diferenciaCambio),
+                        v.motivo, v.caja, "Cambio de producto")),
+                "cod_reclamo", "fecha_hora_cp", "producto_retorna", "producto_entrega", "diferencia_cambio",
+                "cod_motivo_cambio_prod", "cod_caja", "descp_cambio");
+
+        cargar("anulacion", c -> recorrerReclamos(Reclamo.ANULACION,
+                (v, cod) -> c.fila(cod, v.fechaReclamo, v.motivo, "Anulación a pedido del cliente")),
+                "cod_reclamo", "fecha_hora_anulacion", "cod_motivo_anulacion", "descp_anulacion");
+    }
+
+    // ==========================================
+    // CANJES
+    // ==========================================
+
+    private void cargarCanjes() throws SQLException {
+        if (premios.length == 0 || maestros == 0 || canjes == 0) {
+            System.out.println("  aviso: sin premios o sin maestros, no se generan canjes");
+            return;
+        }
+
+        cargar("canje", c -> {
+            for (int k = 0; k < canjes; k++) {
+                PlanCanje p = planCanje(k);
+                double monto = 0;
+                for (int[] item : p.items()) {
+                    monto += puntosPremio[item[0]] * item[1];
+                }
+                c.fila(baseCanje + k, p.maestro(), p.usuario(), dinero(monto), p.estado(), p.fecha());
+            }
+        }, "cod_canje", "cod_maestro", "cod_usuario", "monto_canje", "cod_estado_canje", "fecha_hora_canje");
+
+        cargar("detalle_canje", c -> {
+            for (int k = 0; k < canjes; k++) {
+                for (int[] item : planCanje(k).items()) {
+                    c.fila(baseCanje + k, premios[item[0]], item[1]);
+                }
+            }
+        }, "cod_canje", "cod_premio", "cantidad_premio");
+    }
+
+    private record PlanCanje(int maestro, int usuario, int estado, LocalDateTime fecha, List<int[]> items) {
+    }
+
+    // Los maestros que más compran también canjean más; la mayoría de canjes quedan en el primer estado
+    private PlanCanje planCanje(int k) {
+        SplittableRandom rng = rng(20, k);
+        int maestro = baseMaestro + zipfMaestros.muestra(rng);
+        int usuario = baseUsuario + rng.nextInt(usuarios);
+        int estado = rng.nextDouble() < 0.9 ? estadosCanje[0] : elegir(estadosCanje, rng);
+        LocalDateTime fecha = fechaEnOrden(k, canjes, rng);
+        return new PlanCanje(maestro, usuario, estado, fecha, itemsCanje(rng));
+    }
+
+    // Premios distintos (índice, cantidad) de un canje
+    private List<int[]> itemsCanje(SplittableRandom rng) {
+        int n = Math.min(premios.length, 1 + (rng.nextDouble() < 0.3 ? 1 + rng.nextInt(2) : 0));
+        List<int[]> items = new ArrayList<>(n);
+        int[] elegidos = new int[n];
+        for (int i = 0; i < n; i++) {
+            int p;
+            do {
+                p = zipfPremios.muestra(rng);
+            } while (contiene(elegidos, i, p));
+            elegidos[i] = p;
+            items.add(new int[] {p, 1 + rng.nextInt(3)});
+        }
+        return items;
+    }
+
+    // ==========================================
+    // ABASTECIMIENTO
+    // ==========================================
+    // Etapas de un pedido: 0 pendiente, 1 revisado, 2 solicitud enviada, 3 cotizada, 4 adjudicada
+    // (orden de compra). Los pedidos antiguos casi siempre llegaron a la orden de compra.
+
+    private static final class PlanPedido {
+        int codPedido;
+        LocalDate fecha;
+        LocalTime hora;
+        int usuario;
+        int etapa;
+        int[] productos;
+        int[] cantidades;
+        LocalDate[] fechasRequeridas;
+        String[] destinosExternos;
+
+        LocalDate fechaSolicitud;
+        int[] proveedores;
+        LocalDate[] fechasCotizacion;
+        int[] plazos;
+        String[] modalidades;
+        double[][] costos;
+        double[] montos;
+        int ganadora;
+        LocalDate fechaOrden;
+        boolean programada;
+    }
+
+    private PlanPedido planPedido(int k) {
+        SplittableRandom rng = rng(30, k);
+        PlanPedido p = new PlanPedido();
+        p.codPedido = basePedido + k;
+        LocalDateTime fecha = fechaEnOrden(k, pedidos, rng);
+        p.fecha = fecha.toLocalDate();
+        p.hora = fecha.toLocalTime();
+        p.usuario = baseUsuario + rng.nextInt(usuarios);
+
+        double r = rng.nextDouble();
+        if (k < pedidos * 0.9) {
+            p.etapa = r < 0.05 ? 0 : r < 0.1 ? 1 : r < 0.2 ? 2 : r < 0.3 ? 3 : 4;
+        } else {
+            p.etapa = rng.nextInt(5);
+        }
+        if (proveedores.length == 0) {
+            p.etapa = Math.min(p.etapa, 2);
+        }
+
+        int n = Math.min(productos.length, 1 + rng.nextInt(8));
+        p.productos = new int[n];
+        p.cantidades = new int[n];
+        p.fechasRequeridas = new LocalDate[n];
+        p.destinosExternos = new String[n];
+        int[] elegidos = new int[n];
+        for (int i = 0; i < n; i++) {
+            int e;
+            do {
+                e = zipfProductos.muestra(rng);
+            } while (contiene(elegidos, i, e));
+            elegidos[i] = e;
+            p.productos[i] = e;
+            p.cantidades[i] = 10 * (1 + rng.nextInt(50));
+            p.fechasRequeridas[i] = p.fecha.plusDays(7 + rng.nextInt(24));
+            if (rng.nextDouble() < 0.2) {
+                p.destinosExternos[i] = elegir(VIAS, rng) + " " + (100 + rng.nextInt(2900)) + ", " + elegir(DISTRITOS, rng);
+            }
+        }
+
+        if (p.etapa >= 2) {
+            p.fechaSolicitud = p.fecha.plusDays(1 + rng.nextInt(3));
+        }
+        if (p.etapa >= 3) {
+            int m = Math.min(proveedores.length, 1 + rng.nextInt(3));
+            p.proveedores = new int[m];
+            p.fechasCotizacion = new LocalDate[m];
+            p.plazos = new int[m];
+            p.modalidades = new String[m];
+            p.costos = new double[m][n];
+            p.montos = new double[m];
+            int[] prov = new int[m];
+            for (int j = 0; j < m; j++) {
+                int e;
+                do {
+                    e = rng.nextInt(proveedores.length);
+                } while (contiene(prov, j, e));
+                prov[j] = e;
+                p.proveedores[j] = proveedores[e];
+                p.fechasCotizacion[j] = p.fechaSolicitud.plusDays(2 + rng.nextInt(6));
+                p.plazos[j] = 5 + rng.nextInt(26);
+                p.modalidades[j] = elegir(MODALIDADES, rng);
+                double factor = 0.55 + rng.nextDouble() * 0.25;
+                for (int i = 0; i < n; i++) {
+                    p.costos[j][i] = redondear(precios[p.productos[i]] * p.cantidades[i] * factor);
+                    p.montos[j] += p.costos[j][i];
+                }
+                if (p.montos[j] < p.montos[p.ganadora]) {
+                    p.ganadora = j;
+                }
+            }
+        }
+        if (p.etapa >= 4) {
+            p.fechaOrden = p.fechasCotizacion[p.ganadora].plusDays(1 + rng.nextInt(5));
+            p.programada = k < pedidos * 0.8 || rng.nextBoolean();
+        }
+        return p;
+    }
+
+    private void cargarAbastecimiento() throws SQLException {
+        if (pedidos == 0) {
+            return;
+        }
+
+        cargar("pedido_abastecimiento", c -> {
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                c.fila(p.codPedido, p.fecha, p.hora, p.etapa == 0 ? "Pendiente" : "Revisado", p.usuario);
+            }
+        }, "cod_pedido", "fecha_pedido", "hora_pedido", "estado_pedido", "cod_usuario");
+
+        cargar("detalle_pedido", c -> {
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                for (int i = 0; i < p.productos.length; i++) {
+                    c.fila(p.codPedido, productos[p.productos[i]], p.cantidades[i], ESTADOS_DETALLE_PEDIDO[p.etapa],
+                            p.fechasRequeridas[i], p.destinosExternos[i] != null ? "Externo" : "Interno",
+                            p.destinosExternos[i]);
+                }
+            }
+        }, "cod_pedido", "cod_producto", "cantidad_requerida", "estado", "fecha_requerida", "tipo_destino",
+                "direccion_destino_externo");
+
+        cargar("solicitud_cotizacion", c -> {
+            int cod = baseSolicitud;
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                if (p.etapa >= 2) {
+                    String estado = p.etapa == 2 ? "Enviada" : p.etapa == 3 ? "Cotizada" : "Adjudicada";
+                    c.fila(cod++, p.usuario, estado, p.fechaSolicitud);
+                }
+            }
+        }, "cod_solicitud", "cod_usuario", "estado", "fecha_emision");
+
+        cargar("detalle_solicitud", c -> {
+            int cod = baseSolicitud;
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                if (p.etapa >= 2) {
+                    for (int i = 0; i < p.productos.length; i++) {
+                        c.fila(cod, productos[p.productos[i]], p.cantidades[i]);
+                    }
+                    cod++;
+                }
+            }
+        }, "cod_solicitud", "cod_producto", "cantidad_solicitada");
+
+        cargar("cotizacion", c -> {
+            int solicitud = baseSolicitud;
+            int cod = baseCotizacion;
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                if (p.etapa >= 3) {
+                    for (int j = 0; j < p.proveedores.length; j++) {
+                        c.fila(cod++, solicitud, p.proveedores[j], p.fechasCotizacion[j],
+                                p.fechasCotizacion[j].plusYears(1), dinero(p.montos[j]), p.plazos[j]);
+                    }
+                }
+                if (p.etapa >= 2) {
+                    solicitud++;
+                }
+            }
+        }, "cod_cotizacion", "cod_solicitud", "cod_proveedor", "fecha_emision_cotizacion", "fecha_garantia",
+                "monto_total", "plazo_entrega");
+
+        cargar("detalle_cotizacion", c -> {
+            int cod = baseCotizacion;
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                if (p.etapa >= 3) {
+                    for (int j = 0; j < p.proveedores.length; j++) {
+                        for (int i = 0; i < p.productos.length; i++) {
+                            c.fila(cod, productos[p.productos[i]], dinero(p.costos[j][i]), p.modalidades[j]);
+                        }
+                        cod++;
+                    }
+                }
+            }
+        }, "cod_cotizacion", "cod_producto", "costo_total", "modalidad_pago");
+
+        cargar("orden_compra", c -> {
+            int cotizacion = baseCotizacion;
+            int cod = baseOrden;
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                if (p.etapa >= 4) {
+                    c.fila(cod++, cotizacion + p.ganadora, p.fechaOrden, dinero(p.montos[p.ganadora]),
+                            p.modalidades[p.ganadora], p.programada ? "Programada" : "Emitida");
+                }
+                if (p.etapa >= 3) {
+                    cotizacion += p.proveedores.length;
+                }
+            }
+        }, "cod_orden", "cod_cotizacion", "fecha_emision", "monto", "modalidad_pago", "estado");
+
+        cargar("detalle_oc", c -> {
+            int cod = baseOrden;
+            for (int k = 0; k < pedidos; k++) {
+                PlanPedido p = planPedido(k);
+                if (p.etapa >= 4) {
+                    for (int i = 0; i < p.productos.length; i++) {
+                        c.fila(cod, productos[p.productos[i]], p.cantidades[i], dinero(p.costos[p.ganadora][i]));
+                    }
+                    cod++;
+                }
+            }
+        }, "cod_orden", "cod_producto", "cantidad_comprada", "costo_total");
+    }
+
+    // ==========================================
+    // UTILIDADES
+    // ==========================================
+
+    private void cargar(String tabla, Pasada pasada, String... columnas) throws SQLException {
+        long inicio = System.nanoTime();
+        long filas;
+        try (EscritorCopy copia = new EscritorCopy(con, tabla, columnas)) {
+            pasada.escribir(copia);
+            filas = copia.getFilas();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        totalFilas += filas;
+        System.out.printf("%-22s %12d filas %8.1f s %12.0f filas/s%n", tabla, filas, segundos, filas / segundos);
+    }
+
+    // Tablas secundarias (documentos, contactos, direcciones) que no todas las bases tienen
+    private void cargarSiExiste(String tabla, Pasada pasada, String... columnas) throws SQLException {
+        if (existe(tabla)) {
+            cargar(tabla, pasada, columnas);
+        } else {
+            System.out.printf("  aviso: la tabla %s no existe, se omite%n", tabla);
+        }
+    }
+
+    private boolean existe(String tabla) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            ps.setString(1, tabla);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private int siguiente(String tabla, String columna) throws SQLException {
+        if (!existe(tabla)) {
+            return 1;
+        }
+        try (Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT coalesce(max(" + columna + "), 0) + 1 FROM " + tabla)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private int[] claves(String sql) throws SQLException {
+        List<double[]> filas = filas(sql);
+        int[] claves = new int[filas.size()];
+        for (int i = 0; i < claves.length; i++) {
+            claves[i] = (int) filas.get(i)[0];
+        }
+        return claves;
+    }
+
+    // Catálogo cuyo nombre de tabla no se conoce con certeza: si la consulta falla, se usan los códigos
+    // de la propiedad (separados por comas)
+    private int[] claves(String sql, String propiedad, String porDefecto) throws SQLException {
+        String valor = System.getProperty(propiedad);
+        if (valor == null) {
+            try {
+                int[] claves = claves(sql);
+                if (claves.length > 0) {
+                    return claves;
+                }
+            } catch (SQLException e) {
+                System.out.printf("  aviso: %s (%s); se usa %s=%s%n", e.getMessage().lines().findFirst().orElse(""),
+                        sql, propiedad, porDefecto);
+            }
+            valor = porDefecto;
+        }
+        return Arrays.stream(valor.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt).toArray();
+    }
+
+    private List<double[]> filas(String sql) throws SQLException {
+        List<double[]> filas = new ArrayList<>();
+        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            int columnas = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                double[] fila = new double[columnas];
+                for (int i = 0; i < columnas; i++) {
+                    fila[i] = rs.getDouble(i + 1);
+                }
+                filas.add(fila);
+            }
+        }
+        return filas;
+    }
+
+    private static int[] requerir(int[] claves, String catalogo) {
+        if (claves.length == 0) {
+            throw new IllegalStateException("Catálogo vacío: " + catalogo + ". Cargue primero los datos maestros.");
+        }
+        return claves;
+    }
+
+    // Generador propio de cada elemento: flujo (tabla) + posición
+    private SplittableRandom rng(int flujo, long indice) {
+        return new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + flujo * 0xBF58476D1CE4E5B9L + indice);
+    }
+
+    // Fechas crecientes con la posición, repartidas en gen.dias, en horario de 8 a 20
+    private LocalDateTime fechaEnOrden(int k, int total, SplittableRandom rng) {
+        long dia = (long) k * dias / Math.max(1, total);
+        return desde.plusDays(dia).atTime(8 + rng.nextInt(12), rng.nextInt(60));
+    }
+
+    private String nombrePersona(int indice) {
+        SplittableRandom rng = rng(4, indice);
+        return elegir(NOMBRES, rng) + " " + elegir(APELLIDOS, rng) + " " + elegir(APELLIDOS, rng);
+    }
+
+    private static String telefono(int indice) {
+        return "9" + String.format("%08d", (indice * 7_919L + 12_345_678L) % 100_000_000L);
+    }
+
+    private static boolean contiene(int[] valores, int hasta, int valor) {
+        for (int i = 0; i < hasta; i++) {
+            if (valores[i] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int elegir(int[] valores, SplittableRandom rng) {
+        return valores[rng.nextInt(valores.length)];
+    }
+
+    private static String elegir(String[] valores, SplittableRandom rng) {
+        return valores[rng.nextInt(valores.length)];
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    private static String dinero(double valor) {
+        return BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+}
@@ -0,0 +1,100 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+
+import pe.edu.uni.ProyectoFerreteria.dto.ListadoVentasDto;
+import pe.edu.uni.ProyectoFerreteria.dto.MaestroCompletoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PagoPendienteDto;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+
+/**
+ * Filas/segundo y bytes asignados por fila: MapeadorFilas vs BeanPropertyRowMapper sobre los DTO de listado.
+ * Una operación = una fila (OperationsPerInvocation), así "ops/s" son filas/s y, con -prof gc,
+ * "gc.alloc.rate.norm" son bytes por fila.
+ *
+ *   mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath org.openjdk.jmh.Main MapeadorFilasBenchmark -prof gc"
+ *
+ * Con resultados en JSON (perfil benchmarks): mvn -Pbenchmarks verify -Djmh.incluir=MapeadorFilasBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeadorFilasBenchmark {
+
+    private static final int FILAS = 1000;
+
+    @Param({"ListadoVentasDto", "PagoPendienteDto", "MaestroCompletoDto"})
+    public String dto;
+
+    private CachedRowSet filas;
+    private Class<?> tipo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        switch (dto) {
+            case "ListadoVentasDto" -> {
+                tipo = ListadoVentasDto.class;
+                filas = FilasEnMemoria.deTexto(FILAS, "venta", "vendedor", "fecha", "hora", "monto", "estado");
+            }
+            case "PagoPendienteDto" -> {
+                tipo = PagoPendienteDto.class;
+                filas = FilasEnMemoria.deTexto(FILAS,
+                        "venta", "cliente", "cuota", "fecha_vencimiento", "monto", "condicion");
+            }
+            default -> {
+                tipo = MaestroCompletoDto.class;
+                filas = FilasEnMemoria.crear(FILAS,
+                        new String[] {"codpersona", "codmaestro", "nombre", "ruc", "distrito",
+                                "telefono", "correo", "especialidad", "fecharegistro"},
+                        new int[] {Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                                Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR});
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public void beanPropertyRowMapper(Blackhole bh) throws SQLException {
+        mapear(new BeanPropertyRowMapper<>(tipo), bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public void mapeadorFilas(Blackhole bh) throws SQLException {
+        mapear(MapeadorFilas.de(tipo), bh);
+    }
+
+    // Igual que en los servicios: un mapper nuevo por consulta
+    private void mapear(RowMapper<?> mapper, Blackhole bh) throws SQLException {
+        filas.beforeFirst();
+        int n = 0;
+        while (filas.next()) {
+            bh.consume(mapper.mapRow(filas, n++));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga HTTP para comparar los dos modos de ejecución de la aplicación:
+ * - "plataforma": hilos de Tomcat (configuración por defecto)
+ * - "virtual":    spring.threads.virtual.enabled=true y jdbc.limite.habilitado=true
+ *
+ * La aplicación debe estar levantada en el modo a medir; se corre una vez por modo y se comparan
+ * peticiones/segundo y latencias p50 / p99 / máxima. Cada cliente repite en bucle las rutas de
+ * bench.rutas (por defecto el perfil de maestro, que hace ~11 consultas bloqueantes, y el listado
+ * de ventas).
+ *
+ *   mvn spring-boot:run -Dspring-boot.run.arguments="--spring.threads.virtual.enabled=true --jdbc.limite.habilitado=true"
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=pe.edu.uni.ProyectoFerreteria.benchmark.ModoEjecucionCargaBenchmark \
+ *       -Dbench.modo=virtual -Dbench.clientes=50,200,1000 -Dbench.segundos=30
+ */
+public class ModoEjecucionCargaBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String base = System.getProperty("bench.base", "http://localhost:8080");
+        String modo = System.getProperty("bench.modo", "plataforma");
+        int segundos = Integer.getInteger("bench.segundos", 30);
+        List<String> rutas = Arrays.asList(
+                System.getProperty("bench.rutas", "/api/maestros/1/perfil,/api/ventas/principal/pagina?limite=50").split(","));
+        int[] clientes = Arrays.stream(System.getProperty("bench.clientes", "50,200,1000").split(","))
+                .mapToInt(c -> Integer.parseInt(c.trim())).toArray();
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        // Calentamiento: JIT del servidor y pool de conexiones lleno
+        correr(http, base, rutas, Math.min(20, clientes[0]), Math.max(3, segundos / 5));
+
+        System.out.printf("%-10s %8s %10s %10s %10s %10s %10s %8s%n",
+                "modo", "clientes", "pet/s", "p50 ms", "p99 ms", "max ms", "errores", "ok %");
+        for (int n : clientes) {
+            Resultado r = correr(http, base, rutas, n, segundos);
+            System.out.printf("%-10s %8d %10.1f %10.2f %10.2f %10.2f %10d %8.2f%n",
+                    modo, n, r.porSegundo(), r.percentil(50), r.percentil(99), r.percentil(100),
+                    r.errores(), r.porcentajeOk());
+        }
+    }
+
+    private record Resultado(long[] latenciasNs, long errores, double segundos) {
+
+        double porSegundo() {
+            return latenciasNs.length / segundos;
+        }
+
+        double percentil(double p) {
+            if (latenciasNs.length == 0) {
+                return 0;
+            }
+            int i = (int) Math.ceil(p / 100.0 * latenciasNs.length) - 1;
+            return latenciasNs[Math.max(0, Math.min(i, latenciasNs.length - 1))] / 1e6;
+        }
+
+        double porcentajeOk() {
+            long total = latenciasNs.length + errores;
+            return total == 0 ? 0 : 100.0 * latenciasNs.length / total;
+        }
+    }
+
+    // Bucle cerrado: cada cliente envía la siguiente petición al recibir la respuesta anterior
+    private static Resultado correr(HttpClient http, String base, List<String> rutas, int clientes, int segundos)
+            throws InterruptedException {
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        List<long[]> porCliente = new ArrayList<>(clientes);
+        int[] cantidades = new int[clientes];
+        AtomicLong errores = new AtomicLong();
+        CountDownLatch listos = new CountDownLatch(clientes);
+
+        long inicio = System.nanoTime();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                long[] latencias = new long[1 << 16];
+                porCliente.add(latencias);
+                int cliente = c;
+                hilos.execute(() -> {
+                    int n = 0;
+                    long[] propias = latencias;
+                    int ruta = cliente;
+                    try {
+                        while (System.nanoTime() < fin) {
+                            HttpRequest req = HttpRequest.newBuilder(URI.create(base + rutas.get(ruta++ % rutas.size())))
+                                    .timeout(Duration.ofSeconds(30))
+                                    .GET()
+                                    .build();
+                            long t0 = System.nanoTime();
+                            try {
+                                HttpResponse<Void> resp = http.send(req, HttpResponse.BodyHandlers.discarding());
+                                long t = System.nanoTime() - t0;
+                                if (resp.statusCode() >= 500) {
+                                    errores.incrementAndGet();
+                                    continue;
+                                }
+                                if (n == propias.length) {
+                                    propias = Arrays.copyOf(propias, n * 2);
+                                    porCliente.set(cliente, propias);
+                                }
+                                propias[n++] = t;
+                            } catch (Exception e) {
+                                errores.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        cantidades[cliente] = n;
+                        listos.countDown();
+                    }
+                });
+            }
+            listos.await();
+        }
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        int total = 0;
+        for (int n : cantidades) {
+            total += n;
+        }
+        long[] todas = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clientes; c++) {
+            System.arraycopy(porCliente.get(c), 0, todas, pos, cantidades[c]);
+            pos += cantidades[c];
+        }
+        Arrays.sort(todas);
+        return new Resultado(todas, errores.get(), duracion);
+    }
+}
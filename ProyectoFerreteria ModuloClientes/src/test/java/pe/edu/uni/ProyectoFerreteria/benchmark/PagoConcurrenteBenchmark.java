@@ -0,0 +1,216 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import pe.edu.uni.ProyectoFerreteria.dto.CuotaPagadaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.ItemVentaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PagoRequestDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PagoResponseDto;
+import pe.edu.uni.ProyectoFerreteria.dto.VentaRequestDto;
+import pe.edu.uni.ProyectoFerreteria.service.ConsultasVentasService;
+import pe.edu.uni.ProyectoFerreteria.service.NumeracionComprobanteService;
+import pe.edu.uni.ProyectoFerreteria.service.ResumenVentaService;
+import pe.edu.uni.ProyectoFerreteria.util.ConexionesAuxiliares;
+import pe.edu.uni.ProyectoFerreteria.util.CuotasInsuficientesException;
+
+/**
+ * Prueba de concurrencia de registrarPago: varias cajas pagan a la vez las cuotas de una misma venta
+ * a crédito hasta agotarlas. Para cada modo informa pagos/segundo y verifica el resultado:
+ * - ninguna cuota se cobra dos veces (cod_pago repetido entre respuestas),
+ * - al final no queda ninguna cuota pendiente y se cobraron exactamente las que había.
+ *
+ * Modos:
+ * - "antes":   SELECT ... LIMIT 1 y luego UPDATE (implementación original; cobra cuotas dos veces)
+ * - "despues": ConsultasVentasService.registrarPago (bloquea la cuota más antigua con FOR UPDATE)
+ *
+ * Requiere una base FERRETERIA local de pruebas: cada corrida deja confirmadas dos ventas a crédito.
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=pe.edu.uni.ProyectoFerreteria.benchmark.PagoConcurrenteBenchmark \
+ *       -Dbench.cliente=1 -Dbench.vendedor=1 -Dbench.productos=1 -Dbench.condPago=2 \
+ *       -Dbench.cuotas=400 -Dbench.hilos=16 -Dbench.cuotasPorPago=1
+ *
+ * Termina con código 1 si el modo "despues" no cumple alguna de las verificaciones.
+ */
+public class PagoConcurrenteBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int hilos = Integer.getInteger("bench.hilos", 16);
+        int cuotasPorPago = Integer.getInteger("bench.cuotasPorPago", 1);
+
+        HikariDataSource ds = new HikariDataSource();
+        ds.setJdbcUrl(System.getProperty("bench.url",
+                "jdbc:postgresql://localhost:5434/postgres?currentSchema=\"FERRETERIA\""));
+        ds.setUsername(System.getProperty("bench.usuario", "postgres"));
+        ds.setPassword(System.getProperty("bench.clave", "sql"));
+        ds.setMaximumPoolSize(hilos + 1);
+
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+
+        ConsultasVentasService service = new ConsultasVentasService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(service, "resumen", new ResumenVentaService(jdbc));
+        ReflectionTestUtils.setField(service, "numeracion", new NumeracionComprobanteService(jdbc,
+                new ConexionesAuxiliares(new DriverManagerDataSource(ds.getJdbcUrl(), ds.getUsername(), ds.getPassword())),
+                100, 20));
+
+        System.out.printf("%-8s %6s %8s %10s %10s %12s %10s%n",
+                "modo", "hilos", "cuotas", "cobradas", "dobles", "pendientes", "pagos/s");
+
+        Resultado antes = correr(jdbc, tx, service, hilos, cod -> pagoOriginal(jdbc, cod));
+        antes.imprimir("antes", hilos);
+
+        Resultado despues = correr(jdbc, tx, service, hilos, cod -> {
+            PagoRequestDto request = new PagoRequestDto();
+            request.setCod_venta(cod);
+            request.setCod_metodo_pago(Integer.getInteger("bench.metodoPago", 1));
+            request.setCod_caja(Integer.getInteger("bench.caja", 1));
+            request.setNombre_pagador("Benchmark");
+            request.setNro_telf_pagador("000000000");
+            request.setCantidad_cuotas(cuotasPorPago);
+            PagoResponseDto r = service.registrarPago(request);
+            List<Integer> cods = new ArrayList<>();
+            for (CuotaPagadaDto c : r.getCuotas_pagadas()) {
+                cods.add(c.getCod_pago());
+            }
+            return cods;
+        });
+        despues.imprimir("despues", hilos);
+
+        ds.close();
+        if (!despues.correcto()) {
+            System.err.println("FALLO: registrarPago cobró cuotas de más o dejó cuotas sin cobrar.");
+            System.exit(1);
+        }
+    }
+
+    private record Resultado(int cuotas, long cobradas, long dobles, int pendientes, double pagosPorSegundo) {
+
+        boolean correcto() {
+            return dobles == 0 && pendientes == 0 && cobradas == cuotas;
+        }
+
+        void imprimir(String modo, int hilos) {
+            System.out.printf("%-8s %6d %8d %10d %10d %12d %10.1f%n",
+                    modo, hilos, cuotas, cobradas, dobles, pendientes, pagosPorSegundo);
+        }
+    }
+
+    private static Resultado correr(JdbcTemplate jdbc, TransactionTemplate tx, ConsultasVentasService service,
+            int hilos, Function<Integer, List<Integer>> pagar) throws InterruptedException {
+
+        int codVenta = tx.execute(status -> service.registrarVenta(crearVentaCredito()).getCod_venta());
+        int cuotas = contarPendientes(jdbc, codVenta);
+
+        Map<Integer, Integer> vecesCobrada = new ConcurrentHashMap<>();
+        AtomicLong operaciones = new AtomicLong();
+        CountDownLatch salida = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(hilos);
+        ExecutorService cajas = Executors.newFixedThreadPool(hilos);
+
+        for (int i = 0; i < hilos; i++) {
+            cajas.execute(() -> {
+                try {
+                    salida.await();
+                    while (true) {
+                        List<Integer> cobradas;
+                        try {
+                            cobradas = tx.execute(status -> pagar.apply(codVenta));
+                        } catch (CuotasInsuficientesException e) {
+                            break;   // no quedan cuotas pendientes
+                        }
+                        if (cobradas == null || cobradas.isEmpty()) {
+                            break;
+                        }
+                        operaciones.incrementAndGet();
+                        for (Integer cod : cobradas) {
+                            vecesCobrada.merge(cod, 1, Integer::sum);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fin.countDown();
+                }
+            });
+        }
+
+        long inicio = System.nanoTime();
+        salida.countDown();
+        fin.await();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        cajas.shutdown();
+
+        long cobradas = 0;
+        long dobles = 0;
+        for (int veces : vecesCobrada.values()) {
+            cobradas += veces;
+            dobles += veces - 1;
+        }
+        return new Resultado(cuotas, cobradas, dobles, contarPendientes(jdbc, codVenta),
+                operaciones.get() / segundos);
+    }
+
+    private static int contarPendientes(JdbcTemplate jdbc, int codVenta) {
+        return jdbc.queryForObject("SELECT count(*) FROM pago WHERE cod_venta = ? AND cod_estado_pago IN (1,3)",
+                Integer.class, codVenta);
+    }
+
+    private static VentaRequestDto crearVentaCredito() {
+        ItemVentaDto item = new ItemVentaDto();
+        item.setCod_producto(Integer.valueOf(System.getProperty("bench.productos", "1").split(",")[0].trim()));
+        item.setCantidad(1);
+        item.setDescuento_unitario(0f);
+
+        VentaRequestDto request = new VentaRequestDto();
+        request.setCod_cond_pago(Integer.getInteger("bench.condPago", 2));
+        request.setNro_cuotas(Integer.getInteger("bench.cuotas", 400));
+        request.setCod_cliente(Integer.getInteger("bench.cliente", 1));
+        request.setCod_vendedor(Integer.getInteger("bench.vendedor", 1));
+        request.setCod_tipo_comprobante(Integer.getInteger("bench.tipoComprobante", 1));
+        request.setNro_comprobante("BENCH-PAGO");
+        request.setCod_metodo_pago(Integer.getInteger("bench.metodoPago", 1));
+        request.setCod_caja(Integer.getInteger("bench.caja", 1));
+        request.setNombre_pagador("Benchmark");
+        request.setNro_telf_pagador("000000000");
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    // Implementación original: leer "la próxima cuota pendiente" y luego actualizarla, sin bloqueo
+    private static List<Integer> pagoOriginal(JdbcTemplate jdbc, int codVenta) {
+        List<Integer> pendientes = jdbc.queryForList("""
+                SELECT cod_pago FROM pago
+                WHERE cod_venta = ? AND cod_estado_pago IN (1,3)
+                ORDER BY nro_cuota ASC
+                LIMIT 1
+                """, Integer.class, codVenta);
+        if (pendientes.isEmpty()) {
+            throw new CuotasInsuficientesException("No existe ninguna cuota pendiente para esta venta.");
+        }
+        jdbc.update("""
+                UPDATE pago
+                SET fecha_pago = now(), cod_metodo_pago = ?, cod_caja = ?,
+                    nombre_pagador = 'Benchmark', nro_telf_pagador = '000000000', cod_estado_pago = 2
+                WHERE cod_pago = ?
+                """, Integer.getInteger("bench.metodoPago", 1), Integer.getInteger("bench.caja", 1),
+                pendientes.get(0));
+        return pendientes;
+    }
+}
@@ -0,0 +1,174 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import pe.edu.uni.ProyectoFerreteria.dto.AnulacionRequestDto;
+import pe.edu.uni.ProyectoFerreteria.dto.CambioProductoRequestDto;
+import pe.edu.uni.ProyectoFerreteria.dto.DevolucionRequestDto;
+import pe.edu.uni.ProyectoFerreteria.service.ConsultasVentasService;
+import pe.edu.uni.ProyectoFerreteria.service.DatosReferenciaService;
+import pe.edu.uni.ProyectoFerreteria.service.DetalleVentaCache;
+import pe.edu.uni.ProyectoFerreteria.service.ResumenVentaService;
+
+/**
+ * Mide reclamos/segundo de devolución, cambio de producto y anulación, comparando:
+ * - "antes":   la secuencia original de 5-6 sentencias por reclamo
+ * - "despues": ConsultasVentasService (una sentencia con CTEs que modifican datos)
+ *
+ * Requiere una base FERRETERIA local con una venta que tenga el producto indicado. Se ejecuta con:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=pe.edu.uni.ProyectoFerreteria.benchmark.ReclamoBenchmark \
+ *       -Dbench.venta=1 -Dbench.producto=1 -Dbench.productoEntrega=2
+ *
+ * Cada reclamo se revierte al terminar (bench.rollback=true por defecto), así la misma venta sirve
+ * para todas las iteraciones.
+ */
+public class ReclamoBenchmark {
+
+    public static void main(String[] args) {
+        String url = System.getProperty("bench.url",
+                "jdbc:postgresql://localhost:5434/postgres?currentSchema=\"FERRETERIA\"");
+        String usuario = System.getProperty("bench.usuario", "postgres");
+        String clave = System.getProperty("bench.clave", "sql");
+        int segundos = Integer.getInteger("bench.segundos", 10);
+        boolean rollback = Boolean.parseBoolean(System.getProperty("bench.rollback", "true"));
+
+        int venta = Integer.getInteger("bench.venta", 1);
+        int producto = Integer.getInteger("bench.producto", 1);
+        int productoEntrega = Integer.getInteger("bench.productoEntrega", 2);
+        int caja = Integer.getInteger("bench.caja", 1);
+        int motivo = Integer.getInteger("bench.motivo", 1);
+
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(url, usuario, clave, true);
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+
+        ConsultasVentasService service = new ConsultasVentasService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(service, "resumen", new ResumenVentaService(jdbc));
+        ReflectionTestUtils.setField(service, "referencia", new DatosReferenciaService(jdbc));
+        ReflectionTestUtils.setField(service, "cacheDetalle", new DetalleVentaCache(100));
+
+        DevolucionRequestDto devolucion = new DevolucionRequestDto();
+        devolucion.setCod_venta(venta);
+        devolucion.setCod_caja(caja);
+        devolucion.setCod_motivo_devolucion(motivo);
+        devolucion.setCod_producto_devuelto(producto);
+        devolucion.setDescp_devolucion("Benchmark");
+
+        CambioProductoRequestDto cambio = new CambioProductoRequestDto();
+        cambio.setCod_venta(venta);
+        cambio.setCod_caja(caja);
+        cambio.setCod_motivo_cambio_prod(motivo);
+        cambio.setCod_producto_retorna(producto);
+        cambio.setCod_producto_entrega(productoEntrega);
+        cambio.setDescp_cambio("Benchmark");
+
+        AnulacionRequestDto anulacion = new AnulacionRequestDto();
+        anulacion.setCod_venta(venta);
+        anulacion.setCod_motivo_anulacion(motivo);
+        anulacion.setDescp_anulacion("Benchmark");
+
+        System.out.printf("%-8s %-11s %12s %12s%n", "modo", "reclamo", "reclamos/s", "ms/reclamo");
+        imprimir("antes", "devolucion", medir(tx, rollback, segundos, () -> devolucionOriginal(jdbc, devolucion)));
+        imprimir("despues", "devolucion", medir(tx, rollback, segundos, () -> service.registrarDevolucion(devolucion)));
+        imprimir("antes", "cambio", medir(tx, rollback, segundos, () -> cambioOriginal(jdbc, cambio)));
+        imprimir("despues", "cambio", medir(tx, rollback, segundos, () -> service.registrarCambioProducto(cambio)));
+        imprimir("antes", "anulacion", medir(tx, rollback, segundos, () -> anulacionOriginal(jdbc, anulacion)));
+        imprimir("despues", "anulacion", medir(tx, rollback, segundos, () -> service.registrarAnulacion(anulacion)));
+        ds.destroy();
+    }
+
+    private static void imprimir(String modo, String reclamo, double porSegundo) {
+        System.out.printf("%-8s %-11s %12.1f %12.3f%n", modo, reclamo, porSegundo, 1000.0 / porSegundo);
+    }
+
+    private static double medir(TransactionTemplate tx, boolean rollback, int segundos, Runnable reclamo) {
+        // Calentamiento: JIT y caché de planes del servidor
+        ejecutarDurante(tx, rollback, Math.max(1, segundos / 3), reclamo);
+        long inicio = System.nanoTime();
+        long n = ejecutarDurante(tx, rollback, segundos, reclamo);
+        return n / ((System.nanoTime() - inicio) / 1e9);
+    }
+
+    private static long ejecutarDurante(TransactionTemplate tx, boolean rollback, int segundos, Runnable reclamo) {
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        long n = 0;
+        while (System.nanoTime() < fin) {
+            tx.executeWithoutResult(status -> {
+                reclamo.run();
+                if (rollback) {
+                    status.setRollbackOnly();
+                }
+            });
+            n++;
+        }
+        return n;
+    }
+
+    // Secuencias de sentencias de la implementación original
+    private static void devolucionOriginal(JdbcTemplate jdbc, DevolucionRequestDto r) {
+        jdbc.queryForObject("SELECT COUNT(*) FROM venta WHERE cod_venta = ?", Integer.class, r.getCod_venta());
+        Integer codReclamo = jdbc.queryForObject("""
+                INSERT INTO reclamo (cod_venta, cod_cliente)
+                SELECT v.cod_venta, v.cod_cliente FROM venta v WHERE v.cod_venta = ?
+                RETURNING cod_reclamo
+                """, Integer.class, r.getCod_venta());
+        jdbc.queryForObject("SELECT cod_cliente FROM venta WHERE cod_venta = ?", Integer.class, r.getCod_venta());
+        Float monto = jdbc.queryForObject("SELECT monto_devol(?, ?)", Float.class,
+                r.getCod_venta(), r.getCod_producto_devuelto());
+        jdbc.queryForObject("""
+                INSERT INTO devolucion (cod_reclamo, fecha_hora_devolucion, monto_devolucion,
+                    cod_motivo_devolucion, cod_caja, producto_devuelto, descp_devolucion)
+                VALUES (?, now(), ?, ?, ?, ?, ?)
+                RETURNING cod_devolucion
+                """, Integer.class, codReclamo, monto, r.getCod_motivo_devolucion(), r.getCod_caja(),
+                r.getCod_producto_devuelto(), r.getDescp_devolucion());
+        jdbc.update("UPDATE producto_venta SET cod_estado_prodv = 3 WHERE cod_venta = ? AND cod_producto = ?",
+                r.getCod_venta(), r.getCod_producto_devuelto());
+    }
+
+    private static void cambioOriginal(JdbcTemplate jdbc, CambioProductoRequestDto r) {
+        Integer codReclamo = jdbc.queryForObject("""
+                INSERT INTO reclamo (cod_venta, cod_cliente)
+                SELECT v.cod_venta, v.cod_cliente FROM venta v WHERE v.cod_venta = ?
+                RETURNING cod_reclamo
+                """, Integer.class, r.getCod_venta());
+        jdbc.queryForObject("SELECT cod_cliente FROM venta WHERE cod_venta = ?", Integer.class, r.getCod_venta());
+        jdbc.queryForObject("SELECT COUNT(*) FROM producto_venta WHERE cod_venta = ? AND cod_producto = ?",
+                Integer.class, r.getCod_venta(), r.getCod_producto_retorna());
+        Float diferencia = jdbc.queryForObject("SELECT dif_cambio(?, ?)", Float.class,
+                r.getCod_producto_retorna(), r.getCod_producto_entrega());
+        jdbc.queryForObject("""
+                INSERT INTO cambio_producto (cod_reclamo, fecha_hora_cp, producto_retorna, producto_entrega,
+                    diferencia_cambio, cod_motivo_cambio_prod, cod_caja, descp_cambio)
+                VALUES (?, now(), ?, ?, ?, ?, ?, ?)
+                RETURNING cod_cambio_prod
+                """, Integer.class, codReclamo, r.getCod_producto_retorna(), r.getCod_producto_entrega(),
+                diferencia, r.getCod_motivo_cambio_prod(), r.getCod_caja(), r.getDescp_cambio());
+        jdbc.update("UPDATE producto_venta SET cod_estado_prodv = 4 WHERE cod_venta = ? AND cod_producto = ?",
+                r.getCod_venta(), r.getCod_producto_retorna());
+    }
+
+    private static void anulacionOriginal(JdbcTemplate jdbc, AnulacionRequestDto r) {
+        Integer codCliente = jdbc.queryForObject("SELECT cod_cliente FROM venta WHERE cod_venta = ?",
+                Integer.class, r.getCod_venta());
+        Integer codReclamo = jdbc.queryForObject(
+                "INSERT INTO reclamo (cod_venta, cod_cliente) VALUES (?, ?) RETURNING cod_reclamo",
+                Integer.class, r.getCod_venta(), codCliente);
+        jdbc.queryForObject("""
+                INSERT INTO anulacion (cod_reclamo, fecha_hora_anulacion, cod_motivo_anulacion, descp_anulacion)
+                VALUES (?, now(), ?, ?)
+                RETURNING cod_anulacion
+                """, Integer.class, codReclamo, r.getCod_motivo_anulacion(), r.getDescp_anulacion());
+        jdbc.update("UPDATE venta SET cod_estado_venta = 3 WHERE cod_venta = ?", r.getCod_venta());
+        Integer codAnulado = jdbc.queryForObject(
+                "SELECT cod_estado_pago FROM estado_pago WHERE lower(nombre_estado_pago) = 'anulado' LIMIT 1",
+                Integer.class);
+        jdbc.update("UPDATE pago SET cod_estado_pago = ? WHERE cod_venta = ?", codAnulado, r.getCod_venta());
+    }
+}
@@ -0,0 +1,160 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import pe.edu.uni.ProyectoFerreteria.dto.ItemVentaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.VentaRequestDto;
+import pe.edu.uni.ProyectoFerreteria.service.ConsultasVentasService;
+import pe.edu.uni.ProyectoFerreteria.service.NumeracionComprobanteService;
+import pe.edu.uni.ProyectoFerreteria.service.ResumenVentaService;
+import pe.edu.uni.ProyectoFerreteria.util.ConexionesAuxiliares;
+
+/**
+ * Mide ventas/segundo de registrarVenta para ventas de 1, 10 y 100 líneas, comparando:
+ * - "antes":   una sentencia por línea + cálculos y resumen en viajes separados (implementación original)
+ * - "despues": ConsultasVentasService.registrarVenta (líneas en lote, totales con RETURNING)
+ *
+ * Requiere una base FERRETERIA local con datos maestros. No es un test de JUnit; se ejecuta con:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=pe.edu.uni.ProyectoFerreteria.benchmark.RegistroVentaBenchmark \
+ *       -Dbench.cliente=1 -Dbench.vendedor=1 -Dbench.productos=1,2,3
+ *
+ * Cada venta se revierte al terminar (bench.rollback=true por defecto) para no ensuciar la base.
+ */
+public class RegistroVentaBenchmark {
+
+    private static final int[] LINEAS = {1, 10, 100};
+
+    public static void main(String[] args) {
+        String url = System.getProperty("bench.url",
+                "jdbc:postgresql://localhost:5434/postgres?currentSchema=\"FERRETERIA\"");
+        String usuario = System.getProperty("bench.usuario", "postgres");
+        String clave = System.getProperty("bench.clave", "sql");
+        int segundos = Integer.getInteger("bench.segundos", 10);
+        boolean rollback = Boolean.parseBoolean(System.getProperty("bench.rollback", "true"));
+
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(url, usuario, clave, true);
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+
+        ConsultasVentasService service = new ConsultasVentasService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(service, "resumen", new ResumenVentaService(jdbc));
+        ReflectionTestUtils.setField(service, "numeracion", new NumeracionComprobanteService(jdbc,
+                new ConexionesAuxiliares(new DriverManagerDataSource(url, usuario, clave)), 100, 20));
+
+        System.out.printf("%-8s %6s %12s %12s%n", "modo", "lineas", "ventas/s", "ms/venta");
+        for (int lineas : LINEAS) {
+            VentaRequestDto request = crearVenta(lineas);
+
+            double antes = medir(tx, rollback, segundos, () -> registrarVentaOriginal(jdbc, request));
+            double despues = medir(tx, rollback, segundos, () -> service.registrarVenta(request));
+
+            System.out.printf("%-8s %6d %12.1f %12.3f%n", "antes", lineas, antes, 1000.0 / antes);
+            System.out.printf("%-8s %6d %12.1f %12.3f%n", "despues", lineas, despues, 1000.0 / despues);
+        }
+        ds.destroy();
+    }
+
+    private static double medir(TransactionTemplate tx, boolean rollback, int segundos, Runnable venta) {
+        // Calentamiento: JIT y caché de planes del servidor
+        ejecutarDurante(tx, rollback, Math.max(1, segundos / 3), venta);
+        long inicio = System.nanoTime();
+        long ventas = ejecutarDurante(tx, rollback, segundos, venta);
+        return ventas / ((System.nanoTime() - inicio) / 1e9);
+    }
+
+    private static long ejecutarDurante(TransactionTemplate tx, boolean rollback, int segundos, Runnable venta) {
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        long n = 0;
+        while (System.nanoTime() < fin) {
+            tx.executeWithoutResult(status -> {
+                venta.run();
+                if (rollback) {
+                    status.setRollbackOnly();
+                }
+            });
+            n++;
+        }
+        return n;
+    }
+
+    private static VentaRequestDto crearVenta(int lineas) {
+        String[] productos = System.getProperty("bench.productos", "1").split(",");
+
+        List<ItemVentaDto> items = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            ItemVentaDto item = new ItemVentaDto();
+            item.setCod_producto(Integer.valueOf(productos[i % productos.length].trim()));
+            item.setCantidad(1 + i % 5);
+            item.setDescuento_unitario(0f);
+            items.add(item);
+        }
+
+        VentaRequestDto request = new VentaRequestDto();
+        request.setCod_cond_pago(Integer.getInteger("bench.condPago", 1));
+        request.setNro_cuotas(Integer.getInteger("bench.cuotas", 1));
+        request.setCod_cliente(Integer.getInteger("bench.cliente", 1));
+        request.setCod_vendedor(Integer.getInteger("bench.vendedor", 1));
+        request.setCod_tipo_comprobante(Integer.getInteger("bench.tipoComprobante", 1));
+        request.setNro_comprobante("BENCH-0001");
+        request.setCod_metodo_pago(Integer.getInteger("bench.metodoPago", 1));
+        request.setCod_caja(Integer.getInteger("bench.caja", 1));
+        request.setNombre_pagador("Benchmark");
+        request.setNro_telf_pagador("000000000");
+        request.setItems(items);
+        return request;
+    }
+
+    // Secuencia de sentencias de la implementación original (una inserción por línea)
+    private static void registrarVentaOriginal(JdbcTemplate jdbc, VentaRequestDto request) {
+        Integer codVenta = jdbc.queryForObject("""
+                INSERT INTO venta (monto_venta, igv, descuento, puntos_venta,
+                    cod_estado_venta, cod_cond_pago, nro_cuotas, cod_cliente, cod_vendedor)
+                VALUES (0, 0, 0, 0, 2, ?, ?, ?, ?)
+                RETURNING cod_venta
+                """, Integer.class, request.getCod_cond_pago(), request.getNro_cuotas(),
+                request.getCod_cliente(), request.getCod_vendedor());
+
+        for (ItemVentaDto item : request.getItems()) {
+            jdbc.update("""
+                    INSERT INTO producto_venta (cod_venta, cod_producto, cantidad_producto,
+                        precio_unitario, descuento_unitario, monto_unitario, puntos_unitario,
+                        cod_estado_prodv, direccion_entrega, fecha_entrega)
+                    VALUES (?, ?, ?, precio_unitario(?), ?, precio_unitario(?) * ?, puntos_producto(?) * ?, ?, ?, ?::date)
+                    """, codVenta, item.getCod_producto(), item.getCantidad(), item.getCod_producto(),
+                    item.getDescuento_unitario(), item.getCod_producto(), item.getCantidad(),
+                    item.getCod_producto(), item.getCantidad(), 1, item.getDireccion_entrega(),
+                    item.getFecha_entrega());
+        }
+
+        jdbc.update("""
+                UPDATE venta SET monto_venta = calcular_monto_venta(?), igv = calcular_igv_venta(?),
+                    descuento = calcular_dscto_venta(?), puntos_venta = calcular_puntos_venta(?)
+                WHERE cod_venta = ?
+                """, codVenta, codVenta, codVenta, codVenta, codVenta);
+        jdbc.update("UPDATE vendedor SET total_ventas_vendedor = total_ventas_vendedor + 1 WHERE cod_vendedor = ?",
+                request.getCod_vendedor());
+        Integer codComprobante = jdbc.queryForObject("""
+                INSERT INTO comprobante (cod_tipo_comprobante, nro_comprobante, fecha_emision)
+                VALUES (?, ?, now()) RETURNING cod_comprobante
+                """, Integer.class, request.getCod_tipo_comprobante(), request.getNro_comprobante());
+        jdbc.update("""
+                INSERT INTO pago (cod_venta, nro_cuota, monto_pago, fecha_vencimiento_pago, fecha_pago,
+                    nombre_pagador, nro_telf_pagador, cod_caja, cod_comprobante, cod_estado_pago, cod_metodo_pago)
+                VALUES (?, 1, primer_pago(?), current_date, current_date, ?, ?, ?, ?, 2, ?)
+                """, codVenta, codVenta, request.getNombre_pagador(), request.getNro_telf_pagador(),
+                request.getCod_caja(), codComprobante, request.getCod_metodo_pago());
+        jdbc.query("SELECT generar_pagos_restantes(?)", rs -> {}, codVenta);
+        jdbc.queryForMap("SELECT cod_venta, monto_venta, igv, descuento, puntos_venta FROM venta WHERE cod_venta = ?",
+                codVenta);
+    }
+}
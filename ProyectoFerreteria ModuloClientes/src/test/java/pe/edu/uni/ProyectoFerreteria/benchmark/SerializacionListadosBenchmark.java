@@ -0,0 +1,101 @@
+package pe.edu.uni.ProyectoFerreteria.benchmark;
+
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pe.edu.uni.ProyectoFerreteria.dto.ListadoVentasDto;
+import pe.edu.uni.ProyectoFerreteria.dto.MaestroCompletoDto;
+import pe.edu.uni.ProyectoFerreteria.dto.PagoPendienteDto;
+import pe.edu.uni.ProyectoFerreteria.util.MapeadorFilas;
+
+/**
+ * Tiempo y bytes asignados por respuesta al serializar con Jackson un listado de 10 000 DTO, como
+ * hacen los endpoints de listado (ObjectMapper con la configuración de Spring). Una operación = la
+ * lista completa; "byteArray" materializa el JSON como un cuerpo en memoria, "stream" lo escribe en
+ * un OutputStream que lo descarta (el caso de escribir directo en la respuesta).
+ *
+ *   mvn -Pbenchmarks verify -Djmh.incluir=SerializacionListadosBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionListadosBenchmark {
+
+    @Param({"ListadoVentasDto", "PagoPendienteDto", "MaestroCompletoDto"})
+    public String dto;
+
+    @Param({"10000"})
+    public int elementos;
+
+    private ObjectMapper mapper;
+    private List<Object> lista;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        CachedRowSet filas;
+        Class<?> tipo;
+        switch (dto) {
+            case "ListadoVentasDto" -> {
+                tipo = ListadoVentasDto.class;
+                filas = FilasEnMemoria.deTexto(elementos, "venta", "vendedor", "fecha", "hora", "monto", "estado");
+            }
+            case "PagoPendienteDto" -> {
+                tipo = PagoPendienteDto.class;
+                filas = FilasEnMemoria.deTexto(elementos,
+                        "venta", "cliente", "cuota", "fecha_vencimiento", "monto", "condicion");
+            }
+            default -> {
+                tipo = MaestroCompletoDto.class;
+                filas = FilasEnMemoria.crear(elementos,
+                        new String[] {"codpersona", "codmaestro", "nombre", "ruc", "distrito",
+                                "telefono", "correo", "especialidad", "fecharegistro"},
+                        new int[] {Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                                Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR});
+            }
+        }
+
+        MapeadorFilas<?> mapeador = MapeadorFilas.de(tipo);
+        lista = new ArrayList<>(elementos);
+        int n = 0;
+        while (filas.next()) {
+            lista.add(mapeador.mapRow(filas, n++));
+        }
+    }
+
+    @Benchmark
+    public byte[] byteArray() throws Exception {
+        return mapper.writeValueAsBytes(lista);
+    }
+
+    @Benchmark
+    public void stream() throws Exception {
+        mapper.writeValue(OutputStream.nullOutputStream(), lista);
+    }
+}
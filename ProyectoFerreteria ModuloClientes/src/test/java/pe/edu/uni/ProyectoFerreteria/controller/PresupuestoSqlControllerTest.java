@@ -0,0 +1,140 @@
+package pe.edu.uni.ProyectoFerreteria.controller;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.ServletException;
+import pe.edu.uni.ProyectoFerreteria.service.ClientesService;
+import pe.edu.uni.ProyectoFerreteria.service.PresupuestoSqlService;
+import pe.edu.uni.ProyectoFerreteria.util.JdbcTemplateMedido;
+import pe.edu.uni.ProyectoFerreteria.util.PresupuestoSqlExcedidoException;
+
+/**
+ * Presupuesto de sentencias con accion=fallar sobre peticiones reales: el interceptor de
+ * PresupuestoSqlConfig abre el contador y el JdbcTemplateMedido (sobre un DataSource simulado) le
+ * informa cada sentencia del servicio.
+ */
+@WebMvcTest(controllers = MaestroController.class)
+@Import({ PresupuestoSqlService.class, PresupuestoSqlControllerTest.Config.class })
+@TestPropertySource(properties = { "sql.presupuesto.accion=fallar", "sql.presupuesto.sentencias=1" })
+class PresupuestoSqlControllerTest {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        JdbcTemplate jdbcTemplate(PresupuestoSqlService presupuesto) throws SQLException {
+            return new JdbcTemplateMedido(dataSource(), List.of(presupuesto));
+        }
+
+        @Bean
+        ClientesService clientesService(JdbcTemplate jdbcTemplate) {
+            return new ClientesService(jdbcTemplate);
+        }
+
+        @Bean
+        Exportacion exportacion() {
+            return new Exportacion();
+        }
+    }
+
+    // Endpoint en streaming: la petición pasa a modo asíncrono al devolver el cuerpo
+    @RestController
+    static class Exportacion {
+        @GetMapping("/prueba/exportar")
+        StreamingResponseBody exportar() {
+            return salida -> salida.write('x');
+        }
+    }
+
+    @Autowired
+    private PresupuestoSqlService presupuestoService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // Datos del maestro: una fila (nombre, fecha); el resto de consultas del perfil: una fila con un
+    // valor; el resumen de maestros: sin filas
+    private static DataSource dataSource() throws SQLException {
+        Connection con = mock(Connection.class);
+        when(con.prepareStatement(anyString())).thenAnswer(i -> sentencia(i.getArgument(0)));
+        when(con.prepareStatement(anyString(), anyInt(), anyInt())).thenAnswer(i -> sentencia(i.getArgument(0)));
+        DataSource ds = mock(DataSource.class);
+        when(ds.getConnection()).thenReturn(con);
+        return ds;
+    }
+
+    private static PreparedStatement sentencia(String sql) throws SQLException {
+        boolean datos = sql.contains("clientes.perfil.datos");
+        int filas = sql.contains("clientes.maestros") ? 0 : 1;
+
+        ResultSetMetaData meta = mock(ResultSetMetaData.class);
+        when(meta.getColumnCount()).thenReturn(datos ? 2 : 1);
+        when(meta.getColumnLabel(1)).thenReturn(datos ? "nombre" : "valor");
+        when(meta.getColumnLabel(2)).thenReturn("fecha");
+
+        ResultSet rs = mock(ResultSet.class);
+        AtomicInteger leidas = new AtomicInteger();
+        when(rs.next()).thenAnswer(i -> leidas.incrementAndGet() <= filas);
+        when(rs.getMetaData()).thenReturn(meta);
+        when(rs.getObject(1)).thenReturn(datos ? "Juan Pérez" : "x");
+        when(rs.getObject(2)).thenReturn("2024-01-01");
+        when(rs.getString(1)).thenReturn(datos ? "Juan Pérez" : "x");
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.executeQuery()).thenReturn(rs);
+        return ps;
+    }
+
+    @Test
+    void unEndpointDentroDelPresupuestoRespondeNormalmente() throws Exception {
+        // Una sola sentencia (el listado de maestros, vacío)
+        mockMvc.perform(get("/api/maestros/resumen")).andExpect(status().isNoContent());
+    }
+
+    @Test
+    void unEndpointEnStreamingNoDejaElContadorEnElHilo() throws Exception {
+        mockMvc.perform(get("/prueba/exportar")).andExpect(request().asyncStarted());
+
+        assertNull(presupuestoService.terminar());
+    }
+
+    @Test
+    void unEndpointQueExcedeElPresupuestoFalla() {
+        // El perfil ejecuta varias sentencias: la segunda ya excede el presupuesto de 1
+        ServletException e = assertThrows(ServletException.class,
+                () -> mockMvc.perform(get("/api/maestros/15/perfil")));
+        assertInstanceOf(PresupuestoSqlExcedidoException.class, e.getCause());
+    }
+}
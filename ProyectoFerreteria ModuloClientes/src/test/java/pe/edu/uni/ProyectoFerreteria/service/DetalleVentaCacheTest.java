@@ -0,0 +1,76 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import pe.edu.uni.ProyectoFerreteria.dto.DetalleVentaDto;
+import pe.edu.uni.ProyectoFerreteria.dto.EstadisticasCacheDto;
+
+class DetalleVentaCacheTest {
+
+    @Test
+    void cargaUnaVezYCuentaAciertos() {
+        DetalleVentaCache cache = new DetalleVentaCache(10);
+        AtomicInteger cargas = new AtomicInteger();
+        DetalleVentaDto detalle = new DetalleVentaDto();
+
+        for (int i = 0; i < 4; i++) {
+            assertSame(detalle, cache.obtener(7, () -> {
+                cargas.incrementAndGet();
+                return detalle;
+            }));
+        }
+
+        EstadisticasCacheDto est = cache.estadisticas();
+        assertEquals(1, cargas.get());
+        assertEquals(3L, est.getAciertos());
+        assertEquals(1L, est.getFallos());
+        assertEquals(0.75, est.getTasa_aciertos());
+    }
+
+    @Test
+    void unaLecturaQueCruzaUnaInvalidacionNoGuardaDatosViejos() {
+        DetalleVentaCache cache = new DetalleVentaCache(10);
+
+        // La devolución se confirma mientras la lectura todavía estaba consultando la base
+        cache.obtener(7, () -> {
+            cache.invalidar(7);
+            return new DetalleVentaDto();
+        });
+
+        AtomicInteger cargas = new AtomicInteger();
+        cache.obtener(7, () -> {
+            cargas.incrementAndGet();
+            return new DetalleVentaDto();
+        });
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.estadisticas().getEntradas());
+    }
+
+    @Test
+    void enLoteSoloCargaLasQueFaltanYRespetaElOrden() {
+        DetalleVentaCache cache = new DetalleVentaCache(10);
+        cache.obtener(2, DetalleVentaDto::new);
+
+        List<List<Integer>> pedidas = new ArrayList<>();
+        Map<Integer, DetalleVentaDto> resultado = cache.obtenerVarios(List.of(3, 2, 1, 9), faltantes -> {
+            pedidas.add(faltantes);
+            Map<Integer, DetalleVentaDto> cargados = new HashMap<>();
+            cargados.put(1, new DetalleVentaDto());
+            cargados.put(3, new DetalleVentaDto());
+            return cargados;   // la 9 no existe
+        });
+
+        assertEquals(List.of(List.of(3, 1, 9)), pedidas);
+        assertEquals(List.of(3, 2, 1), new ArrayList<>(resultado.keySet()));
+        assertEquals(3, cache.estadisticas().getEntradas());
+    }
+}
@@ -0,0 +1,181 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleConnectionHandle;
+import org.springframework.orm.jpa.DefaultJpaDialect;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import pe.edu.uni.ProyectoFerreteria.util.ConexionesAuxiliares;
+import pe.edu.uni.ProyectoFerreteria.util.DataSourceConLimite;
+
+class NumeracionComprobanteServiceTest {
+
+    // Pool de las ventas: un solo permiso, que la venta en curso tiene tomado
+    private DataSourceConLimite dataSource;
+
+    // Conexión de la venta: la que enlaza la transacción
+    private Connection conVenta;
+
+    // Conexiones auxiliares que abre la reserva de bloques
+    private final List<Connection> conReservas = new ArrayList<>();
+
+    private final AtomicLong ultimoAsignado = new AtomicLong();
+
+    private NumeracionComprobanteService numeracion;
+
+    @BeforeEach
+    void preparar() throws SQLException {
+        conVenta = mock(Connection.class);
+        when(conVenta.getAutoCommit()).thenReturn(true);
+        DataSource pool = mock(DataSource.class);
+        when(pool.getConnection()).thenReturn(conVenta);
+        dataSource = new DataSourceConLimite(pool, 1, 20);
+
+        DataSource auxiliar = mock(DataSource.class);
+        when(auxiliar.getConnection()).thenAnswer(i -> conexionReserva());
+        // Sin recarga en segundo plano: cada bloque de 3 números se reserva al agotarse
+        numeracion = new NumeracionComprobanteService(new JdbcTemplate(dataSource),
+                new ConexionesAuxiliares(auxiliar), 3, 0);
+    }
+
+    // Cada reserva ejecutada devuelve el siguiente bloque de la serie
+    private Connection conexionReserva() throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.executeQuery()).thenAnswer(i -> {
+            long hasta = ultimoAsignado.addAndGet(3);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(true);
+            when(rs.getLong("cod_bloque")).thenReturn(hasta / 3);
+            when(rs.getLong("desde")).thenReturn(hasta - 2);
+            when(rs.getLong("hasta")).thenReturn(hasta);
+            return rs;
+        });
+        Connection con = mock(Connection.class);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+        conReservas.add(con);
+        return con;
+    }
+
+    // Transacción de JPA que, como la de Hibernate, enlaza la conexión de la venta al DataSource
+    private TransactionTemplate transaccionJpa() {
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        EntityManager em = mock(EntityManager.class);
+        when(emf.createEntityManager()).thenReturn(em);
+        when(em.getTransaction()).thenReturn(mock(EntityTransaction.class));
+
+        JpaTransactionManager jpa = new JpaTransactionManager(emf);
+        jpa.setDataSource(dataSource);
+        jpa.setJpaDialect(new DefaultJpaDialect() {
+            @Override
+            public SimpleConnectionHandle getJdbcConnection(EntityManager entityManager, boolean readOnly) {
+                return new SimpleConnectionHandle(conVenta);
+            }
+        });
+        return new TransactionTemplate(jpa);
+    }
+
+    @Test
+    void dentroDeUnaTransaccionJpaReservaEnOtraConexionSinConfirmarLaVenta() throws SQLException {
+        String numero = transaccionJpa().execute(status -> numeracion.emitir(1, 7));
+
+        assertEquals("007-00000001", numero);
+        assertEquals(1, conReservas.size());
+        verify(conReservas.get(0)).setAutoCommit(true);
+        verify(conReservas.get(0)).close();
+        verify(conVenta, never()).prepareStatement(anyString());
+        verify(conVenta, never()).commit();
+    }
+
+    @Test
+    void conTodosLosPermisosTomadosLaVentaIgualReservaSuBloque() {
+        TransactionTemplate venta = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        String numero = venta.execute(status -> {
+            assertEquals(0, dataSource.getDisponibles());
+            return numeracion.emitir(1, 7);
+        });
+
+        assertEquals("007-00000001", numero);
+        assertEquals(1, conReservas.size());
+        assertEquals(1, dataSource.getDisponibles());
+    }
+
+    @Test
+    void alIniciarReservaElPrimerBloqueDeCadaSerieConocida() throws SQLException {
+        ResultSet conocidas = mock(ResultSet.class);
+        when(conocidas.next()).thenReturn(true, true, false);
+        when(conocidas.getInt(1)).thenReturn(1, 2);
+        when(conocidas.getInt(2)).thenReturn(7, 3);
+        Statement st = mock(Statement.class);
+        when(st.executeQuery(anyString())).thenReturn(conocidas);
+        when(conVenta.createStatement()).thenReturn(st);
+
+        numeracion.precargar();
+        assertEquals(2, conReservas.size());
+
+        // La primera venta de la serie ya no reserva
+        String numero = transaccionJpa().execute(status -> numeracion.emitir(1, 7));
+        assertEquals("007-00000001", numero);
+        assertEquals(2, conReservas.size());
+    }
+
+    @Test
+    void unaTransaccionJpaRevertidaDevuelveSuNumero() {
+        TransactionTemplate tx = transaccionJpa();
+
+        assertThrows(IllegalStateException.class, () -> tx.executeWithoutResult(status -> {
+            numeracion.emitir(1, 7);
+            throw new IllegalStateException("falla la venta");
+        }));
+
+        assertEquals("007-00000001", tx.execute(status -> numeracion.emitir(1, 7)));
+        assertEquals("007-00000002", tx.execute(status -> numeracion.emitir(1, 7)));
+    }
+
+    @Test
+    void revertirElSavepointDeUnaVentaDevuelveSoloSuNumero() {
+        TransactionTemplate lote = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        List<String> confirmados = lote.execute(status -> {
+            List<String> numeros = new ArrayList<>();
+            numeros.add(numeracion.emitir(1, 7));
+
+            int marca = numeracion.marca();
+            numeracion.emitir(1, 7);        // venta que falla: se revierte su savepoint
+            numeracion.devolverDesde(marca);
+
+            numeros.add(numeracion.emitir(1, 7));
+            return numeros;
+        });
+
+        // El número de la venta revertida se reutiliza aunque el bloque confirme
+        assertEquals(List.of("007-00000001", "007-00000002"), confirmados);
+        assertEquals("007-00000003", numeracion.emitir(1, 7));
+    }
+}
@@ -0,0 +1,75 @@
+package pe.edu.uni.ProyectoFerreteria.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pe.edu.uni.ProyectoFerreteria.dto.ItemAdjudicacionDto;
+
+/**
+ * Parte en memoria de generarOrdenesCompra: agrupar los ítems adjudicados por proveedor + modalidad
+ * de pago y calcular el monto de cada orden. Una operación = una adjudicación completa.
+ *
+ *   mvn -Pbenchmarks verify -Djmh.incluir=OrdenesCompraBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrdenesCompraBenchmark {
+
+    private static final String[] MODALIDADES = {"Contado", "Credito 30", "Credito 60"};
+
+    @Param({"50", "1000", "10000"})
+    public int items;
+
+    @Param({"20"})
+    public int proveedores;
+
+    private List<ItemAdjudicacionDto> adjudicados;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Random azar = new Random(42);
+        adjudicados = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            ItemAdjudicacionDto item = new ItemAdjudicacionDto();
+            item.setCod_proveedor(1 + azar.nextInt(proveedores));
+            item.setCod_producto(1 + i);
+            item.setCantidad_comprada(1 + azar.nextInt(100));
+            item.setCosto_total(BigDecimal.valueOf(100 + azar.nextInt(100_000), 2));
+            item.setModalidad_pago(MODALIDADES[azar.nextInt(MODALIDADES.length)]);
+            adjudicados.add(item);
+        }
+    }
+
+    @Benchmark
+    public void agruparYTotalizar(Blackhole bh) {
+        Map<String, List<ItemAdjudicacionDto>> grupos = ConsultasAbastecimientoService.agruparOrdenesCompra(adjudicados);
+        for (Map.Entry<String, List<ItemAdjudicacionDto>> entrada : grupos.entrySet()) {
+            String[] clave = entrada.getKey().split("-");
+            bh.consume(Integer.parseInt(clave[0]));
+            bh.consume(clave[1]);
+            bh.consume(ConsultasAbastecimientoService.montoOrdenCompra(entrada.getValue()));
+        }
+    }
+}
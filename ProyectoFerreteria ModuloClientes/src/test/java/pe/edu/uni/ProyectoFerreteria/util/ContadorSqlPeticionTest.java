@@ -0,0 +1,52 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ContadorSqlPeticionTest {
+
+    @Test
+    void avisaUnaSolaVezAlPasarElMaximoDeSentencias() {
+        ContadorSqlPeticion contador = new ContadorSqlPeticion("GET /x", 3, 10);
+
+        assertNull(contador.registrar("a", "SELECT 1", 1_000_000));
+        assertNull(contador.registrar("b", "SELECT 2", 1_000_000));
+        assertNull(contador.registrar("c", "SELECT 3", 1_000_000));
+        assertNotNull(contador.registrar("d", "SELECT 4", 1_000_000));
+        assertNull(contador.registrar("e", "SELECT 5", 1_000_000));
+
+        assertEquals(5, contador.getSentencias());
+        assertEquals(5.0, contador.getMilisegundos(), 1e-9);
+        assertEquals(List.of("5 sentencias SQL (presupuesto 3)"), contador.infracciones());
+    }
+
+    @Test
+    void detectaElMismoSqlRepetido() {
+        ContadorSqlPeticion contador = new ContadorSqlPeticion("POST /y", 100, 2);
+
+        assertNull(contador.registrar("items", "INSERT ?", 0));
+        assertNull(contador.registrar("items", "INSERT ?", 0));
+        String infraccion = contador.registrar("items", "INSERT ?", 0);
+
+        assertNotNull(infraccion);
+        assertTrue(infraccion.contains("N+1"));
+        assertEquals(List.of("items x3 (posible N+1, máximo 2)"), contador.infracciones());
+    }
+
+    @Test
+    void sentenciasDistintasDeUnMismoMetodoNoSonRepeticiones() {
+        // Sin comentario de nombre ambas se llaman igual, pero el SQL es distinto
+        ContadorSqlPeticion contador = new ContadorSqlPeticion("POST /z", 100, 1);
+
+        assertNull(contador.registrar("Servicio.metodo", "SELECT 1", 0));
+        assertNull(contador.registrar("Servicio.metodo", "SELECT 2", 0));
+
+        assertTrue(contador.infracciones().isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+class DataSourceConLimiteTest {
+
+    // DataSource de mentira: cada conexión solo sabe cerrarse
+    private static class DataSourceFalso extends AbstractDataSource {
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (p, m, a) -> null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+
+    @Test
+    void noPrestaMasConexionesQueLosPermisos() throws Exception {
+        DataSourceConLimite ds = new DataSourceConLimite(new DataSourceFalso(), 2, 20);
+        Connection a = ds.getConnection();
+        Connection b = ds.getConnection();
+        assertEquals(0, ds.getDisponibles());
+        assertThrows(SQLTransientConnectionException.class, ds::getConnection);
+
+        a.close();
+        Connection c = ds.getConnection();
+        assertEquals(0, ds.getDisponibles());
+
+        b.close();
+        c.close();
+        assertEquals(2, ds.getDisponibles());
+    }
+
+    @Test
+    void lasConexionesAnidadasConLosPermisosAgotadosVanPorConexionesAuxiliares() throws Exception {
+        DataSourceFalso destino = new DataSourceFalso();
+        DataSourceConLimite ds = new DataSourceConLimite(destino, 2, 20);
+        ConexionesAuxiliares auxiliares = new ConexionesAuxiliares(destino);
+        CyclicBarrier todasConConexion = new CyclicBarrier(2);
+        CyclicBarrier todasIntentaron = new CyclicBarrier(2);
+
+        // Dos ventas toman los dos permisos y cada una necesita una segunda conexión: del límite no la
+        // obtiene ninguna (fallan tras la espera en lugar de quedar bloqueadas); la auxiliar sí
+        ExecutorService ventas = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Connection>> resultados = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                resultados.add(ventas.submit(() -> {
+                    try (Connection venta = ds.getConnection()) {
+                        todasConConexion.await(5, TimeUnit.SECONDS);
+                        assertThrows(SQLTransientConnectionException.class, ds::getConnection);
+                        try (Connection auxiliar = auxiliares.abrir()) {
+                            assertEquals(0, ds.getDisponibles());
+                            todasIntentaron.await(5, TimeUnit.SECONDS);
+                            return auxiliar;
+                        }
+                    }
+                }));
+            }
+            for (Future<Connection> r : resultados) {
+                assertNotNull(r.get());
+            }
+        } finally {
+            ventas.shutdownNow();
+        }
+        assertEquals(2, ds.getDisponibles());
+    }
+
+    @Test
+    void cerrarDosVecesDevuelveUnSoloPermiso() throws Exception {
+        DataSourceConLimite ds = new DataSourceConLimite(new DataSourceFalso(), 1, 20);
+        Connection a = ds.getConnection();
+        a.close();
+        a.close();
+        assertEquals(1, ds.getDisponibles());
+    }
+
+    @Test
+    void cadaConexionEsIgualSoloASiMisma() throws Exception {
+        DataSourceConLimite ds = new DataSourceConLimite(new DataSourceFalso(), 2, 20);
+        Connection a = ds.getConnection();
+        Connection b = ds.getConnection();
+        assertEquals(a, a);
+        assertNotEquals(a, b);
+    }
+}
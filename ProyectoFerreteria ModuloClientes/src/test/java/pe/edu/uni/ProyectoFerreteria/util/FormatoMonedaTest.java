@@ -0,0 +1,39 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class FormatoMonedaTest {
+
+    @Test
+    void reproduceElFormatoQueArmabaPostgres() {
+        // TO_CHAR(monto, 'FM999,999,999,999.00')
+        assertEquals("S/ 1,234,567.50", FormatoMoneda.soles(new BigDecimal("1234567.5")));
+        assertEquals("S/ 999.00", FormatoMoneda.soles(new BigDecimal("999")));
+        assertEquals("S/ 1,000.01", FormatoMoneda.soles(new BigDecimal("1000.005")));
+        assertEquals("S/ -12,345.60", FormatoMoneda.soles(new BigDecimal("-12345.6")));
+        assertEquals("S/ -7.25", FormatoMoneda.soles(new BigDecimal("-7.25")));
+
+        // Menos de 1: sin el cero entero; lo que redondea a cero pierde el signo
+        assertEquals("S/ .50", FormatoMoneda.soles(new BigDecimal("0.5")));
+        assertEquals("S/ .01", FormatoMoneda.soles(new BigDecimal("0.005")));
+        assertEquals("S/ -.50", FormatoMoneda.soles(new BigDecimal("-0.50")));
+        assertEquals("S/ .00", FormatoMoneda.soles(BigDecimal.ZERO));
+        assertEquals("S/ .00", FormatoMoneda.soles(new BigDecimal("-0.001")));
+
+        // 'S/. ' || monto  y  nro_cuota || ' de ' || nro_cuotas
+        assertEquals("S/. 150.50", FormatoMoneda.solesSimple(new BigDecimal("150.50")));
+        assertEquals("2 de 6", FormatoMoneda.cuota(2, 6));
+    }
+
+    @Test
+    void nullSePropagaComoEnSql() {
+        assertNull(FormatoMoneda.soles(null));
+        assertNull(FormatoMoneda.solesSimple(null));
+        assertNull(FormatoMoneda.cuota(1, null));
+    }
+}
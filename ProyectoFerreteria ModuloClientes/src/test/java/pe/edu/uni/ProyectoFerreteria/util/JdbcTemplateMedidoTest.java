@@ -0,0 +1,136 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+
+class JdbcTemplateMedidoTest {
+
+    private record Registro(String nombre, long filas, boolean error) {
+    }
+
+    private final List<Registro> registros = new ArrayList<>();
+
+    private final List<Object[]> parametrosRecibidos = new ArrayList<>();
+
+    // DataSource simulado cuyas consultas devuelven "filas" filas con una columna entera
+    private JdbcTemplateMedido plantilla(int filas) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        AtomicInteger leidas = new AtomicInteger();
+        when(rs.next()).thenAnswer(i -> leidas.incrementAndGet() <= filas);
+        when(rs.getInt(1)).thenReturn(7);
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.executeQuery()).thenReturn(rs);
+        when(ps.executeUpdate()).thenReturn(3);
+
+        Connection con = mock(Connection.class);
+        when(con.prepareStatement(anyString())).thenReturn(ps);
+
+        DataSource ds = mock(DataSource.class);
+        when(ds.getConnection()).thenReturn(con);
+
+        return new JdbcTemplateMedido(ds,
+                List.of((nombre, sql, parametros, nanos, n, error) -> {
+                    registros.add(new Registro(nombre, n, error));
+                    parametrosRecibidos.add(parametros);
+                }));
+    }
+
+    @Test
+    void tomaElNombreDelComentarioInicial() {
+        assertEquals("ventas.listado", JdbcTemplateMedido.nombreDeSql("""
+                /* ventas.listado */
+                SELECT 1
+                """));
+        assertEquals("clientes.perfil-ruc", JdbcTemplateMedido.nombreDeSql("  /*clientes.perfil-ruc*/ SELECT 1"));
+        assertNull(JdbcTemplateMedido.nombreDeSql("SELECT 1 /* ventas.listado */"));
+        assertNull(JdbcTemplateMedido.nombreDeSql("/* comentario libre */ SELECT 1"));
+    }
+
+    @Test
+    void registraNombreYFilasDeUnaConsulta() throws SQLException {
+        JdbcTemplateMedido jdbc = plantilla(2);
+
+        List<Integer> lista = jdbc.query("/* prueba.lista */ SELECT x FROM t WHERE y = ?",
+                (rs, i) -> rs.getInt(1), 1);
+
+        assertEquals(2, lista.size());
+        assertEquals(List.of(new Registro("prueba.lista", 2, false)), registros);
+    }
+
+    @Test
+    void cuentaLasFilasRecorridasPorUnRowCallbackHandler() throws SQLException {
+        JdbcTemplateMedido jdbc = plantilla(3);
+
+        jdbc.query("/* prueba.recorrido */ SELECT x FROM t WHERE y = ?", rs -> { }, 1);
+
+        assertEquals(List.of(new Registro("prueba.recorrido", 3, false)), registros);
+    }
+
+    @Test
+    void unExtractorPropioInformaFilasDesconocidas() throws SQLException {
+        JdbcTemplateMedido jdbc = plantilla(4);
+
+        jdbc.query("/* prueba.extractor */ SELECT x FROM t WHERE y = ?", rs -> {
+            while (rs.next()) {
+                rs.getInt(1);
+            }
+            return null;
+        }, 1);
+
+        assertEquals(List.of(new Registro("prueba.extractor", JdbcTemplateMedido.FILAS_DESCONOCIDAS, false)),
+                registros);
+    }
+
+    @Test
+    void sinComentarioUsaElMetodoQueLlamo() throws SQLException {
+        JdbcTemplateMedido jdbc = plantilla(0);
+
+        int filas = jdbc.update("UPDATE t SET x = ? WHERE y = ?", 1, 2);
+
+        assertEquals(3, filas);
+        assertEquals(List.of(new Registro("JdbcTemplateMedidoTest.sinComentarioUsaElMetodoQueLlamo", 3, false)),
+                registros);
+    }
+
+    @Test
+    void informaLosParametrosEnlazados() throws SQLException {
+        JdbcTemplateMedido jdbc = plantilla(1);
+
+        jdbc.query("/* prueba.parametros */ SELECT x FROM t WHERE y = ? AND z = ?", (rs, i) -> rs.getInt(1), 5, "a");
+        // PreparedStatementCreator propio: los valores no pasan por el JdbcTemplate
+        jdbc.query(con -> con.prepareStatement("SELECT x FROM t WHERE y = 1"), (rs, i) -> rs.getInt(1));
+
+        assertArrayEquals(new Object[] { 5, "a" }, parametrosRecibidos.get(0));
+        assertNull(parametrosRecibidos.get(1));
+    }
+
+    @Test
+    void registraLosErrores() throws SQLException {
+        JdbcTemplateMedido jdbc = plantilla(0);
+        when(jdbc.getDataSource().getConnection().prepareStatement(anyString()).executeQuery())
+                .thenThrow(new SQLException("falla"));
+
+        assertThrows(DataAccessException.class,
+                () -> jdbc.queryForList("/* prueba.error */ SELECT x FROM t WHERE y = ?", 1));
+        assertEquals(List.of(new Registro("prueba.error", 0, true)), registros);
+    }
+}
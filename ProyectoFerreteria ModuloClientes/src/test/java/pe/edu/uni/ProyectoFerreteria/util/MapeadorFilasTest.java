@@ -0,0 +1,48 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Types;
+
+import javax.sql.rowset.CachedRowSet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+
+import pe.edu.uni.ProyectoFerreteria.benchmark.FilasEnMemoria;
+import pe.edu.uni.ProyectoFerreteria.dto.ListadoVentasDto;
+import pe.edu.uni.ProyectoFerreteria.dto.MaestroCompletoDto;
+
+class MapeadorFilasTest {
+
+    @Test
+    void mapeaIgualQueBeanPropertyRowMapper() throws Exception {
+        CachedRowSet rs = FilasEnMemoria.deTexto(3, "venta", "vendedor", "fecha", "hora", "monto", "estado", "extra");
+
+        MapeadorFilas<ListadoVentasDto> compilado = MapeadorFilas.de(ListadoVentasDto.class);
+        BeanPropertyRowMapper<ListadoVentasDto> reflexivo = new BeanPropertyRowMapper<>(ListadoVentasDto.class);
+
+        int fila = 0;
+        while (rs.next()) {
+            assertEquals(reflexivo.mapRow(rs, fila), compilado.mapRow(rs, fila));
+            fila++;
+        }
+        assertEquals(3, fila);
+    }
+
+    @Test
+    void resuelveAliasEnMinusculasYValoresNulos() throws Exception {
+        CachedRowSet rs = FilasEnMemoria.crear(1,
+                new String[] {"codpersona", "nombre", "cod_maestro"},
+                new int[] {Types.INTEGER, Types.VARCHAR, Types.INTEGER});
+        rs.next();
+        rs.updateNull(3);
+
+        MaestroCompletoDto dto = MapeadorFilas.de(MaestroCompletoDto.class).mapRow(rs, 0);
+
+        assertEquals(0, dto.getCodPersona());
+        assertEquals("nombre-0", dto.getNombre());
+        assertNull(dto.getCodMaestro());
+    }
+}
@@ -0,0 +1,104 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RespuestaJsonStreamingTest {
+
+    private record Fila(int cod, String nombre) {
+    }
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // ResultSet simulado con "filas" filas: cod = 1..filas, nombre = "p" + cod
+    private static ResultSet resultado(int filas) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        AtomicInteger leidas = new AtomicInteger();
+        when(rs.next()).thenAnswer(i -> leidas.incrementAndGet() <= filas);
+        when(rs.getInt(1)).thenAnswer(i -> leidas.get());
+        when(rs.getString(2)).thenAnswer(i -> "p" + leidas.get());
+        return rs;
+    }
+
+    private long escribir(int filas) throws Exception {
+        RespuestaJsonStreaming salida = new RespuestaJsonStreaming(request, response, new ObjectMapper(),
+                "application/json");
+        long n = salida.filas((rs, i) -> new Fila(rs.getInt(1), rs.getString(2))).extractData(resultado(filas));
+        salida.terminar();
+        return n;
+    }
+
+    @Test
+    void escribeLasFilasComoUnArregloJson() throws Exception {
+        assertEquals(2, escribir(2));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertNull(response.getHeader("Content-Encoding"));
+        assertEquals("[{\"cod\":1,\"nombre\":\"p1\"},{\"cod\":2,\"nombre\":\"p2\"}]", response.getContentAsString());
+    }
+
+    @Test
+    void sinFilasRespondeSinContenido() throws Exception {
+        assertEquals(0, escribir(0));
+
+        assertEquals(204, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void comprimeConGzipSiElClienteLoAcepta() throws Exception {
+        request.addHeader("Accept-Encoding", "gzip, deflate, br");
+
+        assertEquals(3, escribir(3));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeader("Vary"));
+        assertEquals("[{\"cod\":1,\"nombre\":\"p1\"},{\"cod\":2,\"nombre\":\"p2\"},{\"cod\":3,\"nombre\":\"p3\"}]",
+                descomprimir(response.getContentAsByteArray()));
+    }
+
+    @Test
+    void laPrimeraFilaSeEnviaSinEsperarAlResto() throws Exception {
+        RespuestaJsonStreaming salida = new RespuestaJsonStreaming(request, response, new ObjectMapper(),
+                "application/json");
+        salida.filas((rs, i) -> new Fila(rs.getInt(1), rs.getString(2))).extractData(resultado(1));
+
+        assertTrue(response.isCommitted());
+        assertEquals("[{\"cod\":1,\"nombre\":\"p1\"}", response.getContentAsString());
+    }
+
+    @Test
+    void interpretaAcceptEncoding() {
+        assertTrue(RespuestaJsonStreaming.aceptaGzip("gzip"));
+        assertTrue(RespuestaJsonStreaming.aceptaGzip("br, GZIP;q=0.8"));
+        assertFalse(RespuestaJsonStreaming.aceptaGzip("gzip;q=0"));
+        assertFalse(RespuestaJsonStreaming.aceptaGzip("deflate, br"));
+        assertFalse(RespuestaJsonStreaming.aceptaGzip(null));
+    }
+
+    private static String descomprimir(byte[] datos) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(datos))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
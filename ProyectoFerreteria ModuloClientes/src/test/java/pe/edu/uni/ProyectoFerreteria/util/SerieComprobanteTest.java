@@ -0,0 +1,70 @@
+package pe.edu.uni.ProyectoFerreteria.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SerieComprobanteTest {
+
+    @Test
+    void emiteLosBloquesEnOrdenYSaltaEntreEllos() {
+        SerieComprobante serie = new SerieComprobante();
+        assertNull(serie.tomar());
+
+        serie.agregarBloque(1, 1, 3);
+        serie.agregarBloque(2, 201, 202);   // otra instancia reservó 4..200
+        assertEquals(5, serie.disponibles());
+
+        assertEquals(1L, serie.tomar());
+        assertEquals(2L, serie.tomar());
+        assertEquals(3L, serie.tomar());
+        assertEquals(201L, serie.tomar());
+        assertEquals(1, serie.disponibles());
+        assertEquals(202L, serie.tomar());
+        assertNull(serie.tomar());
+    }
+
+    @Test
+    void unNumeroDevueltoSeEmiteAntesQueLosNuevos() {
+        SerieComprobante serie = new SerieComprobante();
+        serie.agregarBloque(1, 10, 20);
+        long a = serie.tomar();
+        long b = serie.tomar();
+        serie.devolver(b);
+        serie.devolver(a);
+
+        assertEquals(10L, serie.tomar());
+        assertEquals(11L, serie.tomar());
+        assertEquals(12L, serie.tomar());
+    }
+
+    @Test
+    void liberarInformaElPrimerNumeroSinUsarDeCadaBloque() {
+        SerieComprobante serie = new SerieComprobante();
+        serie.agregarBloque(7, 1, 10);
+        serie.agregarBloque(8, 11, 20);
+        serie.tomar();
+        serie.tomar();
+
+        List<long[]> liberados = serie.liberar();
+        assertEquals(2, liberados.size());
+        assertArrayEquals(new long[] { 7, 3 }, liberados.get(0));
+        assertArrayEquals(new long[] { 8, 11 }, liberados.get(1));
+        assertEquals(0, serie.disponibles());
+    }
+
+    @Test
+    void soloUnaRecargaALaVez() {
+        SerieComprobante serie = new SerieComprobante();
+        assertTrue(serie.iniciarRecarga());
+        assertFalse(serie.iniciarRecarga());
+        serie.terminarRecarga();
+        assertTrue(serie.iniciarRecarga());
+    }
+}